@@ -33,6 +33,7 @@ import sonia.scm.annotation.ClassSetElement.ClassWithAttributes;
 import sonia.scm.config.ConfigValue;
 import sonia.scm.plugin.PluginAnnotation;
 import sonia.scm.plugin.Requires;
+import sonia.scm.store.QueryIndex;
 
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.Filer;
@@ -69,7 +70,9 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
+import static javax.lang.model.util.ElementFilter.fieldsIn;
 import static javax.lang.model.util.ElementFilter.methodsIn;
 
 
@@ -85,6 +88,8 @@ public final class ScmAnnotationProcessor extends AbstractProcessor {
   private static final String EL_MODULE = "module";
   private static final String EMPTY = "";
   private static final String PROPERTY_VALUE = "yes";
+  private static final String EL_QUERYABLE_TYPE = "queryable-type";
+  private static final String ATTRIBUTE_INDEXES = "indexes";
   private static final Set<String> SUBSCRIBE_ANNOTATIONS =
     ImmutableSet.of(Subscribe.class.getName());
 
@@ -265,9 +270,14 @@ public final class ScmAnnotationProcessor extends AbstractProcessor {
           desc = desc.trim();
         }
 
+        Map<String, String> attributes = getAttributesFromAnnotation(e, annotation);
+        if (EL_QUERYABLE_TYPE.equals(elementName)) {
+          appendQueryIndexes(type, attributes);
+        }
+
         classes.add(
           new ClassWithAttributes(
-            type.getQualifiedName().toString(), desc, requires, getAttributesFromAnnotation(e, annotation)
+            type.getQualifiedName().toString(), desc, requires, attributes
           )
         );
       }
@@ -277,6 +287,19 @@ public final class ScmAnnotationProcessor extends AbstractProcessor {
   }
 
 
+  private void appendQueryIndexes(TypeElement type, Map<String, String> attributes) {
+    String indexes = fieldsIn(processingEnv.getElementUtils().getAllMembers(type))
+      .stream()
+      .filter(field -> field.getAnnotation(QueryIndex.class) != null)
+      .map(field -> field.getSimpleName().toString())
+      .sorted()
+      .collect(Collectors.joining(","));
+
+    if (!indexes.isEmpty()) {
+      attributes.put(ATTRIBUTE_INDEXES, indexes);
+    }
+  }
+
   private boolean isClassOrInterface(Element e) {
     return e.getKind().isClass() || e.getKind().isInterface();
   }
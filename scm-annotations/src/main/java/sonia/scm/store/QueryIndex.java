@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+
+package sonia.scm.store;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a field of a {@link QueryableType} to be indexed by the store. Conditions and orders on indexed fields can be
+ * evaluated by the store without reading every stored object. The store creates the index for the field together with
+ * the parent ids of the queryable type, so that queries of a single parent (for example a single repository) profit
+ * most from the index.
+ * <br/>
+ * Indexes are only supported for fields with simple values (strings, numbers, booleans, enums and dates). Indexes
+ * slow down modifications of the store slightly, so they should only be used for fields that are used in conditions
+ * or orders of frequent queries on large stores.
+ *
+ * @since 3.12.0
+ */
+@Documented
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryIndex {
+}
@@ -28,6 +28,7 @@ import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 import jakarta.xml.bind.annotation.adapters.XmlAdapter;
 import jakarta.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
+import sonia.scm.store.QueryIndex;
 
 import javax.annotation.processing.Generated;
 import javax.annotation.processing.ProcessingEnvironment;
@@ -40,6 +41,7 @@ import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.List;
@@ -53,6 +55,9 @@ class QueryFieldClassCreator {
   private static final String STORE_PACKAGE_NAME = "sonia.scm.store";
   private static final String QUERYABLE_STORE_CLASS_NAME = "QueryableStore";
   private static final String ID_QUERY_FIELD_CLASS_NAME = "IdQueryField";
+  private static final Collection<String> NOT_INDEXABLE_FIELD_CLASSES = List.of(
+    "CollectionQueryField", "CollectionSizeQueryField", "MapQueryField", "MapSizeQueryField"
+  );
 
   private static final FieldInitializer SIMPLE_INITIALIZER = (fieldBuilder, element, fieldClass, fieldName) -> fieldBuilder
     .initializer(
@@ -161,7 +166,16 @@ class QueryFieldClassCreator {
 
   private Stream<FieldSpec> createFieldSpec(TypeElement element, VariableElement field) {
     TypeMirror effectiveFieldType = determineFieldType(field);
-    return createFieldHandler(effectiveFieldType).stream()
+    Collection<QueryFieldHandler> fieldHandlers = createFieldHandler(effectiveFieldType);
+    boolean indexed = field.getAnnotation(QueryIndex.class) != null;
+    if (indexed && !isIndexable(fieldHandlers)) {
+      processingEnv.getMessager().printMessage(
+        Diagnostic.Kind.ERROR,
+        "QueryIndex is not supported for field " + field.getSimpleName() + " of type " + effectiveFieldType,
+        field
+      );
+    }
+    return fieldHandlers.stream()
       .map(queryFieldHandler -> {
         String fieldName = field.getSimpleName().toString();
         String fieldClass = queryFieldHandler.getClazz();
@@ -180,11 +194,19 @@ class QueryFieldClassCreator {
           )
           .addJavadoc("Generated query field to create conditions for field {@link $L#$L} of type {@link $L}.\n", TypeName.get(element.asType()), fieldName, effectiveFieldType)
           .addModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL);
+        if (indexed) {
+          fieldBuilder.addJavadoc("Conditions and orders for this field are backed by an index.\n");
+        }
         queryFieldHandler.getInitializer().initialize(fieldBuilder, element, fieldClass, fieldName);
         return fieldBuilder.build();
       });
   }
 
+  private boolean isIndexable(Collection<QueryFieldHandler> fieldHandlers) {
+    return !fieldHandlers.isEmpty()
+      && fieldHandlers.stream().noneMatch(handler -> NOT_INDEXABLE_FIELD_CLASSES.contains(handler.getClazz()));
+  }
+
   private TypeMirror determineFieldType(VariableElement field) {
     return new AnnotationProcessor().findAnnotation(field, XmlJavaTypeAdapter.class)
       .map(this::determineTypeFromAdapter)
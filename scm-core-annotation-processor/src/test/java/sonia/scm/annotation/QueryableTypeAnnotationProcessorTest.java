@@ -44,6 +44,7 @@ class QueryableTypeAnnotationProcessorTest {
     M("unmapped java util date field"),
     N("static field"),
     O("transient field"),
+    P("indexed field"),
     BSub("fields from super class");
 
     private final String description;
@@ -112,4 +113,15 @@ class QueryableTypeAnnotationProcessorTest {
       .processedWith(new QueryableTypeAnnotationProcessor())
       .failsToCompile();
   }
+
+  @Test
+  void shouldFailForIndexedCollectionField() {
+    JavaFileObject someObject = JavaFileObjects.forResource("sonia/scm/testing/IndexedCollection.java");
+    Truth.assert_()
+      .about(JavaSourcesSubjectFactory.javaSources())
+      .that(List.of(someObject))
+      .processedWith(new QueryableTypeAnnotationProcessor())
+      .failsToCompile()
+      .withErrorContaining("QueryIndex is not supported for field names");
+  }
 }
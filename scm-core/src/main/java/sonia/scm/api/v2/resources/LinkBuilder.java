@@ -20,7 +20,8 @@ import com.google.common.collect.ImmutableList;
 import jakarta.ws.rs.core.UriBuilder;
 
 import java.net.URI;
-import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class is used to create links for JAX-RS resources. Create a new instance specifying all resource classes used
@@ -37,9 +38,24 @@ import java.util.Arrays;
  *     .parameters("param_1", "param_2")
  *     .create();
  * </pre>
+ *
+ * The uri template of each chain of resource methods is resolved only once with {@link UriBuilder} and cached as a
+ * {@link LinkTemplate}, so that later links are created without reflection and template parsing.
  */
 @SuppressWarnings("WeakerAccess") // Non-public will result in IllegalAccessError for plugins
 public class LinkBuilder {
+
+  /**
+   * Templates by the first resource class. A {@link ClassValue} is used, so that the templates do not prevent
+   * classes of plugins from being unloaded.
+   */
+  private static final ClassValue<Map<String, LinkTemplate>> TEMPLATES = new ClassValue<>() {
+    @Override
+    protected Map<String, LinkTemplate> computeValue(Class<?> type) {
+      return new ConcurrentHashMap<>();
+    }
+  };
+
   private final ScmPathInfo pathInfo;
   private final Class[] classes;
   private final ImmutableList<Call> calls;
@@ -62,17 +78,50 @@ public class LinkBuilder {
   }
 
   public URI create() {
-    if (calls.size() < classes.length) {
-      throw new IllegalStateException("not enough methods for all classes");
-    }
+    return pathInfo.getApiRestUri().resolve(URI.create(createRelativeHref()));
+  }
 
+  public String href() {
+    String relativeHref = createRelativeHref();
     URI baseUri = pathInfo.getApiRestUri();
-    URI relativeUri = createRelativeUri();
-    return baseUri.resolve(relativeUri);
+    String base = baseUri.toString();
+    if (canBeAppended(baseUri, base, relativeHref)) {
+      return base.concat(relativeHref);
+    }
+    return baseUri.resolve(URI.create(relativeHref)).toString();
   }
 
-  public String href() {
-    return create().toString();
+  /**
+   * Returns {@code true} if resolving the relative href against the base uri is the same as appending it.
+   */
+  private static boolean canBeAppended(URI baseUri, String base, String relativeHref) {
+    if (!base.endsWith("/") || baseUri.getRawQuery() != null || baseUri.getRawFragment() != null) {
+      return false;
+    }
+    if (relativeHref.startsWith("/")) {
+      return false;
+    }
+    int start = 0;
+    while (start <= relativeHref.length()) {
+      int end = relativeHref.indexOf('/', start);
+      if (end < 0) {
+        end = relativeHref.length();
+      }
+      if (start == 0 && relativeHref.lastIndexOf(':', end - 1) >= 0) {
+        // would be parsed as scheme
+        return false;
+      }
+      if (isDotSegment(relativeHref, start, end)) {
+        return false;
+      }
+      start = end + 1;
+    }
+    return true;
+  }
+
+  private static boolean isDotSegment(String href, int start, int end) {
+    int length = end - start;
+    return (length == 1 || length == 2) && href.charAt(start) == '.' && href.charAt(end - 1) == '.';
   }
 
   private LinkBuilder add(String method, String[] parameters) {
@@ -87,19 +136,50 @@ public class LinkBuilder {
     return new Call(LinkBuilder.this.classes[calls.size()], method, parameters);
   }
 
-  private URI createRelativeUri() {
-    UriBuilder uriBuilder = userUriBuilder();
+  private String createRelativeHref() {
+    if (calls.size() < classes.length) {
+      throw new IllegalStateException("not enough methods for all classes");
+    }
+    return template().expand(concatenatedParameters());
+  }
+
+  private LinkTemplate template() {
+    return TEMPLATES.get(classes[0]).computeIfAbsent(templateKey(), key -> LinkTemplate.parse(createUriBuilder().toTemplate()));
+  }
+
+  private String templateKey() {
+    StringBuilder key = new StringBuilder();
+    for (int i = 0; i < calls.size(); i++) {
+      Call call = calls.get(i);
+      if (i > 0) {
+        key.append('/').append(call.clazz.getName());
+      }
+      key.append('#').append(call.method);
+    }
+    return key.toString();
+  }
+
+  private UriBuilder createUriBuilder() {
+    UriBuilder uriBuilder = UriBuilder.fromResource(classes[0]);
     calls.forEach(call -> uriBuilder.path(call.clazz, call.method));
-    String[] concatenatedParameters = calls
-      .stream()
-      .map(call -> call.parameters)
-      .flatMap(Arrays::stream)
-      .toArray(String[]::new);
-    return uriBuilder.build((Object[]) concatenatedParameters);
+    return uriBuilder;
   }
 
-  private UriBuilder userUriBuilder() {
-    return UriBuilder.fromResource(classes[0]);
+  private String[] concatenatedParameters() {
+    if (calls.size() == 1) {
+      return calls.get(0).parameters;
+    }
+    int count = 0;
+    for (Call call : calls) {
+      count += call.parameters.length;
+    }
+    String[] parameters = new String[count];
+    int index = 0;
+    for (Call call : calls) {
+      System.arraycopy(call.parameters, 0, parameters, index, call.parameters.length);
+      index += call.parameters.length;
+    }
+    return parameters;
   }
 
   public class Parameters {
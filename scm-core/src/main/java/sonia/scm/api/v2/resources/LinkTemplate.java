@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package sonia.scm.api.v2.resources;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiled uri template of a chain of resource methods. The template is parsed once into its literal parts and
+ * variables, so that links can be expanded by appending the encoded parameter values without reflection or template
+ * parsing. Values are assigned to the variables in the order of their first occurrence and encoded as path segment,
+ * like {@link jakarta.ws.rs.core.UriBuilder#build(Object...)} does.
+ */
+final class LinkTemplate {
+
+  private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+  private static final boolean[] UNENCODED = createUnencoded();
+
+  private final String[] literals;
+  private final int[] variables;
+  private final int valueCount;
+  private final int literalLength;
+
+  private LinkTemplate(String[] literals, int[] variables, int valueCount) {
+    this.literals = literals;
+    this.variables = variables;
+    this.valueCount = valueCount;
+    int length = 0;
+    for (String literal : literals) {
+      length += literal.length();
+    }
+    this.literalLength = length;
+  }
+
+  static LinkTemplate parse(String template) {
+    List<String> literals = new ArrayList<>();
+    List<String> names = new ArrayList<>();
+    List<Integer> variables = new ArrayList<>();
+
+    int start = 0;
+    int open = template.indexOf('{');
+    while (open >= 0) {
+      int close = findClosingBrace(template, open);
+      if (close < 0) {
+        break;
+      }
+      literals.add(template.substring(start, open));
+      String name = variableName(template.substring(open + 1, close));
+      int index = names.indexOf(name);
+      if (index < 0) {
+        index = names.size();
+        names.add(name);
+      }
+      variables.add(index);
+      start = close + 1;
+      open = template.indexOf('{', start);
+    }
+    literals.add(template.substring(start));
+
+    return new LinkTemplate(
+      literals.toArray(new String[0]),
+      variables.stream().mapToInt(Integer::intValue).toArray(),
+      names.size()
+    );
+  }
+
+  private static int findClosingBrace(String template, int open) {
+    int depth = 0;
+    for (int i = open; i < template.length(); i++) {
+      char c = template.charAt(i);
+      if (c == '{') {
+        depth++;
+      } else if (c == '}' && --depth == 0) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static String variableName(String variable) {
+    int colon = variable.indexOf(':');
+    return (colon < 0 ? variable : variable.substring(0, colon)).trim();
+  }
+
+  /**
+   * Expands the template with the given values.
+   *
+   * @param values values of the variables in the order of their first occurrence
+   *
+   * @return expanded and encoded template
+   */
+  String expand(String[] values) {
+    if (values.length < valueCount) {
+      throw new IllegalArgumentException("template requires " + valueCount + " values, but got " + values.length);
+    }
+    StringBuilder builder = new StringBuilder(literalLength + 16 * variables.length);
+    for (int i = 0; i < variables.length; i++) {
+      builder.append(literals[i]);
+      String value = values[variables[i]];
+      if (value == null) {
+        throw new IllegalArgumentException("value for template variable must not be null");
+      }
+      appendEncoded(builder, value);
+    }
+    builder.append(literals[variables.length]);
+    return builder.toString();
+  }
+
+  private static void appendEncoded(StringBuilder builder, String value) {
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c < 128 && UNENCODED[c]) {
+        builder.append(c);
+      } else if (c < 128) {
+        appendPercentEncoded(builder, (byte) c);
+      } else {
+        int end = i + 1;
+        while (end < value.length() && value.charAt(end) >= 128) {
+          end++;
+        }
+        for (byte b : value.substring(i, end).getBytes(StandardCharsets.UTF_8)) {
+          appendPercentEncoded(builder, b);
+        }
+        i = end - 1;
+      }
+    }
+  }
+
+  private static void appendPercentEncoded(StringBuilder builder, byte b) {
+    builder.append('%').append(HEX[(b >> 4) & 0x0F]).append(HEX[b & 0x0F]);
+  }
+
+  /**
+   * Characters which are allowed unencoded in a path segment according to rfc 3986: unreserved characters,
+   * sub-delimiters, colon and at sign.
+   */
+  private static boolean[] createUnencoded() {
+    boolean[] unencoded = new boolean[128];
+    for (char c = 'a'; c <= 'z'; c++) {
+      unencoded[c] = true;
+    }
+    for (char c = 'A'; c <= 'Z'; c++) {
+      unencoded[c] = true;
+    }
+    for (char c = '0'; c <= '9'; c++) {
+      unencoded[c] = true;
+    }
+    for (char c : "-._~!$&'()*+,;=:@".toCharArray()) {
+      unencoded[c] = true;
+    }
+    return unencoded;
+  }
+}
@@ -19,6 +19,9 @@ package sonia.scm.cache;
 
 import com.google.common.base.Predicate;
 
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
 /**
  * The main interface for the cache.
  * Provides methods to add, access, and remove entries from a cache.
@@ -92,6 +95,66 @@ public interface Cache<K, V> extends org.apache.shiro.cache.Cache<K, V> {
    */
   V get(K key);
 
+  /**
+   * Returns the element with the specified key. If the cache contains no
+   * element for the key, the element is computed with the given loader and
+   * stored in the cache. Implementations should guarantee that concurrent calls
+   * for the same key invoke the loader only once, while the other callers wait
+   * for its result. If the loader returns null, nothing is stored and null is
+   * returned. Exceptions thrown by the loader are passed to the caller.
+   *
+   * The default implementation is not atomic, it only combines {@link #get(Object)}
+   * and {@link #put(Object, Object)}.
+   *
+   * @param key key of the cached element
+   * @param loader function to compute the element, if it is not cached
+   *
+   * @return the cached or loaded element or null
+   *
+   * @since 3.12.0
+   */
+  default V get(K key, Function<K, V> loader) {
+    V value = get(key);
+    if (value == null) {
+      value = loader.apply(key);
+      if (value != null) {
+        put(key, value);
+      }
+    }
+    return value;
+  }
+
+  /**
+   * Replaces the element with the specified key with the result of the given
+   * function, if the cache contains an element for the key. If the function
+   * returns null, the element is removed. Implementations should apply the
+   * function atomically, so that concurrent updates of the same key are not
+   * lost.
+   *
+   * The default implementation is not atomic, it only combines {@link #get(Object)}
+   * with {@link #put(Object, Object)} or {@link #remove(Object)}.
+   *
+   * @param key key of the cached element
+   * @param remappingFunction function to compute the new element from the cached one
+   *
+   * @return the new element or null
+   *
+   * @since 3.12.0
+   */
+  default V computeIfPresent(K key, BiFunction<K, V, V> remappingFunction) {
+    V value = get(key);
+    if (value == null) {
+      return null;
+    }
+    V newValue = remappingFunction.apply(key, value);
+    if (newValue != null) {
+      put(key, newValue);
+    } else {
+      remove(key);
+    }
+    return newValue;
+  }
+
   /**
    * Returns performance statistics of the cache or null if the cache does not
    * support statistics. The returned statistic is a snapshot of the current
@@ -31,6 +31,12 @@ public final class CacheStatistics {
 
   private final long missCount;
 
+  private final long loadSuccessCount;
+
+  private final long loadExceptionCount;
+
+  private final long totalLoadTime;
+
   /**
    * name of cache
    */
@@ -44,9 +50,28 @@ public final class CacheStatistics {
    * @param missCount miss count
    */
   public CacheStatistics(String name, long hitCount, long missCount) {
+    this(name, hitCount, missCount, 0, 0, 0);
+  }
+
+  /**
+   * Constructs a new performance statistic for a {@link Cache}, which
+   * includes the statistics of {@link Cache#get(Object, java.util.function.Function)}.
+   *
+   * @param name               name of the cache
+   * @param hitCount           hit count
+   * @param missCount          miss count
+   * @param loadSuccessCount   number of successful loads
+   * @param loadExceptionCount number of loads which have thrown an exception
+   * @param totalLoadTime      total time spent loading in nanoseconds
+   * @since 3.12.0
+   */
+  public CacheStatistics(String name, long hitCount, long missCount, long loadSuccessCount, long loadExceptionCount, long totalLoadTime) {
     this.name = name;
     this.hitCount = hitCount;
     this.missCount = missCount;
+    this.loadSuccessCount = loadSuccessCount;
+    this.loadExceptionCount = loadExceptionCount;
+    this.totalLoadTime = totalLoadTime;
   }
 
 
@@ -65,13 +90,16 @@ public final class CacheStatistics {
 
     return Objects.equal(name, other.name)
       && Objects.equal(hitCount, other.hitCount)
-      && Objects.equal(missCount, other.missCount);
+      && Objects.equal(missCount, other.missCount)
+      && Objects.equal(loadSuccessCount, other.loadSuccessCount)
+      && Objects.equal(loadExceptionCount, other.loadExceptionCount)
+      && Objects.equal(totalLoadTime, other.totalLoadTime);
   }
 
  
   @Override
   public int hashCode() {
-    return Objects.hashCode(name, hitCount, missCount);
+    return Objects.hashCode(name, hitCount, missCount, loadSuccessCount, loadExceptionCount, totalLoadTime);
   }
 
  
@@ -82,6 +110,9 @@ public final class CacheStatistics {
       .add("name", name)
       .add("hitCount", hitCount)
       .add("missCount", missCount)
+      .add("loadSuccessCount", loadSuccessCount)
+      .add("loadExceptionCount", loadExceptionCount)
+      .add("totalLoadTime", totalLoadTime)
       .toString();
     //J+
   }
@@ -117,6 +148,55 @@ public final class CacheStatistics {
     return ratio(missCount);
   }
 
+  /**
+   * Returns the number of times a missing element was loaded successfully.
+   *
+   * @since 3.12.0
+   */
+  public long getLoadSuccessCount() {
+    return loadSuccessCount;
+  }
+
+  /**
+   * Returns the number of times the loading of a missing element has thrown an exception.
+   *
+   * @since 3.12.0
+   */
+  public long getLoadExceptionCount() {
+    return loadExceptionCount;
+  }
+
+  /**
+   * Returns the total number of loads, this includes successful and failed loads.
+   *
+   * @since 3.12.0
+   */
+  public long getLoadCount() {
+    return loadSuccessCount + loadExceptionCount;
+  }
+
+  /**
+   * Returns the total time in nanoseconds spent loading missing elements.
+   *
+   * @since 3.12.0
+   */
+  public long getTotalLoadTime() {
+    return totalLoadTime;
+  }
+
+  /**
+   * Returns the average time in nanoseconds spent loading a missing element.
+   *
+   * @since 3.12.0
+   */
+  public double getAverageLoadPenalty() {
+    long loadCount = getLoadCount();
+
+    return (loadCount == 0)
+      ? 0.0
+      : (double) totalLoadTime / loadCount;
+  }
+
   /**
    * Returns name of the cache.
    */
@@ -39,10 +39,22 @@ public class QueryableTypeDescriptor extends NamedClassElement {
 
   private IdGenerator idGenerator;
 
+  @XmlElement(name = "indexes")
+  @XmlJavaTypeAdapter(XmlArrayStringAdapter.class)
+  private String[] indexes;
+
   public QueryableTypeDescriptor(String name, String clazz, String[] types, IdGenerator idGenerator) {
+    this(name, clazz, types, idGenerator, new String[0]);
+  }
+
+  /**
+   * @since 3.12.0
+   */
+  public QueryableTypeDescriptor(String name, String clazz, String[] types, IdGenerator idGenerator, String[] indexes) {
     super(name, clazz);
     this.types = types;
     this.idGenerator = idGenerator;
+    this.indexes = indexes;
   }
 
   public String[] getTypes() {
@@ -52,4 +64,13 @@ public class QueryableTypeDescriptor extends NamedClassElement {
   public IdGenerator getIdGenerator() {
     return idGenerator == null ? IdGenerator.DEFAULT : idGenerator;
   }
+
+  /**
+   * Returns the names of the fields annotated with {@link sonia.scm.store.QueryIndex}.
+   *
+   * @since 3.12.0
+   */
+  public String[] getIndexes() {
+    return indexes == null ? new String[0] : indexes;
+  }
 }
@@ -20,6 +20,10 @@ package sonia.scm.repository;
 import com.google.common.base.Predicate;
 
 /**
+ * Matches all {@link RepositoryCacheKey}s of a single repository. Caches may
+ * use the repository id of the predicate to remove the matching keys without
+ * evaluating the predicate for every key.
+ *
  * @since 1.17
  */
 public class RepositoryCacheKeyPredicate<T extends RepositoryCacheKey>
@@ -34,6 +38,16 @@ public class RepositoryCacheKeyPredicate<T extends RepositoryCacheKey>
 
 
 
+  /**
+   * Returns the id of the repository whose keys are matched.
+   *
+   * @since 3.12.0
+   */
+  public String getRepositoryId()
+  {
+    return repositoryId;
+  }
+
   @Override
   public boolean apply(T item)
   {
@@ -19,6 +19,9 @@ package sonia.scm.repository;
 
 import sonia.scm.GenericDAO;
 
+import java.util.Collection;
+import java.util.LinkedHashSet;
+
 /**
  * Data access object for repositories. This class should only used by the
  * {@link RepositoryManager}. Plugins and other classes should use the
@@ -48,4 +51,44 @@ public interface RepositoryDAO extends GenericDAO<Repository>
    * @return repository with the specified namespace and name or null
    */
   Repository get(NamespaceAndName namespaceAndName);
+
+  /**
+   * Returns all repositories of the given namespace.
+   *
+   * @param namespace namespace of the repositories
+   * @return all repositories of the namespace
+   * @since 3.12.0
+   */
+  default Collection<Repository> getAllInNamespace(String namespace) {
+    return getAll().stream()
+      .filter(repository -> namespace.equals(repository.getNamespace()))
+      .toList();
+  }
+
+  /**
+   * Returns all repositories of the given type.
+   *
+   * @param type type of the repositories, e.g. git
+   * @return all repositories of the type
+   * @since 3.12.0
+   */
+  default Collection<Repository> getAllOfType(String type) {
+    return getAll().stream()
+      .filter(repository -> type.equals(repository.getType()))
+      .toList();
+  }
+
+  /**
+   * Returns the namespaces of all repositories.
+   *
+   * @return namespaces of all repositories
+   * @since 3.12.0
+   */
+  default Collection<String> getNamespaces() {
+    Collection<String> namespaces = new LinkedHashSet<>();
+    for (Repository repository : getAll()) {
+      namespaces.add(repository.getNamespace());
+    }
+    return namespaces;
+  }
 }
@@ -20,7 +20,9 @@ import sonia.scm.TypeManager;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * The central class for managing {@link Repository} objects.
@@ -83,6 +85,20 @@ public interface RepositoryManager
    */
   Collection<String> getAllNamespaces();
 
+  /**
+   * Returns all repositories of the given namespace, which match the given filter and which can be read by the
+   * current user.
+   *
+   * @param namespace namespace of the repositories
+   * @param filter filter for the repositories
+   * @param comparator comparator to sort the repositories or {@code null}
+   * @return all matching repositories of the namespace
+   * @since 3.12.0
+   */
+  default Collection<Repository> getAllInNamespace(String namespace, Predicate<Repository> filter, Comparator<Repository> comparator) {
+    return getAll(repository -> namespace.equals(repository.getNamespace()) && filter.test(repository), comparator);
+  }
+
 
   /**
    * Creates a new repository and afterwards executes the logic from the afterCreation.
@@ -22,6 +22,8 @@ import sonia.scm.Type;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.function.Predicate;
 
 /**
  * Decorator for {@link RepositoryManager}.
@@ -94,6 +96,11 @@ public class RepositoryManagerDecorator
     return decorated.getAllNamespaces();
   }
 
+  @Override
+  public Collection<Repository> getAllInNamespace(String namespace, Predicate<Repository> filter, Comparator<Repository> comparator) {
+    return decorated.getAllInNamespace(namespace, filter, comparator);
+  }
+
   @Override
   public void archive(Repository repository) {
     decorated.archive(repository);
@@ -147,26 +147,10 @@ public final class BlameCommandBuilder
     {
       CacheKey key = new CacheKey(repository, requestClone);
 
-      result = cache.get(key);
-
-      if (result == null)
-      {
-        if (logger.isDebugEnabled())
-        {
-          logger.debug("create blame for {}", requestClone);
-        }
-
-        result = blameCommand.getBlameResult(requestClone);
-
-        if (result != null)
-        {
-          cache.put(key, result);
-        }
-      }
-      else if (logger.isDebugEnabled())
-      {
-        logger.debug("retrive blame from cache for {}", requestClone);
-      }
+      result = CommandResultCache.get(cache, key, () -> {
+        logger.debug("create blame for {}", requestClone);
+        return blameCommand.getBlameResult(requestClone);
+      });
     }
 
     if (!disablePreProcessors && (result != null))
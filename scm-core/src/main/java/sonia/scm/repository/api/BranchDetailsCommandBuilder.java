@@ -61,15 +61,10 @@ public final class BranchDetailsCommandBuilder {
     RepositoryPermissions.read(repository).check();
     BranchDetailsCommandRequest branchDetailsCommandRequest = new BranchDetailsCommandRequest();
     branchDetailsCommandRequest.setBranchName(branchName);
-    BranchDetailsCommandResult cachedResult = cache.get(createCacheKey(branchName));
-    if (cachedResult != null) {
-      LOG.debug("got result from cache for repository {} and branch {}", repository, branchName);
-      return cachedResult;
-    }
-
-    BranchDetailsCommandResult result = command.execute(branchDetailsCommandRequest);
-    cache.put(createCacheKey(branchName), result);
-    return result;
+    return cache.get(createCacheKey(branchName), key -> {
+      LOG.debug("compute branch details for repository {} and branch {}", repository, branchName);
+      return command.execute(branchDetailsCommandRequest);
+    });
   }
 
   private CacheKey createCacheKey(String branchName) {
@@ -104,23 +104,10 @@ public final class BranchesCommandBuilder
     {
       CacheKey key = new CacheKey(repository);
 
-      branches = cache.get(key);
-
-      if (branches == null)
-      {
-        if (logger.isDebugEnabled())
-        {
-          logger.debug("get branches for repository {}", repository);
-        }
-
-        branches = getBranchesFromCommand();
-
-        cache.put(key, branches);
-      }
-      else if (logger.isDebugEnabled())
-      {
-        logger.debug("get branches for repository {} from cache", repository);
-      }
+      branches = CommandResultCache.get(cache, key, () -> {
+        logger.debug("get branches for repository {}", repository);
+        return getBranchesFromCommand();
+      });
     }
 
     return branches;
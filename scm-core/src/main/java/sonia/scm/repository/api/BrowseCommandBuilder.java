@@ -137,26 +137,10 @@ public final class BrowseCommandBuilder
     {
       CacheKey key = new CacheKey(repository, request);
 
-      result = cache.get(key);
-
-      if (result == null)
-      {
-        if (logger.isDebugEnabled())
-        {
-          logger.debug("create browser result for {}", request);
-        }
-
-        result = computeBrowserResult();
-
-        if (result != null)
-        {
-          cache.put(key, result);
-        }
-      }
-      else if (logger.isDebugEnabled())
-      {
-        logger.debug("retrieve browser result from cache for {}", request);
-      }
+      result = CommandResultCache.get(cache, key, () -> {
+        logger.debug("create browser result for {}", request);
+        return computeBrowserResult();
+      });
     }
 
     if (!disablePreProcessors && (result != null))
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+
+package sonia.scm.repository.api;
+
+import sonia.scm.cache.Cache;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Loads command results through {@link Cache#get(Object, java.util.function.Function)},
+ * so that concurrent requests for the same key compute the result only once.
+ * The {@link IOException} of the command is tunneled through the cache and
+ * thrown again to the caller.
+ */
+final class CommandResultCache {
+
+  private CommandResultCache() {
+  }
+
+  static <K, V> V get(Cache<K, V> cache, K key, Computation<V> computation) throws IOException {
+    try {
+      return cache.get(key, k -> {
+        try {
+          return computation.compute();
+        } catch (IOException ex) {
+          throw new UncheckedIOException(ex);
+        }
+      });
+    } catch (UncheckedIOException ex) {
+      throw ex.getCause();
+    }
+  }
+
+  @FunctionalInterface
+  interface Computation<V> {
+    V compute() throws IOException;
+  }
+}
@@ -170,32 +170,13 @@ public final class LogCommandBuilder
     else
     {
       CacheKey key = new CacheKey(repository, id);
-      ChangesetPagingResult cpr = cache.get(key);
+      ChangesetPagingResult cpr = CommandResultCache.get(cache, key, () -> {
+        logger.debug("get changeset for {}", id);
+        Changeset loaded = logCommand.getChangeset(id, request);
+        return loaded != null ? new ChangesetPagingResult(1, ImmutableList.of(loaded)) : null;
+      });
 
-      if (cpr == null)
-      {
-        if (logger.isDebugEnabled())
-        {
-          logger.debug("get changeset for {}", id);
-        }
-
-        changeset = logCommand.getChangeset(id, request);
-
-        if (changeset != null)
-        {
-          cpr = new ChangesetPagingResult(1, ImmutableList.of(changeset));
-          cache.put(key, cpr);
-        }
-      }
-      else
-      {
-        if (logger.isDebugEnabled())
-        {
-          logger.debug("get changeset {} from cache", id);
-        }
-
-        changeset = cpr.iterator().next();
-      }
+      changeset = cpr != null ? cpr.iterator().next() : null;
     }
 
     if (!disablePreProcessors && (changeset != null))
@@ -230,26 +211,10 @@ public final class LogCommandBuilder
     {
       CacheKey key = new CacheKey(repository, request);
 
-      cpr = cache.get(key);
-
-      if (cpr == null)
-      {
-        if (logger.isDebugEnabled())
-        {
-          logger.debug("get changesets for {}", request);
-        }
-
-        cpr = logCommand.getChangesets(request);
-
-        if (cpr != null)
-        {
-          cache.put(key, cpr);
-        }
-      }
-      else if (logger.isDebugEnabled())
-      {
-        logger.debug("get changesets from cache for {}", request);
-      }
+      cpr = CommandResultCache.get(cache, key, () -> {
+        logger.debug("get changesets for {}", request);
+        return logCommand.getChangesets(request);
+      });
     }
 
     if (!disablePreProcessors && (cpr != null))
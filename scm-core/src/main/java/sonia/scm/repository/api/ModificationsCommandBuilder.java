@@ -111,17 +111,10 @@ public final class ModificationsCommandBuilder {
       modifications = modificationsCommand.getModifications(request);
     } else {
       ModificationsCommandBuilder.CacheKey key = new ModificationsCommandBuilder.CacheKey(repository.getId(), request);
-      if (cache.contains(key)) {
-        modifications = cache.get(key);
-        log.debug("Get modifications for {} from the cache", request);
-      } else {
+      modifications = CommandResultCache.get(cache, key, () -> {
         log.debug("Get modifications for {} with enabled cache", request);
-        modifications = modificationsCommand.getModifications(request);
-        if (modifications != null) {
-          cache.put(key, modifications);
-          log.debug("Modifications for {} added to the cache with key {}", request, key);
-        }
-      }
+        return modificationsCommand.getModifications(request);
+      });
     }
     if (!disablePreProcessors && (modifications != null)) {
       preProcessorUtil.prepareForReturn(repository, modifications);
@@ -95,15 +95,10 @@ public final class TagsCommandBuilder {
       return getTagsFromCommand();
     } else {
       CacheKey key = new CacheKey(repository);
-      Tags tags = cache.get(key);
-      if (tags == null) {
+      return CommandResultCache.get(cache, key, () -> {
         logger.debug("get tags for repository {}", repository);
-        tags = getTagsFromCommand();
-        cache.put(key, tags);
-      } else {
-        logger.debug("get tags for repository {} from cache", repository);
-      }
-      return tags;
+        return getTagsFromCommand();
+      });
     }
   }
 
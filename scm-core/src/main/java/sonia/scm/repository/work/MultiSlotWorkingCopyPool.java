@@ -0,0 +1,548 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+
+package sonia.scm.repository.work;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Stopwatch;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sonia.scm.config.ConfigValue;
+import sonia.scm.util.IOUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.DosFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+
+/**
+ * A {@link WorkingCopyPool} which keeps several working copies (slots) per repository, so that parallel
+ * modifications of the same repository do not have to wait for each other.
+ * <br>
+ * A request takes an idle slot of the repository and reclaims it. If there is no idle slot, a new one is
+ * initialized as long as the repository has less than <code>workingCopyPoolMaxSlots</code> slots. Otherwise the
+ * request waits until another request closes its working copy. The time spent waiting is recorded per repository
+ * with the timer <code>scm.workingcopy.pool.wait</code>.
+ * <br>
+ * The pool observes the demand of each repository, i.e. the maximum number of parallel requests. Once parallel
+ * requests have been observed, the pool keeps one slot more than the demand ready. When a slot is returned and the
+ * repository has fewer slots than that, the slot is copied in the background to pre-warm another one. Files without
+ * write permission, like the immutable objects of git or the pristine files of subversion, are hard linked and all
+ * other files are copied, which is much cheaper than a new clone. A background task periodically removes slots
+ * which exceed the demand and have not been used for <code>workingCopyPoolIdleTimeout</code> minutes. The total number of idle slots is limited by
+ * <code>workingCopyPoolSize</code>; if it is exceeded, the least recently used slot is removed.
+ * <br>
+ * The usage of this pool has to be enabled by setting the system property `scm.workingCopyPoolStrategy`
+ * to 'sonia.scm.repository.work.MultiSlotWorkingCopyPool'.
+ *
+ * @since 3.12.0
+ */
+@Singleton
+public class MultiSlotWorkingCopyPool implements WorkingCopyPool {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MultiSlotWorkingCopyPool.class);
+
+  private static final long CLEANUP_INTERVAL_SECONDS = 60;
+
+  private final WorkdirProvider workdirProvider;
+  private final MeterRegistry meterRegistry;
+  private final Executor executor;
+  private final Clock clock;
+  private final int poolSize;
+  private final int maxSlots;
+  private final Duration idleTimeout;
+
+  private final Lock lock = new ReentrantLock();
+  private final Map<String, Slots> repositories = new HashMap<>();
+  private int idleCount;
+
+  private final Counter cacheHitCounter;
+  private final Counter cacheMissCounter;
+  private final Counter reclaimFailureCounter;
+  private final Counter overflowCounter;
+  private final Counter prewarmCounter;
+  private final Timer reclaimTimer;
+  private final Timer initializeTimer;
+  private final Timer copyTimer;
+  private final Timer deleteTimer;
+
+  @Inject
+  public MultiSlotWorkingCopyPool(
+    @ConfigValue(key = "workingCopyPoolSize", defaultValue = "5", description = "Amount of cached working copies") Integer poolSize,
+    @ConfigValue(key = "workingCopyPoolMaxSlots", defaultValue = "3", description = "Maximum amount of working copies per repository") Integer maxSlots,
+    @ConfigValue(key = "workingCopyPoolIdleTimeout", defaultValue = "30", description = "Minutes after which unused working copies exceeding the demand are removed") Integer idleTimeout,
+    WorkdirProvider workdirProvider,
+    MeterRegistry meterRegistry
+  ) {
+    this(workdirProvider, meterRegistry, createExecutor(), Clock.systemUTC(), poolSize, maxSlots, Duration.ofMinutes(idleTimeout));
+  }
+
+  @VisibleForTesting
+  MultiSlotWorkingCopyPool(WorkdirProvider workdirProvider, MeterRegistry meterRegistry, Executor executor, Clock clock, int poolSize, int maxSlots, Duration idleTimeout) {
+    this.workdirProvider = workdirProvider;
+    this.meterRegistry = meterRegistry;
+    this.executor = executor;
+    this.clock = clock;
+    this.poolSize = poolSize;
+    this.maxSlots = Math.max(1, maxSlots);
+    this.idleTimeout = idleTimeout;
+    cacheHitCounter = Counter
+      .builder("scm.workingcopy.pool.cache.hit")
+      .description("The amount of cache hits for the working copy pool")
+      .register(meterRegistry);
+    cacheMissCounter = Counter
+      .builder("scm.workingcopy.pool.cache.miss")
+      .description("The amount of cache misses for the working copy pool")
+      .register(meterRegistry);
+    reclaimFailureCounter = Counter
+      .builder("scm.workingcopy.pool.reclaim.failure")
+      .description("The amount of failed reclaim processes from pool")
+      .register(meterRegistry);
+    overflowCounter = Counter
+      .builder("scm.workingcopy.pool.cache.overflow")
+      .description("The amount of discarded working copies from pool due to cache overflow")
+      .register(meterRegistry);
+    prewarmCounter = Counter
+      .builder("scm.workingcopy.pool.prewarm")
+      .description("The amount of working copies pre-warmed as copy of an existing working copy")
+      .register(meterRegistry);
+    reclaimTimer = Timer
+      .builder("scm.workingcopy.pool.reclaim.duration")
+      .description("Duration of reclaiming existing working copies in pool")
+      .register(meterRegistry);
+    initializeTimer = Timer
+      .builder("scm.workingcopy.pool.initialize.duration")
+      .description("Duration of initialization of working copies in pool")
+      .register(meterRegistry);
+    copyTimer = Timer
+      .builder("scm.workingcopy.pool.copy.duration")
+      .description("Duration of copying existing working copies to pre-warm new ones")
+      .register(meterRegistry);
+    deleteTimer = Timer
+      .builder("scm.workingcopy.pool.delete.duration")
+      .description("Duration of deletes of working copies from pool")
+      .register(meterRegistry);
+    if (executor instanceof ScheduledExecutorService scheduler) {
+      scheduler.scheduleWithFixedDelay(this::cleanup, CLEANUP_INTERVAL_SECONDS, CLEANUP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+  }
+
+  private static ScheduledExecutorService createExecutor() {
+    return Executors.newSingleThreadScheduledExecutor(
+      new ThreadFactoryBuilder()
+        .setNameFormat("MultiSlotWorkingCopyPool-%d")
+        .setDaemon(true)
+        .build()
+    );
+  }
+
+  @Override
+  public <R, W> WorkingCopy<R, W> getWorkingCopy(SimpleWorkingCopyFactory<R, W, ?>.WorkingCopyContext context) {
+    String repositoryId = context.getScmRepository().getId();
+    File idleWorkdir = acquire(repositoryId);
+    try {
+      if (idleWorkdir != null) {
+        Optional<WorkingCopy<R, W>> reclaimedWorkingCopy = tryToReclaim(context, idleWorkdir);
+        if (reclaimedWorkingCopy.isPresent()) {
+          cacheHitCounter.increment();
+          return reclaimedWorkingCopy.get();
+        }
+      } else {
+        cacheMissCounter.increment();
+      }
+      return createNewWorkingCopy(context);
+    } catch (RuntimeException e) {
+      release(repositoryId, null);
+      throw e;
+    }
+  }
+
+  /**
+   * Reserves a slot for the repository and returns its directory, if an idle slot was available. If
+   * <code>null</code> is returned, a new slot has to be initialized.
+   */
+  private File acquire(String repositoryId) {
+    lock.lock();
+    try {
+      Slots slots = repositories.computeIfAbsent(repositoryId, Slots::new);
+      slots.waiting++;
+      slots.recordDemand();
+      long start = System.nanoTime();
+      try {
+        while (slots.idle.isEmpty() && !slots.canGrow()) {
+          slots.available.awaitUninterruptibly();
+        }
+      } finally {
+        slots.waiting--;
+        slots.waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      }
+      slots.inUse++;
+      IdleSlot idleSlot = slots.idle.pollFirst();
+      if (idleSlot != null) {
+        idleCount--;
+        return idleSlot.directory;
+      }
+      return null;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private <R, W> Optional<WorkingCopy<R, W>> tryToReclaim(SimpleWorkingCopyFactory<R, W, ?>.WorkingCopyContext workingCopyContext, File existingWorkdir) {
+    return reclaimTimer.record(() -> {
+      Stopwatch stopwatch = Stopwatch.createStarted();
+      try {
+        WorkingCopy<R, W> reclaimed = workingCopyContext.reclaim(existingWorkdir);
+        LOG.debug("reclaimed workdir for {} in path {} in {}", workingCopyContext.getScmRepository(), existingWorkdir, stopwatch.stop());
+        return of(reclaimed);
+      } catch (Exception e) {
+        LOG.debug("failed to reclaim workdir for {} in path {} in {}", workingCopyContext.getScmRepository(), existingWorkdir, stopwatch.stop(), e);
+        deleteWorkdir(existingWorkdir);
+        reclaimFailureCounter.increment();
+        return empty();
+      }
+    });
+  }
+
+  private <R, W> WorkingCopy<R, W> createNewWorkingCopy(SimpleWorkingCopyFactory<R, W, ?>.WorkingCopyContext workingCopyContext) {
+    return initializeTimer.record(() -> {
+      Stopwatch stopwatch = Stopwatch.createStarted();
+      File newWorkdir = workdirProvider.createNewWorkdir(workingCopyContext.getScmRepository().getId());
+      WorkingCopy<R, W> parentAndClone = workingCopyContext.initialize(newWorkdir);
+      LOG.debug("initialized new workdir for {} in path {} in {}", workingCopyContext.getScmRepository(), newWorkdir, stopwatch.stop());
+      return parentAndClone;
+    });
+  }
+
+  @Override
+  public void contextClosed(SimpleWorkingCopyFactory<?, ?, ?>.WorkingCopyContext workingCopyContext, File workdir) {
+    release(workingCopyContext.getScmRepository().getId(), workdir);
+  }
+
+  private void release(String repositoryId, File workdir) {
+    List<File> removed = new ArrayList<>();
+    lock.lock();
+    try {
+      Slots slots = repositories.get(repositoryId);
+      if (slots != null) {
+        slots.inUse--;
+        if (workdir != null && poolSize > 0) {
+          slots.idle.addFirst(new IdleSlot(workdir, clock.instant()));
+          idleCount++;
+          removeOverflow(removed);
+          prewarmIfRequired(slots);
+        } else if (workdir != null) {
+          removed.add(workdir);
+        }
+        slots.available.signal();
+      } else if (workdir != null) {
+        removed.add(workdir);
+      }
+    } finally {
+      lock.unlock();
+    }
+    deleteInBackground(removed);
+  }
+
+  private void prewarmIfRequired(Slots slots) {
+    if (slots.copying == 0
+      && !slots.idle.isEmpty()
+      && slots.total() < slots.target()
+      && idleCount < poolSize) {
+      IdleSlot source = slots.idle.pollFirst();
+      idleCount--;
+      slots.copying++;
+      LOG.debug("pre-warm new workdir for repository {} from {}", slots.repositoryId, source.directory);
+      try {
+        executor.execute(() -> prewarm(slots, source));
+      } catch (RejectedExecutionException e) {
+        LOG.debug("could not pre-warm workdir, pool is shut down", e);
+        slots.copying--;
+        slots.idle.addFirst(source);
+        idleCount++;
+      }
+    }
+  }
+
+  private void prewarm(Slots slots, IdleSlot source) {
+    File copy = null;
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    try {
+      copy = workdirProvider.createNewWorkdir(slots.repositoryId);
+      copy(source.directory.toPath(), copy.toPath());
+      copyTimer.record(stopwatch.elapsed());
+      prewarmCounter.increment();
+      LOG.debug("copied workdir {} to {} in {}", source.directory, copy, stopwatch.stop());
+    } catch (Exception e) {
+      LOG.warn("failed to copy workdir {} for repository {}", source.directory, slots.repositoryId, e);
+      if (copy != null) {
+        deleteWorkdir(copy);
+        copy = null;
+      }
+    }
+
+    List<File> removed = new ArrayList<>();
+    lock.lock();
+    try {
+      slots.copying--;
+      slots.idle.addFirst(source);
+      idleCount++;
+      if (copy != null && slots.total() < maxSlots) {
+        slots.idle.addFirst(new IdleSlot(copy, clock.instant()));
+        idleCount++;
+      } else if (copy != null) {
+        LOG.debug("drop copied workdir {}, because repository {} has grown to the maximum in the meantime", copy, slots.repositoryId);
+        removed.add(copy);
+      }
+      removeOverflow(removed);
+      slots.available.signalAll();
+    } finally {
+      lock.unlock();
+    }
+    removed.forEach(this::deleteWorkdir);
+  }
+
+  private void removeOverflow(List<File> removed) {
+    while (idleCount > poolSize) {
+      Slots leastRecentlyUsed = null;
+      for (Slots slots : repositories.values()) {
+        IdleSlot last = slots.idle.peekLast();
+        if (last != null && (leastRecentlyUsed == null || last.since.isBefore(leastRecentlyUsed.idle.getLast().since))) {
+          leastRecentlyUsed = slots;
+        }
+      }
+      if (leastRecentlyUsed == null) {
+        return;
+      }
+      removed.add(leastRecentlyUsed.idle.pollLast().directory);
+      idleCount--;
+      overflowCounter.increment();
+    }
+  }
+
+  /**
+   * Removes idle slots, which exceed the target size of their repository and which have not been used for the idle
+   * timeout. The demand is the maximum of parallel requests within the current and the previous cleanup interval.
+   */
+  @VisibleForTesting
+  void cleanup() {
+    List<File> removed = new ArrayList<>();
+    lock.lock();
+    try {
+      Instant threshold = clock.instant().minus(idleTimeout);
+      Iterator<Slots> iterator = repositories.values().iterator();
+      while (iterator.hasNext()) {
+        Slots slots = iterator.next();
+        slots.nextWindow();
+        while (slots.total() > slots.target() && !slots.idle.isEmpty() && slots.idle.getLast().since.isBefore(threshold)) {
+          removed.add(slots.idle.pollLast().directory);
+          idleCount--;
+        }
+        if (slots.isUnused()) {
+          iterator.remove();
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+    removed.forEach(this::deleteWorkdir);
+  }
+
+  @Override
+  public void shutdown() {
+    if (executor instanceof ExecutorService service) {
+      service.shutdownNow();
+    }
+    List<File> removed = new ArrayList<>();
+    lock.lock();
+    try {
+      for (Slots slots : repositories.values()) {
+        slots.idle.forEach(slot -> removed.add(slot.directory));
+        slots.idle.clear();
+      }
+      idleCount = 0;
+    } finally {
+      lock.unlock();
+    }
+    removed.parallelStream().forEach(this::deleteWorkdir);
+  }
+
+  private void deleteInBackground(List<File> workdirs) {
+    for (File workdir : workdirs) {
+      try {
+        executor.execute(() -> deleteWorkdir(workdir));
+      } catch (RejectedExecutionException e) {
+        deleteWorkdir(workdir);
+      }
+    }
+  }
+
+  private void deleteWorkdir(File workdir) {
+    LOG.debug("deleting old workdir {}", workdir);
+    if (workdir.exists()) {
+      deleteTimer.record(() -> IOUtil.deleteSilently(workdir));
+    }
+  }
+
+  @VisibleForTesting
+  static void copy(Path source, Path target) throws IOException {
+    Files.walkFileTree(source, new SimpleFileVisitor<>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+        Files.createDirectories(target.resolve(source.relativize(dir)));
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+        Path targetFile = target.resolve(source.relativize(file));
+        if (!attrs.isRegularFile() || !isReadOnly(file) || !tryToLink(file, targetFile)) {
+          Files.copy(file, targetFile, StandardCopyOption.COPY_ATTRIBUTES, LinkOption.NOFOLLOW_LINKS);
+        }
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  private static boolean isReadOnly(Path file) throws IOException {
+    PosixFileAttributeView posix = Files.getFileAttributeView(file, PosixFileAttributeView.class, LinkOption.NOFOLLOW_LINKS);
+    if (posix != null) {
+      return !posix.readAttributes().permissions().contains(PosixFilePermission.OWNER_WRITE);
+    }
+    DosFileAttributeView dos = Files.getFileAttributeView(file, DosFileAttributeView.class, LinkOption.NOFOLLOW_LINKS);
+    return dos != null && dos.readAttributes().isReadOnly();
+  }
+
+  private static boolean tryToLink(Path file, Path link) {
+    try {
+      Files.createLink(link, file);
+      return true;
+    } catch (IOException | UnsupportedOperationException e) {
+      LOG.trace("could not create hard link for {}, falling back to copy", file, e);
+      return false;
+    }
+  }
+
+  private final class Slots {
+
+    private final String repositoryId;
+    private final Deque<IdleSlot> idle = new ArrayDeque<>();
+    private final Condition available = lock.newCondition();
+    private final Timer waitTimer;
+
+    private int inUse;
+    private int copying;
+    private int waiting;
+    private int peak;
+    private int previousPeak;
+
+    private Slots(String repositoryId) {
+      this.repositoryId = repositoryId;
+      this.waitTimer = Timer
+        .builder("scm.workingcopy.pool.wait")
+        .description("Duration of waits for available working copies of a repository")
+        .tag("repository", repositoryId)
+        .register(meterRegistry);
+    }
+
+    /**
+     * The source of a running copy is counted as a single slot. The copy itself becomes a slot once it is finished and
+     * is dropped, if requests have grown the repository to the maximum in the meantime.
+     */
+    int total() {
+      return idle.size() + inUse + copying;
+    }
+
+    boolean canGrow() {
+      return total() < maxSlots;
+    }
+
+    void recordDemand() {
+      peak = Math.max(peak, inUse + waiting);
+    }
+
+    int demand() {
+      return Math.max(peak, previousPeak);
+    }
+
+    /**
+     * Repositories with parallel requests get one spare slot, so that the next parallel request does not have to
+     * create a new clone.
+     */
+    int target() {
+      int demand = demand();
+      return Math.min(maxSlots, demand > 1 ? demand + 1 : demand);
+    }
+
+    void nextWindow() {
+      previousPeak = peak;
+      peak = inUse + waiting;
+    }
+
+    boolean isUnused() {
+      return total() == 0 && waiting == 0 && demand() == 0;
+    }
+  }
+
+  private static final class IdleSlot {
+
+    private final File directory;
+    private final Instant since;
+
+    private IdleSlot(File directory, Instant since) {
+      this.directory = directory;
+      this.since = since;
+    }
+  }
+}
@@ -18,6 +18,8 @@ package sonia.scm.security;
 
 import sonia.scm.event.Event;
 
+import java.util.Optional;
+
 /**
  * This type of event is fired whenever an authorization relevant data changes. This event
  * is especially useful for cache invalidation.
@@ -28,9 +30,17 @@ import sonia.scm.event.Event;
 public final class AuthorizationChangedEvent {
 
   private final String nameOfAffectedUser;
+  private final String affectedRepositoryId;
+  private final String affectedNamespace;
 
   private AuthorizationChangedEvent(String nameOfAffectedUser) {
+    this(nameOfAffectedUser, null, null);
+  }
+
+  private AuthorizationChangedEvent(String nameOfAffectedUser, String affectedRepositoryId, String affectedNamespace) {
     this.nameOfAffectedUser = nameOfAffectedUser;
+    this.affectedRepositoryId = affectedRepositoryId;
+    this.affectedNamespace = affectedNamespace;
   }
 
   /**
@@ -47,6 +57,28 @@ public final class AuthorizationChangedEvent {
     return nameOfAffectedUser;
   }
 
+  /**
+   * Returns the id of the repository, if only the permissions of this repository have changed. Events for a single
+   * repository affect every user, so consumers which do not support partial updates can treat them like
+   * {@link #createForEveryUser()}.
+   *
+   * @since 3.12.0
+   */
+  public Optional<String> getAffectedRepositoryId() {
+    return Optional.ofNullable(affectedRepositoryId);
+  }
+
+  /**
+   * Returns the namespace, if only the permissions of this namespace have changed. Events for a single namespace
+   * affect every user, so consumers which do not support partial updates can treat them like
+   * {@link #createForEveryUser()}.
+   *
+   * @since 3.12.0
+   */
+  public Optional<String> getAffectedNamespace() {
+    return Optional.ofNullable(affectedNamespace);
+  }
+
   /**
    * Creates a new event which affects every user.
    */
@@ -61,4 +93,22 @@ public final class AuthorizationChangedEvent {
     return new AuthorizationChangedEvent(nameOfAffectedUser);
   }
 
+  /**
+   * Creates a new event for a changed, created or deleted repository.
+   *
+   * @since 3.12.0
+   */
+  public static AuthorizationChangedEvent createForRepository(String repositoryId) {
+    return new AuthorizationChangedEvent(null, repositoryId, null);
+  }
+
+  /**
+   * Creates a new event for a namespace with changed permissions.
+   *
+   * @since 3.12.0
+   */
+  public static AuthorizationChangedEvent createForNamespace(String namespace) {
+    return new AuthorizationChangedEvent(null, null, namespace);
+  }
+
 }
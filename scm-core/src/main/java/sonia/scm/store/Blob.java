@@ -19,6 +19,8 @@ package sonia.scm.store;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Optional;
 
 /**
  * A blob is binary object. A blob can be used to store any unstructured data.
@@ -73,5 +75,18 @@ public interface Blob
    */
   public long getSize();
 
+  /**
+   * Returns the path of the file which holds the content of the blob, if the
+   * blob is backed by a file of the local file system. Callers can use the path
+   * to read the content with a {@link java.nio.channels.FileChannel}, e.g. to
+   * transfer only parts of the content or to avoid copying the content through
+   * user space buffers. The path must only be used to read the content.
+   *
+   * @return path of the backing file or an empty optional
+   * @since 3.12.0
+   */
+  default Optional<Path> getPath() {
+    return Optional.empty();
+  }
 
 }
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+
+package sonia.scm.store;
+
+import com.google.common.annotations.Beta;
+import sonia.scm.plugin.ExtensionPoint;
+import sonia.scm.repository.Repository;
+
+import java.util.List;
+
+/**
+ * Provides {@link ExportableStore}s of a repository, which are not kept in the store directory of the repository.
+ * The stores are exported and imported together with the stores of the repository, e.g. objects which are kept in a
+ * store shared by all repositories.
+ * <p><b>This interface is not yet finalized and might change in the upcoming versions.</b></p>
+ *
+ * @since 3.12.0
+ */
+@Beta
+@ExtensionPoint
+public interface ExportableStoreProvider {
+
+  /**
+   * Returns the additional stores of the given repository, which should be exported.
+   */
+  List<ExportableStore> getExportableStores(Repository repository);
+}
@@ -30,6 +30,7 @@ import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * This interface is used to query objects annotated with {@link QueryableType}. It will be created by the
@@ -149,6 +150,39 @@ public interface QueryableStore<T> extends AutoCloseable {
      */
     void forEach(Consumer<T_RESULT> consumer, long offset, long limit);
 
+    /**
+     * Returns a stream of all objects that match the query. Implementations may fetch the objects lazily in batches
+     * while the stream is consumed, so that even large results can be processed with constant memory. The stream
+     * should be closed after usage, for example using a try-with-resources block.
+     *
+     * @since 3.12.0
+     */
+    default Stream<T_RESULT> stream() {
+      return findAll().stream();
+    }
+
+    /**
+     * Returns a page of at most {@code limit} objects that match the query. To get the next page, call this method
+     * again with the cursor of the previous page ({@link Page#getNextCursor()}). Other than with
+     * {@link #findAll(long, long)}, implementations may use the sort keys of the last object of the previous page to
+     * find the next page, so that late pages can be retrieved as fast as the first one.
+     *
+     * @param cursor The cursor of the previous page or {@code null} to get the first page.
+     * @param limit  The maximum number of objects of the page.
+     * @since 3.12.0
+     */
+    default Page<T_RESULT> findPage(String cursor, int limit) {
+      if (limit <= 0) {
+        throw new IllegalArgumentException("limit must be positive");
+      }
+      long offset = cursor == null ? 0 : Long.parseLong(cursor);
+      List<T_RESULT> entries = findAll(offset, limit + 1L);
+      if (entries.size() > limit) {
+        return new Page<>(entries.subList(0, limit), Long.toString(offset + limit));
+      }
+      return new Page<>(entries, null);
+    }
+
     /**
      * Projects the found objects to a specific values. This is useful if you want to retrieve only a subset of the
      * fields of the found objects.
@@ -228,6 +262,36 @@ public interface QueryableStore<T> extends AutoCloseable {
     <A> Double average(AggregatableNumberQueryField<T, A> field);
   }
 
+  /**
+   * A page of objects found by {@link Query#findPage(String, int)}.
+   *
+   * @param <T> The type of the found objects.
+   * @since 3.12.0
+   */
+  final class Page<T> {
+    private final List<T> entries;
+    private final String nextCursor;
+
+    public Page(List<T> entries, String nextCursor) {
+      this.entries = Collections.unmodifiableList(entries);
+      this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Returns the objects of this page.
+     */
+    public List<T> getEntries() {
+      return entries;
+    }
+
+    /**
+     * Returns the cursor to retrieve the next page or an empty optional, if this is the last page.
+     */
+    public Optional<String> getNextCursor() {
+      return Optional.ofNullable(nextCursor);
+    }
+  }
+
   /**
    * The result of a query that was built by {@link QueryableStore.Query#withIds()}. It contains the parent ids of the
    * found objects in addition to the objects and their ids themselves.
@@ -18,6 +18,7 @@ package sonia.scm.web;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.ws.rs.core.MediaType;
 import lombok.extern.slf4j.Slf4j;
 
 import static java.util.Collections.singletonMap;
@@ -31,6 +32,11 @@ public abstract class AbstractRepositoryJsonEnricher extends JsonEnricherBase {
     super(objectMapper);
   }
 
+  @Override
+  public boolean isResponsibleFor(MediaType responseMediaType) {
+    return isOneOf(responseMediaType, REPOSITORY, REPOSITORY_COLLECTION);
+  }
+
   @Override
   public void enrich(JsonEnricherContext context) {
     if (resultHasMediaType(REPOSITORY, context)) {
@@ -16,6 +16,7 @@
 
 package sonia.scm.web;
 
+import jakarta.ws.rs.core.MediaType;
 import sonia.scm.plugin.ExtensionPoint;
 
 /**
@@ -28,4 +29,18 @@ public interface JsonEnricher {
 
   void enrich(JsonEnricherContext context);
 
+  /**
+   * Returns {@code true} if this enricher may modify responses of the given media type. The json tree of a response
+   * is only created, if at least one enricher is responsible for its media type. Otherwise the response is serialized
+   * directly, which saves time and memory for large responses. Enrichers should therefore override this method and
+   * only return {@code true} for the media types they really modify.
+   *
+   * @param responseMediaType media type of the response
+   * @return {@code true} if {@link #enrich(JsonEnricherContext)} should be called for the media type
+   * @since 3.12.0
+   */
+  default boolean isResponsibleFor(MediaType responseMediaType) {
+    return true;
+  }
+
 }
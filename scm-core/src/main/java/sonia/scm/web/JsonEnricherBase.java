@@ -19,6 +19,7 @@ package sonia.scm.web;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.ws.rs.core.MediaType;
 
 import java.util.Map;
 
@@ -34,6 +35,22 @@ public abstract class JsonEnricherBase implements JsonEnricher {
     return mediaType.equalsIgnoreCase(context.getResponseMediaType().toString());
   }
 
+  /**
+   * Returns {@code true} if the media type is one of the expected media types. This can be used to implement
+   * {@link #isResponsibleFor(MediaType)}.
+   *
+   * @since 3.12.0
+   */
+  protected boolean isOneOf(MediaType mediaType, String... expectedMediaTypes) {
+    String value = mediaType.toString();
+    for (String expectedMediaType : expectedMediaTypes) {
+      if (expectedMediaType.equalsIgnoreCase(value)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   protected JsonNode value(Object object) {
     return objectMapper.convertValue(object, JsonNode.class);
   }
@@ -41,6 +41,10 @@ import sonia.scm.ModelObject;
  * same time as the task which is enqueued in the example above.
  * But this will also allow a task for <i>my-resources</i> with an id other than <i>42</i> can run in parallel.
  *
+ * Tasks are started in the order in which they are enqueued. A task with a higher {@link Priority} is started before
+ * waiting tasks with a lower priority, e.g. long-running bulk work like a reindex should use {@link Priority#LOW}, so
+ * that it does not delay tasks which are triggered by users.
+ *
  * All tasks are executed with the permissions of the user which enqueues the task.
  * If the task should run as admin, the {@link Enqueue#runAsAdmin()} method can be used.
  *
@@ -143,6 +147,17 @@ public interface CentralWorkQueue {
      */
     Enqueue runAsAdmin();
 
+    /**
+     * Sets the priority of the enqueued task. Tasks are enqueued with {@link Priority#NORMAL}, if no priority is set.
+     *
+     * @param priority priority of the task
+     * @return {@code this}
+     * @since 3.12.0
+     */
+    default Enqueue priority(Priority priority) {
+      return this;
+    }
+
     /**
      * Enqueue the given task to {@link CentralWorkQueue}.
      * <strong>Warning: </strong> Ensure that the task is serializable.
@@ -160,4 +175,24 @@ public interface CentralWorkQueue {
      */
     void enqueue(Class<? extends Runnable> task);
   }
+
+  /**
+   * Priority of an enqueued task.
+   *
+   * @since 3.12.0
+   */
+  enum Priority {
+    /**
+     * Tasks which should be started before all others, e.g. tasks which are awaited by a user.
+     */
+    HIGH,
+    /**
+     * The default priority.
+     */
+    NORMAL,
+    /**
+     * Long-running bulk tasks, which should not delay other tasks.
+     */
+    LOW
+  }
 }
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package sonia.scm.api.v2.resources;
+
+import jakarta.ws.rs.core.UriBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LinkTemplateTest {
+
+  @Test
+  void shouldExpandTemplateWithoutVariables() {
+    LinkTemplate template = LinkTemplate.parse("v2/repositories/");
+
+    assertThat(template.expand(new String[0])).isEqualTo("v2/repositories/");
+  }
+
+  @Test
+  void shouldExpandVariables() {
+    LinkTemplate template = LinkTemplate.parse("v2/repositories/{namespace}/{name}/branches");
+
+    assertThat(template.expand(new String[]{"space", "X"})).isEqualTo("v2/repositories/space/X/branches");
+  }
+
+  @Test
+  void shouldUseSameValueForRepeatedVariable() {
+    LinkTemplate template = LinkTemplate.parse("{a}/{b}/{a}");
+
+    assertThat(template.expand(new String[]{"1", "2"})).isEqualTo("1/2/1");
+  }
+
+  @Test
+  void shouldIgnoreRegularExpressionOfVariable() {
+    LinkTemplate template = LinkTemplate.parse("content/{revision}/{path: .{1,}}");
+
+    assertThat(template.expand(new String[]{"main", "README"})).isEqualTo("content/main/README");
+  }
+
+  @Test
+  void shouldFailForMissingValues() {
+    LinkTemplate template = LinkTemplate.parse("{a}/{b}");
+    String[] values = {"1"};
+
+    assertThrows(IllegalArgumentException.class, () -> template.expand(values));
+  }
+
+  @Test
+  void shouldFailForNullValues() {
+    LinkTemplate template = LinkTemplate.parse("{a}");
+    String[] values = {null};
+
+    assertThrows(IllegalArgumentException.class, () -> template.expand(values));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+    "plain", "with space", "slash/inside", "percent%20", "umlaut-äöü",
+    "sub-delims!$&'()*+,;=", "colon:at@", "query?fragment#", "braces{}", "tilde~dot.underscore_"
+  })
+  void shouldEncodeLikeUriBuilder(String value) {
+    String template = "base/{value}/end";
+
+    String expected = UriBuilder.fromPath(template).build(value).toString();
+
+    assertThat(LinkTemplate.parse(template).expand(new String[]{value})).isEqualTo(expected);
+  }
+}
@@ -43,4 +43,16 @@ public class CacheStatisticsTest
     assertEquals(0.8d, stats.getHitRate(), 0.0);
     assertEquals(0.2d, stats.getMissRate(), 0.0);
   }
+
+  @Test
+  public void testLoadCounters()
+  {
+    CacheStatistics stats = new CacheStatistics("", 12, 3, 2, 1, 300);
+
+    assertEquals(2, stats.getLoadSuccessCount());
+    assertEquals(1, stats.getLoadExceptionCount());
+    assertEquals(3, stats.getLoadCount());
+    assertEquals(300, stats.getTotalLoadTime());
+    assertEquals(100.0d, stats.getAverageLoadPenalty(), 0.0);
+  }
 }
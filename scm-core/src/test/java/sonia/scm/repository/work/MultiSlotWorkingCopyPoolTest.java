@@ -0,0 +1,323 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+
+package sonia.scm.repository.work;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import sonia.scm.repository.Repository;
+import sonia.scm.repository.work.SimpleWorkingCopyFactory.ReclaimFailedException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith({MockitoExtension.class})
+class MultiSlotWorkingCopyPoolTest {
+
+  private static final Repository REPOSITORY = new Repository("1", "git", "space", "X");
+
+  @Mock
+  WorkdirProvider workdirProvider;
+  MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  MutableClock clock = new MutableClock();
+
+  @Mock
+  SimpleWorkingCopyFactory<Object, Path, ?>.WorkingCopyContext workingCopyContext;
+
+  @TempDir
+  Path temp;
+
+  private final AtomicInteger workdirCounter = new AtomicInteger();
+
+  @BeforeEach
+  void initContext() throws ReclaimFailedException {
+    lenient().when(workingCopyContext.getScmRepository()).thenReturn(REPOSITORY);
+    lenient().when(workingCopyContext.initialize(any()))
+      .thenAnswer(invocationOnMock -> new WorkingCopy<>(null, null, () -> {}, invocationOnMock.getArgument(0, File.class)));
+    lenient().when(workingCopyContext.reclaim(any()))
+      .thenAnswer(invocationOnMock -> new WorkingCopy<>(null, null, () -> {}, invocationOnMock.getArgument(0, File.class)));
+    lenient().doAnswer(invocation -> {
+      File newWorkdir = temp.resolve("path-" + workdirCounter.getAndIncrement()).toFile();
+      newWorkdir.mkdirs();
+      return newWorkdir;
+    }).when(workdirProvider).createNewWorkdir(anyString());
+  }
+
+  private MultiSlotWorkingCopyPool createPool(int poolSize, int maxSlots) {
+    return new MultiSlotWorkingCopyPool(workdirProvider, meterRegistry, Runnable::run, clock, poolSize, maxSlots, Duration.ofMinutes(30));
+  }
+
+  @Test
+  void shouldCreateNewWorkdirForTheFirstRequest() {
+    MultiSlotWorkingCopyPool pool = createPool(5, 3);
+
+    WorkingCopy<?, ?> workingCopy = pool.getWorkingCopy(workingCopyContext);
+
+    verify(workingCopyContext).initialize(workingCopy.getDirectory());
+    assertThat(meterRegistry.get("scm.workingcopy.pool.cache.miss").counter().count()).isEqualTo(1d);
+  }
+
+  @Test
+  void shouldReuseIdleWorkdir() throws ReclaimFailedException {
+    MultiSlotWorkingCopyPool pool = createPool(5, 3);
+
+    WorkingCopy<?, ?> first = pool.getWorkingCopy(workingCopyContext);
+    pool.contextClosed(workingCopyContext, first.getDirectory());
+    WorkingCopy<?, ?> second = pool.getWorkingCopy(workingCopyContext);
+
+    verify(workingCopyContext).reclaim(first.getDirectory());
+    assertThat(second.getDirectory()).isEqualTo(first.getDirectory());
+    assertThat(meterRegistry.get("scm.workingcopy.pool.cache.hit").counter().count()).isEqualTo(1d);
+  }
+
+  @Test
+  void shouldCreateNewWorkdirIfReclaimFails() throws ReclaimFailedException {
+    MultiSlotWorkingCopyPool pool = createPool(5, 3);
+    when(workingCopyContext.reclaim(any())).thenThrow(ReclaimFailedException.class);
+
+    WorkingCopy<?, ?> first = pool.getWorkingCopy(workingCopyContext);
+    pool.contextClosed(workingCopyContext, first.getDirectory());
+    WorkingCopy<?, ?> second = pool.getWorkingCopy(workingCopyContext);
+
+    assertThat(second.getDirectory()).isNotEqualTo(first.getDirectory());
+    assertThat(first.getDirectory()).doesNotExist();
+    assertThat(meterRegistry.get("scm.workingcopy.pool.reclaim.failure").counter().count()).isEqualTo(1d);
+  }
+
+  @Test
+  void shouldUseSeveralSlotsForParallelRequests() {
+    MultiSlotWorkingCopyPool pool = createPool(5, 3);
+
+    WorkingCopy<?, ?> first = pool.getWorkingCopy(workingCopyContext);
+    WorkingCopy<?, ?> second = pool.getWorkingCopy(workingCopyContext);
+
+    assertThat(second.getDirectory()).isNotEqualTo(first.getDirectory());
+  }
+
+  @Test
+  void shouldWaitIfAllSlotsAreInUse() throws Exception {
+    MultiSlotWorkingCopyPool pool = createPool(5, 1);
+    WorkingCopy<?, ?> first = pool.getWorkingCopy(workingCopyContext);
+
+    CompletableFuture<WorkingCopy<?, ?>> second = CompletableFuture.supplyAsync(() -> pool.getWorkingCopy(workingCopyContext));
+    Thread.sleep(100);
+    assertThat(second).isNotDone();
+
+    pool.contextClosed(workingCopyContext, first.getDirectory());
+
+    assertThat(second.get(5, TimeUnit.SECONDS).getDirectory()).isEqualTo(first.getDirectory());
+    assertThat(meterRegistry.get("scm.workingcopy.pool.wait").tag("repository", "1").timer().count()).isEqualTo(2);
+  }
+
+  @Test
+  void shouldPrewarmSpareSlotAfterParallelRequests() throws IOException {
+    MultiSlotWorkingCopyPool pool = createPool(5, 3);
+    WorkingCopy<?, ?> first = pool.getWorkingCopy(workingCopyContext);
+    WorkingCopy<?, ?> second = pool.getWorkingCopy(workingCopyContext);
+    Files.writeString(first.getDirectory().toPath().resolve("README.md"), "Don't panic");
+
+    pool.contextClosed(workingCopyContext, first.getDirectory());
+    pool.contextClosed(workingCopyContext, second.getDirectory());
+
+    Path copy = temp.resolve("path-2");
+    assertThat(copy.resolve("README.md")).hasContent("Don't panic");
+    assertThat(meterRegistry.get("scm.workingcopy.pool.prewarm").counter().count()).isEqualTo(1d);
+
+    pool.getWorkingCopy(workingCopyContext);
+    pool.getWorkingCopy(workingCopyContext);
+    pool.getWorkingCopy(workingCopyContext);
+
+    verify(workingCopyContext, never()).initialize(copy.toFile());
+    verify(workingCopyContext).reclaim(copy.toFile());
+  }
+
+  @Test
+  void shouldNotWaitForRunningPrewarm() throws Exception {
+    List<Runnable> tasks = new ArrayList<>();
+    MultiSlotWorkingCopyPool pool = new MultiSlotWorkingCopyPool(workdirProvider, meterRegistry, tasks::add, clock, 5, 3, Duration.ofMinutes(30));
+    WorkingCopy<?, ?> first = pool.getWorkingCopy(workingCopyContext);
+    pool.getWorkingCopy(workingCopyContext);
+    pool.contextClosed(workingCopyContext, first.getDirectory());
+    assertThat(tasks).hasSize(1);
+
+    CompletableFuture<WorkingCopy<?, ?>> third = CompletableFuture.supplyAsync(() -> pool.getWorkingCopy(workingCopyContext));
+
+    assertThat(third.get(5, TimeUnit.SECONDS).getDirectory()).isEqualTo(temp.resolve("path-2").toFile());
+
+    tasks.remove(0).run();
+
+    assertThat(first.getDirectory()).exists();
+    assertThat(temp.resolve("path-3")).doesNotExist();
+  }
+
+  @Test
+  void shouldNotPrewarmForSequentialRequests() {
+    MultiSlotWorkingCopyPool pool = createPool(5, 3);
+
+    for (int i = 0; i < 3; ++i) {
+      WorkingCopy<?, ?> workingCopy = pool.getWorkingCopy(workingCopyContext);
+      pool.contextClosed(workingCopyContext, workingCopy.getDirectory());
+    }
+
+    assertThat(temp.resolve("path-1")).doesNotExist();
+  }
+
+  @Test
+  void shouldDeleteLeastRecentlyUsedWorkdirIfPoolSizeReached() {
+    MultiSlotWorkingCopyPool pool = createPool(2, 3);
+
+    for (int i = 0; i < 3; ++i) {
+      when(workingCopyContext.getScmRepository()).thenReturn(new Repository("repo-" + i, "git", "space", "X" + i));
+      WorkingCopy<?, ?> workingCopy = pool.getWorkingCopy(workingCopyContext);
+      clock.advance(Duration.ofSeconds(1));
+      pool.contextClosed(workingCopyContext, workingCopy.getDirectory());
+    }
+
+    assertThat(temp.resolve("path-0")).doesNotExist();
+    assertThat(temp.resolve("path-1")).exists();
+    assertThat(temp.resolve("path-2")).exists();
+    assertThat(meterRegistry.get("scm.workingcopy.pool.cache.overflow").counter().count()).isEqualTo(1d);
+  }
+
+  @Test
+  void shouldNotCacheWithoutPoolSize() {
+    MultiSlotWorkingCopyPool pool = createPool(0, 3);
+
+    WorkingCopy<?, ?> workingCopy = pool.getWorkingCopy(workingCopyContext);
+    pool.contextClosed(workingCopyContext, workingCopy.getDirectory());
+
+    assertThat(workingCopy.getDirectory()).doesNotExist();
+  }
+
+  @Test
+  void shouldDeleteUnusedWorkdirs() {
+    MultiSlotWorkingCopyPool pool = createPool(5, 3);
+    WorkingCopy<?, ?> workingCopy = pool.getWorkingCopy(workingCopyContext);
+    pool.contextClosed(workingCopyContext, workingCopy.getDirectory());
+
+    pool.cleanup();
+    assertThat(workingCopy.getDirectory()).exists();
+
+    clock.advance(Duration.ofHours(1));
+    pool.cleanup();
+    pool.cleanup();
+
+    assertThat(workingCopy.getDirectory()).doesNotExist();
+  }
+
+  @Test
+  void shouldDeleteIdleWorkdirsOnShutdown() {
+    MultiSlotWorkingCopyPool pool = createPool(5, 3);
+    WorkingCopy<?, ?> workingCopy = pool.getWorkingCopy(workingCopyContext);
+    pool.contextClosed(workingCopyContext, workingCopy.getDirectory());
+
+    pool.shutdown();
+
+    assertThat(workingCopy.getDirectory()).doesNotExist();
+  }
+
+  @Nested
+  class Copy {
+
+    @Test
+    void shouldCopyDirectoryTree() throws IOException {
+      Path source = Files.createDirectories(temp.resolve("source"));
+      Files.createDirectories(source.resolve("a").resolve("b"));
+      Files.writeString(source.resolve("a").resolve("b").resolve("file"), "content");
+      Path target = temp.resolve("target");
+
+      MultiSlotWorkingCopyPool.copy(source, target);
+
+      assertThat(target.resolve("a").resolve("b").resolve("file")).hasContent("content");
+    }
+
+    @Test
+    void shouldCopyWritableFiles() throws IOException {
+      Path source = Files.createDirectories(temp.resolve("source"));
+      Path file = Files.writeString(source.resolve("file"), "content");
+      Path target = temp.resolve("target");
+
+      MultiSlotWorkingCopyPool.copy(source, target);
+
+      assertThat(Files.isSameFile(file, target.resolve("file"))).isFalse();
+    }
+
+    @Test
+    void shouldLinkReadOnlyFiles() throws IOException {
+      Path source = Files.createDirectories(temp.resolve("source"));
+      Path file = Files.writeString(source.resolve("object"), "content");
+      assertThat(file.toFile().setWritable(false)).isTrue();
+      Path target = temp.resolve("target");
+
+      MultiSlotWorkingCopyPool.copy(source, target);
+
+      assertThat(target.resolve("object")).hasContent("content");
+      assertThat(Files.isSameFile(file, target.resolve("object"))).isTrue();
+    }
+  }
+
+  private static class MutableClock extends Clock {
+
+    private Instant instant = Instant.parse("2026-10-18T10:00:00Z");
+
+    void advance(Duration duration) {
+      instant = instant.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+  }
+}
@@ -77,7 +77,7 @@ public class MetadataStore implements UpdateStepRepositoryMetadataAccess<Path> {
     }
   }
 
-  private Path resolveDataPath(Path repositoryPath) {
+  Path resolveDataPath(Path repositoryPath) {
     return repositoryPath.resolve(StoreConstants.REPOSITORY_METADATA.concat(StoreConstants.FILE_EXTENSION));
   }
 }
@@ -62,8 +62,11 @@ public class PathBasedRepositoryLocationResolver extends BasicRepositoryLocation
 
   private final Clock clock;
 
-  private long creationTime;
-  private long lastModified;
+  private final Object writeLock = new Object();
+
+  private volatile long creationTime;
+  private volatile long lastModified;
+  private long writtenLastModified;
 
   private EventListenerSupport<MaintenanceCallback> maintenanceCallbacks = EventListenerSupport.create(MaintenanceCallback.class);
 
@@ -188,12 +191,24 @@ public class PathBasedRepositoryLocationResolver extends BasicRepositoryLocation
   }
 
   void updateModificationDate() {
-    this.writePathDatabase();
+    long modified = clock.millis();
+    lastModified = modified;
+    synchronized (writeLock) {
+      // concurrent modifications are coalesced, the first one which gets the lock writes the newest date for all
+      if (modified > writtenLastModified) {
+        long newest = lastModified;
+        pathDatabase.writeLastModified(creationTime, newest);
+        writtenLastModified = newest;
+      }
+    }
   }
 
   private void writePathDatabase() {
-    lastModified = clock.millis();
-    pathDatabase.write(creationTime, lastModified, pathById);
+    synchronized (writeLock) {
+      lastModified = clock.millis();
+      pathDatabase.write(creationTime, lastModified, pathById);
+      writtenLastModified = lastModified;
+    }
   }
 
   private void read() {
@@ -208,6 +223,7 @@ public class PathBasedRepositoryLocationResolver extends BasicRepositoryLocation
   private void onLoadDates(long creationTime, long lastModified) {
     this.creationTime = creationTime;
     this.lastModified = lastModified;
+    this.writtenLastModified = lastModified;
   }
 
   public Long getCreationTime() {
@@ -51,10 +51,23 @@ class PathDatabase {
   private static final String ELEMENT_REPOSITORY = "repository";
   private static final String ATTRIBUTE_ID = "id";
 
+  private static final String LAST_MODIFIED_SUFFIX = "-last-modified";
+
   private final Path storePath;
+  private final Path lastModifiedPath;
 
   PathDatabase(Path storePath){
     this.storePath = storePath;
+    this.lastModifiedPath = resolveLastModifiedPath(storePath);
+  }
+
+  private static Path resolveLastModifiedPath(Path storePath) {
+    String fileName = storePath.getFileName().toString();
+    int extension = fileName.lastIndexOf('.');
+    if (extension > 0) {
+      return storePath.resolveSibling(fileName.substring(0, extension) + LAST_MODIFIED_SUFFIX + fileName.substring(extension));
+    }
+    return storePath.resolveSibling(fileName + LAST_MODIFIED_SUFFIX);
   }
 
   void write(long creationTime, long lastModified, Map<String, Path> pathDatabase) {
@@ -85,6 +98,34 @@ class PathDatabase {
     );
   }
 
+  /**
+   * Writes only the dates of the database to a separate file, so that a modification of a repository does not
+   * require to rewrite the paths of all repositories. The dates of the separate file take precedence, if they are
+   * newer than the dates of the database.
+   */
+  void writeLastModified(long creationTime, long lastModified) {
+    ensureParentDirectoryExists();
+    LOG.trace("write last modified date of repository path database to {}", lastModifiedPath);
+
+    CopyOnWrite.withTemporaryFile(
+      temp -> {
+        try (AutoCloseableXMLWriter writer = XmlStreams.createWriter(temp)) {
+          writer.writeStartDocument(ENCODING, VERSION);
+          writeRepositoriesStart(writer, creationTime, lastModified);
+          writer.writeEndElement();
+          writer.writeEndDocument();
+        } catch (XMLStreamException | IOException ex) {
+          throw new InternalRepositoryException(
+            ContextEntry.ContextBuilder.entity(Path.class, lastModifiedPath.toString()).build(),
+            "failed to write last modified date of repository path database",
+            ex
+          );
+        }
+      },
+      lastModifiedPath
+    );
+  }
+
   private void ensureParentDirectoryExists() {
     Path parent = storePath.getParent();
     // Files.exists is slow on java 8
@@ -116,8 +157,21 @@ class PathDatabase {
 
   void read(OnRepositories onRepositories, OnRepository onRepository) {
     LOG.trace("read repository path database from {}", storePath);
+    Dates dates = new Dates();
+    read(storePath, dates, onRepository);
+    // Files.exists is slow on java 8
+    if (lastModifiedPath.toFile().exists()) {
+      LOG.trace("read last modified date of repository path database from {}", lastModifiedPath);
+      read(lastModifiedPath, dates, (id, path) -> {});
+    }
+    if (dates.creationTime != null) {
+      onRepositories.handle(dates.creationTime, dates.lastModified);
+    }
+  }
+
+  private void read(Path path, OnRepositories onRepositories, OnRepository onRepository) {
     execute(() -> {
-      try (AutoCloseableXMLReader reader = XmlStreams.createReader(storePath)) {
+      try (AutoCloseableXMLReader reader = XmlStreams.createReader(path)) {
 
         while (reader.hasNext()) {
           int eventType = reader.next();
@@ -133,12 +187,12 @@ class PathDatabase {
         }
       } catch (XMLStreamException | IOException ex) {
         throw new InternalRepositoryException(
-          ContextEntry.ContextBuilder.entity(Path.class, storePath.toString()).build(),
+          ContextEntry.ContextBuilder.entity(Path.class, path.toString()).build(),
           "failed to read repository path database",
           ex
         );
       }
-    }).withLockedFileForRead(storePath);
+    }).withLockedFileForRead(path);
   }
 
   private void readRepository(XMLStreamReader reader, OnRepository onRepository) throws XMLStreamException {
@@ -153,6 +207,22 @@ class PathDatabase {
     onRepositories.handle(Long.parseLong(creationTime), Long.parseLong(lastModified));
   }
 
+  private static class Dates implements OnRepositories {
+
+    private Long creationTime;
+    private Long lastModified;
+
+    @Override
+    public void handle(Long creationTime, Long lastModified) {
+      if (this.creationTime == null) {
+        this.creationTime = creationTime;
+      }
+      if (this.lastModified == null || lastModified > this.lastModified) {
+        this.lastModified = lastModified;
+      }
+    }
+  }
+
   @FunctionalInterface
   interface OnRepositories {
 
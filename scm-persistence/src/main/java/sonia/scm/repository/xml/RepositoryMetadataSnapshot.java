@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package sonia.scm.repository.xml;
+
+import lombok.EqualsAndHashCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sonia.scm.CopyOnWrite;
+import sonia.scm.repository.Repository;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binary snapshot of the metadata of all repositories, which avoids unmarshalling the metadata file of every
+ * repository on startup. The snapshot stores the modification time of the path database, so that a restart without
+ * modifications can use all entries. Additionally, every entry stores the modification time and the size of its
+ * metadata file, so that only repositories with changed metadata have to be read again.
+ */
+class RepositoryMetadataSnapshot {
+
+  private static final Logger LOG = LoggerFactory.getLogger(RepositoryMetadataSnapshot.class);
+
+  private static final int VERSION = 1;
+
+  private final Path file;
+
+  RepositoryMetadataSnapshot(Path file) {
+    this.file = file;
+  }
+
+  Content read() {
+    if (!Files.exists(file)) {
+      return Content.EMPTY;
+    }
+    try (InputStream input = Files.newInputStream(file);
+         ObjectInputStream stream = new ObjectInputStream(new BufferedInputStream(input))) {
+      if (stream.readInt() != VERSION) {
+        LOG.info("ignore repository metadata snapshot {} of an other version", file);
+        return Content.EMPTY;
+      }
+      long pathDatabaseModified = stream.readLong();
+      int size = stream.readInt();
+      Map<String, Entry> entries = new HashMap<>(size * 2);
+      for (int i = 0; i < size; i++) {
+        Entry entry = (Entry) stream.readObject();
+        entries.put(entry.id, entry);
+      }
+      return new Content(pathDatabaseModified, entries);
+    } catch (IOException | ClassNotFoundException | ClassCastException ex) {
+      LOG.warn("failed to read repository metadata snapshot {}, metadata is read from repositories", file, ex);
+      return Content.EMPTY;
+    }
+  }
+
+  void write(long pathDatabaseModified, Collection<Entry> entries) {
+    try {
+      Files.createDirectories(file.getParent());
+      CopyOnWrite.withTemporaryFile(temp -> {
+        try (OutputStream output = Files.newOutputStream(temp);
+             ObjectOutputStream stream = new ObjectOutputStream(new BufferedOutputStream(output))) {
+          stream.writeInt(VERSION);
+          stream.writeLong(pathDatabaseModified);
+          stream.writeInt(entries.size());
+          for (Entry entry : entries) {
+            stream.writeObject(entry);
+            // the entries do not share objects, so we do not need back references
+            stream.reset();
+          }
+        }
+      }, file);
+      LOG.debug("wrote repository metadata snapshot with {} repositories to {}", entries.size(), file);
+    } catch (IOException | RuntimeException ex) {
+      LOG.warn("failed to write repository metadata snapshot {}", file, ex);
+    }
+  }
+
+  static Optional<Stamp> stamp(Path metadataFile) {
+    try {
+      BasicFileAttributes attributes = Files.readAttributes(metadataFile, BasicFileAttributes.class);
+      return Optional.of(new Stamp(attributes.lastModifiedTime().to(TimeUnit.MICROSECONDS), attributes.size()));
+    } catch (IOException ex) {
+      return Optional.empty();
+    }
+  }
+
+  static final class Content {
+
+    static final Content EMPTY = new Content(-1, Collections.emptyMap());
+
+    private final long pathDatabaseModified;
+    private final Map<String, Entry> entries;
+
+    private Content(long pathDatabaseModified, Map<String, Entry> entries) {
+      this.pathDatabaseModified = pathDatabaseModified;
+      this.entries = entries;
+    }
+
+    boolean isFrom(long pathDatabaseModified) {
+      return this.pathDatabaseModified == pathDatabaseModified;
+    }
+
+    /**
+     * Returns the repository of the snapshot, if it was taken from the same location with the same metadata file.
+     */
+    Optional<Repository> get(String repositoryId, Path repositoryPath, Stamp stamp) {
+      Entry entry = entries.get(repositoryId);
+      if (entry != null && entry.path.equals(repositoryPath.toString()) && entry.stamp.equals(stamp)) {
+        return Optional.of(entry.repository);
+      }
+      return Optional.empty();
+    }
+  }
+
+  @EqualsAndHashCode
+  static final class Stamp implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long modified;
+    private final long size;
+
+    Stamp(long modified, long size) {
+      this.modified = modified;
+      this.size = size;
+    }
+  }
+
+  static final class Entry implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String id;
+    private final String path;
+    private final Stamp stamp;
+    private final Repository repository;
+
+    Entry(String id, Path path, Stamp stamp, Repository repository) {
+      this.id = id;
+      this.path = path.toString();
+      this.stamp = stamp;
+      this.repository = repository;
+    }
+  }
+}
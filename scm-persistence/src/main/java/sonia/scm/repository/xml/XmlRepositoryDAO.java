@@ -16,51 +16,100 @@
 
 package sonia.scm.repository.xml;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.Multimaps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Singleton;
+import jakarta.annotation.Nullable;
 import jakarta.inject.Inject;
 import lombok.extern.slf4j.Slf4j;
+import sonia.scm.SCMContextProvider;
+import sonia.scm.config.ConfigValue;
 import sonia.scm.io.FileSystem;
 import sonia.scm.repository.InternalRepositoryException;
 import sonia.scm.repository.NamespaceAndName;
 import sonia.scm.repository.Repository;
 import sonia.scm.repository.RepositoryDAO;
 import sonia.scm.repository.RepositoryExportingCheck;
-import sonia.scm.repository.RepositoryLocationResolver;
 import sonia.scm.repository.xml.PathBasedRepositoryLocationResolver.DownForMaintenanceContext;
 import sonia.scm.repository.xml.PathBasedRepositoryLocationResolver.UpAfterMaintenanceContext;
 import sonia.scm.store.StoreReadOnlyException;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Supplier;
 
+import static sonia.scm.store.file.StoreConstants.VARIABLE_DATA_DIRECTORY_NAME;
+
 @Singleton
 @Slf4j
 public class XmlRepositoryDAO implements RepositoryDAO {
 
+  private static final String SNAPSHOT_NAME = "repository-metadata.snapshot";
+
   private final MetadataStore metadataStore = new MetadataStore();
 
   private final PathBasedRepositoryLocationResolver repositoryLocationResolver;
   private final FileSystem fileSystem;
   private final RepositoryExportingCheck repositoryExportingCheck;
+  @Nullable
+  private final RepositoryMetadataSnapshot snapshot;
+  private final int loadThreads;
 
   private final Map<String, Repository> byId;
   private final Map<NamespaceAndName, Repository> byNamespaceAndName;
   private final ReadWriteLock byNamespaceLock = new ReentrantReadWriteLock();
 
+  // immutable view of all repositories, which is dropped on every modification of the maps and rebuilt on demand
+  private volatile RepositoriesView repositoriesView;
+
   @Inject
+  public XmlRepositoryDAO(
+    PathBasedRepositoryLocationResolver repositoryLocationResolver,
+    FileSystem fileSystem,
+    RepositoryExportingCheck repositoryExportingCheck,
+    SCMContextProvider contextProvider,
+    @ConfigValue(key = "repositoryMetadata.loadThreads", defaultValue = "0", description = "Number of threads to read the metadata of all repositories. If set to 0, the number of processors is used.") Integer loadThreads,
+    @ConfigValue(key = "repositoryMetadata.snapshot", defaultValue = "true", description = "Keep a binary snapshot of the metadata of all repositories to speed up the startup") Boolean snapshotEnabled
+  ) {
+    this(
+      repositoryLocationResolver,
+      fileSystem,
+      repositoryExportingCheck,
+      snapshotEnabled ? new RepositoryMetadataSnapshot(contextProvider.resolve(Paths.get(VARIABLE_DATA_DIRECTORY_NAME, SNAPSHOT_NAME))) : null,
+      loadThreads
+    );
+  }
+
   public XmlRepositoryDAO(PathBasedRepositoryLocationResolver repositoryLocationResolver, FileSystem fileSystem, RepositoryExportingCheck repositoryExportingCheck) {
+    this(repositoryLocationResolver, fileSystem, repositoryExportingCheck, null, 0);
+  }
+
+  @VisibleForTesting
+  XmlRepositoryDAO(PathBasedRepositoryLocationResolver repositoryLocationResolver, FileSystem fileSystem, RepositoryExportingCheck repositoryExportingCheck, @Nullable RepositoryMetadataSnapshot snapshot, int loadThreads) {
     this.repositoryLocationResolver = repositoryLocationResolver;
     this.fileSystem = fileSystem;
     this.repositoryExportingCheck = repositoryExportingCheck;
+    this.snapshot = snapshot;
+    this.loadThreads = loadThreads > 0 ? loadThreads : Runtime.getRuntime().availableProcessors();
 
     this.byId = new HashMap<>();
     this.byNamespaceAndName = new TreeMap<>();
@@ -70,37 +119,103 @@ public class XmlRepositoryDAO implements RepositoryDAO {
     this.repositoryLocationResolver.registerMaintenanceCallback(new PathBasedRepositoryLocationResolver.MaintenanceCallback() {
       @Override
       public void downForMaintenance(DownForMaintenanceContext context) {
-        Repository repository = byId.get(context.getRepositoryId());
-        byNamespaceAndName.remove(repository.getNamespaceAndName());
-        byId.remove(context.getRepositoryId());
+        withWriteLockedMaps(() -> {
+          Repository repository = byId.get(context.getRepositoryId());
+          byNamespaceAndName.remove(repository.getNamespaceAndName());
+          byId.remove(context.getRepositoryId());
+        });
       }
 
       @Override
       public void upAfterMaintenance(UpAfterMaintenanceContext context) {
         Repository repository = metadataStore.read(context.getLocation());
-        byNamespaceAndName.put(repository.getNamespaceAndName(), repository);
-        byId.put(context.getRepositoryId(), repository);
+        withWriteLockedMaps(() -> {
+          byNamespaceAndName.put(repository.getNamespaceAndName(), repository);
+          byId.put(context.getRepositoryId(), repository);
+        });
       }
     });
   }
 
   private void init() {
+    List<Location> locations = new ArrayList<>();
+    repositoryLocationResolver.create(Path.class).forAllLocations((repositoryId, repositoryPath) -> locations.add(new Location(repositoryId, repositoryPath)));
+
+    long pathDatabaseModified = Optional.ofNullable(repositoryLocationResolver.getLastModified()).orElse(0L);
+    RepositoryMetadataSnapshot.Content content = snapshot != null ? snapshot.read() : RepositoryMetadataSnapshot.Content.EMPTY;
+
+    // read the metadata without holding the lock, only the maps are filled with the write lock
+    List<Location> loaded = load(locations, content);
+
     withWriteLockedMaps(() -> {
-      RepositoryLocationResolver.RepositoryLocationResolverInstance<Path> pathRepositoryLocationResolverInstance = repositoryLocationResolver.create(Path.class);
-      pathRepositoryLocationResolverInstance.forAllLocations((repositoryId, repositoryPath) -> {
-        try {
-          Repository repository = metadataStore.read(repositoryPath);
-          if (byNamespaceAndName.containsKey(repository.getNamespaceAndName())) {
-            log.warn("Duplicate repository found. Adding suffix DUPLICATE to repository {}", repository);
-            repository.setName(repository.getName() + "-" + repositoryId + "-DUPLICATE");
-          }
-          byNamespaceAndName.put(repository.getNamespaceAndName(), repository);
-          byId.put(repositoryId, repository);
-        } catch (InternalRepositoryException e) {
-          log.error("could not read repository metadata from {}", repositoryPath, e);
+      for (Location location : loaded) {
+        Repository repository = location.repository;
+        if (byNamespaceAndName.containsKey(repository.getNamespaceAndName())) {
+          log.warn("Duplicate repository found. Adding suffix DUPLICATE to repository {}", repository);
+          // the snapshot keeps the original name
+          repository = repository.clone();
+          repository.setName(repository.getName() + "-" + location.repositoryId + "-DUPLICATE");
         }
-      });
+        byNamespaceAndName.put(repository.getNamespaceAndName(), repository);
+        byId.put(location.repositoryId, repository);
+      }
     });
+
+    if (snapshot != null) {
+      long fromSnapshot = loaded.stream().filter(location -> location.fromSnapshot).count();
+      if (fromSnapshot < loaded.size() || !content.isFrom(pathDatabaseModified)) {
+        log.debug("read metadata of {} repositories from snapshot and {} from metadata files", fromSnapshot, loaded.size() - fromSnapshot);
+        List<RepositoryMetadataSnapshot.Entry> entries = new ArrayList<>();
+        for (Location location : loaded) {
+          if (location.stamp != null) {
+            entries.add(new RepositoryMetadataSnapshot.Entry(location.repositoryId, location.repositoryPath, location.stamp, location.repository));
+          }
+        }
+        snapshot.write(pathDatabaseModified, entries);
+      }
+    }
+  }
+
+  private List<Location> load(List<Location> locations, RepositoryMetadataSnapshot.Content content) {
+    if (locations.size() < 2 || loadThreads < 2) {
+      locations.forEach(location -> location.load(content));
+      return filterLoaded(locations);
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(
+      Math.min(loadThreads, locations.size()),
+      new ThreadFactoryBuilder()
+        .setNameFormat("XmlRepositoryDAO-%d")
+        .setDaemon(true)
+        .build()
+    );
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (Location location : locations) {
+        futures.add(executor.submit(() -> location.load(content)));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("interrupted while reading repository metadata", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("failed to read repository metadata", e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+    return filterLoaded(locations);
+  }
+
+  private List<Location> filterLoaded(List<Location> locations) {
+    List<Location> loaded = new ArrayList<>(locations.size());
+    for (Location location : locations) {
+      if (location.repository != null) {
+        loaded.add(location);
+      }
+    }
+    return loaded;
   }
 
   @Override
@@ -161,7 +276,35 @@ public class XmlRepositoryDAO implements RepositoryDAO {
 
   @Override
   public Collection<Repository> getAll() {
-    return withReadLockedMaps(() -> ImmutableList.copyOf(byNamespaceAndName.values()));
+    return repositoriesView().all;
+  }
+
+  @Override
+  public Collection<Repository> getAllInNamespace(String namespace) {
+    return repositoriesView().byNamespace.get(namespace);
+  }
+
+  @Override
+  public Collection<Repository> getAllOfType(String type) {
+    return repositoriesView().byType.get(type);
+  }
+
+  @Override
+  public Collection<String> getNamespaces() {
+    return repositoriesView().byNamespace.keySet();
+  }
+
+  private RepositoriesView repositoriesView() {
+    RepositoriesView current = repositoriesView;
+    if (current == null) {
+      // the view is published while the read lock is held, so that it cannot overtake a modification
+      current = withReadLockedMaps(() -> {
+        RepositoriesView created = new RepositoriesView(byNamespaceAndName.values());
+        repositoriesView = created;
+        return created;
+      });
+    }
+    return current;
   }
 
   @Override
@@ -239,6 +382,7 @@ public class XmlRepositoryDAO implements RepositoryDAO {
     try {
       runnable.run();
     } finally {
+      repositoriesView = null;
       lock.unlock();
     }
   }
@@ -249,6 +393,7 @@ public class XmlRepositoryDAO implements RepositoryDAO {
     try {
       return runnable.get();
     } finally {
+      repositoriesView = null;
       lock.unlock();
     }
   }
@@ -262,4 +407,51 @@ public class XmlRepositoryDAO implements RepositoryDAO {
       lock.unlock();
     }
   }
+
+  private static final class RepositoriesView {
+
+    private final ImmutableList<Repository> all;
+    private final ImmutableListMultimap<String, Repository> byNamespace;
+    private final ImmutableListMultimap<String, Repository> byType;
+
+    private RepositoriesView(Collection<Repository> repositories) {
+      // the repositories are sorted by namespace and name, the indexes keep this order
+      this.all = ImmutableList.copyOf(repositories);
+      this.byNamespace = Multimaps.index(all, repository -> Strings.nullToEmpty(repository.getNamespace()));
+      this.byType = Multimaps.index(all, repository -> Strings.nullToEmpty(repository.getType()));
+    }
+  }
+
+  private class Location {
+
+    private final String repositoryId;
+    private final Path repositoryPath;
+
+    private RepositoryMetadataSnapshot.Stamp stamp;
+    private Repository repository;
+    private boolean fromSnapshot = false;
+
+    private Location(String repositoryId, Path repositoryPath) {
+      this.repositoryId = repositoryId;
+      this.repositoryPath = repositoryPath;
+    }
+
+    void load(RepositoryMetadataSnapshot.Content content) {
+      // the stamp is taken before reading, so that a concurrent modification invalidates the entry of the snapshot
+      stamp = RepositoryMetadataSnapshot.stamp(metadataStore.resolveDataPath(repositoryPath)).orElse(null);
+      if (stamp != null) {
+        Optional<Repository> snapshotRepository = content.get(repositoryId, repositoryPath, stamp);
+        if (snapshotRepository.isPresent()) {
+          repository = snapshotRepository.get();
+          fromSnapshot = true;
+          return;
+        }
+      }
+      try {
+        repository = metadataStore.read(repositoryPath);
+      } catch (InternalRepositoryException e) {
+        log.error("could not read repository metadata from {}", repositoryPath, e);
+      }
+    }
+  }
 }
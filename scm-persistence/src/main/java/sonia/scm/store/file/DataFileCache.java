@@ -112,16 +112,14 @@ class DataFileCache {
     public <T> T get(File file, Supplier<T> reader) {
       LOG.trace("get of '{}' from {}", file, DataFileCache.this);
       File absoluteFile = file.getAbsoluteFile();
-      if (cache.contains(absoluteFile)) {
-        T t = (T) cache.get(absoluteFile);
-        if (t == null || type.isAssignableFrom(t.getClass())) {
-          return t;
-        } else {
-          LOG.info("discarding cached entry with wrong type (expected: {}, got {})", type, t.getClass());
-          cache.remove(file);
-        }
+      T t = (T) cache.get(absoluteFile, f -> reader.get());
+      if (t == null || type.isAssignableFrom(t.getClass())) {
+        return t;
       }
 
+      LOG.info("discarding cached entry with wrong type (expected: {}, got {})", type, t.getClass());
+      cache.remove(absoluteFile);
+
       T item = reader.get();
       if (item != null) {
         cache.put(absoluteFile, item);
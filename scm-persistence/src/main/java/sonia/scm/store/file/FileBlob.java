@@ -26,6 +26,8 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Optional;
 
 /**
  * File base implementation of {@link Blob}.
@@ -71,4 +73,12 @@ final class FileBlob implements Blob {
       return -1;
     }
   }
+
+  @Override
+  public Optional<Path> getPath() {
+    if (this.file.isFile()) {
+      return Optional.of(this.file.toPath());
+    }
+    return Optional.empty();
+  }
 }
@@ -23,6 +23,7 @@ import sonia.scm.repository.Repository;
 import sonia.scm.repository.RepositoryLocationResolver;
 import sonia.scm.repository.api.ExportFailedException;
 import sonia.scm.store.ExportableStore;
+import sonia.scm.store.ExportableStoreProvider;
 import sonia.scm.store.StoreExporter;
 import sonia.scm.store.StoreType;
 import sonia.scm.xml.XmlStreams;
@@ -36,11 +37,12 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
 import static java.util.Arrays.asList;
-import static java.util.Collections.emptyList;
+import static java.util.Collections.emptySet;
 import static sonia.scm.ContextEntry.ContextBuilder.noContext;
 import static sonia.scm.store.file.ExportableBlobFileStore.BLOB_FACTORY;
 import static sonia.scm.store.file.ExportableConfigEntryFileStore.CONFIG_ENTRY_FACTORY;
@@ -55,29 +57,37 @@ public class FileStoreExporter implements StoreExporter {
   private static final Logger LOG = LoggerFactory.getLogger(FileStoreExporter.class);
 
   private final RepositoryLocationResolver locationResolver;
+  private final Set<ExportableStoreProvider> storeProviders;
 
-  @Inject
   public FileStoreExporter(RepositoryLocationResolver locationResolver) {
+    this(locationResolver, emptySet());
+  }
+
+  @Inject
+  public FileStoreExporter(RepositoryLocationResolver locationResolver, Set<ExportableStoreProvider> storeProviders) {
     this.locationResolver = locationResolver;
+    this.storeProviders = storeProviders;
   }
 
   @Override
   public List<ExportableStore> listExportableStores(Repository repository) {
     List<ExportableStore> exportableStores = new ArrayList<>();
     Path storeDirectory = resolveStoreDirectory(repository);
-    if (!Files.exists(storeDirectory)) {
-      return emptyList();
+    if (Files.exists(storeDirectory)) {
+      try (Stream<Path> storeTypeDirectories = Files.list(storeDirectory)) {
+        storeTypeDirectories.forEach(storeTypeDirectory ->
+          exportStoreTypeDirectories(exportableStores, storeTypeDirectory)
+        );
+      } catch (IOException e) {
+        throw new ExportFailedException(
+          noContext(),
+          "Could not list content of directory " + storeDirectory,
+          e
+        );
+      }
     }
-    try (Stream<Path> storeTypeDirectories = Files.list(storeDirectory)) {
-      storeTypeDirectories.forEach(storeTypeDirectory ->
-        exportStoreTypeDirectories(exportableStores, storeTypeDirectory)
-      );
-    } catch (IOException e) {
-      throw new ExportFailedException(
-        noContext(),
-        "Could not list content of directory " + storeDirectory,
-        e
-      );
+    for (ExportableStoreProvider storeProvider : storeProviders) {
+      exportableStores.addAll(storeProvider.getExportableStores(repository));
     }
     return exportableStores;
   }
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package sonia.scm.store.sqlite;
+
+import sonia.scm.store.QueryableStore.Order;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Condition for keyset pagination, that selects all rows sorting after the row with the given sort keys. The last
+ * sort expression has to be unique (like the {@code ROWID}), so that rows with equal sort keys are neither skipped
+ * nor repeated. {@code NULL} values are treated the way SQLite sorts them, that is they are less than any other value.
+ *
+ * @since 3.12.0
+ */
+class SQLKeysetCondition implements SQLNodeWithValue {
+
+  private final List<String> expressions;
+  private final List<Order> orders;
+  private final List<Object> values;
+
+  SQLKeysetCondition(List<String> expressions, List<Order> orders, List<Object> values) {
+    if (expressions.size() != orders.size() || expressions.size() != values.size()) {
+      throw new IllegalArgumentException("expressions, orders, and values must have the same size");
+    }
+    this.expressions = expressions;
+    this.orders = orders;
+    this.values = values;
+  }
+
+  @Override
+  public String toSQL() {
+    StringBuilder sql = new StringBuilder();
+    for (int i = 0; i < expressions.size(); i++) {
+      if (i > 0) {
+        sql.append(" OR ");
+      }
+      sql.append('(');
+      for (int j = 0; j < i; j++) {
+        sql.append(expressions.get(j)).append(" IS ? AND ");
+      }
+      sql.append(after(i)).append(')');
+    }
+    return sql.toString();
+  }
+
+  private String after(int index) {
+    String expression = expressions.get(index);
+    boolean ascending = orders.get(index) == Order.ASC;
+    if (values.get(index) == null) {
+      return ascending ? expression + " IS NOT NULL" : "0";
+    }
+    return ascending ? expression + " > ?" : "(" + expression + " < ? OR " + expression + " IS NULL)";
+  }
+
+  @Override
+  public int apply(PreparedStatement statement, int index) throws SQLException {
+    int currentIndex = index;
+    for (int i = 0; i < expressions.size(); i++) {
+      for (int j = 0; j < i; j++) {
+        statement.setObject(currentIndex++, values.get(j));
+      }
+      if (values.get(i) != null) {
+        statement.setObject(currentIndex++, values.get(i));
+      }
+    }
+    return currentIndex;
+  }
+}
@@ -17,6 +17,7 @@
 package sonia.scm.store.sqlite;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.AccessLevel;
 import lombok.Getter;
@@ -32,6 +33,7 @@ import sonia.scm.store.QueryableStore;
 import sonia.scm.store.StoreException;
 import sonia.scm.store.StoreReadOnlyException;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -39,6 +41,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -48,12 +51,16 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static java.lang.String.format;
 import static java.sql.Statement.RETURN_GENERATED_KEYS;
@@ -64,6 +71,7 @@ import static sonia.scm.store.sqlite.SQLiteIdentifiers.computeTableName;
 class SQLiteQueryableStore<T> implements QueryableStore<T>, QueryableMaintenanceStore<T> {
 
   public static final String TEMPORARY_UPDATE_TABLE_NAME = "update_tmp";
+  static final int STREAM_BATCH_SIZE = 500;
   private final ObjectMapper objectMapper;
   private final Connection connection;
 
@@ -212,7 +220,9 @@ class SQLiteQueryableStore<T> implements QueryableStore<T>, QueryableMaintenance
     log.debug("start transactional operation");
     Lock writeLock = lock.writeLock();
     writeLock.lock();
+    boolean outermostTransaction = false;
     try {
+      outermostTransaction = getConnection().getAutoCommit();
       getConnection().setAutoCommit(false);
       boolean commit = callback.getAsBoolean();
       if (commit) {
@@ -226,7 +236,16 @@ class SQLiteQueryableStore<T> implements QueryableStore<T>, QueryableMaintenance
     } catch (SQLException e) {
       throw new StoreException("failed to disable auto-commit", e);
     } finally {
-      writeLock.unlock();
+      try {
+        if (outermostTransaction) {
+          // an open transaction would pin the WAL snapshot of this connection for later reads
+          getConnection().setAutoCommit(true);
+        }
+      } catch (SQLException e) {
+        log.warn("failed to re-enable auto-commit", e);
+      } finally {
+        writeLock.unlock();
+      }
     }
   }
 
@@ -299,6 +318,10 @@ class SQLiteQueryableStore<T> implements QueryableStore<T>, QueryableMaintenance
     fields.add(new SQLField("ID"));
   }
 
+  private static int toInt(Object value) {
+    return value == null ? 0 : ((Number) value).intValue();
+  }
+
   private String serialize(Object object) {
     try {
       return objectMapper.writeValueAsString(object);
@@ -406,8 +429,9 @@ class SQLiteQueryableStore<T> implements QueryableStore<T>, QueryableMaintenance
         sqlSelectQuery,
         statement -> {
           try (ResultSet resultSet = statement.executeQuery()) {
+            int columnCount = resultSet.getMetaData().getColumnCount();
             while (resultSet.next()) {
-              consumer.accept(extractResult(resultSet));
+              consumer.accept(extractResult(readRow(resultSet, columnCount)));
             }
           }
           return null;
@@ -415,6 +439,148 @@ class SQLiteQueryableStore<T> implements QueryableStore<T>, QueryableMaintenance
       );
     }
 
+    /**
+     * Streams the result in batches of {@link #STREAM_BATCH_SIZE} rows. Each batch is read with a separate statement,
+     * so that no lock is held while the stream is consumed. Batches after the first one are found by the sort keys of
+     * the last row of the previous batch (keyset pagination). Distinct queries cannot be paged by keys and therefore
+     * fall back to offsets.
+     */
+    @Override
+    public Stream<T_RESULT> stream() {
+      return StreamSupport.stream(new BatchSpliterator(), false);
+    }
+
+    @Override
+    public Page<T_RESULT> findPage(String cursor, int limit) {
+      if (limit <= 0) {
+        throw new IllegalArgumentException("limit must be positive");
+      }
+      // distinct queries cannot be paged by keys, so like the stream they fall back to offsets, which are their cursor
+      List<Object> after = distinct ? null : decodeCursor(cursor);
+      long offset = distinct ? decodeOffsetCursor(cursor) : 0;
+      List<Object[]> rows = readRows(after, offset, limit + 1L);
+      List<T_RESULT> entries = new ArrayList<>(Math.min(rows.size(), limit));
+      for (int i = 0; i < rows.size() && i < limit; i++) {
+        entries.add(extractResult(rows.get(i)));
+      }
+      if (rows.size() > limit) {
+        List<Object> next = distinct ? List.<Object>of(offset + limit) : sortKeys(rows.get(limit - 1));
+        return new Page<>(entries, encodeCursor(next));
+      }
+      return new Page<>(entries, null);
+    }
+
+    private List<Object[]> readRows(List<Object> after, long offset, long limit) {
+      List<String> sortExpressions = computeSortExpressions();
+      List<SQLNode> fields = new ArrayList<>(computeFields());
+      if (!distinct) {
+        sortExpressions.forEach(expression -> fields.add(new SQLField(expression)));
+      }
+      List<SQLNodeWithValue> conditions = computeCondition();
+      if (after != null) {
+        conditions.add(new SQLKeysetCondition(sortExpressions, computeSortOrders(), after));
+      }
+
+      SQLSelectStatement sqlSelectQuery =
+        new SQLSelectStatement(
+          fields,
+          computeFromTable(),
+          conditions,
+          distinct ? getOrderByString() : computeKeysetOrderByString(sortExpressions),
+          limit,
+          offset,
+          distinct
+        );
+
+      return executeRead(
+        sqlSelectQuery,
+        statement -> {
+          statement.setFetchSize((int) Math.min(limit, STREAM_BATCH_SIZE));
+          List<Object[]> rows = new ArrayList<>();
+          try (ResultSet resultSet = statement.executeQuery()) {
+            int columnCount = resultSet.getMetaData().getColumnCount();
+            while (resultSet.next()) {
+              rows.add(readRow(resultSet, columnCount));
+            }
+          }
+          return rows;
+        }
+      );
+    }
+
+    private List<String> computeSortExpressions() {
+      List<String> expressions = new ArrayList<>();
+      if (orderBy != null) {
+        orderBy.forEach(order -> expressions.add(computeOrderExpression(order)));
+      }
+      expressions.add("ROWID");
+      return expressions;
+    }
+
+    private List<Order> computeSortOrders() {
+      List<Order> orders = new ArrayList<>();
+      if (orderBy != null) {
+        orderBy.forEach(order -> orders.add(order.options.getOrder()));
+      }
+      orders.add(Order.ASC);
+      return orders;
+    }
+
+    private String computeKeysetOrderByString(List<String> sortExpressions) {
+      List<Order> orders = computeSortOrders();
+      StringBuilder orderByBuilder = new StringBuilder();
+      for (int i = 0; i < sortExpressions.size(); i++) {
+        if (i > 0) {
+          orderByBuilder.append(", ");
+        }
+        orderByBuilder.append(sortExpressions.get(i)).append(' ').append(orders.get(i).name());
+      }
+      return orderByBuilder.toString();
+    }
+
+    private List<Object> sortKeys(Object[] row) {
+      int sortKeyCount = computeSortOrders().size();
+      return Arrays.asList(Arrays.copyOfRange(row, row.length - sortKeyCount, row.length));
+    }
+
+    private String encodeCursor(List<Object> sortKeys) {
+      try {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(objectMapper.writeValueAsBytes(sortKeys));
+      } catch (JsonProcessingException e) {
+        throw new SerializationException("failed to serialize cursor", e);
+      }
+    }
+
+    private List<Object> decodeCursor(String cursor) {
+      if (cursor == null) {
+        return null;
+      }
+      List<Object> sortKeys = readCursor(cursor);
+      if (sortKeys == null || sortKeys.size() != computeSortOrders().size()) {
+        throw new IllegalArgumentException("cursor does not match the order of the query: " + cursor);
+      }
+      return sortKeys;
+    }
+
+    private long decodeOffsetCursor(String cursor) {
+      if (cursor == null) {
+        return 0;
+      }
+      List<Object> values = readCursor(cursor);
+      if (values == null || values.size() != 1 || !(values.get(0) instanceof Number offset) || offset.longValue() < 0) {
+        throw new IllegalArgumentException("cursor does not match the distinct query: " + cursor);
+      }
+      return offset.longValue();
+    }
+
+    private List<Object> readCursor(String cursor) {
+      try {
+        return objectMapper.readValue(Base64.getUrlDecoder().decode(cursor), new TypeReference<>() {});
+      } catch (IOException | IllegalArgumentException e) {
+        throw new IllegalArgumentException("invalid cursor: " + cursor, e);
+      }
+    }
+
     @Override
     public Query<T, T_RESULT, ?> distinct() {
       this.distinct = true;
@@ -559,17 +725,7 @@ class SQLiteQueryableStore<T> implements QueryableStore<T>, QueryableMaintenance
       Iterator<OrderBy<T>> it = orderBy.iterator();
       while (it.hasNext()) {
         OrderBy<T> order = it.next();
-        if (order.options.isNumerical()) {
-          orderByBuilder.append("CAST(");
-        }
-        if (order.field instanceof IdQueryField) {
-          orderByBuilder.append("ID ");
-        } else {
-          orderByBuilder.append("json_extract(payload, '$.").append(order.field.getName()).append("') ");
-        }
-        if (order.options.isNumerical()) {
-          orderByBuilder.append("AS REAL) ");
-        }
+        orderByBuilder.append(computeOrderExpression(order)).append(' ');
         orderByBuilder.append(order.options.getOrder().name());
         if (it.hasNext()) {
           orderByBuilder.append(", ");
@@ -577,31 +733,57 @@ class SQLiteQueryableStore<T> implements QueryableStore<T>, QueryableMaintenance
       }
     }
 
+    private String computeOrderExpression(OrderBy<T> order) {
+      String expression;
+      if (order.field instanceof IdQueryField) {
+        expression = "ID";
+      } else {
+        expression = "json_extract(payload, '$." + order.field.getName() + "')";
+      }
+      if (order.options.isNumerical()) {
+        return "CAST(" + expression + " AS REAL)";
+      }
+      return expression;
+    }
+
+    private Object[] readRow(ResultSet resultSet, int columnCount) throws SQLException {
+      Object[] row = new Object[columnCount];
+      for (int i = 0; i < row.length; i++) {
+        row[i] = resultSet.getObject(i + 1);
+      }
+      return row;
+    }
+
     @SuppressWarnings("unchecked")
-    private T_RESULT extractResult(ResultSet resultSet) throws JsonProcessingException, SQLException {
+    private T_RESULT extractResult(Object[] row) {
       if (projection != null && projection.length > 0) {
         Object[] values = new Object[projection.length];
         for (int i = 0; i < projection.length; i++) {
           QueryField<T, ?> field = projection[i];
           if (field instanceof QueryableStore.CollectionSizeQueryField<?>) {
-            values[i] = resultSet.getInt(i + 1);
+            values[i] = toInt(row[i]);
           } else if (field instanceof QueryableStore.MapSizeQueryField<?>) {
-            values[i] = resultSet.getInt(i + 1);
+            values[i] = toInt(row[i]);
           } else if (field.isIdField()) {
-            values[i] = resultSet.getString(i + 1);
+            values[i] = Objects.toString(row[i], null);
           } else {
-            values[i] = resultSet.getObject(i + 1);
+            values[i] = row[i];
           }
         }
         return (T_RESULT) values;
       }
-      T entity = objectMapper.readValue(resultSet.getString(1), entityType);
+      T entity;
+      try {
+        entity = objectMapper.readValue((String) row[0], entityType);
+      } catch (JsonProcessingException e) {
+        throw new SerializationException("failed to deserialize object from json", e);
+      }
       if (resultType.isAssignableFrom(Result.class)) {
         Map<String, String> parentIdMapping = new HashMap<>(queryableTypeDescriptor.getTypes().length);
         for (int i = 0; i < queryableTypeDescriptor.getTypes().length; i++) {
-          parentIdMapping.put(computeColumnIdentifier(queryableTypeDescriptor.getTypes()[i]), resultSet.getString(i + 2));
+          parentIdMapping.put(computeColumnIdentifier(queryableTypeDescriptor.getTypes()[i]), Objects.toString(row[i + 1], null));
         }
-        String id = resultSet.getString(queryableTypeDescriptor.getTypes().length + 2);
+        String id = Objects.toString(row[queryableTypeDescriptor.getTypes().length + 1], null);
         return (T_RESULT) new Result<T>() {
           @Override
           public Optional<String> getParentId(Class<?> clazz) {
@@ -637,6 +819,46 @@ class SQLiteQueryableStore<T> implements QueryableStore<T>, QueryableMaintenance
         throw new AssertionError();
       }
     }
+
+    private class BatchSpliterator extends Spliterators.AbstractSpliterator<T_RESULT> {
+
+      private Iterator<Object[]> batch = Collections.emptyIterator();
+      private List<Object> lastSortKeys;
+      private long offset;
+      private boolean exhausted;
+
+      BatchSpliterator() {
+        super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+      }
+
+      @Override
+      public boolean tryAdvance(Consumer<? super T_RESULT> action) {
+        if (!batch.hasNext() && !readNextBatch()) {
+          return false;
+        }
+        action.accept(extractResult(batch.next()));
+        return true;
+      }
+
+      private boolean readNextBatch() {
+        if (exhausted) {
+          return false;
+        }
+        List<Object[]> rows = distinct
+          ? readRows(null, offset, STREAM_BATCH_SIZE)
+          : readRows(lastSortKeys, 0, STREAM_BATCH_SIZE);
+        exhausted = rows.size() < STREAM_BATCH_SIZE;
+        if (rows.isEmpty()) {
+          return false;
+        }
+        offset += rows.size();
+        if (!distinct) {
+          lastSortKeys = sortKeys(rows.get(rows.size() - 1));
+        }
+        batch = rows.iterator();
+        return true;
+      }
+    }
   }
 
   private class TemporaryTableMaintenanceIterator implements MaintenanceIterator<T> {
@@ -45,8 +45,6 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import static com.fasterxml.jackson.databind.DeserializationFeature.READ_DATE_TIMESTAMPS_AS_NANOSECONDS;
 import static com.fasterxml.jackson.databind.SerializationFeature.WRITE_DATES_AS_TIMESTAMPS;
@@ -70,7 +68,7 @@ public class SQLiteQueryableStoreFactory implements QueryableStoreFactory {
 
   private final Map<String, QueryableTypeDescriptor> queryableTypes = new HashMap<>();
 
-  private final ReadWriteLock lock = new LoggingReadWriteLock(new ReentrantReadWriteLock());
+  private final StoreLocks locks;
 
   @Inject
   public SQLiteQueryableStoreFactory(SCMContextProvider contextProvider,
@@ -86,7 +84,7 @@ public class SQLiteQueryableStoreFactory implements QueryableStoreFactory {
                                      @ConfigValue(key = "queryableStore.leakDetectionThreshold", defaultValue = DEFAULT_LEAK_DETECTION_THRESHOLD_IN_SECONDS) int leakDetectionThresholdInSeconds
   ) {
     this(
-      "jdbc:sqlite:" + contextProvider.resolve(Path.of("scm.db")) + "?shared_cache=true&journal_mode=WAL",
+      "jdbc:sqlite:" + contextProvider.resolve(Path.of("scm.db")) + "?journal_mode=WAL",
       objectMapper,
       keyGenerator,
       pluginLoader.getExtensionProcessor().getQueryableTypes(),
@@ -141,6 +139,7 @@ public class SQLiteQueryableStoreFactory implements QueryableStoreFactory {
       leakDetectionThresholdInSeconds);
     this.readOnlyChecker = readOnlyChecker;
     this.meterRegistry = meterRegistry;
+    this.locks = new StoreLocks(meterRegistry);
     this.dataSource = new HikariDataSource(config);
 
     this.objectMapper = objectMapper
@@ -206,7 +205,7 @@ public class SQLiteQueryableStoreFactory implements QueryableStoreFactory {
       clazz,
       queryableTypeDescriptor,
       parentIds,
-      lock,
+      locks.createStoreLock(clazz),
       mustBeReadOnly(queryableTypeDescriptor, parentIds)
     );
 
@@ -229,7 +228,7 @@ public class SQLiteQueryableStoreFactory implements QueryableStoreFactory {
       clazz,
       queryableTypeDescriptor,
       parentIds,
-      lock,
+      locks.createStoreLock(clazz),
       mustBeReadOnly(queryableTypeDescriptor, parentIds)
     );
 
@@ -253,7 +252,7 @@ public class SQLiteQueryableStoreFactory implements QueryableStoreFactory {
       clazz,
       queryableTypeDescriptor,
       parentIds,
-      lock,
+      locks.createStoreLock(clazz),
       mustBeReadOnly(queryableTypeDescriptor, parentIds)
     );
 
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package sonia.scm.store.sqlite;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Creates the locks for the queryable stores of a single SQLite database.
+ * <br/>
+ * The database is opened in WAL mode, so readers get a consistent snapshot and are not blocked by writers of other
+ * connections. Therefore, read operations only have to be synchronized with operations on the same connection and
+ * each store gets a lock of its own. SQLite allows only one writer for the whole database at a time, so all write
+ * operations of all stores are serialized by a single write lock. Writers always acquire this global lock before the
+ * lock of their store, so that two writers cannot deadlock each other.
+ */
+class StoreLocks {
+
+  static final String METRIC_WRITE_LOCK_WAIT = "scm.persistence.lock.wait";
+
+  private final Lock globalWriteLock = new ReentrantLock();
+  private final MeterRegistry meterRegistry;
+
+  StoreLocks(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  ReadWriteLock createStoreLock(Class<?> clazz) {
+    return new StoreLock(new LoggingReadWriteLock(new ReentrantReadWriteLock()), createWaitTimer(clazz));
+  }
+
+  private Timer createWaitTimer(Class<?> clazz) {
+    if (meterRegistry == null) {
+      return null;
+    }
+    return Timer.builder(METRIC_WRITE_LOCK_WAIT)
+      .description("Time spent waiting for the write lock of the queryable store")
+      .tag("storeClass", clazz.getName())
+      .register(meterRegistry);
+  }
+
+  private class StoreLock implements ReadWriteLock {
+
+    private final ReadWriteLock connectionLock;
+    private final Lock writeLock;
+
+    private StoreLock(ReadWriteLock connectionLock, Timer waitTimer) {
+      this.connectionLock = connectionLock;
+      this.writeLock = new WriteLock(connectionLock.writeLock(), waitTimer);
+    }
+
+    @Override
+    public Lock readLock() {
+      return connectionLock.readLock();
+    }
+
+    @Override
+    public Lock writeLock() {
+      return writeLock;
+    }
+  }
+
+  private class WriteLock implements Lock {
+
+    private final Lock connectionWriteLock;
+    private final Timer waitTimer;
+
+    private WriteLock(Lock connectionWriteLock, Timer waitTimer) {
+      this.connectionWriteLock = connectionWriteLock;
+      this.waitTimer = waitTimer;
+    }
+
+    @Override
+    public void lock() {
+      long start = System.nanoTime();
+      globalWriteLock.lock();
+      connectionWriteLock.lock();
+      recordWait(start);
+    }
+
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+      long start = System.nanoTime();
+      globalWriteLock.lockInterruptibly();
+      try {
+        connectionWriteLock.lockInterruptibly();
+      } catch (InterruptedException e) {
+        globalWriteLock.unlock();
+        throw e;
+      }
+      recordWait(start);
+    }
+
+    @Override
+    public boolean tryLock() {
+      if (!globalWriteLock.tryLock()) {
+        return false;
+      }
+      if (!connectionWriteLock.tryLock()) {
+        globalWriteLock.unlock();
+        return false;
+      }
+      return true;
+    }
+
+    @Override
+    public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+      long start = System.nanoTime();
+      long deadline = start + unit.toNanos(time);
+      if (!globalWriteLock.tryLock(time, unit)) {
+        return false;
+      }
+      boolean locked;
+      try {
+        locked = connectionWriteLock.tryLock(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+      } catch (InterruptedException e) {
+        globalWriteLock.unlock();
+        throw e;
+      }
+      if (!locked) {
+        globalWriteLock.unlock();
+        return false;
+      }
+      recordWait(start);
+      return true;
+    }
+
+    @Override
+    public void unlock() {
+      connectionWriteLock.unlock();
+      globalWriteLock.unlock();
+    }
+
+    @Override
+    public Condition newCondition() {
+      throw new UnsupportedOperationException("conditions are not supported for store write locks");
+    }
+
+    private void recordWait(long start) {
+      if (waitTimer != null) {
+        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      }
+    }
+  }
+}
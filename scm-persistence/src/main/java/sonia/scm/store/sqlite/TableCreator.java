@@ -24,15 +24,21 @@ import sonia.scm.store.StoreException;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.LinkedList;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static sonia.scm.store.sqlite.SQLiteIdentifiers.computeColumnIdentifier;
 import static sonia.scm.store.sqlite.SQLiteIdentifiers.computeTableName;
+import static sonia.scm.store.sqlite.SQLiteIdentifiers.sanitize;
 
 @Slf4j
 class TableCreator {
 
+  private static final String INDEX_SUFFIX = "_IDX";
+
   private final Connection connection;
 
   TableCreator(Connection connection) {
@@ -67,6 +73,76 @@ class TableCreator {
         throw new StoreException("Table " + tableName + " exists but has too many columns");
       }
     }
+
+    initializeIndexes(descriptor, tableName);
+  }
+
+  /**
+   * Creates an index for every field annotated with {@link sonia.scm.store.QueryIndex}. The indexes are created
+   * on the parent id columns followed by the json expression of the field, which is the same expression the
+   * queries use for conditions and orders (see {@link SQLFieldHelper}). This way SQLite can use the index without
+   * further changes of the queries. Indexes of fields, which are no longer annotated, are dropped.
+   */
+  private void initializeIndexes(QueryableTypeDescriptor descriptor, String tableName) {
+    Set<String> expectedIndexes = Arrays.stream(descriptor.getIndexes())
+      .map(field -> computeIndexName(tableName, field))
+      .collect(Collectors.toSet());
+
+    for (String existingIndex : getIndexes(tableName)) {
+      if (isManagedIndex(tableName, existingIndex) && !expectedIndexes.contains(existingIndex)) {
+        log.info("dropping obsolete index {} of table {}", existingIndex, tableName);
+        execute("DROP INDEX IF EXISTS " + existingIndex, "Failed to drop index " + existingIndex);
+      }
+    }
+
+    for (String field : descriptor.getIndexes()) {
+      createIndex(descriptor, tableName, field);
+    }
+  }
+
+  private void createIndex(QueryableTypeDescriptor descriptor, String tableName, String field) {
+    StringBuilder builder = new StringBuilder("CREATE INDEX IF NOT EXISTS ")
+      .append(computeIndexName(tableName, field))
+      .append(" ON ")
+      .append(tableName)
+      .append(" (");
+    for (String type : descriptor.getTypes()) {
+      builder.append(computeColumnIdentifier(type)).append(", ");
+    }
+    builder.append("json_extract(payload, '$.").append(sanitize(field)).append("'))");
+    log.debug("creating index for field {} of table {}", field, tableName);
+    execute(builder.toString(), "Failed to create index for field " + field + " of class " + descriptor.getClazz());
+  }
+
+  private void execute(String sql, String errorMessage) {
+    try {
+      log.trace("sql: {}", sql);
+      connection.createStatement().execute(sql);
+    } catch (SQLException e) {
+      throw new StoreException(errorMessage + ": " + sql, e);
+    }
+  }
+
+  private static String computeIndexName(String tableName, String field) {
+    return sanitize(tableName + "_" + field + INDEX_SUFFIX);
+  }
+
+  private static boolean isManagedIndex(String tableName, String indexName) {
+    return indexName.startsWith(tableName + "_") && indexName.endsWith(INDEX_SUFFIX);
+  }
+
+  Collection<String> getIndexes(String tableName) {
+    try {
+      ResultSet resultSet = connection.createStatement().executeQuery("PRAGMA index_list(" + tableName + ")");
+      Collection<String> indexes = new LinkedList<>();
+      while (resultSet.next()) {
+        indexes.add(resultSet.getString("name"));
+      }
+      resultSet.close();
+      return indexes;
+    } catch (SQLException e) {
+      throw new StoreException("Failed to get indexes for table " + tableName, e);
+    }
   }
 
   private void createTable(QueryableTypeDescriptor descriptor, String tableName) {
@@ -139,6 +139,36 @@ class PathBasedRepositoryLocationResolverTest {
     assertThat(content).contains("last-modified=\"" + now + "\"");
   }
 
+  @Test
+  void shouldNotRewritePathDatabaseForModificationDate() {
+    long created = CREATION_TIME + 100;
+    when(clock.millis()).thenReturn(created);
+    resolver.forClass(Path.class).createLocation("newId");
+
+    long modified = CREATION_TIME + 200;
+    when(clock.millis()).thenReturn(modified);
+    resolver.updateModificationDate();
+
+    assertThat(resolver.getLastModified()).isEqualTo(modified);
+    assertThat(getXmlFileContent()).contains("last-modified=\"" + created + "\"");
+
+    PathBasedRepositoryLocationResolver restarted = createResolver();
+    assertThat(restarted.getCreationTime()).isEqualTo(CREATION_TIME);
+    assertThat(restarted.getLastModified()).isEqualTo(modified);
+  }
+
+  @Test
+  void shouldUseNewerDateOfPathDatabase() {
+    resolver.forClass(Path.class).createLocation("newId");
+    when(clock.millis()).thenReturn(CREATION_TIME + 100);
+    resolver.updateModificationDate();
+
+    when(clock.millis()).thenReturn(CREATION_TIME + 200);
+    resolver.forClass(Path.class).createLocation("otherId");
+
+    assertThat(createResolver().getLastModified()).isEqualTo(CREATION_TIME + 200);
+  }
+
   @Nested
   class WithExistingData {
 
@@ -45,6 +45,7 @@ import java.io.IOException;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.util.Collection;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
@@ -364,6 +365,57 @@ class XmlRepositoryDAOTest {
         .extracting("id").containsExactly("banana1", "banana2");
     }
 
+    @Test
+    void shouldReuseSnapshotUntilModification() {
+      dao.add(REPOSITORY);
+
+      Collection<Repository> repositories = dao.getAll();
+      assertThat(dao.getAll()).isSameAs(repositories);
+
+      dao.add(createRepository("23"));
+
+      assertThat(dao.getAll())
+        .isNotSameAs(repositories)
+        .extracting("id").containsExactly("23", "42");
+    }
+
+    @Test
+    void shouldReturnRepositoriesOfNamespace() {
+      dao.add(createRepository("banana2", "banana", "yellow"));
+      dao.add(createRepository("banana1", "banana", "red"));
+      dao.add(createRepository("apple", "apple", "red"));
+
+      assertThat(dao.getAllInNamespace("banana"))
+        .extracting("id").containsExactly("banana1", "banana2");
+      assertThat(dao.getAllInNamespace("cherry")).isEmpty();
+      assertThat(dao.getNamespaces()).containsExactly("apple", "banana");
+    }
+
+    @Test
+    void shouldReturnRepositoriesOfType() {
+      Repository git = createRepository("1", "space", "git");
+      git.setType("git");
+      dao.add(git);
+      dao.add(createRepository("2", "space", "xml"));
+
+      assertThat(dao.getAllOfType("git")).extracting("id").containsExactly("1");
+      assertThat(dao.getAllOfType("xml")).extracting("id").containsExactly("2");
+    }
+
+    @Test
+    void shouldUpdateNamespaceIndexOnRename() {
+      Repository repository = createRepository("1", "old", "repo");
+      dao.add(repository);
+      assertThat(dao.getNamespaces()).containsExactly("old");
+
+      Repository renamed = repository.clone();
+      renamed.setNamespace("new");
+      dao.modify(renamed);
+
+      assertThat(dao.getNamespaces()).containsExactly("new");
+      assertThat(dao.getAllInNamespace("new")).extracting("id").containsExactly("1");
+    }
+
     private String getXmlFileContent(String id) {
       Path storePath = metadataFile(id);
 
@@ -450,6 +502,79 @@ class XmlRepositoryDAOTest {
     }
   }
 
+  @Nested
+  class WithSnapshot {
+
+    private Path repositoryPath;
+    private Path metadataPath;
+    private RepositoryMetadataSnapshot snapshot;
+
+    @BeforeEach
+    void createMetadataFileForRepository(@TempDir Path basePath) throws IOException {
+      repositoryPath = basePath.resolve("existing");
+      metadataPath = repositoryPath.resolve("metadata.xml");
+      snapshot = new RepositoryMetadataSnapshot(basePath.resolve("var").resolve("snapshot"));
+
+      prepareRepositoryPath(repositoryPath);
+      triggeredOnForAllLocations = consumer -> consumer.accept("existing", repositoryPath);
+    }
+
+    @Test
+    void shouldUseSnapshotIfMetadataIsUnchanged() throws IOException {
+      new XmlRepositoryDAO(locationResolver, fileSystem, repositoryExportingCheck, snapshot, 1);
+
+      FileTime modified = Files.getLastModifiedTime(metadataPath);
+      replaceName("existing", "snapshot");
+      Files.setLastModifiedTime(metadataPath, modified);
+
+      XmlRepositoryDAO dao = new XmlRepositoryDAO(locationResolver, fileSystem, repositoryExportingCheck, snapshot, 1);
+
+      assertThat(dao.contains(new NamespaceAndName("space", "existing"))).isTrue();
+    }
+
+    @Test
+    void shouldReadChangedMetadata() throws IOException {
+      new XmlRepositoryDAO(locationResolver, fileSystem, repositoryExportingCheck, snapshot, 1);
+
+      FileTime modified = Files.getLastModifiedTime(metadataPath);
+      replaceName("existing", "modified");
+      Files.setLastModifiedTime(metadataPath, FileTime.fromMillis(modified.toMillis() + 10_000));
+
+      XmlRepositoryDAO dao = new XmlRepositoryDAO(locationResolver, fileSystem, repositoryExportingCheck, snapshot, 1);
+
+      assertThat(dao.contains(new NamespaceAndName("space", "modified"))).isTrue();
+      assertThat(dao.contains(new NamespaceAndName("space", "existing"))).isFalse();
+    }
+
+    private void replaceName(String oldName, String newName) throws IOException {
+      String metadata = Files.readString(metadataPath);
+      Files.writeString(metadataPath, metadata.replace("<name>" + oldName + "</name>", "<name>" + newName + "</name>"));
+    }
+  }
+
+  @Nested
+  class WithManyRepositories {
+
+    @Test
+    void shouldReadMetadataInParallel(@TempDir Path basePath) throws IOException {
+      for (int i = 0; i < 10; i++) {
+        prepareRepositoryPath(basePath.resolve("repo-" + i));
+        Path metadataPath = basePath.resolve("repo-" + i).resolve("metadata.xml");
+        Files.writeString(metadataPath, Files.readString(metadataPath).replace("existing", "repo-" + i));
+      }
+      triggeredOnForAllLocations = consumer -> {
+        for (int i = 0; i < 10; i++) {
+          consumer.accept("repo-" + i, basePath.resolve("repo-" + i));
+        }
+      };
+
+      XmlRepositoryDAO dao = new XmlRepositoryDAO(locationResolver, fileSystem, repositoryExportingCheck, null, 4);
+
+      assertThat(dao.getAll()).hasSize(10);
+      assertThat(dao.get("repo-7").getName()).isEqualTo("repo-7");
+    }
+  }
+
   @Nested
   class WithDuplicateRepositories {
     private Path repositoryPath;
@@ -21,13 +21,13 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Answers;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import sonia.scm.repository.Repository;
 import sonia.scm.repository.RepositoryLocationResolver;
 import sonia.scm.repository.RepositoryTestData;
 import sonia.scm.store.ExportableStore;
+import sonia.scm.store.ExportableStoreProvider;
 import sonia.scm.store.StoreType;
 
 import java.io.IOException;
@@ -36,8 +36,10 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -48,7 +50,9 @@ class FileStoreExporterTest {
   @Mock(answer = Answers.RETURNS_DEEP_STUBS)
   private RepositoryLocationResolver resolver;
 
-  @InjectMocks
+  @Mock
+  private ExportableStoreProvider storeProvider;
+
   private FileStoreExporter fileStoreExporter;
 
   private Path storePath;
@@ -57,6 +61,7 @@ class FileStoreExporterTest {
   void setUpStorePath(@TempDir Path temp) {
     storePath = temp.resolve("store");
     when(resolver.forClass(Path.class).getLocation(REPOSITORY.getId())).thenReturn(temp);
+    fileStoreExporter = new FileStoreExporter(resolver, Set.of(storeProvider));
   }
 
   @Test
@@ -100,6 +105,27 @@ class FileStoreExporterTest {
     assertThat(exportableStores.stream().filter(e -> e.getMetaData().getType().equals(StoreType.DATA))).hasSize(2);
   }
 
+  @Test
+  void shouldReturnStoresOfProviders() throws IOException {
+    createFile(StoreType.DATA.getValue(), "ci", "data.xml");
+    ExportableStore sharedStore = mock(ExportableStore.class);
+    when(storeProvider.getExportableStores(REPOSITORY)).thenReturn(List.of(sharedStore));
+
+    List<ExportableStore> exportableStores = fileStoreExporter.listExportableStores(REPOSITORY);
+
+    assertThat(exportableStores).hasSize(2).contains(sharedStore);
+  }
+
+  @Test
+  void shouldReturnStoresOfProvidersWithoutStoreDirectory() {
+    ExportableStore sharedStore = mock(ExportableStore.class);
+    when(storeProvider.getExportableStores(REPOSITORY)).thenReturn(List.of(sharedStore));
+
+    List<ExportableStore> exportableStores = fileStoreExporter.listExportableStores(REPOSITORY);
+
+    assertThat(exportableStores).containsExactly(sharedStore);
+  }
+
   private FileWriter createFile(String... names) throws IOException {
     Path file = Arrays.stream(names).map(Paths::get).reduce(Path::resolve).map(storePath::resolve).orElse(storePath);
     Files.createDirectories(file.getParent());
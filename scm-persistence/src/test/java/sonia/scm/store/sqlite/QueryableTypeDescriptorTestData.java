@@ -32,11 +32,15 @@ public class QueryableTypeDescriptorTestData {
   }
 
   public static QueryableTypeDescriptor createDescriptor(String name, String clazz, String[] t, IdGenerator idGenerator) {
+    return createDescriptor(name, clazz, t, idGenerator, new String[0]);
+  }
+
+  public static QueryableTypeDescriptor createDescriptor(String name, String clazz, String[] t, IdGenerator idGenerator, String[] indexes) {
     try {
       Constructor<QueryableTypeDescriptor> constructor = QueryableTypeDescriptor.class
-        .getDeclaredConstructor(String.class, String.class, String[].class, IdGenerator.class);
+        .getDeclaredConstructor(String.class, String.class, String[].class, IdGenerator.class, String[].class);
       constructor.setAccessible(true);
-      return constructor.newInstance(name, clazz, t, idGenerator);
+      return constructor.newInstance(name, clazz, t, idGenerator, indexes);
     } catch (Exception e) {
       throw new RuntimeException(e);
     }
@@ -36,10 +36,13 @@ import sonia.scm.user.User;
 
 import java.nio.file.Path;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -514,6 +517,148 @@ class SQLiteQueryableStoreTest {
           .extracting("name")
           .containsExactly("1", "10", "100", "11", "2");
       }
+
+      @Test
+      void shouldStreamResultsInBatches() {
+        QueryableMutableStore<User> store = new StoreTestBuilder(connectionString).withIds();
+        int count = SQLiteQueryableStore.STREAM_BATCH_SIZE * 2 + 42;
+        store.transactional(() -> {
+          for (int i = 0; i < count; i++) {
+            store.put(new User(String.format("user-%04d", i)));
+          }
+          return true;
+        });
+
+        List<String> names;
+        try (Stream<User> stream = store.query().orderBy(USER_NAME, QueryableStore.Order.DESC).stream()) {
+          names = stream.map(User::getName).toList();
+        }
+
+        assertThat(names)
+          .hasSize(count)
+          .isSortedAccordingTo(Comparator.reverseOrder())
+          .doesNotHaveDuplicates();
+      }
+
+      @Test
+      void shouldStreamDistinctResults() {
+        QueryableMutableStore<User> store = new StoreTestBuilder(connectionString).withIds();
+        store.put(new User("trillian", "McMillan", "tricia@hog.org"));
+        store.put(new User("zaphod", "Beeblebrox Head 1", "zaphod1@hog.org"));
+        store.put(new User("zaphod", "Beeblebrox Head 2", "zaphod2@hog.org"));
+
+        List<Object[]> names;
+        try (Stream<Object[]> stream = store.query().project(USER_NAME).distinct().stream()) {
+          names = stream.toList();
+        }
+
+        assertThat(names)
+          .extracting(values -> values[0])
+          .containsExactlyInAnyOrder("trillian", "zaphod");
+      }
+
+      @Test
+      void shouldPageWithCursorForEqualSortKeys() {
+        QueryableMutableStore<User> store = new StoreTestBuilder(connectionString).withIds();
+        store.put(new User("trillian", "McMillan", "tricia@hog.org"));
+        store.put(new User("zaphod", "Beeblebrox Head 1", "zaphod1@hog.org"));
+        store.put(new User("arthur", "Dent", "arthur@hog.org"));
+        store.put(new User("zaphod", "Beeblebrox Head 2", "zaphod2@hog.org"));
+        store.put(new User("zaphod", "Beeblebrox Head 3", "zaphod3@hog.org"));
+
+        QueryableStore.Query<User, User, ?> query = store.query().orderBy(USER_NAME, QueryableStore.Order.ASC);
+
+        assertThat(readAllPages(query, 2))
+          .extracting("mail")
+          .containsExactly("arthur@hog.org", "tricia@hog.org", "zaphod1@hog.org", "zaphod2@hog.org", "zaphod3@hog.org");
+      }
+
+      @Test
+      void shouldPageWithCursorForNullSortKeys() {
+        QueryableMutableStore<User> store = new StoreTestBuilder(connectionString).withIds();
+        store.put(new User("trillian", "McMillan", "tricia@hog.org"));
+        store.put(new User("arthur", null, "arthur@hog.org"));
+        store.put(new User("zaphod", "Beeblebrox", "zaphod@hog.org"));
+        store.put(new User("marvin", null, "marvin@hog.org"));
+
+        QueryableStore.Query<User, User, ?> ascending = store.query()
+          .orderBy(DISPLAY_NAME, QueryableStore.Order.ASC);
+        QueryableStore.Query<User, User, ?> descending = store.query()
+          .orderBy(DISPLAY_NAME, QueryableStore.Order.DESC);
+
+        assertThat(readAllPages(ascending, 1))
+          .extracting("name")
+          .containsExactly("arthur", "marvin", "zaphod", "trillian");
+        assertThat(readAllPages(descending, 1))
+          .extracting("name")
+          .containsExactly("trillian", "zaphod", "arthur", "marvin");
+      }
+
+      @Test
+      void shouldPageDistinctResultsWithCursor() {
+        QueryableMutableStore<User> store = new StoreTestBuilder(connectionString).withIds();
+        store.put(new User("trillian", "McMillan", "tricia@hog.org"));
+        store.put(new User("zaphod", "Beeblebrox Head 1", "zaphod1@hog.org"));
+        store.put(new User("arthur", "Dent", "arthur@hog.org"));
+        store.put(new User("zaphod", "Beeblebrox Head 2", "zaphod2@hog.org"));
+
+        QueryableStore.Query<User, Object[], ?> query = store.query()
+          .orderBy(USER_NAME, QueryableStore.Order.ASC)
+          .project(USER_NAME)
+          .distinct();
+
+        List<Object[]> names = new ArrayList<>();
+        String cursor = null;
+        do {
+          QueryableStore.Page<Object[]> page = query.findPage(cursor, 2);
+          names.addAll(page.getEntries());
+          cursor = page.getNextCursor().orElse(null);
+        } while (cursor != null);
+
+        assertThat(names)
+          .extracting(values -> values[0])
+          .containsExactly("arthur", "trillian", "zaphod");
+        assertThatThrownBy(() -> query.findPage("no cursor at all", 1))
+          .isInstanceOf(IllegalArgumentException.class);
+      }
+
+      @Test
+      void shouldNotReturnCursorForLastPage() {
+        QueryableMutableStore<User> store = new StoreTestBuilder(connectionString).withIds();
+        store.put(new User("trillian", "McMillan", "tricia@hog.org"));
+        store.put(new User("arthur", "Dent", "arthur@hog.org"));
+
+        QueryableStore.Page<User> page = store.query().findPage(null, 2);
+
+        assertThat(page.getEntries()).hasSize(2);
+        assertThat(page.getNextCursor()).isEmpty();
+      }
+
+      @Test
+      void shouldRejectCursorOfOtherQuery() {
+        QueryableMutableStore<User> store = new StoreTestBuilder(connectionString).withIds();
+        store.put(new User("trillian", "McMillan", "tricia@hog.org"));
+        store.put(new User("arthur", "Dent", "arthur@hog.org"));
+
+        String cursor = store.query().findPage(null, 1).getNextCursor().orElseThrow();
+        QueryableStore.Query<User, User, ?> orderedQuery = store.query().orderBy(USER_NAME, QueryableStore.Order.ASC);
+
+        assertThatThrownBy(() -> orderedQuery.findPage(cursor, 1))
+          .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> orderedQuery.findPage("no cursor at all", 1))
+          .isInstanceOf(IllegalArgumentException.class);
+      }
+
+      private List<User> readAllPages(QueryableStore.Query<User, User, ?> query, int limit) {
+        List<User> result = new ArrayList<>();
+        String cursor = null;
+        do {
+          QueryableStore.Page<User> page = query.findPage(cursor, limit);
+          result.addAll(page.getEntries());
+          cursor = page.getNextCursor().orElse(null);
+        } while (cursor != null);
+        return result;
+      }
     }
 
     @Nested
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package sonia.scm.store.sqlite;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StoreLocksTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final StoreLocks locks = new StoreLocks(meterRegistry);
+
+  @Test
+  void shouldNotBlockReadersWhileWriting() throws Exception {
+    ReadWriteLock writingStore = locks.createStoreLock(Spaceship.class);
+    ReadWriteLock readingStore = locks.createStoreLock(Spaceship.class);
+
+    writingStore.writeLock().lock();
+    try {
+      assertThat(tryLockInOtherThread(readingStore.readLock())).isTrue();
+    } finally {
+      writingStore.writeLock().unlock();
+    }
+  }
+
+  @Test
+  void shouldBlockReadersOfSameStoreWhileWriting() throws Exception {
+    ReadWriteLock store = locks.createStoreLock(Spaceship.class);
+
+    store.writeLock().lock();
+    try {
+      assertThat(tryLockInOtherThread(store.readLock())).isFalse();
+    } finally {
+      store.writeLock().unlock();
+    }
+  }
+
+  @Test
+  void shouldSerializeWritersOfAllStores() throws Exception {
+    ReadWriteLock spaceships = locks.createStoreLock(Spaceship.class);
+    ReadWriteLock crewmates = locks.createStoreLock(Crewmate.class);
+
+    spaceships.writeLock().lock();
+    try {
+      assertThat(tryLockInOtherThread(crewmates.writeLock())).isFalse();
+    } finally {
+      spaceships.writeLock().unlock();
+    }
+    assertThat(tryLockInOtherThread(crewmates.writeLock())).isTrue();
+  }
+
+  @Test
+  void shouldBeReentrantForWriters() {
+    ReadWriteLock store = locks.createStoreLock(Spaceship.class);
+
+    store.writeLock().lock();
+    store.writeLock().lock();
+    store.readLock().lock();
+    store.readLock().unlock();
+    store.writeLock().unlock();
+    store.writeLock().unlock();
+
+    assertThat(store.writeLock().tryLock()).isTrue();
+    store.writeLock().unlock();
+  }
+
+  @Test
+  void shouldRecordWaitTimeForWriteLock() {
+    ReadWriteLock store = locks.createStoreLock(Spaceship.class);
+
+    store.writeLock().lock();
+    store.writeLock().unlock();
+
+    Timer timer = meterRegistry.get(StoreLocks.METRIC_WRITE_LOCK_WAIT)
+      .tag("storeClass", Spaceship.class.getName())
+      .timer();
+    assertThat(timer.count()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldWorkWithoutMeterRegistry() {
+    ReadWriteLock store = new StoreLocks(null).createStoreLock(Spaceship.class);
+
+    store.writeLock().lock();
+    store.writeLock().unlock();
+
+    assertThat(store.writeLock().tryLock()).isTrue();
+    store.writeLock().unlock();
+  }
+
+  private boolean tryLockInOtherThread(Lock lock) throws Exception {
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        if (lock.tryLock(100, TimeUnit.MILLISECONDS)) {
+          lock.unlock();
+          return true;
+        }
+        return false;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+    }).get(5, TimeUnit.SECONDS);
+  }
+}
@@ -20,13 +20,16 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 import sonia.scm.plugin.QueryableTypeDescriptor;
+import sonia.scm.store.IdGenerator;
 import sonia.scm.store.StoreException;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -139,6 +142,73 @@ class TableCreatorTest {
     }
   }
 
+  @Test
+  void shouldCreateIndexesForIndexedFields() throws SQLException {
+    QueryableTypeDescriptor descriptor = createDescriptor(
+      "", "com.cloudogu.space.to.be.Spaceship", new String[]{"sonia.scm.repo.Repository.class"}, IdGenerator.DEFAULT, new String[]{"name", "captain"}
+    );
+
+    tableCreator.initializeTable(descriptor);
+
+    assertThat(getIndexes("com_cloudogu_space_to_be_Spaceship_STORE"))
+      .contains("com_cloudogu_space_to_be_Spaceship_STORE_name_IDX", "com_cloudogu_space_to_be_Spaceship_STORE_captain_IDX");
+  }
+
+  @Test
+  void shouldUseIndexForConditionsOnIndexedFields() throws SQLException {
+    QueryableTypeDescriptor descriptor = createDescriptor(
+      "", "com.cloudogu.space.to.be.Spaceship", new String[]{"sonia.scm.repo.Repository.class"}, IdGenerator.DEFAULT, new String[]{"name"}
+    );
+
+    tableCreator.initializeTable(descriptor);
+
+    ResultSet resultSet = connection.createStatement().executeQuery(
+      "EXPLAIN QUERY PLAN SELECT payload FROM com_cloudogu_space_to_be_Spaceship_STORE " +
+        "WHERE Repository_ID = 'hog' AND json_extract(payload, '$.name') = 'Heart of Gold'"
+    );
+    StringBuilder plan = new StringBuilder();
+    while (resultSet.next()) {
+      plan.append(resultSet.getString("detail"));
+    }
+    assertThat(plan.toString()).contains("com_cloudogu_space_to_be_Spaceship_STORE_name_IDX");
+  }
+
+  @Test
+  void shouldAddIndexesToExistingTable() throws SQLException {
+    tableCreator.initializeTable(createDescriptor("com.cloudogu.space.to.be.Spaceship", new String[0]));
+
+    tableCreator.initializeTable(createDescriptor(
+      "", "com.cloudogu.space.to.be.Spaceship", new String[0], IdGenerator.DEFAULT, new String[]{"name"}
+    ));
+
+    assertThat(getIndexes("com_cloudogu_space_to_be_Spaceship_STORE"))
+      .contains("com_cloudogu_space_to_be_Spaceship_STORE_name_IDX");
+  }
+
+  @Test
+  void shouldDropObsoleteIndexes() throws SQLException {
+    tableCreator.initializeTable(createDescriptor(
+      "", "com.cloudogu.space.to.be.Spaceship", new String[0], IdGenerator.DEFAULT, new String[]{"name", "captain"}
+    ));
+
+    tableCreator.initializeTable(createDescriptor(
+      "", "com.cloudogu.space.to.be.Spaceship", new String[0], IdGenerator.DEFAULT, new String[]{"name"}
+    ));
+
+    assertThat(getIndexes("com_cloudogu_space_to_be_Spaceship_STORE"))
+      .contains("com_cloudogu_space_to_be_Spaceship_STORE_name_IDX")
+      .doesNotContain("com_cloudogu_space_to_be_Spaceship_STORE_captain_IDX");
+  }
+
+  private List<String> getIndexes(String tableName) throws SQLException {
+    ResultSet resultSet = connection.createStatement().executeQuery("PRAGMA index_list(" + tableName + ")");
+    List<String> indexes = new ArrayList<>();
+    while (resultSet.next()) {
+      indexes.add(resultSet.getString("name"));
+    }
+    return indexes;
+  }
+
   private Map<String, String> getColumns(String expectedTableName) throws SQLException {
     ResultSet resultSet = connection.createStatement().executeQuery("PRAGMA table_info("+ expectedTableName +")");
     Map<String, String> columns = new LinkedHashMap<>();
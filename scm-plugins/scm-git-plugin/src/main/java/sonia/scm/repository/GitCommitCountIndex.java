@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package sonia.scm.repository;
+
+import com.github.legman.Subscribe;
+import com.google.common.util.concurrent.Striped;
+import jakarta.inject.Inject;
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sonia.scm.EagerSingleton;
+import sonia.scm.plugin.Extension;
+import sonia.scm.store.DataStore;
+import sonia.scm.store.DataStoreFactory;
+import sonia.scm.store.StoreReadOnlyException;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * Stores the amount of commits which are reachable from the head of each branch. When a branch is moved, the new
+ * count is computed from the stored one by walking only the commits between the old and the new head, so that paged
+ * logs do not have to walk the whole history to compute the total amount of changesets.
+ * <p>
+ * The index is updated after each push and lazily whenever a count is requested for a branch whose head has changed
+ * since the last update.
+ *
+ * @since 3.12.0
+ */
+@Extension
+@EagerSingleton
+public class GitCommitCountIndex {
+
+  private static final Logger LOG = LoggerFactory.getLogger(GitCommitCountIndex.class);
+
+  private static final String STORE_NAME = "git-commit-counts";
+  private static final String STORE_ID = "branches";
+
+  private final DataStoreFactory dataStoreFactory;
+  private final GitRepositoryHandler handler;
+  private final Striped<Lock> locks = Striped.lock(64);
+
+  @Inject
+  public GitCommitCountIndex(DataStoreFactory dataStoreFactory, GitRepositoryHandler handler) {
+    this.dataStoreFactory = dataStoreFactory;
+    this.handler = handler;
+  }
+
+  /**
+   * Returns the amount of commits reachable from the head of the given branch, including the head itself. If the
+   * stored count is outdated, the new count is stored as well, unless the repository is read only (e.g. archived).
+   */
+  public long count(String repositoryId, org.eclipse.jgit.lib.Repository gitRepository, Ref branch) throws IOException {
+    Lock lock = locks.get(repositoryId);
+    lock.lock();
+    try {
+      DataStore<StoreEntry> store = createStore(repositoryId);
+      StoreEntry entry = store.getOptional(STORE_ID).orElseGet(StoreEntry::new);
+      String branchName = branch.getLeaf().getName();
+      ObjectId head = branch.getObjectId();
+
+      BranchCount branchCount = entry.getBranches().get(branchName);
+      if (branchCount != null && head.getName().equals(branchCount.getHead())) {
+        return branchCount.getCount();
+      }
+
+      long count = computeCount(gitRepository, head, branchCount);
+      entry.getBranches().put(branchName, new BranchCount(head.getName(), count));
+      try {
+        store.put(STORE_ID, entry);
+      } catch (StoreReadOnlyException ex) {
+        LOG.debug("could not store commit count of read only repository {}", repositoryId);
+      }
+      return count;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Updates the counts of all branches of the given repository and removes the counts of deleted branches.
+   */
+  public void update(String repositoryId, org.eclipse.jgit.lib.Repository gitRepository) throws IOException {
+    Lock lock = locks.get(repositoryId);
+    lock.lock();
+    try {
+      DataStore<StoreEntry> store = createStore(repositoryId);
+      StoreEntry entry = store.getOptional(STORE_ID).orElseGet(StoreEntry::new);
+      List<Ref> branches = gitRepository.getRefDatabase().getRefsByPrefix(Constants.R_HEADS);
+
+      boolean changed = false;
+      for (Ref branch : branches) {
+        BranchCount branchCount = entry.getBranches().get(branch.getName());
+        ObjectId head = branch.getObjectId();
+        if (head != null && (branchCount == null || !head.getName().equals(branchCount.getHead()))) {
+          long count = computeCount(gitRepository, head, branchCount);
+          entry.getBranches().put(branch.getName(), new BranchCount(head.getName(), count));
+          changed = true;
+        }
+      }
+
+      Set<String> branchNames = branches.stream().map(Ref::getName).collect(toSet());
+      changed |= entry.getBranches().keySet().retainAll(branchNames);
+
+      if (changed) {
+        store.put(STORE_ID, entry);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Subscribe
+  public void onEvent(PostReceiveRepositoryHookEvent event) {
+    Repository repository = event.getRepository();
+    if (repository == null || !GitRepositoryHandler.TYPE_NAME.equals(repository.getType())) {
+      return;
+    }
+    try (org.eclipse.jgit.lib.Repository gitRepository = GitUtil.openShared(handler.getDirectory(repository.getId()))) {
+      update(repository.getId(), gitRepository);
+    } catch (IOException ex) {
+      LOG.warn("failed to update commit counts of repository {}", repository, ex);
+    }
+  }
+
+  private long computeCount(org.eclipse.jgit.lib.Repository gitRepository, ObjectId head, BranchCount previous) throws IOException {
+    if (previous != null) {
+      ObjectId previousHead = ObjectId.fromString(previous.getHead());
+      if (gitRepository.getObjectDatabase().has(previousHead)) {
+        // commits of the new head = previous commits - commits only reachable from the previous head + new commits
+        long removed = countExclusive(gitRepository, previousHead, head);
+        long added = countExclusive(gitRepository, head, previousHead);
+        LOG.trace("update commit count of {} with {} added and {} removed commits", head.getName(), added, removed);
+        return previous.getCount() - removed + added;
+      }
+    }
+    LOG.debug("count all commits reachable from {}", head.getName());
+    return countExclusive(gitRepository, head, null);
+  }
+
+  private long countExclusive(org.eclipse.jgit.lib.Repository gitRepository, ObjectId start, ObjectId uninteresting) throws IOException {
+    try (RevWalk walk = new RevWalk(gitRepository)) {
+      walk.setRetainBody(false);
+      walk.markStart(walk.parseCommit(start));
+      if (uninteresting != null) {
+        walk.markUninteresting(walk.parseCommit(uninteresting));
+      }
+      long count = 0;
+      while (walk.next() != null) {
+        ++count;
+      }
+      return count;
+    }
+  }
+
+  private DataStore<StoreEntry> createStore(String repositoryId) {
+    return dataStoreFactory
+      .withType(StoreEntry.class)
+      .withName(STORE_NAME)
+      .forRepository(repositoryId)
+      .build();
+  }
+
+  @Data
+  @XmlRootElement(name = "commit-counts")
+  @XmlAccessorType(XmlAccessType.FIELD)
+  static class StoreEntry {
+    private Map<String, BranchCount> branches = new HashMap<>();
+  }
+
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  @XmlAccessorType(XmlAccessType.FIELD)
+  static class BranchCount {
+    private String head;
+    private long count;
+  }
+}
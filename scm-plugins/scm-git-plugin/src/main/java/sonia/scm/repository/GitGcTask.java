@@ -18,19 +18,34 @@ package sonia.scm.repository;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Stopwatch;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import java.io.File;
 import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import org.eclipse.jgit.api.GarbageCollectCommand;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.StoredConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import sonia.scm.config.ConfigValue;
+import sonia.scm.store.DataStoreFactory;
+import sonia.scm.store.StoreReadOnlyException;
 
 /**
- * Executes git gc on every git repository. Statistics of the gc process are logged to the info level. The task is
+ * Executes git maintenance on every git repository, except for archived ones. Repositories are only garbage collected, if their statistics show
+ * too many loose objects or pack files, or if the reachability bitmap or the commit-graph is missing. The garbage collection repacks the repository with bitmaps and writes the commit-graph.
+ * Repositories are maintained in parallel, and no new repository is started after the configured maximum duration
+ * has elapsed. Statistics of the maintenance are logged to the info level and stored for each repository. The task is
  * disabled by default and must be enabled through the global git configuration.
  *
  * @since 1.47
@@ -41,38 +56,102 @@ public class GitGcTask implements Runnable {
 
   private static final Logger logger = LoggerFactory.getLogger(GitGcTask.class);
 
+  static final String STORE_NAME = "git-maintenance";
+  static final String STORE_ID = "statistics";
+
+  private static final String LOOSE_OBJECTS = "numberOfLooseObjects";
+  private static final String PACKED_OBJECTS = "numberOfPackedObjects";
+  private static final String PACK_FILES = "numberOfPackFiles";
+  private static final String BITMAPS = "numberOfBitmaps";
+
   private final RepositoryManager repositoryManager;
   private final RepositoryDirectoryHandler repositoryHandler;
+  private final DataStoreFactory dataStoreFactory;
+  private final int parallelism;
+  private final Duration maxDuration;
+  private final long objectLimit;
+  private final long packLimit;
+  private final Clock clock;
 
   @Inject
-  public GitGcTask(RepositoryManager repositoryManager)
+  public GitGcTask(
+    RepositoryManager repositoryManager,
+    DataStoreFactory dataStoreFactory,
+    @ConfigValue(key = "git.maintenance.parallelism", defaultValue = "2", description = "Amount of git repositories maintained in parallel") Integer parallelism,
+    @ConfigValue(key = "git.maintenance.maxDurationMinutes", defaultValue = "120", description = "Minutes after which no further git repository maintenance is started") Integer maxDurationMinutes,
+    @ConfigValue(key = "git.maintenance.objectLimit", defaultValue = "1000", description = "Amount of loose objects which triggers a git gc") Integer objectLimit,
+    @ConfigValue(key = "git.maintenance.packLimit", defaultValue = "10", description = "Amount of pack files which triggers a git gc") Integer packLimit
+  ) {
+    this(repositoryManager, dataStoreFactory, parallelism, Duration.ofMinutes(maxDurationMinutes), objectLimit, packLimit, Clock.systemUTC());
+  }
+
+  @VisibleForTesting
+  GitGcTask(RepositoryManager repositoryManager, DataStoreFactory dataStoreFactory, int parallelism, Duration maxDuration, long objectLimit, long packLimit, Clock clock)
   {
     this.repositoryManager = repositoryManager;
     this.repositoryHandler = (RepositoryDirectoryHandler) repositoryManager.getHandler(GitRepositoryHandler.TYPE_NAME);
+    this.dataStoreFactory = dataStoreFactory;
+    this.parallelism = Math.max(1, parallelism);
+    this.maxDuration = maxDuration;
+    this.objectLimit = objectLimit;
+    this.packLimit = packLimit;
+    this.clock = clock;
   }
 
   @Override
   public void run()
   {
-    for (Repository repository : repositoryManager.getAll())
-    {
-      handle(repository);
+    Instant deadline = clock.instant().plus(maxDuration);
+    ExecutorService executor = Executors.newFixedThreadPool(
+      parallelism,
+      new ThreadFactoryBuilder()
+        .setNameFormat("GitMaintenance-%d")
+        .build()
+    );
+    try {
+      for (Repository repository : repositoryManager.getAll())
+      {
+        executor.execute(() -> handle(repository, deadline));
+      }
+    } finally {
+      executor.shutdown();
+      awaitTermination(executor);
+    }
+  }
+
+  private void awaitTermination(ExecutorService executor) {
+    try {
+      while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+        logger.debug("waiting for git maintenance to finish");
+      }
+    } catch (InterruptedException ex) {
+      logger.warn("interrupted while waiting for git maintenance, stopping remaining tasks");
+      executor.shutdownNow();
+      Thread.currentThread().interrupt();
     }
   }
 
-  private void handle(Repository repository){
+  private void handle(Repository repository, Instant deadline){
     if (GitRepositoryHandler.TYPE_NAME.equals(repository.getType()))
     {
-      if (repository.isValid() && repository.isHealthy())
+      if (!repository.isValid() || !repository.isHealthy())
       {
-        logger.info("start git gc for repository {}", repository);
-        Stopwatch sw = Stopwatch.createStarted();
-        gc(repository);
-        logger.debug("gc of repository {} has finished after {}", repository, sw.stop());
+        logger.debug("skip non valid/healthy repository {}", repository);
+      }
+      else if (repository.isArchived())
+      {
+        logger.debug("skip archived repository {}", repository);
+      }
+      else if (clock.instant().isAfter(deadline))
+      {
+        logger.info("skip git maintenance for repository {}, because the maximum duration has been exceeded", repository);
       }
       else
       {
-        logger.debug("skip non valid/healthy repository {}", repository);
+        logger.info("start git maintenance for repository {}", repository);
+        Stopwatch sw = Stopwatch.createStarted();
+        gc(repository);
+        logger.debug("maintenance of repository {} has finished after {}", repository, sw.stop());
       }
     }
     else
@@ -94,14 +173,16 @@ public class GitGcTask implements Runnable {
     return buffer.toString();
   }
 
-  private void statistics(Repository repository, GarbageCollectCommand gcc) throws GitAPIException {
+  private Properties statistics(Repository repository, GarbageCollectCommand gcc) throws GitAPIException {
     Properties properties = gcc.getStatistics();
     logger.info(message(repository, properties, "before"));
+    return properties;
   }
 
-  private void execute(Repository repository, GarbageCollectCommand gcc) throws GitAPIException {
+  private Properties execute(Repository repository, GarbageCollectCommand gcc) throws GitAPIException {
     Properties properties = gcc.call();
     logger.info(message(repository, properties, "after"));
+    return properties;
   }
 
   private void gc(Repository repository){
@@ -109,19 +190,31 @@ public class GitGcTask implements Runnable {
     Git git = null;
     try {
       git = open(file);
+      boolean configChanged = enableCommitGraph(git);
       GarbageCollectCommand gcc = git.gc();
+      Stopwatch sw = Stopwatch.createStarted();
       // print statistics before execution, because it looks like
       // jgit returns the statistics after gc has finished
-      statistics(repository, gcc);
-      execute(repository, gcc);
+      Properties before = statistics(repository, gcc);
+      if (configChanged || isGcRequired(before, file)) {
+        Properties after = execute(repository, gcc);
+        store(repository, GitMaintenanceStatistics.Mode.GC, before, after, sw.stop());
+      } else {
+        logger.info("skip git gc for repository {}, because it is up to date", repository);
+        store(repository, GitMaintenanceStatistics.Mode.SKIPPED, before, before, sw.stop());
+      }
     }
     catch (IOException ex)
     {
-      logger.warn("failed to open git repository", ex);
+      logger.warn("failed to open git repository {}", repository, ex);
     }
     catch (GitAPIException ex)
     {
-      logger.warn("failed running git gc command", ex);
+      logger.warn("failed running git gc command for repository {}", repository, ex);
+    }
+    catch (StoreReadOnlyException ex)
+    {
+      logger.warn("could not store git maintenance statistics of read only repository {}", repository, ex);
     }
     finally
     {
@@ -131,6 +224,72 @@ public class GitGcTask implements Runnable {
     }
   }
 
+  /**
+   * Enables the commit-graph for reading and for writing during gc, which is disabled by default in jgit.
+   *
+   * @return {@code true} if the configuration had to be changed
+   */
+  private boolean enableCommitGraph(Git git) throws IOException {
+    StoredConfig config = git.getRepository().getConfig();
+    boolean read = config.getBoolean(ConfigConstants.CONFIG_CORE_SECTION, ConfigConstants.CONFIG_COMMIT_GRAPH, false);
+    boolean write = config.getBoolean(ConfigConstants.CONFIG_GC_SECTION, ConfigConstants.CONFIG_KEY_WRITE_COMMIT_GRAPH, false);
+    if (read && write) {
+      return false;
+    }
+    config.setBoolean(ConfigConstants.CONFIG_CORE_SECTION, null, ConfigConstants.CONFIG_COMMIT_GRAPH, true);
+    config.setBoolean(ConfigConstants.CONFIG_GC_SECTION, null, ConfigConstants.CONFIG_KEY_WRITE_COMMIT_GRAPH, true);
+    config.save();
+    return true;
+  }
+
+  private boolean isGcRequired(Properties statistics, File directory) {
+    long looseObjects = getLong(statistics, LOOSE_OBJECTS);
+    long packedObjects = getLong(statistics, PACKED_OBJECTS);
+    if (looseObjects + packedObjects == 0) {
+      return false;
+    }
+    return looseObjects >= objectLimit
+      || getLong(statistics, PACK_FILES) >= packLimit
+      || (packedObjects > 0 && getLong(statistics, BITMAPS) == 0)
+      || !commitGraphFile(directory).exists();
+  }
+
+  private File commitGraphFile(File directory) {
+    return new File(directory, "objects/info/commit-graph");
+  }
+
+  private void store(Repository repository, GitMaintenanceStatistics.Mode mode, Properties before, Properties after, Stopwatch sw) {
+    GitMaintenanceStatistics statistics = new GitMaintenanceStatistics();
+    statistics.setMode(mode);
+    statistics.setLastMaintenance(clock.millis());
+    statistics.setDuration(sw.elapsed(TimeUnit.MILLISECONDS));
+    statistics.setLooseObjectsBefore(getLong(before, LOOSE_OBJECTS));
+    statistics.setPackFilesBefore(getLong(before, PACK_FILES));
+    statistics.setLooseObjectsAfter(getLong(after, LOOSE_OBJECTS));
+    statistics.setPackFilesAfter(getLong(after, PACK_FILES));
+    statistics.setBitmapsAfter(getLong(after, BITMAPS));
+    dataStoreFactory
+      .withType(GitMaintenanceStatistics.class)
+      .withName(STORE_NAME)
+      .forRepository(repository)
+      .build()
+      .put(STORE_ID, statistics);
+  }
+
+  private long getLong(Properties properties, String key) {
+    Object value = properties.get(key);
+    if (value instanceof Number) {
+      return ((Number) value).longValue();
+    } else if (value != null) {
+      try {
+        return Long.parseLong(value.toString());
+      } catch (NumberFormatException ex) {
+        logger.debug("could not parse git statistics value {} of {}", value, key);
+      }
+    }
+    return 0;
+  }
+
   /**
    * Opens the git repository. This method is only visible for testing purposes.
    *
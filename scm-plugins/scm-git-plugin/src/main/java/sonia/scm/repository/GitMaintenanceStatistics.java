@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package sonia.scm.repository;
+
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import lombok.Data;
+
+/**
+ * Statistics of the last maintenance of a git repository by the {@link GitGcTask}.
+ *
+ * @since 3.12.0
+ */
+@Data
+@XmlRootElement(name = "git-maintenance")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class GitMaintenanceStatistics {
+
+  private Mode mode;
+  private long lastMaintenance;
+  private long duration;
+  private long looseObjectsBefore;
+  private long packFilesBefore;
+  private long looseObjectsAfter;
+  private long packFilesAfter;
+  private long bitmapsAfter;
+
+  public enum Mode {
+    /**
+     * The repository was garbage collected.
+     */
+    GC,
+    /**
+     * The repository was up to date and has not been changed.
+     */
+    SKIPPED
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+
+package sonia.scm.repository;
+
+import com.github.legman.Subscribe;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.inject.Inject;
+import org.eclipse.jgit.lib.RepositoryCache;
+import org.eclipse.jgit.lib.RepositoryCacheConfig;
+import org.eclipse.jgit.storage.file.WindowCacheConfig;
+import org.eclipse.jgit.storage.file.WindowCacheStats;
+import org.eclipse.jgit.util.FS;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sonia.scm.EagerSingleton;
+import sonia.scm.HandlerEventType;
+import sonia.scm.config.ConfigValue;
+import sonia.scm.plugin.Extension;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configures the caches of jGit and keeps the shared repositories of {@link GitUtil#openShared(File)} consistent with
+ * the repositories of SCM-Manager. The shared repositories are kept in the {@link RepositoryCache} of jGit and are
+ * closed after they have not been used for the configured time, or when the repository is deleted. Renames need no
+ * invalidation, because the directories of repositories are resolved by their id.
+ *
+ * @since 3.12.0
+ */
+@Extension
+@EagerSingleton
+public class GitRepositoryCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(GitRepositoryCache.class);
+
+  private final GitRepositoryHandler handler;
+
+  @Inject
+  public GitRepositoryCache(
+    GitRepositoryHandler handler,
+    MeterRegistry meterRegistry,
+    @ConfigValue(key = "git.packedGitWindowSize", defaultValue = "8192", description = "Size in bytes of a single window read from git pack files") Integer packedGitWindowSize,
+    @ConfigValue(key = "git.packedGitLimit", defaultValue = "67108864", description = "Maximum number of bytes of git pack files kept in memory") Long packedGitLimit,
+    @ConfigValue(key = "git.packedGitOpenFiles", defaultValue = "256", description = "Maximum number of git pack files kept open") Integer packedGitOpenFiles,
+    @ConfigValue(key = "git.packedGitMMAP", defaultValue = "false", description = "Use memory mapping to read git pack files") Boolean packedGitMMAP,
+    @ConfigValue(key = "git.repositoryCacheExpireAfter", defaultValue = "600", description = "Seconds after which unused git repositories are closed") Integer expireAfter
+  ) {
+    this.handler = handler;
+
+    WindowCacheConfig windowCacheConfig = new WindowCacheConfig();
+    windowCacheConfig.setPackedGitWindowSize(packedGitWindowSize);
+    windowCacheConfig.setPackedGitLimit(packedGitLimit);
+    windowCacheConfig.setPackedGitOpenFiles(packedGitOpenFiles);
+    windowCacheConfig.setPackedGitMMAP(packedGitMMAP);
+    windowCacheConfig.install();
+
+    RepositoryCacheConfig repositoryCacheConfig = new RepositoryCacheConfig();
+    repositoryCacheConfig.setExpireAfter(TimeUnit.SECONDS.toMillis(expireAfter));
+    repositoryCacheConfig.install();
+
+    LOG.debug(
+      "configured jgit with window size {}, pack limit {}, open files {}, mmap {} and repository expiry of {}s",
+      packedGitWindowSize, packedGitLimit, packedGitOpenFiles, packedGitMMAP, expireAfter
+    );
+
+    Gauge.builder("scm.git.repository.cache.size", () -> RepositoryCache.getRegisteredKeys().size())
+      .description("The amount of git repositories in the shared repository cache")
+      .register(meterRegistry);
+    Gauge.builder("scm.git.window.cache.hit.ratio", () -> WindowCacheStats.getStats().getHitRatio())
+      .description("The hit ratio of the jgit window cache for pack files")
+      .register(meterRegistry);
+    Gauge.builder("scm.git.window.cache.open.files", () -> WindowCacheStats.getStats().getOpenFileCount())
+      .description("The amount of pack files opened by the jgit window cache")
+      .register(meterRegistry);
+    Gauge.builder("scm.git.window.cache.open.bytes", () -> WindowCacheStats.getStats().getOpenByteCount())
+      .description("The amount of bytes of pack files cached by the jgit window cache")
+      .baseUnit("bytes")
+      .register(meterRegistry);
+  }
+
+  @Subscribe(async = false)
+  public void onEvent(RepositoryEvent event) {
+    Repository repository = event.getItem();
+    if (!GitRepositoryHandler.TYPE_NAME.equals(repository.getType())) {
+      return;
+    }
+    if (event.getEventType() == HandlerEventType.BEFORE_DELETE) {
+      invalidate(repository);
+    }
+  }
+
+  private void invalidate(Repository repository) {
+    File directory = handler.getDirectory(repository.getId());
+    RepositoryCache.FileKey key = RepositoryCache.FileKey.exact(directory, FS.DETECTED);
+    if (!RepositoryCache.getRegisteredKeys().contains(key)) {
+      return;
+    }
+    LOG.debug("close shared git repository of {}", repository);
+    try {
+      // closes the cached repository, even if it is still in use
+      RepositoryCache.close(RepositoryCache.open(key, false));
+    } catch (IOException ex) {
+      LOG.warn("failed to close shared git repository of {}", repository, ex);
+      RepositoryCache.unregister(key);
+    }
+  }
+}
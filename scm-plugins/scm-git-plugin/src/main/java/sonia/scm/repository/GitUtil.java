@@ -33,6 +33,7 @@ import org.eclipse.jgit.lib.AnyObjectId;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RepositoryCache;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevObject;
 import org.eclipse.jgit.revwalk.RevTag;
@@ -161,6 +162,22 @@ public final class GitUtil {
     return builder.build();
   }
 
+  /**
+   * Opens the repository from the process wide {@link RepositoryCache}. Bare repositories are shared between all
+   * callers, so that pack indexes and refs are not loaded again for every request. The returned repository must be
+   * closed like a repository from {@link #open(File)}; closing only releases the reference of the caller. Other
+   * repositories (e.g. working copies) are opened without the cache.
+   *
+   * @since 3.12.0
+   */
+  public static org.eclipse.jgit.lib.Repository openShared(File directory) throws IOException {
+    FS fs = FS.DETECTED;
+    if (isGitDirectory(fs, directory)) {
+      return RepositoryCache.open(RepositoryCache.FileKey.exact(directory, fs), true);
+    }
+    return open(directory);
+  }
+
   public static void release(DiffFormatter formatter) {
     if (formatter != null) {
       formatter.close();
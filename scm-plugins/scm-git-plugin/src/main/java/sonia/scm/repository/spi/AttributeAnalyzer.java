@@ -49,7 +49,8 @@ class AttributeAnalyzer {
   }
 
   Optional<Attributes> getAttributes(RevCommit commit, String path) throws NotFoundException {
-    try (Repository repository = context.open()) {
+    try {
+      Repository repository = context.open();
       Attributes attributesForPath = LfsFactory.getAttributesForPath(repository, path, commit);
       if (attributesForPath.isEmpty()) {
         return Optional.empty();
@@ -62,7 +63,8 @@ class AttributeAnalyzer {
   }
 
   boolean hasExternalMergeToolConflicts(String source, String target) {
-    try (Repository repo = context.open()) {
+    try {
+      Repository repo = context.open();
       String commonAncestorRevision = GitUtil.computeCommonAncestor(repo, GitUtil.getRevisionId(repo, source), GitUtil.getRevisionId(repo, target)).name();
       return findExternalMergeToolConflicts(source, target, commonAncestorRevision);
     } catch (IOException | NotFoundException e) {
@@ -96,8 +98,8 @@ class AttributeAnalyzer {
   }
 
   RevCommit getTargetCommit(String target) throws IOException {
-    try (Repository repository = context.open()) {
-      RevWalk rw = new org.eclipse.jgit.revwalk.RevWalk(repository);
+    Repository repository = context.open();
+    try (RevWalk rw = new RevWalk(repository)) {
       return GitUtil.getCommit(repository, rw, repository.findRef(target));
     } catch (IOException e) {
       log.debug("Failed to get target commit", e);
@@ -34,13 +34,13 @@ import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevTree;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.treewalk.TreeWalk;
-import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
 import org.eclipse.jgit.treewalk.filter.PathFilter;
-import org.eclipse.jgit.treewalk.filter.TreeFilter;
 import org.eclipse.jgit.util.LfsFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import sonia.scm.NotFoundException;
+import sonia.scm.cache.Cache;
+import sonia.scm.cache.CacheManager;
 import sonia.scm.repository.BrowserResult;
 import sonia.scm.repository.FileObject;
 import sonia.scm.repository.GitSubModuleParser;
@@ -59,13 +59,12 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.function.Consumer;
 
-import static java.util.Optional.empty;
-import static java.util.Optional.of;
 import static sonia.scm.ContextEntry.ContextBuilder.entity;
 import static sonia.scm.NotFoundException.notFound;
 import static sonia.scm.repository.spi.SyncAsyncExecutor.ExecutionType.ASYNCHRONOUS;
@@ -77,6 +76,8 @@ public class GitBrowseCommand extends AbstractGitCommand
 
   public static final String PATH_MODULES = ".gitmodules";
 
+  private static final long LAST_COMMIT_CHUNK_MILLIS = 200;
+
 
   private static final Logger logger = LoggerFactory.getLogger(GitBrowseCommand.class);
 
@@ -88,6 +89,9 @@ public class GitBrowseCommand extends AbstractGitCommand
 
   private final SyncAsyncExecutor executor;
 
+  @Nullable
+  private final Cache<GitLastCommitCollector.Key, GitLastCommitCollector.LastCommit> lastCommitCache;
+
   private BrowserResult browserResult;
 
   private BrowseCommandRequest request;
@@ -98,15 +102,25 @@ public class GitBrowseCommand extends AbstractGitCommand
 
   private int resultCount = 0;
 
+  private Map<String, FileObject> filesWithoutLastCommit = new LinkedHashMap<>();
+
   @Inject
-  public GitBrowseCommand(@Assisted GitContext context, LfsBlobStoreFactory lfsBlobStoreFactory, SyncAsyncExecutorProvider executorProvider) {
-    this(context, lfsBlobStoreFactory, executorProvider.createExecutorWithDefaultTimeout());
+  public GitBrowseCommand(@Assisted GitContext context, LfsBlobStoreFactory lfsBlobStoreFactory, SyncAsyncExecutorProvider executorProvider, CacheManager cacheManager) {
+    this(context, lfsBlobStoreFactory, executorProvider.createExecutorWithDefaultTimeout(), cacheManager.getCache(GitLastCommitCollector.CACHE_NAME));
   }
 
   public GitBrowseCommand(GitContext context, LfsBlobStoreFactory lfsBlobStoreFactory, SyncAsyncExecutor executor) {
+    this(context, lfsBlobStoreFactory, executor, null);
+  }
+
+  GitBrowseCommand(GitContext context,
+                   LfsBlobStoreFactory lfsBlobStoreFactory,
+                   SyncAsyncExecutor executor,
+                   @Nullable Cache<GitLastCommitCollector.Key, GitLastCommitCollector.LastCommit> lastCommitCache) {
     super(context);
     this.lfsBlobStoreFactory = lfsBlobStoreFactory;
     this.executor = executor;
+    this.lastCommitCache = lastCommitCache;
   }
 
   @Override
@@ -115,6 +129,7 @@ public class GitBrowseCommand extends AbstractGitCommand
     logger.debug("try to create browse result for {}", request);
 
     resultCount = 0;
+    filesWithoutLastCommit = new LinkedHashMap<>();
 
     this.request = request;
     repo = open();
@@ -134,6 +149,7 @@ public class GitBrowseCommand extends AbstractGitCommand
             request.getRevision() == null ? Constants.HEAD : request.getRevision(),
             getEntry(),
             isBranch);
+        completeLastCommits();
         return browserResult;
       } catch (GitAPIException e) {
         throw new IOException(e);
@@ -199,15 +215,18 @@ public class GitBrowseCommand extends AbstractGitCommand
           file.setLength(loader.getSize());
         }
 
-        executor.execute(
-          new CompleteFileInformation(path, file),
-          new AbortFileInformation()
-        );
+        filesWithoutLastCommit.put(path, file);
       }
     }
     return file;
   }
 
+  private void completeLastCommits() {
+    if (!filesWithoutLastCommit.isEmpty()) {
+      new CompleteFileInformation(filesWithoutLastCommit).schedule();
+    }
+  }
+
   private void updateCache() {
     request.updateCache(browserResult);
     logger.info("updated browser result for repository {}", repository);
@@ -387,60 +406,97 @@ public class GitBrowseCommand extends AbstractGitCommand
     }
   }
 
+  /**
+   * Resolves the last commits of all files with a single history walk. The walk is split into chunks, so that the
+   * executor can switch to asynchronous execution or abort the computation between two chunks.
+   */
   private class CompleteFileInformation implements Consumer<SyncAsyncExecutor.ExecutionType> {
-    private final String path;
-    private final FileObject file;
+    private final Map<String, FileObject> files;
+
+    private GitLastCommitCollector.Walk walk;
+
+    public CompleteFileInformation(Map<String, FileObject> files) {
+      this.files = files;
+    }
 
-    public CompleteFileInformation(String path, FileObject file) {
-      this.path = path;
-      this.file = file;
+    void schedule() {
+      executor.execute(this, this::abort);
     }
 
     @Override
     public void accept(SyncAsyncExecutor.ExecutionType executionType) {
-      logger.trace("fetch last commit for {} at {}", path, revId.getName());
+      logger.trace("fetch last commits for {} files at {}", files.size(), revId.getName());
 
       Stopwatch sw = Stopwatch.createStarted();
 
-      Optional<RevCommit> commit = getLatestCommit(repo, revId, path);
+      boolean finished = collectLatestCommits();
 
       synchronized (asyncMonitor) {
-        file.setPartialResult(false);
-        if (commit.isPresent()) {
-          applyValuesFromCommit(executionType, commit.get());
-        } else {
-          logger.warn("could not find latest commit for {} on {}", path, revId);
+        if (finished) {
+          files.forEach((path, file) -> {
+            if (file.isPartialResult()) {
+              logger.warn("could not find latest commit for {} on {}", path, revId);
+              file.setPartialResult(false);
+            }
+          });
+        }
+        if (executionType == ASYNCHRONOUS && browserResult != null) {
+          updateCache();
         }
       }
 
-      logger.trace("finished loading of last commit {} of {} in {}", revId.getName(), path, sw.stop());
-    }
-
-    private Optional<RevCommit> getLatestCommit(org.eclipse.jgit.lib.Repository repo, ObjectId revId, String path) {
-      // getLatestCommit can run async, which can lead to an open repository.
-      // Because if the RepositoryService is closed and getLatestCommit runs after that it will reopen the repository.
-      // So we increment the open counter and close after.
-      // The increment is required to not close the repository if the getLatestCommit runs before the RepositoryService
-      // is closed.
-      repo.incrementOpen();
-      try (repo; RevWalk walk = new RevWalk(repo)) {
-        walk.setTreeFilter(AndTreeFilter.create(TreeFilter.ANY_DIFF, PathFilter.create(path)));
+      logger.trace("finished loading chunk of last commits at {} in {}", revId.getName(), sw.stop());
 
-        RevCommit commit = walk.parseCommit(revId);
+      if (finished) {
+        release();
+      } else {
+        schedule();
+      }
+    }
 
-        walk.markStart(commit);
-        return of(Util.getFirst(walk));
+    private boolean collectLatestCommits() {
+      try {
+        if (walk == null) {
+          // the walk can run async, which can lead to an open repository.
+          // Because if the RepositoryService is closed and the walk runs after that it will reopen the repository.
+          // So we increment the open counter and close after.
+          // The increment is required to not close the repository if the walk runs before the RepositoryService
+          // is closed.
+          repo.incrementOpen();
+          try {
+            walk = new GitLastCommitCollector(repo, repository.getId(), lastCommitCache)
+              .start(revId, files.keySet(), this::applyValuesFromCommit);
+          } catch (IOException | RuntimeException ex) {
+            repo.close();
+            throw ex;
+          }
+        }
+        return walk.step(LAST_COMMIT_CHUNK_MILLIS);
       } catch (IOException ex) {
-        logger.error("could not parse commit for file", ex);
-        return empty();
+        logger.error("could not parse commits for files", ex);
+        return true;
       }
     }
 
-    private void applyValuesFromCommit(SyncAsyncExecutor.ExecutionType executionType, RevCommit commit) {
-      file.setCommitDate(GitUtil.getCommitTime(commit));
-      file.setDescription(commit.getShortMessage());
-      if (executionType == ASYNCHRONOUS && browserResult != null) {
-        updateCache();
+    private void applyValuesFromCommit(String path, GitLastCommitCollector.LastCommit commit) {
+      FileObject file = files.get(path);
+      synchronized (asyncMonitor) {
+        file.setPartialResult(false);
+        file.setCommitDate(commit.getDate());
+        file.setDescription(commit.getDescription());
+      }
+    }
+
+    private void abort() {
+      release();
+      new AbortFileInformation().run();
+    }
+
+    private void release() {
+      if (walk != null) {
+        walk.close();
+        walk = null;
+        repo.close();
       }
     }
   }
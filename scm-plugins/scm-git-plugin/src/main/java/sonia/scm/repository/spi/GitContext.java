@@ -63,6 +63,10 @@ public class GitContext implements Closeable, RepositoryProvider
   }
 
 
+  /**
+   * Returns the repository of this context. The repository is owned by the context and is released by
+   * {@link #close()}, so callers must not close it.
+   */
   public org.eclipse.jgit.lib.Repository open()
   {
     if (gitRepository == null)
@@ -70,7 +74,7 @@ public class GitContext implements Closeable, RepositoryProvider
       logger.trace("open git repository {}", directory);
 
       try {
-        gitRepository = GitUtil.open(directory);
+        gitRepository = GitUtil.openShared(directory);
       } catch (IOException e) {
         throw new InternalRepositoryException(repository, "could not open git repository", e);
       }
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+
+package sonia.scm.repository.spi;
+
+import com.github.legman.Subscribe;
+import jakarta.inject.Inject;
+import sonia.scm.EagerSingleton;
+import sonia.scm.HandlerEventType;
+import sonia.scm.cache.Cache;
+import sonia.scm.cache.CacheManager;
+import sonia.scm.plugin.Extension;
+import sonia.scm.repository.RepositoryCacheKeyPredicate;
+import sonia.scm.repository.RepositoryEvent;
+
+/**
+ * Removes the cached last commits of a repository, when the repository is deleted.
+ *
+ * @since 3.12.0
+ */
+@Extension
+@EagerSingleton
+public class GitLastCommitCacheClearListener {
+
+  private final Cache<GitLastCommitCollector.Key, GitLastCommitCollector.LastCommit> cache;
+
+  @Inject
+  public GitLastCommitCacheClearListener(CacheManager cacheManager) {
+    this.cache = cacheManager.getCache(GitLastCommitCollector.CACHE_NAME);
+  }
+
+  @Subscribe
+  public void onEvent(RepositoryEvent event) {
+    if (event.getEventType() == HandlerEventType.DELETE) {
+      cache.removeAll(new RepositoryCacheKeyPredicate<>(event.getItem().getId()));
+    }
+  }
+}
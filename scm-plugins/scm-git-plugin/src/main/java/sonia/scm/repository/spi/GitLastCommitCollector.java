@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package sonia.scm.repository.spi;
+
+import jakarta.annotation.Nullable;
+import lombok.Value;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sonia.scm.cache.Cache;
+import sonia.scm.repository.GitUtil;
+import sonia.scm.repository.RepositoryCacheKey;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Resolves the last commit which modified each of a set of paths with a single walk over the history.
+ * <p>
+ * For a single path the result is the same as the one of a {@link RevWalk} with
+ * {@code AndTreeFilter(ANY_DIFF, PathFilter(path))}: starting at the requested revision, the history of a path is
+ * followed through the first parent with the same content, until a commit is found, which differs from all of its
+ * parents. Because these chains are shared between the paths of a directory, all paths are moved through the history
+ * together and every commit is diffed only once for all paths which are still unresolved.
+ * <p>
+ * The history of a commit never changes, so resolved paths are stored in a cache keyed by the commit and the path.
+ * Later walks stop as soon as they reach a commit which has already been resolved for a path, which means that
+ * unchanged files are not walked again after new commits have been added. The entries of a repository are removed from
+ * the cache, when the repository is deleted (see {@link GitLastCommitCacheClearListener}).
+ */
+class GitLastCommitCollector {
+
+  static final String CACHE_NAME = "sonia.cache.git.last-commits";
+
+  private static final Logger LOG = LoggerFactory.getLogger(GitLastCommitCollector.class);
+
+  private static final Comparator<RevCommit> NEWEST_FIRST =
+    Comparator.comparingInt(RevCommit::getCommitTime).reversed();
+
+  private final Repository repository;
+  private final String repositoryId;
+  @Nullable
+  private final Cache<Key, LastCommit> cache;
+
+  GitLastCommitCollector(Repository repository, String repositoryId, @Nullable Cache<Key, LastCommit> cache) {
+    this.repository = repository;
+    this.repositoryId = repositoryId;
+    this.cache = cache;
+  }
+
+  /**
+   * Resolves the last commit for each of the given paths, starting at the given revision. The consumer is called
+   * once for every path as soon as its last commit is known. Paths, which could not be found in the given revision,
+   * are not passed to the consumer.
+   */
+  void collect(ObjectId revision, Collection<String> paths, BiConsumer<String, LastCommit> consumer) throws IOException {
+    try (Walk walk = start(revision, paths, consumer)) {
+      walk.step(Long.MAX_VALUE);
+    }
+  }
+
+  /**
+   * Prepares a walk, which can be processed in several steps with {@link Walk#step(long)}. The walk has to be closed
+   * after it has finished or if it should be abandoned.
+   */
+  Walk start(ObjectId revision, Collection<String> paths, BiConsumer<String, LastCommit> consumer) throws IOException {
+    Walk walk = new Walk(consumer);
+    try {
+      walk.init(revision, paths);
+      return walk;
+    } catch (IOException | RuntimeException ex) {
+      walk.close();
+      throw ex;
+    }
+  }
+
+  class Walk implements AutoCloseable {
+
+    private final RevWalk walk = new RevWalk(repository);
+    private final TreeWalk treeWalk = new TreeWalk(repository);
+    private final BiConsumer<String, LastCommit> consumer;
+
+    private final Map<RevCommit, Set<String>> pending = new HashMap<>();
+    private final PriorityQueue<RevCommit> queue = new PriorityQueue<>(NEWEST_FIRST);
+
+    private RevCommit start;
+    private int visitedCommits = 0;
+
+    private Walk(BiConsumer<String, LastCommit> consumer) {
+      this.consumer = consumer;
+      treeWalk.setRecursive(true);
+    }
+
+    private void init(ObjectId revision, Collection<String> paths) throws IOException {
+      start = walk.parseCommit(revision);
+      if (!paths.isEmpty()) {
+        enqueue(start, findExistingPaths(paths));
+      }
+    }
+
+    /**
+     * Walks the history until all paths are resolved or until the given time has elapsed.
+     *
+     * @return {@code true}, if all paths are resolved
+     */
+    boolean step(long maxMillis) throws IOException {
+      long startTime = System.currentTimeMillis();
+      while (!queue.isEmpty()) {
+        RevCommit commit = queue.poll();
+        Set<String> unresolved = pending.remove(commit);
+        resolveFromCache(commit, unresolved);
+        if (!unresolved.isEmpty()) {
+          ++visitedCommits;
+          visit(commit, unresolved);
+        }
+        if (System.currentTimeMillis() - startTime >= maxMillis) {
+          break;
+        }
+      }
+      LOG.trace("visited {} commits to resolve last commits in {}, finished: {}", visitedCommits, repositoryId, queue.isEmpty());
+      return queue.isEmpty();
+    }
+
+    @Override
+    public void close() {
+      treeWalk.close();
+      walk.close();
+    }
+
+    private Set<String> findExistingPaths(Collection<String> paths) throws IOException {
+      Set<String> existing = new HashSet<>();
+      treeWalk.reset(start.getTree());
+      treeWalk.setFilter(PathFilterGroup.createFromStrings(paths));
+      while (treeWalk.next()) {
+        String path = treeWalk.getPathString();
+        if (paths.contains(path)) {
+          existing.add(path);
+        }
+      }
+      return existing;
+    }
+
+    private void resolveFromCache(RevCommit commit, Set<String> unresolved) {
+      if (cache == null) {
+        return;
+      }
+      Iterator<String> iterator = unresolved.iterator();
+      while (iterator.hasNext()) {
+        String path = iterator.next();
+        LastCommit lastCommit = cache.get(new Key(repositoryId, commit.getName(), path));
+        if (lastCommit != null) {
+          iterator.remove();
+          if (commit == start) {
+            consumer.accept(path, lastCommit);
+          } else {
+            resolve(path, lastCommit);
+          }
+        }
+      }
+    }
+
+    private void visit(RevCommit commit, Set<String> unresolved) throws IOException {
+      RevCommit[] parents = commit.getParents();
+      if (parents.length == 0) {
+        for (String path : unresolved) {
+          resolve(commit, path);
+        }
+        return;
+      }
+
+      treeWalk.reset();
+      treeWalk.setFilter(AndTreeFilter.create(PathFilterGroup.createFromStrings(unresolved), TreeFilter.ANY_DIFF));
+      treeWalk.addTree(commit.getTree());
+      for (RevCommit parent : parents) {
+        walk.parseHeaders(parent);
+        treeWalk.addTree(parent.getTree());
+      }
+
+      // paths without any difference are unchanged in the first parent and are not reported by the tree walk
+      Set<String> unchangedInFirstParent = new HashSet<>(unresolved);
+      while (treeWalk.next()) {
+        String path = treeWalk.getPathString();
+        if (unchangedInFirstParent.contains(path)) {
+          int sameParent = findFirstParentWithSameEntry(parents.length);
+          if (sameParent != 0) {
+            unchangedInFirstParent.remove(path);
+            if (sameParent < 0) {
+              resolve(commit, path);
+            } else {
+              enqueue(parents[sameParent], path);
+            }
+          }
+        }
+      }
+      if (!unchangedInFirstParent.isEmpty()) {
+        enqueue(parents[0], unchangedInFirstParent);
+      }
+    }
+
+    private int findFirstParentWithSameEntry(int parentCount) {
+      for (int i = 0; i < parentCount; ++i) {
+        if (treeWalk.getRawMode(0) == treeWalk.getRawMode(i + 1) && treeWalk.idEqual(0, i + 1)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    private void enqueue(RevCommit commit, Collection<String> paths) {
+      pendingPaths(commit).addAll(paths);
+    }
+
+    private void enqueue(RevCommit commit, String path) {
+      pendingPaths(commit).add(path);
+    }
+
+    private Set<String> pendingPaths(RevCommit commit) {
+      return pending.computeIfAbsent(commit, c -> {
+        queue.add(c);
+        return new HashSet<>();
+      });
+    }
+
+    private void resolve(RevCommit commit, String path) {
+      LastCommit lastCommit = new LastCommit(
+        commit.getName(),
+        GitUtil.getCommitTime(commit),
+        commit.getShortMessage()
+      );
+      if (cache != null) {
+        cache.put(new Key(repositoryId, commit.getName(), path), lastCommit);
+      }
+      resolve(path, lastCommit);
+    }
+
+    private void resolve(String path, LastCommit lastCommit) {
+      if (cache != null && !lastCommit.getId().equals(start.getName())) {
+        // remember the result for the requested revision, too, so that the next request needs no walk at all
+        cache.put(new Key(repositoryId, start.getName(), path), lastCommit);
+      }
+      consumer.accept(path, lastCommit);
+    }
+  }
+
+  @Value
+  static class Key implements RepositoryCacheKey, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    String repositoryId;
+    String commitId;
+    String path;
+  }
+
+  @Value
+  static class LastCommit implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    String id;
+    long date;
+    String description;
+  }
+}
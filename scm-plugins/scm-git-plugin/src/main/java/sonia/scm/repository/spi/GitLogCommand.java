@@ -19,6 +19,7 @@ package sonia.scm.repository.spi;
 
 import com.google.common.base.Strings;
 import com.google.inject.assistedinject.Assisted;
+import jakarta.annotation.Nullable;
 import jakarta.inject.Inject;
 import org.eclipse.jgit.errors.MissingObjectException;
 import org.eclipse.jgit.lib.ObjectId;
@@ -29,6 +30,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import sonia.scm.repository.Changeset;
 import sonia.scm.repository.ChangesetPagingResult;
+import sonia.scm.repository.GitCommitCountIndex;
 import sonia.scm.repository.GitChangesetConverter;
 import sonia.scm.repository.GitChangesetConverterFactory;
 import sonia.scm.repository.GitUtil;
@@ -44,12 +46,19 @@ public class GitLogCommand extends AbstractGitCommand implements LogCommand {
     LoggerFactory.getLogger(GitLogCommand.class);
   public static final String REVISION = "Revision";
   private final GitChangesetConverterFactory converterFactory;
+  @Nullable
+  private final GitCommitCountIndex commitCountIndex;
 
 
+  GitLogCommand(GitContext context, GitChangesetConverterFactory converterFactory) {
+    this(context, converterFactory, null);
+  }
+
   @Inject
-  GitLogCommand(@Assisted GitContext context, GitChangesetConverterFactory converterFactory) {
+  GitLogCommand(@Assisted GitContext context, GitChangesetConverterFactory converterFactory, GitCommitCountIndex commitCountIndex) {
     super(context);
     this.converterFactory = converterFactory;
+    this.commitCountIndex = commitCountIndex;
   }
 
 
@@ -122,7 +131,7 @@ public class GitLogCommand extends AbstractGitCommand implements LogCommand {
     if (Strings.isNullOrEmpty(request.getBranch())) {
       request.setBranch(context.getConfig().getDefaultBranch());
     }
-    return new GitLogComputer(this.repository.getId(), open(), converterFactory).compute(request);
+    return new GitLogComputer(this.repository.getId(), open(), converterFactory, commitCountIndex).compute(request);
   }
 
   public interface Factory {
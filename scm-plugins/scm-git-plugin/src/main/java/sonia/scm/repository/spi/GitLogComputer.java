@@ -18,6 +18,7 @@ package sonia.scm.repository.spi;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
+import jakarta.annotation.Nullable;
 import org.eclipse.jgit.errors.InvalidObjectIdException;
 import org.eclipse.jgit.errors.MissingObjectException;
 import org.eclipse.jgit.lib.ObjectId;
@@ -33,12 +34,14 @@ import org.slf4j.LoggerFactory;
 import sonia.scm.NotFoundException;
 import sonia.scm.repository.Changeset;
 import sonia.scm.repository.ChangesetPagingResult;
+import sonia.scm.repository.GitCommitCountIndex;
 import sonia.scm.repository.GitChangesetConverter;
 import sonia.scm.repository.GitChangesetConverterFactory;
 import sonia.scm.repository.GitUtil;
 import sonia.scm.repository.InternalRepositoryException;
 import sonia.scm.util.IOUtil;
 
+import java.io.IOException;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -53,11 +56,21 @@ public class GitLogComputer {
   private final String repositoryId;
   private final Repository gitRepository;
   private final GitChangesetConverterFactory converterFactory;
+  @Nullable
+  private final GitCommitCountIndex commitCountIndex;
 
   public GitLogComputer(String repositoryId, Repository repository, GitChangesetConverterFactory converterFactory) {
+    this(repositoryId, repository, converterFactory, null);
+  }
+
+  /**
+   * @since 3.12.0
+   */
+  public GitLogComputer(String repositoryId, Repository repository, GitChangesetConverterFactory converterFactory, @Nullable GitCommitCountIndex commitCountIndex) {
     this.repositoryId = repositoryId;
     this.gitRepository = repository;
     this.converterFactory = converterFactory;
+    this.commitCountIndex = commitCountIndex;
   }
 
   public ChangesetPagingResult compute(LogCommandRequest request) {
@@ -137,9 +150,17 @@ public class GitLogComputer {
             revWalk.markUninteresting(revWalk.parseCommit(ancestorId));
           }
 
+          Long indexedTotal = getIndexedTotal(request, branch, startId, endId, ancestorId, limit);
+
           Iterator<RevCommit> iterator = revWalk.iterator();
 
           while (iterator.hasNext()) {
+            if (indexedTotal != null && counter >= start + limit) {
+              // the total is known, so there is no need to walk the rest of the history
+              counter = indexedTotal.intValue();
+              break;
+            }
+
             RevCommit commit = iterator.next();
 
             if ((counter >= start)
@@ -153,6 +174,9 @@ public class GitLogComputer {
               break;
             }
           }
+          if (indexedTotal != null) {
+            counter = indexedTotal.intValue();
+          }
         } else if (ancestorId != null) {
           throw notFound(entity(GitLogCommand.REVISION, request.getBranch()).in(sonia.scm.repository.Repository.class, repositoryId));
         }
@@ -178,4 +202,19 @@ public class GitLogComputer {
       GitUtil.release(revWalk);
     }
   }
+
+  @Nullable
+  private Long getIndexedTotal(LogCommandRequest request, Ref branch, ObjectId startId, ObjectId endId, ObjectId ancestorId, int limit) {
+    // the index only knows the amount of all commits of a branch, so it can not be used for filtered logs
+    boolean filtered = !Strings.isNullOrEmpty(request.getPath()) || startId != null || endId != null || ancestorId != null;
+    if (commitCountIndex == null || branch == null || filtered || limit < 0) {
+      return null;
+    }
+    try {
+      return commitCountIndex.count(repositoryId, gitRepository, branch);
+    } catch (IOException | RuntimeException ex) {
+      LOG.warn("could not read commit count of branch {} from index, walking the whole history", branch.getName(), ex);
+      return null;
+    }
+  }
 }
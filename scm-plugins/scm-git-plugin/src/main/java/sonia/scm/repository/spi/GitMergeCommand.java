@@ -114,7 +114,8 @@ public class GitMergeCommand extends AbstractGitCommand implements MergeCommand
 
   @Override
   public MergeDryRunCommandResult dryRun(MergeCommandRequest request) {
-    try (Repository repository = context.open()) {
+    try {
+      Repository repository = context.open();
       List<MergePreventReason> mergePreventReasons = new ArrayList<>(2);
       if (attributeAnalyzer.hasExternalMergeToolConflicts(request.getBranchToMerge(), request.getTargetBranch())) {
         mergePreventReasons.add(new MergePreventReason(MergePreventReasonType.EXTERNAL_MERGE_TOOL));
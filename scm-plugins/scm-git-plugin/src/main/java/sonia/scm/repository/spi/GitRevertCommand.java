@@ -59,8 +59,8 @@ public class GitRevertCommand extends AbstractGitCommand implements RevertComman
       request.getBranch().orElse("default branch"),
       repository.getName());
 
-    try (Repository jRepository = context.open();
-         RevWalk revWalk = new RevWalk(jRepository)) {
+    Repository jRepository = context.open();
+    try (RevWalk revWalk = new RevWalk(jRepository)) {
 
       ObjectId sourceRevision = getSourceRevision(request, jRepository, repository);
       ObjectId targetRevision = getTargetRevision(request, jRepository, repository);
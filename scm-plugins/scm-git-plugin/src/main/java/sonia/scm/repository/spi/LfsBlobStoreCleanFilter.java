@@ -73,8 +73,9 @@ class LfsBlobStoreCleanFilter extends FilterCommand {
       } else {
         LOG.debug("uploading new lfs blob for oid {}", hash);
         Blob newBlob = lfsBlobStore.create(hash);
-        OutputStream outputStream = newBlob.getOutputStream();
-        Files.copy(targetFile, outputStream);
+        try (OutputStream outputStream = newBlob.getOutputStream()) {
+          Files.copy(targetFile, outputStream);
+        }
         newBlob.commit();
       }
 
@@ -38,11 +38,13 @@ import org.eclipse.jgit.transport.http.HttpConnectionFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import sonia.scm.repository.api.MirrorCommandResult;
+import sonia.scm.store.Blob;
 import sonia.scm.store.BlobStore;
 import sonia.scm.web.lfs.LfsBlobStoreFactory;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collection;
@@ -231,7 +233,11 @@ class LfsLoader {
   @VisibleForTesting
   void storeLfsBlob(AnyLongObjectId oid, Path tempFilePath, BlobStore lfsBlobStore) throws IOException {
     LOG.trace("temporary lfs file: {}", tempFilePath);
-    Files.copy(tempFilePath, lfsBlobStore.create(oid.name()).getOutputStream());
+    Blob blob = lfsBlobStore.create(oid.name());
+    try (OutputStream outputStream = blob.getOutputStream()) {
+      Files.copy(tempFilePath, outputStream);
+    }
+    blob.commit();
   }
 
   @VisibleForTesting
@@ -75,7 +75,7 @@ public class GitRepositoryResolver implements RepositoryResolver<HttpServletRequ
 
         logger.debug("try to open git repository at {}", gitdir);
 
-        return GitUtil.open(gitdir);
+        return GitUtil.openShared(gitdir);
       }
       else
       {
@@ -30,23 +30,37 @@ import sonia.scm.store.BlobStoreFactory;
 @Singleton
 public class LfsBlobStoreFactory {
 
-  private static final String GIT_LFS_STORE_NAME = "git-lfs";
+  static final String GIT_LFS_STORE_NAME = "git-lfs";
 
   private final BlobStoreFactory blobStoreFactory;
+  private final LfsObjectStore objectStore;
 
   @Inject
-  public LfsBlobStoreFactory(BlobStoreFactory blobStoreFactory) {
+  public LfsBlobStoreFactory(BlobStoreFactory blobStoreFactory, LfsObjectStore objectStore) {
     this.blobStoreFactory = blobStoreFactory;
+    this.objectStore = objectStore;
   }
 
   /**
-   * Provides a {@link BlobStore} corresponding to the SCM Repository.
+   * Provides a {@link BlobStore} corresponding to the SCM Repository. If the {@link LfsObjectStore} is enabled, the
+   * returned store keeps the objects in the shared store of all repositories.
    *
    * @param repository The SCM Repository to provide a LFS {@link BlobStore} for.
    *
    * @return blob store for the corresponding scm repository
    */
   public BlobStore getLfsBlobStore(Repository repository) {
+    BlobStore blobStore = getRepositoryBlobStore(repository);
+    if (objectStore.isEnabled()) {
+      return objectStore.forRepository(repository, blobStore);
+    }
+    return blobStore;
+  }
+
+  /**
+   * Returns the lfs blob store of the repository itself, without the shared store.
+   */
+  BlobStore getRepositoryBlobStore(Repository repository) {
     return blobStoreFactory
         .withName(GIT_LFS_STORE_NAME)
         .forRepository(repository)
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+
+package sonia.scm.web.lfs;
+
+import jakarta.inject.Inject;
+import sonia.scm.plugin.Extension;
+import sonia.scm.repository.GitRepositoryHandler;
+import sonia.scm.repository.Repository;
+import sonia.scm.store.Blob;
+import sonia.scm.store.ExportableStore;
+import sonia.scm.store.ExportableStoreProvider;
+import sonia.scm.store.Exporter;
+import sonia.scm.store.StoreEntryMetaData;
+import sonia.scm.store.StoreType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+import static java.util.Collections.emptyList;
+
+/**
+ * Exports the objects of the {@link LfsObjectStore}, which are referenced by a repository, as entries of the lfs blob
+ * store of the repository. After the import the objects are moved back to the shared store by the
+ * {@link LfsObjectImportListener}.
+ *
+ * @since 3.12.0
+ */
+@Extension
+public class LfsExportableStoreProvider implements ExportableStoreProvider {
+
+  private final LfsObjectStore objectStore;
+
+  @Inject
+  public LfsExportableStoreProvider(LfsObjectStore objectStore) {
+    this.objectStore = objectStore;
+  }
+
+  @Override
+  public List<ExportableStore> getExportableStores(Repository repository) {
+    if (objectStore.isEnabled() && GitRepositoryHandler.TYPE_NAME.equals(repository.getType())) {
+      return List.of(new ExportableLfsObjects(repository.getId()));
+    }
+    return emptyList();
+  }
+
+  private class ExportableLfsObjects implements ExportableStore {
+
+    private final String repositoryId;
+
+    private ExportableLfsObjects(String repositoryId) {
+      this.repositoryId = repositoryId;
+    }
+
+    @Override
+    public StoreEntryMetaData getMetaData() {
+      return new StoreEntryMetaData(StoreType.BLOB, LfsBlobStoreFactory.GIT_LFS_STORE_NAME);
+    }
+
+    @Override
+    public void export(Exporter exporter) throws IOException {
+      for (Blob blob : objectStore.getAll(repositoryId)) {
+        try (InputStream input = blob.getInputStream(); OutputStream output = exporter.put(blob.getId() + ".blob", blob.getSize())) {
+          input.transferTo(output);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+
+package sonia.scm.web.lfs;
+
+import com.github.legman.Subscribe;
+import jakarta.inject.Inject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sonia.scm.EagerSingleton;
+import sonia.scm.plugin.Extension;
+import sonia.scm.repository.GitRepositoryHandler;
+import sonia.scm.repository.Repository;
+import sonia.scm.repository.RepositoryImportEvent;
+
+/**
+ * Moves the lfs objects of an imported repository from the blob store of the repository to the shared
+ * {@link LfsObjectStore}.
+ *
+ * @since 3.12.0
+ */
+@Extension
+@EagerSingleton
+public class LfsObjectImportListener {
+
+  private static final Logger LOG = LoggerFactory.getLogger(LfsObjectImportListener.class);
+
+  private final LfsObjectStore objectStore;
+  private final LfsBlobStoreFactory blobStoreFactory;
+
+  @Inject
+  public LfsObjectImportListener(LfsObjectStore objectStore, LfsBlobStoreFactory blobStoreFactory) {
+    this.objectStore = objectStore;
+    this.blobStoreFactory = blobStoreFactory;
+  }
+
+  @Subscribe
+  public void onEvent(RepositoryImportEvent event) {
+    Repository repository = event.getItem();
+    if (!event.isFailed() && objectStore.isEnabled() && GitRepositoryHandler.TYPE_NAME.equals(repository.getType())) {
+      LOG.debug("move lfs objects of imported repository {} to shared store", repository);
+      objectStore.adopt(repository.getId(), blobStoreFactory.getRepositoryBlobStore(repository));
+    }
+  }
+}
@@ -0,0 +1,574 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package sonia.scm.web.lfs;
+
+import com.github.legman.Subscribe;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingInputStream;
+import com.google.common.util.concurrent.Striped;
+import jakarta.inject.Inject;
+import jakarta.xml.bind.annotation.XmlAccessType;
+import jakarta.xml.bind.annotation.XmlAccessorType;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlRootElement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sonia.scm.EagerSingleton;
+import sonia.scm.HandlerEventType;
+import sonia.scm.SCMContextProvider;
+import sonia.scm.config.ConfigValue;
+import sonia.scm.plugin.Extension;
+import sonia.scm.repository.GitRepositoryHandler;
+import sonia.scm.repository.Repository;
+import sonia.scm.repository.RepositoryEvent;
+import sonia.scm.repository.RepositoryPermissions;
+import sonia.scm.store.Blob;
+import sonia.scm.store.BlobStore;
+import sonia.scm.store.DataStore;
+import sonia.scm.store.DataStoreFactory;
+import sonia.scm.store.StoreException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Content addressed store for git lfs objects, which is shared by all repositories. Every object is stored only once,
+ * keyed by its sha-256 oid, no matter how many forks or mirrors contain it. For every object the store keeps the ids
+ * of the repositories referencing it and for every repository the oids of the referenced objects. A repository can only read the objects it references, so that access checks
+ * are still done for the repository. An object is removed, as soon as it is no longer referenced by any repository.
+ * <p>
+ * The store is disabled by default. Objects which have been stored in the blob store of a repository before the store
+ * was enabled, are still read from there (see {@link LfsBlobStoreFactory}).
+ *
+ * @since 3.12.0
+ */
+@Extension
+@EagerSingleton
+public class LfsObjectStore {
+
+  private static final Logger LOG = LoggerFactory.getLogger(LfsObjectStore.class);
+
+  private static final String REFERENCE_STORE_NAME = "git-lfs-references";
+  private static final String REPOSITORY_OBJECTS_STORE_NAME = "git-lfs-repository-objects";
+  private static final Path DIRECTORY = Paths.get("var", "blob", "git-lfs-objects");
+  private static final String TEMP_DIRECTORY = "tmp";
+  private static final Duration TEMP_FILE_MAX_AGE = Duration.ofHours(24);
+  private static final Pattern OID_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+  private final boolean enabled;
+  private final Path directory;
+  private final Supplier<DataStore<References>> referenceStoreSupplier;
+  private final Supplier<DataStore<RepositoryObjects>> repositoryObjectsStoreSupplier;
+  private final Striped<Lock> locks = Striped.lock(64);
+  private final Striped<Lock> repositoryLocks = Striped.lock(64);
+
+  private DataStore<References> referenceStore;
+  private DataStore<RepositoryObjects> repositoryObjectsStore;
+
+  @Inject
+  public LfsObjectStore(
+    SCMContextProvider context,
+    DataStoreFactory dataStoreFactory,
+    @ConfigValue(key = "git.lfs.sharedObjectStore", defaultValue = "false", description = "Store git lfs objects only once for all repositories") Boolean enabled
+  ) {
+    this(
+      context.resolve(DIRECTORY),
+      () -> dataStoreFactory.withType(References.class).withName(REFERENCE_STORE_NAME).build(),
+      () -> dataStoreFactory.withType(RepositoryObjects.class).withName(REPOSITORY_OBJECTS_STORE_NAME).build(),
+      enabled
+    );
+  }
+
+  @VisibleForTesting
+  LfsObjectStore(
+    Path directory,
+    Supplier<DataStore<References>> referenceStoreSupplier,
+    Supplier<DataStore<RepositoryObjects>> repositoryObjectsStoreSupplier,
+    boolean enabled
+  ) {
+    this.directory = directory;
+    this.referenceStoreSupplier = referenceStoreSupplier;
+    this.repositoryObjectsStoreSupplier = repositoryObjectsStoreSupplier;
+    this.enabled = enabled;
+  }
+
+  /**
+   * Returns {@code true} if lfs objects should be stored in the shared store.
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Returns the lfs blob store for the given repository, which reads and writes objects of the shared store and
+   * falls back to the given blob store of the repository for objects stored before the shared store was enabled.
+   */
+  BlobStore forRepository(Repository repository, BlobStore repositoryBlobStore) {
+    return new SharedLfsBlobStore(this, repository.getId(), repositoryBlobStore);
+  }
+
+  Blob get(String repositoryId, String oid) {
+    if (!isReferencedBy(repositoryId, oid)) {
+      return null;
+    }
+    Path file = resolve(oid);
+    if (!Files.isRegularFile(file)) {
+      LOG.warn("lfs object {} is referenced by repository {}, but does not exist", oid, repositoryId);
+      return null;
+    }
+    return new StoredObject(oid, file);
+  }
+
+  List<Blob> getAll(String repositoryId) {
+    List<Blob> blobs = new ArrayList<>();
+    for (String oid : getReferencedObjects(repositoryId)) {
+      Blob blob = get(repositoryId, oid);
+      if (blob != null) {
+        blobs.add(blob);
+      }
+    }
+    return blobs;
+  }
+
+  Blob create(String repositoryId, String oid) {
+    return new PendingObject(repositoryId, oid);
+  }
+
+  /**
+   * Adds a reference from the repository to the object with the given oid, if the object is already stored and the
+   * current subject is allowed to pull at least one repository which references the object. This allows clients to
+   * skip the upload of objects, which they could read anyway. In every other case the object has to be uploaded, so
+   * that neither the content nor the existence of objects of other repositories is disclosed.
+   *
+   * @return {@code true} if the object exists and is now referenced by the repository
+   */
+  boolean link(String repositoryId, String oid) {
+    Lock lock = locks.get(oid);
+    lock.lock();
+    try {
+      if (!Files.isRegularFile(resolve(oid))) {
+        return false;
+      }
+      if (!isReadableByCurrentSubject(oid)) {
+        LOG.debug("do not link lfs object {} to repository {}, because no referencing repository is readable", oid, repositoryId);
+        return false;
+      }
+      LOG.debug("link existing lfs object {} to repository {}", oid, repositoryId);
+      addReference(repositoryId, oid);
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  boolean isSharedObject(Blob blob) {
+    return blob instanceof StoredObject || blob instanceof PendingObject;
+  }
+
+  /**
+   * Removes the given blob of the shared store. If the blob has not been committed yet, only its content is dropped.
+   */
+  void remove(String repositoryId, Blob blob) {
+    if (blob instanceof PendingObject && !((PendingObject) blob).committed) {
+      ((PendingObject) blob).discard();
+    } else {
+      remove(repositoryId, blob.getId());
+    }
+  }
+
+  /**
+   * Removes the reference of the repository to the object and removes the object itself, if it is no longer
+   * referenced by any repository.
+   */
+  void remove(String repositoryId, String oid) {
+    Lock lock = locks.get(oid);
+    lock.lock();
+    try {
+      References references = referenceStore().get(oid);
+      if (references == null || !references.repositories.remove(repositoryId)) {
+        return;
+      }
+      removeFromRepositoryObjects(repositoryId, oid);
+      if (references.repositories.isEmpty()) {
+        LOG.debug("remove lfs object {}, because it is no longer referenced", oid);
+        referenceStore().remove(oid);
+        Files.deleteIfExists(resolve(oid));
+      } else {
+        referenceStore().put(oid, references);
+      }
+    } catch (IOException ex) {
+      throw new StoreException("could not remove lfs object " + oid, ex);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  void removeAll(String repositoryId) {
+    for (String oid : getReferencedObjects(repositoryId)) {
+      remove(repositoryId, oid);
+    }
+  }
+
+  /**
+   * Moves the objects of the given blob store of the repository to the shared store, e.g. after the repository has
+   * been imported. Only blobs whose content matches their oid are moved, so that an import cannot claim objects of
+   * other repositories. All other blobs are kept in the blob store of the repository.
+   */
+  void adopt(String repositoryId, BlobStore repositoryBlobStore) {
+    for (Blob blob : repositoryBlobStore.getAll()) {
+      if (OID_PATTERN.matcher(blob.getId()).matches()) {
+        adopt(repositoryId, repositoryBlobStore, blob);
+      }
+    }
+  }
+
+  private void adopt(String repositoryId, BlobStore repositoryBlobStore, Blob blob) {
+    String oid = blob.getId();
+    PendingObject object = new PendingObject(repositoryId, oid);
+    try {
+      String hash;
+      try (HashingInputStream input = new HashingInputStream(Hashing.sha256(), blob.getInputStream());
+           OutputStream output = object.getOutputStream()) {
+        input.transferTo(output);
+        hash = input.hash().toString();
+      }
+      if (!oid.equals(hash)) {
+        LOG.warn("content of lfs object {} of repository {} does not match its oid, keep it in the repository", oid, repositoryId);
+        object.discard();
+        return;
+      }
+      object.commit();
+      repositoryBlobStore.remove(blob);
+    } catch (IOException ex) {
+      object.discard();
+      throw new StoreException("could not move lfs object " + oid + " to shared store", ex);
+    }
+  }
+
+  /**
+   * Removes temporary files of uploads, which have neither been committed nor discarded, e.g. because of a crash,
+   * and objects which are not referenced by any repository, e.g. because the server has stopped between storing the
+   * object and adding its reference.
+   */
+  void collectGarbage() {
+    try {
+      removeStaleTemporaryFiles();
+      removeUnreferencedObjects();
+    } catch (IOException ex) {
+      throw new StoreException("could not collect garbage of lfs object store", ex);
+    }
+  }
+
+  private void removeStaleTemporaryFiles() throws IOException {
+    Path temporaryDirectory = directory.resolve(TEMP_DIRECTORY);
+    if (!Files.isDirectory(temporaryDirectory)) {
+      return;
+    }
+    Instant threshold = Instant.now().minus(TEMP_FILE_MAX_AGE);
+    try (Stream<Path> files = Files.list(temporaryDirectory)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        if (Files.getLastModifiedTime(file).toInstant().isBefore(threshold)) {
+          LOG.info("remove stale temporary lfs file {}", file);
+          Files.deleteIfExists(file);
+        }
+      }
+    }
+  }
+
+  private void removeUnreferencedObjects() throws IOException {
+    if (!Files.isDirectory(directory)) {
+      return;
+    }
+    List<String> oids = new ArrayList<>();
+    try (Stream<Path> files = Files.walk(directory, 3)) {
+      files
+        .filter(file -> directory.relativize(file).getNameCount() == 3)
+        .filter(file -> !file.startsWith(directory.resolve(TEMP_DIRECTORY)))
+        .map(file -> file.getFileName().toString())
+        .filter(name -> OID_PATTERN.matcher(name).matches())
+        .forEach(oids::add);
+    }
+    for (String oid : oids) {
+      Lock lock = locks.get(oid);
+      lock.lock();
+      try {
+        if (referenceStore().getOptional(oid).isEmpty()) {
+          LOG.info("remove lfs object {}, because it is not referenced by any repository", oid);
+          Files.deleteIfExists(resolve(oid));
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  @Subscribe
+  public void onEvent(RepositoryEvent event) {
+    Repository repository = event.getItem();
+    if (enabled && event.getEventType() == HandlerEventType.DELETE && GitRepositoryHandler.TYPE_NAME.equals(repository.getType())) {
+      LOG.debug("remove lfs object references of deleted repository {}", repository);
+      removeAll(repository.getId());
+    }
+  }
+
+  private boolean isReferencedBy(String repositoryId, String oid) {
+    References references = referenceStore().get(oid);
+    return references != null && references.repositories.contains(repositoryId);
+  }
+
+  private boolean isReadableByCurrentSubject(String oid) {
+    References references = referenceStore().get(oid);
+    return references != null && references.repositories
+      .stream()
+      .anyMatch(id -> RepositoryPermissions.pull(id).isPermitted());
+  }
+
+  private List<String> getReferencedObjects(String repositoryId) {
+    Lock lock = repositoryLocks.get(repositoryId);
+    lock.lock();
+    try {
+      return repositoryObjectsStore()
+        .getOptional(repositoryId)
+        .map(objects -> new ArrayList<>(objects.oids))
+        .orElseGet(ArrayList::new);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Adds the reference of the repository to the object and the object to the objects of the repository. Must be
+   * called with the lock of the object held.
+   */
+  private void addReference(String repositoryId, String oid) {
+    References references = referenceStore().getOptional(oid).orElseGet(References::new);
+    if (references.repositories.add(repositoryId)) {
+      referenceStore().put(oid, references);
+    }
+    Lock lock = repositoryLocks.get(repositoryId);
+    lock.lock();
+    try {
+      RepositoryObjects objects = repositoryObjectsStore().getOptional(repositoryId).orElseGet(RepositoryObjects::new);
+      if (objects.oids.add(oid)) {
+        repositoryObjectsStore().put(repositoryId, objects);
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Removes the object from the objects of the repository. Must be called with the lock of the object held.
+   */
+  private void removeFromRepositoryObjects(String repositoryId, String oid) {
+    Lock lock = repositoryLocks.get(repositoryId);
+    lock.lock();
+    try {
+      Optional<RepositoryObjects> objects = repositoryObjectsStore().getOptional(repositoryId);
+      if (objects.isEmpty() || !objects.get().oids.remove(oid)) {
+        return;
+      }
+      if (objects.get().oids.isEmpty()) {
+        repositoryObjectsStore().remove(repositoryId);
+      } else {
+        repositoryObjectsStore().put(repositoryId, objects.get());
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private synchronized DataStore<References> referenceStore() {
+    if (referenceStore == null) {
+      referenceStore = referenceStoreSupplier.get();
+    }
+    return referenceStore;
+  }
+
+  private synchronized DataStore<RepositoryObjects> repositoryObjectsStore() {
+    if (repositoryObjectsStore == null) {
+      repositoryObjectsStore = repositoryObjectsStoreSupplier.get();
+    }
+    return repositoryObjectsStore;
+  }
+
+  private Path resolve(String oid) {
+    return directory.resolve(oid.substring(0, 2)).resolve(oid.substring(2, 4)).resolve(oid);
+  }
+
+  /**
+   * Object which is already stored in the shared store.
+   */
+  private static class StoredObject implements Blob {
+
+    private final String oid;
+    private final Path file;
+
+    private StoredObject(String oid, Path file) {
+      this.oid = oid;
+      this.file = file;
+    }
+
+    @Override
+    public void commit() {
+      // nothing to do
+    }
+
+    @Override
+    public String getId() {
+      return oid;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+      return Files.newInputStream(file);
+    }
+
+    @Override
+    public OutputStream getOutputStream() {
+      throw new StoreException("lfs object " + oid + " is already stored and cannot be modified");
+    }
+
+    @Override
+    public long getSize() {
+      return file.toFile().length();
+    }
+
+    @Override
+    public Optional<Path> getPath() {
+      return Optional.of(file);
+    }
+  }
+
+  /**
+   * Object which is written to a temporary file first. The object becomes visible with {@link #commit()}, which moves
+   * the file to its final location and adds the reference of the repository. If the object has been stored in the
+   * meantime, the temporary file is dropped instead.
+   */
+  private class PendingObject implements Blob {
+
+    private final String repositoryId;
+    private final String oid;
+
+    private Path temporaryFile;
+    private OutputStream outputStream;
+    private boolean committed;
+
+    private PendingObject(String repositoryId, String oid) {
+      this.repositoryId = repositoryId;
+      this.oid = oid;
+    }
+
+    @Override
+    public void commit() throws IOException {
+      if (temporaryFile == null) {
+        throw new IOException("no content written for lfs object " + oid);
+      }
+      outputStream.close();
+
+      Lock lock = locks.get(oid);
+      lock.lock();
+      try {
+        Path file = resolve(oid);
+        if (Files.exists(file)) {
+          LOG.debug("lfs object {} is already stored, drop uploaded content", oid);
+          Files.delete(temporaryFile);
+        } else {
+          Files.createDirectories(file.getParent());
+          Files.move(temporaryFile, file, StandardCopyOption.ATOMIC_MOVE);
+        }
+        addReference(repositoryId, oid);
+        committed = true;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    @Override
+    public String getId() {
+      return oid;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+      return Files.newInputStream(committed ? resolve(oid) : temporaryFile);
+    }
+
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+      if (temporaryFile == null) {
+        Path temporaryDirectory = directory.resolve(TEMP_DIRECTORY);
+        Files.createDirectories(temporaryDirectory);
+        temporaryFile = Files.createTempFile(temporaryDirectory, oid, ".tmp");
+      }
+      outputStream = Files.newOutputStream(temporaryFile);
+      return outputStream;
+    }
+
+    @Override
+    public long getSize() {
+      if (committed) {
+        return resolve(oid).toFile().length();
+      }
+      return temporaryFile == null ? -1 : temporaryFile.toFile().length();
+    }
+
+    private void discard() {
+      try {
+        if (outputStream != null) {
+          outputStream.close();
+        }
+        if (temporaryFile != null) {
+          Files.deleteIfExists(temporaryFile);
+        }
+      } catch (IOException ex) {
+        LOG.warn("could not remove temporary file of lfs object {}", oid, ex);
+      }
+    }
+  }
+
+  @XmlRootElement(name = "lfs-object")
+  @XmlAccessorType(XmlAccessType.FIELD)
+  static class References {
+    @XmlElement(name = "repository")
+    private Set<String> repositories = new TreeSet<>();
+  }
+
+  @XmlRootElement(name = "lfs-repository-objects")
+  @XmlAccessorType(XmlAccessType.FIELD)
+  static class RepositoryObjects {
+    @XmlElement(name = "object")
+    private Set<String> oids = new TreeSet<>();
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+
+package sonia.scm.web.lfs;
+
+import jakarta.inject.Inject;
+import sonia.scm.EagerSingleton;
+import sonia.scm.Initable;
+import sonia.scm.SCMContextProvider;
+import sonia.scm.plugin.Extension;
+import sonia.scm.schedule.Scheduler;
+
+/**
+ * Schedules the removal of stale temporary files and unreferenced objects of the {@link LfsObjectStore}.
+ *
+ * @since 3.12.0
+ */
+@Extension
+@EagerSingleton
+public class LfsObjectStoreGarbageCollector implements Initable {
+
+  private final LfsObjectStore objectStore;
+  private final Scheduler scheduler;
+
+  @Inject
+  public LfsObjectStoreGarbageCollector(LfsObjectStore objectStore, Scheduler scheduler) {
+    this.objectStore = objectStore;
+    this.scheduler = scheduler;
+  }
+
+  @Override
+  public void init(SCMContextProvider context) {
+    if (objectStore.isEnabled()) {
+      scheduler.schedule("0 30 5 * * ?", objectStore::collectGarbage);
+    }
+  }
+}
@@ -52,6 +52,12 @@ public class ScmBlobLfsRepository implements LargeFileRepository {
    */
   private AccessToken accessToken;
 
+  /**
+   * If set, objects which are already stored for other repositories are linked to this repository instead of being
+   * uploaded again.
+   */
+  private final boolean linkExistingObjects;
+
   /**
    * Creates a {@link ScmBlobLfsRepository} for the provided repository.
    *
@@ -62,10 +68,27 @@ public class ScmBlobLfsRepository implements LargeFileRepository {
    */
 
   public ScmBlobLfsRepository(Repository repository, BlobStore blobStore, LfsAccessTokenFactory tokenFactory, String baseUri) {
+    this(repository, blobStore, tokenFactory, baseUri, false);
+  }
+
+  private ScmBlobLfsRepository(Repository repository, BlobStore blobStore, LfsAccessTokenFactory tokenFactory, String baseUri, boolean linkExistingObjects) {
     this.repository = repository;
     this.blobStore = blobStore;
     this.tokenFactory = tokenFactory;
     this.baseUri = baseUri;
+    this.linkExistingObjects = linkExistingObjects;
+  }
+
+  /**
+   * Returns a {@link ScmBlobLfsRepository} for an upload request. The sizes reported by this repository include the
+   * objects of the shared {@link LfsObjectStore}, which are linked to the repository as soon as they are requested.
+   * This lets clients skip the upload of objects which are already stored for another repository they are allowed to
+   * pull, e.g. when a fork is pushed for the first time. All other objects have to be uploaded.
+   *
+   * @since 3.12.0
+   */
+  public ScmBlobLfsRepository forUpload() {
+    return new ScmBlobLfsRepository(repository, blobStore, tokenFactory, baseUri, blobStore instanceof SharedLfsBlobStore);
   }
 
   @Override
@@ -99,6 +122,10 @@ public class ScmBlobLfsRepository implements LargeFileRepository {
     //this needs to be size of what is will be written into the response of the download. Clients are likely to
     // verify it.
     Blob blob = this.blobStore.get(id.getName());
+    if (blob == null && linkExistingObjects && ((SharedLfsBlobStore) blobStore).link(id.getName())) {
+      LOG.trace("linked existing lfs object {} to repository {}", id, repository);
+      blob = this.blobStore.get(id.getName());
+    }
     if (blob == null) {
 
       return -1;
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package sonia.scm.web.lfs;
+
+import sonia.scm.store.Blob;
+import sonia.scm.store.BlobStore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lfs blob store of a single repository, which is backed by the {@link LfsObjectStore}. New objects are always written
+ * to the shared store. Objects are read from the shared store only if they are referenced by the repository, and from
+ * the blob store of the repository otherwise, which contains the objects stored before the shared store was enabled.
+ *
+ * @since 3.12.0
+ */
+class SharedLfsBlobStore implements BlobStore {
+
+  private final LfsObjectStore objectStore;
+  private final String repositoryId;
+  private final BlobStore repositoryBlobStore;
+
+  SharedLfsBlobStore(LfsObjectStore objectStore, String repositoryId, BlobStore repositoryBlobStore) {
+    this.objectStore = objectStore;
+    this.repositoryId = repositoryId;
+    this.repositoryBlobStore = repositoryBlobStore;
+  }
+
+  /**
+   * References an object of the shared store, which has been stored for another repository.
+   *
+   * @return {@code true} if the object exists
+   * @see LfsObjectStore#link(String, String)
+   */
+  boolean link(String oid) {
+    return objectStore.link(repositoryId, oid);
+  }
+
+  /**
+   * Creates a blob with a generated id in the blob store of the repository, because objects of the shared store are
+   * always keyed by their oid.
+   */
+  @Override
+  public Blob create() {
+    return repositoryBlobStore.create();
+  }
+
+  @Override
+  public Blob create(String id) {
+    return objectStore.create(repositoryId, id);
+  }
+
+  @Override
+  public void remove(Blob blob) {
+    if (objectStore.isSharedObject(blob)) {
+      objectStore.remove(repositoryId, blob);
+    } else {
+      repositoryBlobStore.remove(blob);
+    }
+  }
+
+  @Override
+  public void remove(String id) {
+    objectStore.remove(repositoryId, id);
+    repositoryBlobStore.remove(id);
+  }
+
+  @Override
+  public Blob get(String id) {
+    Blob blob = objectStore.get(repositoryId, id);
+    if (blob == null) {
+      return repositoryBlobStore.get(id);
+    }
+    return blob;
+  }
+
+  @Override
+  public List<Blob> getAll() {
+    List<Blob> blobs = new ArrayList<>(objectStore.getAll(repositoryId));
+    blobs.addAll(repositoryBlobStore.getAll());
+    return blobs;
+  }
+
+  @Override
+  public void clear() {
+    objectStore.removeAll(repositoryId);
+    repositoryBlobStore.clear();
+  }
+}
@@ -17,6 +17,7 @@
 package sonia.scm.web.lfs.servlet;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.io.ByteStreams;
 import com.google.gson.FieldNamingPolicy;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -42,14 +43,21 @@ import sonia.scm.store.Blob;
 import sonia.scm.store.BlobStore;
 import sonia.scm.util.IOUtil;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.text.MessageFormat;
+import java.util.Optional;
 
 /**
  * This Servlet provides the upload and download of files via git-lfs.
@@ -68,6 +76,8 @@ public class ScmFileTransferServlet extends HttpServlet {
 
   private static final long serialVersionUID = 1L;
 
+  private static final String RANGE_UNIT_BYTES = "bytes";
+
   /**
    * Gson is used because the implementation was based on the jgit implementation. However the {@link LfsProtocolServlet} (which we do use in
    * {@link ScmLfsProtocolServlet}) also uses Gson, which currently ties us to Gson anyway.
@@ -177,7 +187,7 @@ public class ScmFileTransferServlet extends HttpServlet {
       if (isBlobPresent(savedBlob)) {
 
         LOG.trace("----- Object {}: providing {} bytes", objectIdName, savedBlob.getSize());
-        writeBlobIntoResponse(savedBlob, response);
+        provideBlob(request, response, savedBlob, objectIdName);
       } else {
 
         sendErrorAndLog(response, HttpStatus.SC_NOT_FOUND, MessageFormat.format(LfsServerText.get().objectNotFound, objectIdName));
@@ -247,15 +257,83 @@ public class ScmFileTransferServlet extends HttpServlet {
     return savedBlob != null && savedBlob.getSize() >= 0;
   }
 
-  private void writeBlobIntoResponse(Blob savedBlob, HttpServletResponse response) throws IOException {
+  /**
+   * Writes the blob or the requested range of the blob into the response. The oid of the object is used as strong
+   * entity tag, because the content of an lfs object can never change without changing its oid.
+   */
+  private void provideBlob(HttpServletRequest request, HttpServletResponse response, Blob savedBlob, String objectIdName) throws IOException {
+    String etag = "\"" + objectIdName + "\"";
+    response.setHeader(HttpSupport.HDR_ETAG, etag);
+    response.setHeader(HttpSupport.HDR_ACCEPT_RANGES, RANGE_UNIT_BYTES);
+
+    if (matchesEtag(request.getHeader(HttpSupport.HDR_IF_NONE_MATCH), etag)) {
+      LOG.trace("----- Object {}: not modified", objectIdName);
+      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return;
+    }
+
+    long size = savedBlob.getSize();
+    ByteRange range = null;
+    if (isRangeApplicable(request, etag)) {
+      range = ByteRange.parse(request.getHeader(HttpSupport.HDR_RANGE), size);
+      if (range == ByteRange.UNSATISFIABLE) {
+        LOG.trace("----- Object {}: requested range {} is not satisfiable", objectIdName, request.getHeader(HttpSupport.HDR_RANGE));
+        response.setHeader(HttpSupport.HDR_CONTENT_RANGE, RANGE_UNIT_BYTES + " */" + size);
+        response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+        return;
+      }
+    }
+
+    if (range == null) {
+      writeBlobIntoResponse(savedBlob, response, 0, size);
+    } else {
+      LOG.trace("----- Object {}: providing bytes {}-{}", objectIdName, range.first, range.last);
+      response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+      response.setHeader(HttpSupport.HDR_CONTENT_RANGE, RANGE_UNIT_BYTES + " " + range.first + "-" + range.last + "/" + size);
+      writeBlobIntoResponse(savedBlob, response, range.first, range.length());
+    }
+  }
+
+  /**
+   * A range is only applied, if the client has requested one and the optional If-Range header matches the current
+   * entity tag. If-Range with a date is not supported, because we do not provide a Last-Modified header.
+   */
+  private boolean isRangeApplicable(HttpServletRequest request, String etag) {
+    if (request.getHeader(HttpSupport.HDR_RANGE) == null) {
+      return false;
+    }
+    String ifRange = request.getHeader(HttpSupport.HDR_IF_RANGE);
+    return ifRange == null || ifRange.trim().equals(etag);
+  }
+
+  private static boolean matchesEtag(String header, String etag) {
+    if (header == null) {
+      return false;
+    }
+    for (String candidate : header.split(",")) {
+      String value = candidate.trim();
+      if (value.startsWith("W/")) {
+        value = value.substring(2);
+      }
+      if (value.equals("*") || value.equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
 
-    try (ServletOutputStream responseOutputStream = response.getOutputStream();
-         InputStream savedBlobInputStream = savedBlob.getInputStream()) {
+  private void writeBlobIntoResponse(Blob savedBlob, HttpServletResponse response, long offset, long length) throws IOException {
+    try (ServletOutputStream responseOutputStream = response.getOutputStream()) {
 
-      response.addHeader(HttpSupport.HDR_CONTENT_LENGTH, String.valueOf(savedBlob.getSize()));
+      response.setContentLengthLong(length);
       response.setContentType(Constants.HDR_APPLICATION_OCTET_STREAM);
 
-      IOUtil.copy(savedBlobInputStream, responseOutputStream);
+      Optional<Path> path = savedBlob.getPath();
+      if (path.isPresent()) {
+        transfer(path.get(), responseOutputStream, offset, length);
+      } else {
+        copy(savedBlob, responseOutputStream, offset, length);
+      }
     } catch (IOException ex) {
 
       sendErrorAndLog(response, HttpStatus.SC_INTERNAL_SERVER_ERROR, ex);
@@ -263,6 +341,36 @@ public class ScmFileTransferServlet extends HttpServlet {
 
   }
 
+  /**
+   * Transfers the content directly from the file channel, which allows the jdk to skip the copy into our own buffers
+   * and to use the optimized transfer of the operating system, if the target channel supports it.
+   */
+  private void transfer(Path path, OutputStream outputStream, long offset, long length) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      WritableByteChannel target = Channels.newChannel(outputStream);
+      long position = offset;
+      long end = offset + length;
+      while (position < end) {
+        long transferred = channel.transferTo(position, end - position, target);
+        if (transferred <= 0) {
+          throw new EOFException("unexpected end of blob at position " + position);
+        }
+        position += transferred;
+      }
+    }
+  }
+
+  private void copy(Blob savedBlob, OutputStream outputStream, long offset, long length) throws IOException {
+    try (InputStream savedBlobInputStream = savedBlob.getInputStream()) {
+      if (offset == 0 && length == savedBlob.getSize()) {
+        IOUtil.copy(savedBlobInputStream, outputStream);
+      } else {
+        ByteStreams.skipFully(savedBlobInputStream, offset);
+        ByteStreams.copy(ByteStreams.limit(savedBlobInputStream, length), outputStream);
+      }
+    }
+  }
+
   private void readBlobFromResponse(HttpServletRequest request, HttpServletResponse response, AnyLongObjectId objectId) throws IOException {
     Blob blob = blobStore.create(objectId.getName());
     try (OutputStream blobOutputStream = blob.getOutputStream();
@@ -288,6 +396,75 @@ public class ScmFileTransferServlet extends HttpServlet {
     }
   }
 
+  /**
+   * A single satisfiable byte range of a blob. Requests for multiple ranges are answered with the whole content,
+   * which is allowed by rfc 9110 and avoids multipart responses, which are not used by git-lfs clients.
+   */
+  @VisibleForTesting
+  static final class ByteRange {
+
+    static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+
+    final long first;
+    final long last;
+
+    private ByteRange(long first, long last) {
+      this.first = first;
+      this.last = last;
+    }
+
+    long length() {
+      return last - first + 1;
+    }
+
+    /**
+     * Parses the value of a range header.
+     *
+     * @return the requested range, {@link #UNSATISFIABLE} if the range does not overlap the content or {@code null}
+     * if the header should be ignored, because it is invalid or requests multiple ranges
+     */
+    static ByteRange parse(String header, long size) {
+      String prefix = RANGE_UNIT_BYTES + "=";
+      if (header == null || !header.startsWith(prefix) || header.indexOf(',') >= 0) {
+        return null;
+      }
+      String spec = header.substring(prefix.length()).trim();
+      int dash = spec.indexOf('-');
+      if (dash < 0) {
+        return null;
+      }
+      try {
+        String firstValue = spec.substring(0, dash).trim();
+        String lastValue = spec.substring(dash + 1).trim();
+        if (firstValue.isEmpty()) {
+          return suffix(lastValue, size);
+        }
+        long first = Long.parseLong(firstValue);
+        long last = lastValue.isEmpty() ? size - 1 : Long.parseLong(lastValue);
+        if (first < 0 || last < first) {
+          return null;
+        }
+        if (first >= size) {
+          return UNSATISFIABLE;
+        }
+        return new ByteRange(first, Math.min(last, size - 1));
+      } catch (NumberFormatException ex) {
+        return null;
+      }
+    }
+
+    private static ByteRange suffix(String lengthValue, long size) {
+      long suffixLength = Long.parseLong(lengthValue);
+      if (suffixLength < 0) {
+        return null;
+      }
+      if (suffixLength == 0 || size == 0) {
+        return UNSATISFIABLE;
+      }
+      return new ByteRange(Math.max(0, size - suffixLength), size - 1);
+    }
+  }
+
   /**
    * Used for providing an error message.
    */
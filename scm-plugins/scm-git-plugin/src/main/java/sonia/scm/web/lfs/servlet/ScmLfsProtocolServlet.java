@@ -19,6 +19,7 @@ package sonia.scm.web.lfs.servlet;
 import org.eclipse.jgit.lfs.errors.LfsException;
 import org.eclipse.jgit.lfs.server.LargeFileRepository;
 import org.eclipse.jgit.lfs.server.LfsProtocolServlet;
+import sonia.scm.web.lfs.ScmBlobLfsRepository;
 
 /**
  * Provides an implementation for the git-lfs Batch API.
@@ -37,6 +38,9 @@ public class ScmLfsProtocolServlet extends LfsProtocolServlet {
 
   @Override
   protected LargeFileRepository getLargeFileRepository(LfsRequest request, String path, String auth)  throws LfsException {
+    if (request.isUpload() && repository instanceof ScmBlobLfsRepository) {
+      return ((ScmBlobLfsRepository) repository).forUpload();
+    }
     return repository;
   }
 }
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package sonia.scm.repository;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.ResetCommand;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Ref;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import sonia.scm.store.DataStore;
+import sonia.scm.store.DataStoreFactory;
+import sonia.scm.store.InMemoryByteDataStoreFactory;
+import sonia.scm.store.StoreReadOnlyException;
+import sonia.scm.store.TypedStoreParameters;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class GitCommitCountIndexTest {
+
+  private static final String REPOSITORY_ID = "42";
+
+  @Mock
+  private GitRepositoryHandler handler;
+
+  private final InMemoryByteDataStoreFactory dataStoreFactory = new InMemoryByteDataStoreFactory();
+
+  private GitCommitCountIndex index;
+  private Git git;
+
+  @BeforeEach
+  void setUp(@TempDir Path temp) throws GitAPIException {
+    index = new GitCommitCountIndex(dataStoreFactory, handler);
+    git = Git.init().setDirectory(temp.toFile()).setInitialBranch("main").call();
+  }
+
+  @AfterEach
+  void closeRepository() {
+    git.close();
+  }
+
+  @Test
+  void shouldCountAllCommitsOfBranch() throws Exception {
+    commit("one");
+    commit("two");
+    commit("three");
+
+    assertThat(count("main")).isEqualTo(3);
+  }
+
+  @Test
+  void shouldAddNewCommitsToStoredCount() throws Exception {
+    commit("one");
+    commit("two");
+    assertThat(count("main")).isEqualTo(2);
+
+    commit("three");
+    commit("four");
+
+    assertThat(count("main")).isEqualTo(4);
+  }
+
+  @Test
+  void shouldHandleRewrittenHistory() throws Exception {
+    commit("one");
+    commit("two");
+    commit("three");
+    assertThat(count("main")).isEqualTo(3);
+
+    git.reset().setMode(ResetCommand.ResetType.HARD).setRef("HEAD~2").call();
+    commit("rewritten");
+
+    assertThat(count("main")).isEqualTo(2);
+  }
+
+  @Test
+  void shouldCountMergedCommitsOnlyOnce() throws Exception {
+    commit("one");
+    git.branchCreate().setName("feature").call();
+    commit("main");
+    git.checkout().setName("feature").call();
+    commit("feature one");
+    commit("feature two");
+    git.checkout().setName("main").call();
+    assertThat(count("main")).isEqualTo(2);
+
+    git.merge().include(git.getRepository().resolve("feature")).setMessage("merge").call();
+
+    assertThat(count("main")).isEqualTo(5);
+  }
+
+  @Test
+  void shouldUpdateAllBranches() throws Exception {
+    commit("one");
+    git.branchCreate().setName("feature").call();
+    commit("two");
+
+    index.update(REPOSITORY_ID, git.getRepository());
+
+    GitCommitCountIndex.StoreEntry entry = readEntry();
+    assertThat(entry.getBranches()).containsOnlyKeys("refs/heads/main", "refs/heads/feature");
+    assertThat(entry.getBranches().get("refs/heads/main").getCount()).isEqualTo(2);
+    assertThat(entry.getBranches().get("refs/heads/feature").getCount()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldRemoveDeletedBranches() throws Exception {
+    commit("one");
+    git.branchCreate().setName("feature").call();
+    index.update(REPOSITORY_ID, git.getRepository());
+
+    git.branchDelete().setBranchNames("feature").call();
+    index.update(REPOSITORY_ID, git.getRepository());
+
+    assertThat(readEntry().getBranches()).containsOnlyKeys("refs/heads/main");
+  }
+
+  @Test
+  void shouldCountCommitsOfReadOnlyRepository(@Mock DataStore<GitCommitCountIndex.StoreEntry> readOnlyStore) throws Exception {
+    when(readOnlyStore.getOptional("branches")).thenReturn(Optional.empty());
+    doThrow(new StoreReadOnlyException()).when(readOnlyStore).put(eq("branches"), any());
+    index = new GitCommitCountIndex(new DataStoreFactory() {
+      @Override
+      @SuppressWarnings("unchecked")
+      public <T> DataStore<T> getStore(TypedStoreParameters<T> storeParameters) {
+        return (DataStore<T>) readOnlyStore;
+      }
+    }, handler);
+    commit("one");
+    commit("two");
+
+    assertThat(count("main")).isEqualTo(2);
+  }
+
+  private GitCommitCountIndex.StoreEntry readEntry() {
+    return dataStoreFactory
+      .getStore(GitCommitCountIndex.StoreEntry.class, "git-commit-counts/" + REPOSITORY_ID)
+      .get("branches");
+  }
+
+  private long count(String branch) throws IOException {
+    Ref ref = git.getRepository().findRef(branch);
+    return index.count(REPOSITORY_ID, git.getRepository(), ref);
+  }
+
+  private void commit(String message) throws GitAPIException {
+    git.commit().setMessage(message).setAllowEmpty(true).setSign(false).call();
+  }
+}
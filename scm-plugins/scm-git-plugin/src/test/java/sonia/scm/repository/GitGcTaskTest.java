@@ -20,18 +20,35 @@ import com.google.common.collect.Lists;
 import org.eclipse.jgit.api.GarbageCollectCommand;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.storage.file.FileBasedConfig;
+import org.eclipse.jgit.util.FS;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import sonia.scm.store.DataStore;
+import sonia.scm.store.DataStoreFactory;
+import sonia.scm.store.InMemoryByteDataStoreFactory;
+import sonia.scm.store.StoreReadOnlyException;
+import sonia.scm.store.TypedStoreParameters;
 
 import java.io.File;
 import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
 import java.util.List;
 import java.util.Properties;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -44,6 +61,9 @@ import static org.mockito.Mockito.when;
 public class GitGcTaskTest
 {
 
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   @Mock
   private RepositoryManager manager;
   
@@ -56,29 +76,27 @@ public class GitGcTaskTest
   @Mock
   private Git git;
 
-  private GitGcTask task;
-  
+  @Mock
+  private org.eclipse.jgit.lib.Repository gitRepository;
+
+  private final InMemoryByteDataStoreFactory dataStoreFactory = new InMemoryByteDataStoreFactory();
+
+  private final Repository repository = RepositoryTestData.create42Puzzle("git");
+
+  private File directory;
+
+  private FileBasedConfig config;
+
   /**
    * Setup mocks for tests.
-   * 
-   * @throws GitAPIException 
    */
   @Before
-  public void setUp() throws GitAPIException
+  public void setUp() throws IOException
   {
-    when(git.gc()).thenReturn(gcc);
-    when(gcc.getStatistics()).thenReturn(new Properties());
-    when(gcc.call()).thenReturn(new Properties());
+    repository.setId("42");
+    directory = temporaryFolder.newFolder();
+    config = new FileBasedConfig(new File(directory, "config"), FS.DETECTED);
     when(manager.getHandler(GitRepositoryHandler.TYPE_NAME)).thenReturn(handler);
-    task = new GitGcTask(manager){
-      
-      @Override
-      protected Git open(File file) throws IOException
-      {
-        return git;
-      }
-      
-    };
   }
 
   /**
@@ -89,6 +107,10 @@ public class GitGcTaskTest
   @Test
   public void testRun() throws GitAPIException
   {
+    mockGit();
+    when(gcc.getStatistics()).thenReturn(new Properties());
+    when(gcc.call()).thenReturn(new Properties());
+
     // prepare repositories for task
     Repository unhealthy = mock(Repository.class);
     when(unhealthy.getType()).thenReturn("git");
@@ -98,7 +120,7 @@ public class GitGcTaskTest
     when(unhealthy.isValid()).thenReturn(Boolean.FALSE);
     
     List<Repository> repositories = Lists.newArrayList(
-        RepositoryTestData.create42Puzzle("git"),
+        repository,
         RepositoryTestData.createHeartOfGold("hg"),
         unhealthy,
         invalid
@@ -106,11 +128,177 @@ public class GitGcTaskTest
     when(manager.getAll()).thenReturn(repositories);
     
     // run
-    task.run();
+    createTask(Duration.ofHours(1)).run();
     
     // gc command should only be called once
     verify(gcc).getStatistics();
     verify(gcc).call();
   }
 
+  @Test
+  public void shouldEnableCommitGraph() throws GitAPIException
+  {
+    mockGit();
+    when(gcc.getStatistics()).thenReturn(new Properties());
+    when(gcc.call()).thenReturn(new Properties());
+    when(manager.getAll()).thenReturn(Lists.newArrayList(repository));
+
+    createTask(Duration.ofHours(1)).run();
+
+    assertThat(config.getBoolean(ConfigConstants.CONFIG_CORE_SECTION, ConfigConstants.CONFIG_COMMIT_GRAPH, false)).isTrue();
+    assertThat(config.getBoolean(ConfigConstants.CONFIG_GC_SECTION, ConfigConstants.CONFIG_KEY_WRITE_COMMIT_GRAPH, false)).isTrue();
+  }
+
+  @Test
+  public void shouldSkipUpToDateRepository() throws GitAPIException, IOException
+  {
+    mockMaintainedRepository();
+    when(gcc.getStatistics()).thenReturn(statistics(10, 1000, 1, 1));
+    when(manager.getAll()).thenReturn(Lists.newArrayList(repository));
+
+    createTask(Duration.ofHours(1)).run();
+
+    verify(gcc, never()).call();
+    GitMaintenanceStatistics statistics = readStatistics();
+    assertThat(statistics.getMode()).isEqualTo(GitMaintenanceStatistics.Mode.SKIPPED);
+    assertThat(statistics.getLooseObjectsBefore()).isEqualTo(10);
+  }
+
+  @Test
+  public void shouldRunGcWithTooManyLooseObjects() throws GitAPIException, IOException
+  {
+    mockMaintainedRepository();
+    when(gcc.getStatistics()).thenReturn(statistics(5000, 1000, 1, 1));
+    when(gcc.call()).thenReturn(statistics(0, 6000, 1, 1));
+    when(manager.getAll()).thenReturn(Lists.newArrayList(repository));
+
+    createTask(Duration.ofHours(1)).run();
+
+    verify(gcc).call();
+    GitMaintenanceStatistics statistics = readStatistics();
+    assertThat(statistics.getMode()).isEqualTo(GitMaintenanceStatistics.Mode.GC);
+    assertThat(statistics.getLooseObjectsBefore()).isEqualTo(5000);
+    assertThat(statistics.getLooseObjectsAfter()).isZero();
+    assertThat(statistics.getBitmapsAfter()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldRunGcWithTooManyPackFiles() throws GitAPIException, IOException
+  {
+    mockMaintainedRepository();
+    when(gcc.getStatistics()).thenReturn(statistics(0, 1000, 12, 1));
+    when(gcc.call()).thenReturn(statistics(0, 1000, 1, 1));
+    when(manager.getAll()).thenReturn(Lists.newArrayList(repository));
+
+    createTask(Duration.ofHours(1)).run();
+
+    verify(gcc).call();
+  }
+
+  @Test
+  public void shouldRunGcWithoutBitmap() throws GitAPIException, IOException
+  {
+    mockMaintainedRepository();
+    when(gcc.getStatistics()).thenReturn(statistics(0, 1000, 1, 0));
+    when(gcc.call()).thenReturn(statistics(0, 1000, 1, 1));
+    when(manager.getAll()).thenReturn(Lists.newArrayList(repository));
+
+    createTask(Duration.ofHours(1)).run();
+
+    verify(gcc).call();
+  }
+
+  @Test
+  public void shouldSkipArchivedRepository()
+  {
+    repository.setArchived(true);
+    when(manager.getAll()).thenReturn(Lists.newArrayList(repository));
+
+    createTask(Duration.ofHours(1)).run();
+
+    verify(git, never()).gc();
+    assertThat(config.getBoolean(ConfigConstants.CONFIG_CORE_SECTION, ConfigConstants.CONFIG_COMMIT_GRAPH, false)).isFalse();
+    assertThat(readStatistics()).isNull();
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void shouldNotFailForReadOnlyStore() throws GitAPIException, IOException
+  {
+    mockMaintainedRepository();
+    when(gcc.getStatistics()).thenReturn(statistics(10, 1000, 1, 1));
+    when(manager.getAll()).thenReturn(Lists.newArrayList(repository));
+    DataStore<GitMaintenanceStatistics> readOnlyStore = mock(DataStore.class);
+    doThrow(new StoreReadOnlyException()).when(readOnlyStore).put(eq(GitGcTask.STORE_ID), any());
+    DataStoreFactory readOnlyStoreFactory = new DataStoreFactory() {
+      @Override
+      public <T> DataStore<T> getStore(TypedStoreParameters<T> storeParameters) {
+        return (DataStore<T>) readOnlyStore;
+      }
+    };
+
+    new GitGcTask(manager, readOnlyStoreFactory, 2, Duration.ofHours(1), 1000, 10, Clock.systemUTC()) {
+      @Override
+      protected Git open(File file) {
+        return git;
+      }
+    }.run();
+
+    verify(readOnlyStore).put(eq(GitGcTask.STORE_ID), any());
+    verify(git).close();
+  }
+
+  @Test
+  public void shouldNotStartMaintenanceAfterMaxDuration() throws GitAPIException
+  {
+    when(manager.getAll()).thenReturn(Lists.newArrayList(repository));
+
+    createTask(Duration.ofMinutes(-1)).run();
+
+    verify(git, never()).gc();
+  }
+
+  private void mockGit() {
+    when(handler.getDirectory(repository.getId())).thenReturn(directory);
+    when(git.getRepository()).thenReturn(gitRepository);
+    when(gitRepository.getConfig()).thenReturn(config);
+    when(git.gc()).thenReturn(gcc);
+  }
+
+  private void mockMaintainedRepository() throws IOException {
+    mockGit();
+    config.setBoolean(ConfigConstants.CONFIG_CORE_SECTION, null, ConfigConstants.CONFIG_COMMIT_GRAPH, true);
+    config.setBoolean(ConfigConstants.CONFIG_GC_SECTION, null, ConfigConstants.CONFIG_KEY_WRITE_COMMIT_GRAPH, true);
+    File commitGraph = new File(directory, "objects/info/commit-graph");
+    assertThat(commitGraph.getParentFile().mkdirs()).isTrue();
+    assertThat(commitGraph.createNewFile()).isTrue();
+  }
+
+  private Properties statistics(long looseObjects, long packedObjects, long packFiles, long bitmaps) {
+    Properties properties = new Properties();
+    properties.put("numberOfLooseObjects", looseObjects);
+    properties.put("numberOfPackedObjects", packedObjects);
+    properties.put("numberOfPackFiles", packFiles);
+    properties.put("numberOfBitmaps", bitmaps);
+    return properties;
+  }
+
+  private GitMaintenanceStatistics readStatistics() {
+    return dataStoreFactory
+      .getStore(GitMaintenanceStatistics.class, GitGcTask.STORE_NAME + "/" + repository.getId())
+      .get(GitGcTask.STORE_ID);
+  }
+
+  private GitGcTask createTask(Duration maxDuration) {
+    return new GitGcTask(manager, dataStoreFactory, 2, maxDuration, 1000, 10, Clock.systemUTC()) {
+
+      @Override
+      protected Git open(File file)
+      {
+        return git;
+      }
+
+    };
+  }
+
 }
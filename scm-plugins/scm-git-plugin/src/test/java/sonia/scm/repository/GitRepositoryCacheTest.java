@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+
+package sonia.scm.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.lib.RepositoryCache;
+import org.eclipse.jgit.util.FS;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import sonia.scm.HandlerEventType;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class GitRepositoryCacheTest {
+
+  private final Repository repository = new Repository("42", "git", "space", "hitchhiker");
+
+  @Mock
+  private GitRepositoryHandler handler;
+
+  private File directory;
+  private GitRepositoryCache cache;
+
+  @BeforeEach
+  void setUpRepository(@TempDir Path temp) throws GitAPIException {
+    directory = temp.resolve("git").toFile();
+    Git.init().setBare(true).setDirectory(directory).call().close();
+    cache = new GitRepositoryCache(handler, new SimpleMeterRegistry(), 8192, 67108864L, 256, false, 600);
+  }
+
+  @AfterEach
+  void clearRepositoryCache() {
+    RepositoryCache.clear();
+  }
+
+  @Test
+  void shouldCloseAndEvictRepositoryOnDelete() throws IOException {
+    TrackingRepository shared = new TrackingRepository(directory);
+    RepositoryCache.register(shared);
+    when(handler.getDirectory(repository.getId())).thenReturn(shared.getDirectory());
+
+    cache.onEvent(new RepositoryEvent(HandlerEventType.BEFORE_DELETE, repository));
+
+    assertThat(shared.closed).isTrue();
+    assertThat(RepositoryCache.getRegisteredKeys()).doesNotContain(key(shared));
+    try (org.eclipse.jgit.lib.Repository reopened = GitUtil.openShared(shared.getDirectory())) {
+      assertThat(reopened).isNotSameAs(shared);
+    }
+  }
+
+  @Test
+  void shouldKeepRepositoryOnModification() throws IOException {
+    TrackingRepository shared = new TrackingRepository(directory);
+    RepositoryCache.register(shared);
+    Repository renamed = repository.clone();
+    renamed.setName("heart-of-gold");
+
+    cache.onEvent(new RepositoryModificationEvent(HandlerEventType.MODIFY, renamed, repository));
+
+    assertThat(shared.closed).isFalse();
+    assertThat(RepositoryCache.getRegisteredKeys()).contains(key(shared));
+  }
+
+  @Test
+  void shouldIgnoreRepositoriesOfOtherTypes() throws IOException {
+    TrackingRepository shared = new TrackingRepository(directory);
+    RepositoryCache.register(shared);
+
+    cache.onEvent(new RepositoryEvent(HandlerEventType.BEFORE_DELETE, new Repository("42", "hg", "space", "hitchhiker")));
+
+    assertThat(shared.closed).isFalse();
+  }
+
+  private RepositoryCache.FileKey key(org.eclipse.jgit.lib.Repository repository) {
+    return RepositoryCache.FileKey.exact(repository.getDirectory(), FS.DETECTED);
+  }
+
+  private static class TrackingRepository extends FileRepository {
+
+    private boolean closed;
+
+    private TrackingRepository(File gitDir) throws IOException {
+      super(gitDir);
+    }
+
+    @Override
+    protected void doClose() {
+      closed = true;
+      super.doClose();
+    }
+  }
+}
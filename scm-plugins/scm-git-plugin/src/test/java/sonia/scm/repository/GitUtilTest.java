@@ -19,6 +19,8 @@ package sonia.scm.repository;
 
 import jakarta.servlet.http.HttpServletRequest;
 import org.assertj.core.api.Assertions;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.attributes.Attribute;
 import org.eclipse.jgit.attributes.Attributes;
 import org.eclipse.jgit.lfs.LfsPointer;
@@ -27,7 +29,11 @@ import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.ObjectLoader;
 import org.eclipse.jgit.lib.ObjectStream;
 import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.RepositoryCache;
+import org.eclipse.jgit.util.FS;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import sonia.scm.util.HttpUtil;
 
 import java.io.File;
@@ -37,7 +43,9 @@ import java.util.Optional;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -49,6 +57,9 @@ import static org.mockito.Mockito.when;
 public class GitUtilTest
 {
 
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   /**
    * Tests {@link GitUtil#checkBranchName(org.eclipse.jgit.lib.Repository, java.lang.String)} with invalid name.
    *
@@ -145,6 +156,28 @@ public class GitUtilTest
     Assertions.assertThat(result).isEmpty();
   }
 
+  @Test
+  public void testOpenSharedReturnsSameRepository() throws IOException, GitAPIException {
+    File directory = temporaryFolder.newFolder();
+    Git.init().setBare(true).setDirectory(directory).call().close();
+
+    try (Repository first = GitUtil.openShared(directory); Repository second = GitUtil.openShared(directory)) {
+      assertSame(first, second);
+    } finally {
+      RepositoryCache.unregister(RepositoryCache.FileKey.exact(directory, FS.DETECTED));
+    }
+  }
+
+  @Test
+  public void testOpenSharedDoesNotShareWorkingCopies() throws IOException, GitAPIException {
+    File directory = temporaryFolder.newFolder();
+    Git.init().setDirectory(directory).call().close();
+
+    try (Repository first = GitUtil.openShared(directory); Repository second = GitUtil.openShared(directory)) {
+      assertNotSame(first, second);
+    }
+  }
+
   private Optional<LfsPointer> callGetLfsPointer(String lfsPointer) throws IOException {
     Repository repository = mock(Repository.class);
     ObjectId objectId = new ObjectId(1, 2, 3, 4, 5);
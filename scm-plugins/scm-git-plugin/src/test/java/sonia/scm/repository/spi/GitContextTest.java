@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+
+package sonia.scm.repository.spi;
+
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.RepositoryCache;
+import org.eclipse.jgit.util.FS;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import sonia.scm.api.v2.resources.GitRepositoryConfigStoreProvider;
+import sonia.scm.repository.GitConfig;
+import sonia.scm.repository.GitUtil;
+import sonia.scm.store.InMemoryByteConfigurationStoreFactory;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GitContextTest extends AbstractGitCommandTestBase {
+
+  @AfterEach
+  void unregister() {
+    RepositoryCache.unregister(RepositoryCache.FileKey.exact(repositoryDirectory, FS.DETECTED));
+  }
+
+  @Test
+  void shouldKeepSharedRepositoryOpenAfterContextsAreClosed() throws IOException, ReflectiveOperationException {
+    try (Repository shared = GitUtil.openShared(repositoryDirectory)) {
+      for (int i = 0; i < 3; i++) {
+        GitContext context = createSeparateContext();
+        assertThat(context.open()).isSameAs(shared);
+        new AttributeAnalyzer(context, null).getTargetCommit("master");
+        new AttributeAnalyzer(context, null).getTargetCommit("master");
+        context.close();
+      }
+
+      assertThat(useCount(shared)).isEqualTo(1);
+    }
+  }
+
+  @Test
+  void shouldReleaseSharedRepositoryOnClose() throws ReflectiveOperationException {
+    GitContext context = createSeparateContext();
+    Repository gitRepository = context.open();
+    context.open();
+
+    context.close();
+
+    assertThat(useCount(gitRepository)).isZero();
+  }
+
+  private GitContext createSeparateContext() {
+    GitRepositoryConfigStoreProvider storeProvider = new GitRepositoryConfigStoreProvider(new InMemoryByteConfigurationStoreFactory());
+    return new GitContext(repositoryDirectory, repository, storeProvider, new GitConfig());
+  }
+
+  private int useCount(Repository repository) throws ReflectiveOperationException {
+    Field field = Repository.class.getDeclaredField("useCnt");
+    field.setAccessible(true);
+    return ((AtomicInteger) field.get(repository)).get();
+  }
+}
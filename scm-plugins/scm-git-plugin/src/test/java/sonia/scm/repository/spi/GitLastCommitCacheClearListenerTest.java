@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+
+package sonia.scm.repository.spi;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import sonia.scm.HandlerEventType;
+import sonia.scm.cache.MapCache;
+import sonia.scm.cache.MapCacheManager;
+import sonia.scm.repository.Repository;
+import sonia.scm.repository.RepositoryEvent;
+import sonia.scm.repository.spi.GitLastCommitCollector.Key;
+import sonia.scm.repository.spi.GitLastCommitCollector.LastCommit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GitLastCommitCacheClearListenerTest {
+
+  private final Repository deleted = new Repository("42", "git", "space", "deleted");
+  private final Repository other = new Repository("23", "git", "space", "other");
+
+  private MapCache<Key, LastCommit> cache;
+  private GitLastCommitCacheClearListener listener;
+
+  @BeforeEach
+  void setUpCache() {
+    MapCacheManager cacheManager = new MapCacheManager();
+    cache = cacheManager.getCache(GitLastCommitCollector.CACHE_NAME);
+    cache.put(new Key(deleted.getId(), "abc", "a.txt"), new LastCommit("abc", 0, "initial"));
+    cache.put(new Key(other.getId(), "abc", "a.txt"), new LastCommit("abc", 0, "initial"));
+    listener = new GitLastCommitCacheClearListener(cacheManager);
+  }
+
+  @Test
+  void shouldRemoveEntriesOfDeletedRepository() {
+    listener.onEvent(new RepositoryEvent(HandlerEventType.DELETE, deleted));
+
+    assertThat(cache.get(new Key(deleted.getId(), "abc", "a.txt"))).isNull();
+    assertThat(cache.get(new Key(other.getId(), "abc", "a.txt"))).isNotNull();
+  }
+
+  @Test
+  void shouldKeepEntriesOnModification() {
+    listener.onEvent(new RepositoryEvent(HandlerEventType.MODIFY, deleted, deleted));
+
+    assertThat(cache.get(new Key(deleted.getId(), "abc", "a.txt"))).isNotNull();
+  }
+}
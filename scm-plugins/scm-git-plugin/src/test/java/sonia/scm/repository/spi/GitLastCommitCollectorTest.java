@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package sonia.scm.repository.spi;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.merge.MergeStrategy;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.filter.AndTreeFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import sonia.scm.cache.MapCache;
+import sonia.scm.repository.spi.GitLastCommitCollector.Key;
+import sonia.scm.repository.spi.GitLastCommitCollector.LastCommit;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GitLastCommitCollectorTest {
+
+  private static final List<String> PATHS = List.of("a.txt", "b.txt", "dir/c.txt");
+
+  private Git git;
+  private File directory;
+  private MapCache<Key, LastCommit> cache;
+
+  @BeforeEach
+  void initRepository(@TempDir Path temp) throws GitAPIException {
+    directory = temp.toFile();
+    git = Git.init().setDirectory(directory).setInitialBranch("main").call();
+    cache = new MapCache<>();
+  }
+
+  @AfterEach
+  void closeRepository() {
+    git.close();
+  }
+
+  @Test
+  void shouldResolveLastCommitOfEveryPath() throws Exception {
+    commit("initial", "a.txt", "b.txt", "dir/c.txt");
+    commit("change a", "a.txt");
+    commit("change c", "dir/c.txt");
+
+    Map<String, LastCommit> result = collect(head());
+
+    assertThat(result.get("a.txt").getDescription()).isEqualTo("change a");
+    assertThat(result.get("b.txt").getDescription()).isEqualTo("initial");
+    assertThat(result.get("dir/c.txt").getDescription()).isEqualTo("change c");
+    assertSameAsSinglePathWalk(result);
+  }
+
+  @Test
+  void shouldFollowMergedParentWithSameContent() throws Exception {
+    commit("initial", "a.txt", "b.txt", "dir/c.txt");
+    git.branchCreate().setName("feature").call();
+    commit("main a", "a.txt");
+    git.checkout().setName("feature").call();
+    commit("feature b", "b.txt");
+    git.checkout().setName("main").call();
+    git.merge().include(git.getRepository().resolve("feature")).setMessage("merge").call();
+
+    Map<String, LastCommit> result = collect(head());
+
+    assertThat(result.get("a.txt").getDescription()).isEqualTo("main a");
+    assertThat(result.get("b.txt").getDescription()).isEqualTo("feature b");
+    assertThat(result.get("dir/c.txt").getDescription()).isEqualTo("initial");
+    assertSameAsSinglePathWalk(result);
+  }
+
+  @Test
+  void shouldIgnoreChangesOfDiscardedBranches() throws Exception {
+    commit("initial", "a.txt", "b.txt", "dir/c.txt");
+    git.branchCreate().setName("feature").call();
+    commit("main a", "a.txt");
+    git.checkout().setName("feature").call();
+    commit("feature b", "b.txt");
+    git.checkout().setName("main").call();
+    git.merge()
+      .include(git.getRepository().resolve("feature"))
+      .setStrategy(MergeStrategy.OURS)
+      .setMessage("merge")
+      .call();
+
+    Map<String, LastCommit> result = collect(head());
+
+    assertThat(result.get("a.txt").getDescription()).isEqualTo("main a");
+    assertThat(result.get("b.txt").getDescription()).isEqualTo("initial");
+    assertSameAsSinglePathWalk(result);
+  }
+
+  @Test
+  void shouldUseMergeCommitIfContentDiffersFromAllParents() throws Exception {
+    commit("initial", "a.txt", "b.txt", "dir/c.txt");
+    git.branchCreate().setName("feature").call();
+    commit("main a", "a.txt");
+    git.checkout().setName("feature").call();
+    commit("feature a", "a.txt");
+    git.checkout().setName("main").call();
+    git.merge().include(git.getRepository().resolve("feature")).call();
+    commit("resolve conflict", "a.txt");
+
+    Map<String, LastCommit> result = collect(head());
+
+    assertThat(result.get("a.txt").getDescription()).isEqualTo("resolve conflict");
+    assertSameAsSinglePathWalk(result);
+  }
+
+  @Test
+  void shouldStoreResultsForRequestedRevision() throws Exception {
+    commit("initial", "a.txt", "b.txt", "dir/c.txt");
+    commit("change a", "a.txt");
+    ObjectId revision = head();
+
+    collect(revision);
+
+    assertThat(cache.get(new Key("42", revision.getName(), "b.txt")).getDescription()).isEqualTo("initial");
+    assertThat(cache.get(new Key("42", revision.getName(), "a.txt")).getDescription()).isEqualTo("change a");
+  }
+
+  @Test
+  void shouldStopWalkAtCachedCommits() throws Exception {
+    commit("initial", "a.txt", "b.txt", "dir/c.txt");
+    ObjectId cached = head();
+    cache.put(new Key("42", cached.getName(), "b.txt"), new LastCommit(cached.getName(), 0, "from cache"));
+    commit("change a", "a.txt");
+
+    Map<String, LastCommit> result = collect(head());
+
+    assertThat(result.get("a.txt").getDescription()).isEqualTo("change a");
+    assertThat(result.get("b.txt").getDescription()).isEqualTo("from cache");
+    assertThat(result.get("dir/c.txt").getDescription()).isEqualTo("initial");
+  }
+
+  @Test
+  void shouldIgnoreUnknownPaths() throws Exception {
+    commit("initial", "a.txt");
+
+    Map<String, LastCommit> result = new HashMap<>();
+    new GitLastCommitCollector(git.getRepository(), "42", cache)
+      .collect(head(), List.of("a.txt", "missing.txt"), result::put);
+
+    assertThat(result).containsOnlyKeys("a.txt");
+  }
+
+  private Map<String, LastCommit> collect(ObjectId revision) throws IOException {
+    Map<String, LastCommit> result = new HashMap<>();
+    new GitLastCommitCollector(git.getRepository(), "42", cache).collect(revision, PATHS, result::put);
+    return result;
+  }
+
+  private void assertSameAsSinglePathWalk(Map<String, LastCommit> result) throws IOException {
+    for (String path : PATHS) {
+      try (RevWalk walk = new RevWalk(git.getRepository())) {
+        walk.setTreeFilter(AndTreeFilter.create(TreeFilter.ANY_DIFF, PathFilter.create(path)));
+        walk.markStart(walk.parseCommit(head()));
+        RevCommit expected = walk.next();
+        assertThat(result.get(path).getId()).as("last commit of %s", path).isEqualTo(expected.getName());
+      }
+    }
+  }
+
+  private ObjectId head() throws IOException {
+    return git.getRepository().resolve("HEAD");
+  }
+
+  private void commit(String message, String... paths) throws IOException, GitAPIException {
+    for (String path : paths) {
+      File file = new File(directory, path);
+      Files.createDirectories(file.getParentFile().toPath());
+      Files.writeString(file.toPath(), message + " " + path, UTF_8);
+      git.add().addFilepattern(path).call();
+    }
+    git.commit().setMessage(message).setSign(false).call();
+  }
+}
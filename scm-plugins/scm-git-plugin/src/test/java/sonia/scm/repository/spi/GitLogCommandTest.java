@@ -25,10 +25,14 @@ import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
 import sonia.scm.repository.Changeset;
 import sonia.scm.repository.ChangesetPagingResult;
+import sonia.scm.repository.GitCommitCountIndex;
 import sonia.scm.repository.GitRepositoryConfig;
+import sonia.scm.repository.GitRepositoryHandler;
 import sonia.scm.repository.GitTestHelper;
 import sonia.scm.repository.Modifications;
 import sonia.scm.repository.Person;
+import sonia.scm.store.InMemoryByteDataStoreFactory;
+import sonia.scm.store.StoreReadOnlyException;
 
 import java.io.File;
 import java.io.IOException;
@@ -39,6 +43,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -183,6 +188,52 @@ public class GitLogCommandTest extends AbstractGitCommandTestBase
     assertEquals("592d797cd36432e591416e8b2b98154f4f163411", c2.getId());
   }
 
+  @Test
+  public void testGetAllWithPagingFromCommitCountIndex()
+  {
+    InMemoryByteDataStoreFactory dataStoreFactory = new InMemoryByteDataStoreFactory();
+    GitCommitCountIndex index = new GitCommitCountIndex(dataStoreFactory, Mockito.mock(GitRepositoryHandler.class));
+
+    LogCommandRequest request = new LogCommandRequest();
+
+    request.setPagingStart(1);
+    request.setPagingLimit(2);
+
+    ChangesetPagingResult result = new GitLogCommand(createContext(), GitTestHelper.createConverterFactory(), index)
+      .getChangesets(request);
+
+    assertEquals(4, result.getTotal());
+    assertThat(result.getChangesets())
+      .extracting("id")
+      .containsExactly("86a6645eceefe8b9a247db5eb16e3d89a7e6e6d1", "592d797cd36432e591416e8b2b98154f4f163411");
+
+    result = new GitLogCommand(createContext(), GitTestHelper.createConverterFactory(), index)
+      .getChangesets(request);
+
+    assertEquals(4, result.getTotal());
+    assertEquals(2, result.getChangesets().size());
+  }
+
+  @Test
+  public void testGetAllWithPagingIfCommitCountIndexFails() throws IOException
+  {
+    GitCommitCountIndex index = Mockito.mock(GitCommitCountIndex.class);
+    when(index.count(any(), any(), any())).thenThrow(new StoreReadOnlyException());
+
+    LogCommandRequest request = new LogCommandRequest();
+
+    request.setPagingStart(1);
+    request.setPagingLimit(2);
+
+    ChangesetPagingResult result = new GitLogCommand(createContext(), GitTestHelper.createConverterFactory(), index)
+      .getChangesets(request);
+
+    assertEquals(4, result.getTotal());
+    assertThat(result.getChangesets())
+      .extracting("id")
+      .containsExactly("86a6645eceefe8b9a247db5eb16e3d89a7e6e6d1", "592d797cd36432e591416e8b2b98154f4f163411");
+  }
+
   @Test
   public void testGetCommit()
   {
@@ -275,12 +275,11 @@ public class GitMergeCommandTest extends AbstractGitCommandTestBase {
 
     // create concurrent modification after the pre commit hook was fired
     doAnswer(invocation -> {
-      try (Repository repository = createCommand().open()) {
-        RefUpdate refUpdate = repository.updateRef("refs/heads/master");
-        refUpdate.setNewObjectId(ObjectId.fromString("2f95f02d9c568594d31e78464bd11a96c62e3f91"));
-        refUpdate.update();
-        return null;
-      }
+      Repository repository = createCommand().open();
+      RefUpdate refUpdate = repository.updateRef("refs/heads/master");
+      refUpdate.setNewObjectId(ObjectId.fromString("2f95f02d9c568594d31e78464bd11a96c62e3f91"));
+      refUpdate.update();
+      return null;
     }).when(repositoryManager).fireHookEvent(any());
 
     command.merge(request);
@@ -22,11 +22,14 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import sonia.scm.repository.Repository;
+import sonia.scm.store.BlobStore;
 import sonia.scm.store.BlobStoreFactory;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -40,6 +43,9 @@ public class LfsBlobStoreFactoryTest {
 
   @Mock
   private BlobStoreFactory blobStoreFactory;
+
+  @Mock
+  private LfsObjectStore objectStore;
   
   @InjectMocks
   private LfsBlobStoreFactory lfsBlobStoreFactory;
@@ -61,4 +67,15 @@ public class LfsBlobStoreFactoryTest {
     // make sure there have been no further usages of the factory
     verify(blobStoreFactory, times(1)).getStore(any());
   }
+
+  @Test
+  public void getSharedBlobStore() {
+    when(blobStoreFactory.withName(any())).thenCallRealMethod();
+    when(objectStore.isEnabled()).thenReturn(true);
+    Repository repository = new Repository("the-id", "GIT", "space", "the-name");
+    BlobStore shared = mock(BlobStore.class);
+    when(objectStore.forRepository(eq(repository), any())).thenReturn(shared);
+
+    assertThat(lfsBlobStoreFactory.getLfsBlobStore(repository)).isSameAs(shared);
+  }
 }
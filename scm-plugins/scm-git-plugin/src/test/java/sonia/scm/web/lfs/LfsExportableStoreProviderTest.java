@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+
+package sonia.scm.web.lfs;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import sonia.scm.repository.Repository;
+import sonia.scm.store.Blob;
+import sonia.scm.store.ExportableStore;
+import sonia.scm.store.InMemoryDataStore;
+import sonia.scm.store.StoreType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LfsExportableStoreProviderTest {
+
+  private static final String OID = "976ed944c37cc5d1606af316937edb9d286ecf6c606af316937edb9d286ecf6c";
+
+  private final Repository repository = new Repository("origin", "git", "space", "origin");
+
+  @TempDir
+  private Path directory;
+
+  @Test
+  void shouldNotProvideStoresIfDisabled() {
+    LfsExportableStoreProvider provider = new LfsExportableStoreProvider(createStore(false));
+
+    assertThat(provider.getExportableStores(repository)).isEmpty();
+  }
+
+  @Test
+  void shouldNotProvideStoresForOtherRepositoryTypes() {
+    LfsExportableStoreProvider provider = new LfsExportableStoreProvider(createStore(true));
+
+    assertThat(provider.getExportableStores(new Repository("hg", "hg", "space", "hg"))).isEmpty();
+  }
+
+  @Test
+  void shouldExportReferencedObjectsAsLfsBlobs() throws IOException {
+    LfsObjectStore objectStore = createStore(true);
+    Blob blob = objectStore.create(repository.getId(), OID);
+    try (OutputStream output = blob.getOutputStream()) {
+      output.write("lfs content".getBytes(StandardCharsets.UTF_8));
+    }
+    blob.commit();
+    LfsExportableStoreProvider provider = new LfsExportableStoreProvider(objectStore);
+
+    List<ExportableStore> stores = provider.getExportableStores(repository);
+
+    assertThat(stores).hasSize(1);
+    ExportableStore store = stores.get(0);
+    assertThat(store.getMetaData().getType()).isEqualTo(StoreType.BLOB);
+    assertThat(store.getMetaData().getName()).isEqualTo("git-lfs");
+
+    Map<String, ByteArrayOutputStream> entries = new HashMap<>();
+    store.export((name, size) -> entries.computeIfAbsent(name, n -> new ByteArrayOutputStream()));
+    assertThat(entries).containsOnlyKeys(OID + ".blob");
+    assertThat(entries.get(OID + ".blob").toString(StandardCharsets.UTF_8)).isEqualTo("lfs content");
+  }
+
+  private LfsObjectStore createStore(boolean enabled) {
+    InMemoryDataStore<LfsObjectStore.References> references = new InMemoryDataStore<>();
+    InMemoryDataStore<LfsObjectStore.RepositoryObjects> repositoryObjects = new InMemoryDataStore<>();
+    return new LfsObjectStore(directory, () -> references, () -> repositoryObjects, enabled);
+  }
+}
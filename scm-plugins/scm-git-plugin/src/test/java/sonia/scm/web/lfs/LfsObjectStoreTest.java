@@ -0,0 +1,359 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package sonia.scm.web.lfs;
+
+import com.google.common.hash.Hashing;
+import org.github.sdorra.jse.ShiroExtension;
+import org.github.sdorra.jse.SubjectAware;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import sonia.scm.HandlerEventType;
+import sonia.scm.repository.Repository;
+import sonia.scm.repository.RepositoryEvent;
+import sonia.scm.store.Blob;
+import sonia.scm.store.BlobStore;
+import sonia.scm.store.InMemoryBlobStore;
+import sonia.scm.store.InMemoryDataStore;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(ShiroExtension.class)
+@SubjectAware(value = "trillian", permissions = "repository:pull:origin")
+class LfsObjectStoreTest {
+
+  private static final String OID = "976ed944c37cc5d1606af316937edb9d286ecf6c606af316937edb9d286ecf6c";
+  private static final String CONTENT = "lfs content";
+
+  private final Repository origin = new Repository("origin", "git", "space", "origin");
+  private final Repository fork = new Repository("fork", "git", "space", "fork");
+
+  @TempDir
+  private Path directory;
+
+  private LfsObjectStore objectStore;
+
+  @BeforeEach
+  void createStore() {
+    objectStore = createStore(true);
+  }
+
+  @Test
+  void shouldStoreObject() throws IOException {
+    BlobStore store = blobStore(origin);
+
+    store(store, OID);
+
+    Blob blob = store.get(OID);
+    assertThat(blob).isNotNull();
+    assertThat(blob.getSize()).isEqualTo(CONTENT.length());
+    assertThat(read(blob)).isEqualTo(CONTENT);
+    assertThat(blob.getPath()).isPresent();
+  }
+
+  @Test
+  void shouldNotProvideUncommittedObject() throws IOException {
+    BlobStore store = blobStore(origin);
+
+    Blob blob = store.create(OID);
+    write(blob);
+
+    assertThat(store.get(OID)).isNull();
+  }
+
+  @Test
+  void shouldDropUncommittedObjectOnRemove() throws IOException {
+    BlobStore store = blobStore(origin);
+    Blob blob = store.create(OID);
+    write(blob);
+
+    store.remove(blob);
+
+    assertThat(countFiles()).isZero();
+  }
+
+  @Test
+  void shouldNotProvideObjectOfOtherRepository() throws IOException {
+    store(blobStore(origin), OID);
+
+    assertThat(blobStore(fork).get(OID)).isNull();
+  }
+
+  @Test
+  void shouldStoreObjectOnlyOnce() throws IOException {
+    store(blobStore(origin), OID);
+    store(blobStore(fork), OID);
+
+    assertThat(blobStore(fork).get(OID)).isNotNull();
+    assertThat(countFiles()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldLinkExistingObject() throws IOException {
+    store(blobStore(origin), OID);
+
+    SharedLfsBlobStore forkStore = blobStore(fork);
+    assertThat(forkStore.link(OID)).isTrue();
+
+    assertThat(read(forkStore.get(OID))).isEqualTo(CONTENT);
+  }
+
+  @Test
+  @SubjectAware("dent")
+  void shouldNotLinkObjectOfRepositoryWithoutPullPermission() throws IOException {
+    store(blobStore(origin), OID);
+
+    SharedLfsBlobStore forkStore = blobStore(fork);
+    assertThat(forkStore.link(OID)).isFalse();
+
+    assertThat(forkStore.get(OID)).isNull();
+  }
+
+  @Test
+  @SubjectAware("dent")
+  void shouldReferenceUploadedObjectWithoutPullPermission() throws IOException {
+    store(blobStore(origin), OID);
+    store(blobStore(fork), OID);
+
+    assertThat(blobStore(fork).get(OID)).isNotNull();
+    assertThat(countFiles()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldNotLinkUnknownObject() {
+    assertThat(blobStore(fork).link(OID)).isFalse();
+  }
+
+  @Test
+  void shouldKeepObjectWhileReferenced() throws IOException {
+    store(blobStore(origin), OID);
+    blobStore(fork).link(OID);
+
+    blobStore(origin).remove(OID);
+
+    assertThat(blobStore(origin).get(OID)).isNull();
+    assertThat(blobStore(fork).get(OID)).isNotNull();
+    assertThat(countFiles()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldRemoveObjectWithoutReferences() throws IOException {
+    store(blobStore(origin), OID);
+    blobStore(fork).link(OID);
+
+    blobStore(origin).remove(OID);
+    blobStore(fork).remove(OID);
+
+    assertThat(countFiles()).isZero();
+    assertThat(blobStore(fork).link(OID)).isFalse();
+  }
+
+  @Test
+  void shouldReturnAllObjectsOfRepository() throws IOException {
+    String other = OID.replace('9', '1');
+    store(blobStore(origin), OID);
+    store(blobStore(fork), other);
+
+    assertThat(blobStore(origin).getAll())
+      .extracting(Blob::getId)
+      .containsExactly(OID);
+  }
+
+  @Test
+  void shouldNotReturnRemovedObjectsOfRepository() throws IOException {
+    String other = OID.replace('9', '1');
+    store(blobStore(origin), OID);
+    store(blobStore(origin), other);
+    blobStore(fork).link(OID);
+
+    blobStore(origin).remove(OID);
+
+    assertThat(blobStore(origin).getAll())
+      .extracting(Blob::getId)
+      .containsExactly(other);
+    assertThat(blobStore(fork).getAll())
+      .extracting(Blob::getId)
+      .containsExactly(OID);
+  }
+
+  @Test
+  void shouldRemoveAllObjectsOfRepositoryOnClear() throws IOException {
+    String other = OID.replace('9', '1');
+    store(blobStore(origin), OID);
+    store(blobStore(origin), other);
+    blobStore(fork).link(OID);
+
+    blobStore(origin).clear();
+
+    assertThat(blobStore(origin).getAll()).isEmpty();
+    assertThat(blobStore(fork).get(OID)).isNotNull();
+    assertThat(countFiles()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldCreateObjectWithGeneratedIdInRepositoryBlobStore() throws IOException {
+    InMemoryBlobStore repositoryBlobStore = new InMemoryBlobStore();
+    BlobStore store = objectStore.forRepository(origin, repositoryBlobStore);
+
+    Blob blob = store.create();
+    write(blob);
+    blob.commit();
+
+    assertThat(blob.getId()).isNotEmpty();
+    assertThat(read(store.get(blob.getId()))).isEqualTo(CONTENT);
+    assertThat(repositoryBlobStore.get(blob.getId())).isNotNull();
+  }
+
+  @Test
+  void shouldRemoveStaleTemporaryFiles() throws IOException {
+    Blob stale = blobStore(origin).create(OID);
+    write(stale);
+    Blob pending = blobStore(fork).create(OID);
+    write(pending);
+    try (Stream<Path> files = Files.list(directory.resolve("tmp"))) {
+      Path file = files.findFirst().orElseThrow();
+      Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofDays(2))));
+    }
+
+    objectStore.collectGarbage();
+
+    assertThat(countFiles()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldRemoveUnreferencedObjects() throws IOException {
+    String other = OID.replace('9', '1');
+    store(blobStore(origin), OID);
+    Path unreferenced = directory.resolve(other.substring(0, 2)).resolve(other.substring(2, 4)).resolve(other);
+    Files.createDirectories(unreferenced.getParent());
+    Files.write(unreferenced, CONTENT.getBytes(StandardCharsets.UTF_8));
+
+    objectStore.collectGarbage();
+
+    assertThat(unreferenced).doesNotExist();
+    assertThat(blobStore(origin).get(OID)).isNotNull();
+    assertThat(countFiles()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldAdoptObjectsOfRepositoryBlobStore() throws IOException {
+    String oid = Hashing.sha256().hashString(CONTENT, StandardCharsets.UTF_8).toString();
+    InMemoryBlobStore repositoryBlobStore = new InMemoryBlobStore();
+    store(repositoryBlobStore, oid);
+
+    objectStore.adopt(origin.getId(), repositoryBlobStore);
+
+    assertThat(repositoryBlobStore.getAll()).isEmpty();
+    assertThat(read(blobStore(origin).get(oid))).isEqualTo(CONTENT);
+    assertThat(countFiles()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldNotAdoptObjectsWithWrongOid() throws IOException {
+    InMemoryBlobStore repositoryBlobStore = new InMemoryBlobStore();
+    store(repositoryBlobStore, OID);
+
+    objectStore.adopt(origin.getId(), repositoryBlobStore);
+
+    assertThat(repositoryBlobStore.get(OID)).isNotNull();
+    assertThat(blobStore(origin).get(OID)).isNull();
+    assertThat(countFiles()).isZero();
+  }
+
+  @Test
+  void shouldRemoveReferencesOfDeletedRepository() throws IOException {
+    store(blobStore(origin), OID);
+
+    objectStore.onEvent(new RepositoryEvent(HandlerEventType.DELETE, origin));
+
+    assertThat(countFiles()).isZero();
+  }
+
+  @Test
+  void shouldIgnoreEventsIfDisabled() throws IOException {
+    objectStore = createStore(false);
+    store(blobStore(origin), OID);
+
+    objectStore.onEvent(new RepositoryEvent(HandlerEventType.DELETE, origin));
+
+    assertThat(countFiles()).isEqualTo(1);
+  }
+
+  @Nested
+  class WithRepositoryBlobStore {
+
+    private final InMemoryBlobStore repositoryBlobStore = new InMemoryBlobStore();
+
+    @Test
+    void shouldReadObjectsOfRepositoryBlobStore() throws IOException {
+      Blob legacy = repositoryBlobStore.create(OID);
+      write(legacy);
+
+      SharedLfsBlobStore store = new SharedLfsBlobStore(objectStore, origin.getId(), repositoryBlobStore);
+
+      assertThat(read(store.get(OID))).isEqualTo(CONTENT);
+      assertThat(countFiles()).isZero();
+    }
+  }
+
+  private LfsObjectStore createStore(boolean enabled) {
+    InMemoryDataStore<LfsObjectStore.References> references = new InMemoryDataStore<>();
+    InMemoryDataStore<LfsObjectStore.RepositoryObjects> repositoryObjects = new InMemoryDataStore<>();
+    return new LfsObjectStore(directory, () -> references, () -> repositoryObjects, enabled);
+  }
+
+  private SharedLfsBlobStore blobStore(Repository repository) {
+    return (SharedLfsBlobStore) objectStore.forRepository(repository, new InMemoryBlobStore());
+  }
+
+  private void store(BlobStore store, String oid) throws IOException {
+    Blob blob = store.create(oid);
+    write(blob);
+    blob.commit();
+  }
+
+  private void write(Blob blob) throws IOException {
+    try (OutputStream outputStream = blob.getOutputStream()) {
+      outputStream.write(CONTENT.getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  private String read(Blob blob) throws IOException {
+    try (InputStream inputStream = blob.getInputStream()) {
+      return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+
+  private long countFiles() throws IOException {
+    try (Stream<Path> files = Files.walk(directory)) {
+      return files.filter(Files::isRegularFile).count();
+    }
+  }
+}
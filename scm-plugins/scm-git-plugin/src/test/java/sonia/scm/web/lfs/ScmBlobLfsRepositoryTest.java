@@ -24,6 +24,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import sonia.scm.repository.Repository;
 import sonia.scm.security.AccessToken;
+import sonia.scm.store.Blob;
 import sonia.scm.store.BlobStore;
 
 import java.util.Date;
@@ -32,10 +33,13 @@ import static java.time.Instant.parse;
 import static java.util.Date.from;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.eclipse.jgit.lfs.lib.LongObjectId.fromString;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class ScmBlobLfsRepositoryTest {
@@ -110,5 +114,27 @@ class ScmBlobLfsRepositoryTest {
     lfsRepository.getUploadAction(OBJECT_ID, 42L);
     verify(tokenFactory, times(1)).createWriteAccessToken(REPOSITORY);
   }
-}
 
+  @Test
+  void shouldLinkExistingObjectForUpload() {
+    SharedLfsBlobStore sharedBlobStore = mock(SharedLfsBlobStore.class);
+    Blob blob = mock(Blob.class);
+    when(blob.getSize()).thenReturn(42L);
+    when(sharedBlobStore.link(OBJECT_ID.getName())).thenReturn(true);
+    when(sharedBlobStore.get(OBJECT_ID.getName())).thenReturn(null, blob);
+
+    ScmBlobLfsRepository uploadRepository = new ScmBlobLfsRepository(REPOSITORY, sharedBlobStore, tokenFactory, "http://scm.org/").forUpload();
+
+    assertThat(uploadRepository.getSize(OBJECT_ID)).isEqualTo(42L);
+  }
+
+  @Test
+  void shouldNotLinkExistingObjectForDownload() {
+    SharedLfsBlobStore sharedBlobStore = mock(SharedLfsBlobStore.class);
+
+    ScmBlobLfsRepository downloadRepository = new ScmBlobLfsRepository(REPOSITORY, sharedBlobStore, tokenFactory, "http://scm.org/");
+
+    assertThat(downloadRepository.getSize(OBJECT_ID)).isEqualTo(-1L);
+    verify(sharedBlobStore, never()).link(any());
+  }
+}
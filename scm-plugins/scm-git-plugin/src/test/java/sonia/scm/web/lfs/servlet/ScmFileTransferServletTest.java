@@ -16,12 +16,31 @@
 
 package sonia.scm.web.lfs.servlet;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import sonia.scm.store.Blob;
+import sonia.scm.store.BlobStore;
+import sonia.scm.store.InMemoryBlobStore;
+import sonia.scm.web.CapturingServletOutputStream;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Optional;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * Created by omilke on 16.05.2017.
@@ -55,4 +74,165 @@ public class ScmFileTransferServletTest {
     assertThat(ScmFileTransferServlet.objectIdFromPath(path), is(nullValue()));
 
   }
+
+  private static final String OID = "8fcebeb5698230685f92028e560f8f1683ebc15ec82a620ffad5c12a3c19bdec";
+  private static final String ETAG = "\"" + OID + "\"";
+  private static final String CONTENT = "0123456789abcdefghij";
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void shouldProvideWholeBlob() throws Exception {
+    HttpServletResponse response = mock(HttpServletResponse.class);
+    CapturingServletOutputStream stream = download(createInMemoryStore(), request(), response);
+
+    assertThat(stream.toString(), is(CONTENT));
+    verify(response).setContentLengthLong(CONTENT.length());
+    verify(response).setHeader("ETag", ETAG);
+    verify(response).setHeader("Accept-Ranges", "bytes");
+    verify(response, never()).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+  }
+
+  @Test
+  public void shouldProvideWholeBlobFromPath() throws Exception {
+    HttpServletResponse response = mock(HttpServletResponse.class);
+    CapturingServletOutputStream stream = download(createFileStore(), request(), response);
+
+    assertThat(stream.toString(), is(CONTENT));
+    verify(response).setContentLengthLong(CONTENT.length());
+  }
+
+  @Test
+  public void shouldProvideRange() throws Exception {
+    HttpServletRequest request = request();
+    when(request.getHeader("Range")).thenReturn("bytes=5-9");
+    HttpServletResponse response = mock(HttpServletResponse.class);
+
+    CapturingServletOutputStream stream = download(createInMemoryStore(), request, response);
+
+    assertThat(stream.toString(), is("56789"));
+    verify(response).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+    verify(response).setHeader("Content-Range", "bytes 5-9/20");
+    verify(response).setContentLengthLong(5);
+  }
+
+  @Test
+  public void shouldProvideRangeFromPath() throws Exception {
+    HttpServletRequest request = request();
+    when(request.getHeader("Range")).thenReturn("bytes=15-");
+    HttpServletResponse response = mock(HttpServletResponse.class);
+
+    CapturingServletOutputStream stream = download(createFileStore(), request, response);
+
+    assertThat(stream.toString(), is("fghij"));
+    verify(response).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+    verify(response).setHeader("Content-Range", "bytes 15-19/20");
+  }
+
+  @Test
+  public void shouldProvideSuffixRange() throws Exception {
+    HttpServletRequest request = request();
+    when(request.getHeader("Range")).thenReturn("bytes=-3");
+    HttpServletResponse response = mock(HttpServletResponse.class);
+
+    CapturingServletOutputStream stream = download(createFileStore(), request, response);
+
+    assertThat(stream.toString(), is("hij"));
+    verify(response).setHeader("Content-Range", "bytes 17-19/20");
+  }
+
+  @Test
+  public void shouldRejectUnsatisfiableRange() throws Exception {
+    HttpServletRequest request = request();
+    when(request.getHeader("Range")).thenReturn("bytes=20-");
+    HttpServletResponse response = mock(HttpServletResponse.class);
+
+    download(createInMemoryStore(), request, response);
+
+    verify(response).setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+    verify(response).setHeader("Content-Range", "bytes */20");
+    verify(response, never()).getOutputStream();
+  }
+
+  @Test
+  public void shouldIgnoreRangeIfEtagOfIfRangeDoesNotMatch() throws Exception {
+    HttpServletRequest request = request();
+    when(request.getHeader("Range")).thenReturn("bytes=5-9");
+    when(request.getHeader("If-Range")).thenReturn("\"other\"");
+    HttpServletResponse response = mock(HttpServletResponse.class);
+
+    CapturingServletOutputStream stream = download(createInMemoryStore(), request, response);
+
+    assertThat(stream.toString(), is(CONTENT));
+    verify(response, never()).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+  }
+
+  @Test
+  public void shouldReturnNotModifiedIfEtagMatches() throws Exception {
+    HttpServletRequest request = request();
+    when(request.getHeader("If-None-Match")).thenReturn("\"other\", " + ETAG);
+    HttpServletResponse response = mock(HttpServletResponse.class);
+
+    download(createInMemoryStore(), request, response);
+
+    verify(response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+    verify(response, never()).getOutputStream();
+  }
+
+  @Test
+  public void shouldIgnoreInvalidOrMultipleRanges() {
+    assertThat(ScmFileTransferServlet.ByteRange.parse("bytes=0-1,5-6", 20), is(nullValue()));
+    assertThat(ScmFileTransferServlet.ByteRange.parse("items=0-1", 20), is(nullValue()));
+    assertThat(ScmFileTransferServlet.ByteRange.parse("bytes=5-2", 20), is(nullValue()));
+    assertThat(ScmFileTransferServlet.ByteRange.parse("bytes=a-b", 20), is(nullValue()));
+    assertThat(ScmFileTransferServlet.ByteRange.parse("bytes=-", 20), is(nullValue()));
+  }
+
+  @Test
+  public void shouldLimitRangeToSize() {
+    ScmFileTransferServlet.ByteRange range = ScmFileTransferServlet.ByteRange.parse("bytes=10-100", 20);
+
+    assertThat(range.first, is(10L));
+    assertThat(range.last, is(19L));
+    assertThat(range.length(), is(10L));
+  }
+
+  private CapturingServletOutputStream download(BlobStore store, HttpServletRequest request, HttpServletResponse response) throws Exception {
+    CapturingServletOutputStream stream = new CapturingServletOutputStream();
+    when(response.getOutputStream()).thenReturn(stream);
+    new ScmFileTransferServlet(store).doGet(request, response);
+    return stream;
+  }
+
+  private HttpServletRequest request() {
+    HttpServletRequest request = mock(HttpServletRequest.class);
+    when(request.getPathInfo()).thenReturn("/objects/" + OID);
+    return request;
+  }
+
+  private BlobStore createInMemoryStore() throws IOException {
+    BlobStore store = new InMemoryBlobStore();
+    Blob blob = store.create(OID);
+    try (OutputStream outputStream = blob.getOutputStream()) {
+      outputStream.write(CONTENT.getBytes(StandardCharsets.UTF_8));
+    }
+    blob.commit();
+    return store;
+  }
+
+  private BlobStore createFileStore() throws IOException {
+    File file = temporaryFolder.newFile(OID);
+    Files.write(file.toPath(), CONTENT.getBytes(StandardCharsets.UTF_8));
+
+    Blob blob = mock(Blob.class);
+    when(blob.getId()).thenReturn(OID);
+    when(blob.getSize()).thenReturn((long) CONTENT.length());
+    when(blob.getPath()).thenReturn(Optional.of(file.toPath()));
+    when(blob.getInputStream()).thenThrow(new IOException("content should be read from path"));
+
+    BlobStore store = mock(BlobStore.class);
+    when(store.get(OID)).thenReturn(blob);
+    return store;
+  }
 }
@@ -20,6 +20,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.inject.Inject;
 import jakarta.inject.Provider;
+import jakarta.ws.rs.core.MediaType;
 import sonia.scm.config.ConfigurationPermissions;
 import sonia.scm.plugin.Extension;
 import sonia.scm.repository.HgGlobalConfig;
@@ -40,6 +41,11 @@ public class HgGlobalConfigInIndexResource extends JsonEnricherBase {
     this.scmPathInfoStore = scmPathInfoStore;
   }
 
+  @Override
+  public boolean isResponsibleFor(MediaType responseMediaType) {
+    return isOneOf(responseMediaType, INDEX);
+  }
+
   @Override
   public void enrich(JsonEnricherContext context) {
     if (resultHasMediaType(INDEX, context) && ConfigurationPermissions.read(HgGlobalConfig.PERMISSION).isPermitted()) {
@@ -43,11 +43,13 @@ import sonia.scm.util.IOUtil;
 import java.io.IOException;
 import java.lang.annotation.Retention;
 import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -93,7 +95,7 @@ public class QueryableStoreExtension implements ParameterResolver, BeforeEachCal
   @Override
   public void beforeEach(ExtensionContext context) throws IOException {
     tempDirectory = Files.createTempDirectory("test");
-    String connectionString = "jdbc:sqlite:" + tempDirectory.toString() + "/test.db";
+    String connectionString = "jdbc:sqlite:" + tempDirectory.toString() + "/test.db?journal_mode=WAL";
     queryableTypeDescriptors = new ArrayList<>();
     addDescriptors(context);
     createdStores = new ArrayList<>();
@@ -138,7 +140,8 @@ public class QueryableStoreExtension implements ParameterResolver, BeforeEachCal
       queryableAnnotation.name(),
       clazz.getName(),
       stream(queryableAnnotation.value()).map(Class::getName).toArray(String[]::new),
-      queryableAnnotation.idGenerator()
+      queryableAnnotation.idGenerator(),
+      findIndexedFields(clazz)
     );
     try {
       Class<?> storeFactoryClass = Class.forName(clazz.getName() + "StoreFactory");
@@ -149,6 +152,18 @@ public class QueryableStoreExtension implements ParameterResolver, BeforeEachCal
     return descriptor;
   }
 
+  private String[] findIndexedFields(Class<?> clazz) {
+    List<String> indexes = new ArrayList<>();
+    for (Class<?> current = clazz; current != null && current != Object.class; current = current.getSuperclass()) {
+      for (Field field : current.getDeclaredFields()) {
+        if (field.isAnnotationPresent(QueryIndex.class)) {
+          indexes.add(field.getName());
+        }
+      }
+    }
+    return indexes.stream().sorted().toArray(String[]::new);
+  }
+
   @Override
   public boolean supportsParameter(ParameterContext parameterContext, ExtensionContext extensionContext) throws ParameterResolutionException {
     Class<?> requestedParameterType = parameterContext.getParameter().getType();
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package sonia.scm.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(QueryableStoreExtension.class)
+@QueryableStoreExtension.QueryableTypes({Spaceship.class, Astronaut.class})
+class QueryableStoreConcurrencyTest {
+
+  private static final Duration READ_TIMEOUT = Duration.ofSeconds(5);
+
+  @Test
+  void shouldNotBlockReadersDuringLongWrite(QueryableStoreFactory storeFactory) throws Exception {
+    try (QueryableMutableStore<Spaceship> spaceships = storeFactory.getMutable(Spaceship.class);
+         QueryableMutableStore<Astronaut> astronauts = storeFactory.getMutable(Astronaut.class)) {
+      spaceships.put("hog", new Spaceship("Heart Of Gold"));
+      astronauts.put("arthur", new Astronaut("Arthur Dent"));
+    }
+
+    CountDownLatch writeStarted = new CountDownLatch(1);
+    CountDownLatch readsFinished = new CountDownLatch(1);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try (QueryableMutableStore<Spaceship> writer = storeFactory.getMutable(Spaceship.class);
+         QueryableStore<Spaceship> spaceshipReader = storeFactory.getReadOnly(Spaceship.class);
+         QueryableStore<Astronaut> astronautReader = storeFactory.getReadOnly(Astronaut.class)) {
+      Future<?> longWrite = executor.submit(() -> writer.transactional(() -> {
+        writer.put("razor", new Spaceship("Razor Crest"));
+        writeStarted.countDown();
+        try {
+          return readsFinished.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return false;
+        }
+      }));
+
+      assertTrue(writeStarted.await(10, TimeUnit.SECONDS), "write should have been started");
+
+      assertTimeoutPreemptively(READ_TIMEOUT, () -> {
+        assertEquals(1, astronautReader.getAll().size(), "reader of other type should not be blocked");
+        assertEquals(1, spaceshipReader.getAll().size(), "reader of same type should see last committed state");
+      });
+
+      readsFinished.countDown();
+      longWrite.get(10, TimeUnit.SECONDS);
+
+      assertEquals(2, spaceshipReader.getAll().size());
+    } finally {
+      readsFinished.countDown();
+      executor.shutdownNow();
+    }
+  }
+}
+
+@QueryableType
+class Astronaut {
+  String name;
+
+  Astronaut() {
+  }
+
+  Astronaut(String name) {
+    this.name = name;
+  }
+}
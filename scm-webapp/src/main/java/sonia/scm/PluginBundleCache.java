@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+
+package sonia.scm;
+
+import com.google.common.base.Splitter;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Resources;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sonia.scm.plugin.UberWebResourceLoader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps compressed variants of the plugin bundles off heap. Plugin bundles can only change with a restart, so they are
+ * compressed once when the cache is created instead of on every request. A brotli variant is only available, if the
+ * plugin ships a precompressed <code>.br</code> file next to its bundle. Each variant gets a strong entity tag, which
+ * is derived from the content hash of the bundle.
+ */
+class PluginBundleCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PluginBundleCache.class);
+
+  static final String ENCODING_BROTLI = "br";
+  static final String ENCODING_GZIP = "gzip";
+
+  private static final String CONTENT_TYPE = "application/javascript";
+
+  private final Map<String, Bundle> bundles = new HashMap<>();
+
+  PluginBundleCache(UberWebResourceLoader webResourceLoader, Iterable<String> paths) {
+    for (String path : paths) {
+      try {
+        load(webResourceLoader, path);
+      } catch (IOException ex) {
+        LOG.warn("failed to precompress plugin bundle {}, bundle will be served uncompressed", path, ex);
+      }
+    }
+  }
+
+  private void load(UberWebResourceLoader webResourceLoader, String path) throws IOException {
+    URL url = webResourceLoader.getResource(path);
+    if (url == null) {
+      LOG.debug("could not find plugin bundle {}", path);
+      return;
+    }
+
+    byte[] content = Resources.toByteArray(url);
+    String hash = Hashing.sha256().hashBytes(content).toString();
+
+    ByteBuffer gzip = precompressed(webResourceLoader, path + ".gz");
+    if (gzip == null) {
+      gzip = offHeap(gzip(content));
+    }
+    ByteBuffer brotli = precompressed(webResourceLoader, path + ".br");
+
+    LOG.debug("cached plugin bundle {} with {} bytes, gzip {} bytes", path, content.length, gzip.capacity());
+    bundles.put(path, new Bundle(hash, gzip, brotli));
+  }
+
+  private ByteBuffer precompressed(UberWebResourceLoader webResourceLoader, String path) throws IOException {
+    URL url = webResourceLoader.getResource(path);
+    if (url != null) {
+      return offHeap(Resources.toByteArray(url));
+    }
+    return null;
+  }
+
+  private static byte[] gzip(byte[] content) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream(content.length / 3);
+    try (GZIPOutputStream gzip = new BestCompressionGZIPOutputStream(output)) {
+      gzip.write(content);
+    }
+    return output.toByteArray();
+  }
+
+  private static ByteBuffer offHeap(byte[] content) {
+    ByteBuffer buffer = ByteBuffer.allocateDirect(content.length);
+    buffer.put(content);
+    buffer.flip();
+    return buffer.asReadOnlyBuffer();
+  }
+
+  /**
+   * Sends the best compressed variant of the bundle for the given path, which is accepted by the client.
+   *
+   * @param path     path of the requested resource
+   * @param request  current request
+   * @param response current response
+   * @return {@code true} if the response was sent from the cache, {@code false} if the resource has to be served
+   * in another way, because it is not cached or the client does not accept a compressed variant
+   */
+  boolean send(String path, HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Bundle bundle = bundles.get(path);
+    if (bundle == null) {
+      return false;
+    }
+    String acceptEncoding = request.getHeader("Accept-Encoding");
+    Optional<Variant> variant = bundle.negotiate(acceptEncoding);
+    if (variant.isEmpty()) {
+      return false;
+    }
+    send(request, response, variant.get());
+    return true;
+  }
+
+  private void send(HttpServletRequest request, HttpServletResponse response, Variant variant) throws IOException {
+    response.setHeader("Vary", "Accept-Encoding");
+    response.setHeader("ETag", variant.etag);
+    response.setHeader("Cache-Control", "no-cache");
+
+    if (matches(request.getHeader("If-None-Match"), variant.etag)) {
+      LOG.trace("bundle {} is not modified", request.getRequestURI());
+      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return;
+    }
+
+    ByteBuffer content = variant.content.duplicate();
+    response.setContentType(CONTENT_TYPE);
+    response.setHeader("Content-Encoding", variant.encoding);
+    response.setContentLength(content.remaining());
+    if (!"HEAD".equals(request.getMethod())) {
+      OutputStream output = response.getOutputStream();
+      WritableByteChannel channel = Channels.newChannel(output);
+      while (content.hasRemaining()) {
+        channel.write(content);
+      }
+      output.flush();
+    }
+  }
+
+  private static boolean matches(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String candidate : Splitter.on(',').trimResults().omitEmptyStrings().split(ifNoneMatch)) {
+      if ("*".equals(candidate) || etag.equals(candidate) || ("W/" + etag).equals(candidate)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  static boolean accepts(String acceptEncoding, String encoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    boolean wildcard = false;
+    for (String value : Splitter.on(',').trimResults().omitEmptyStrings().split(acceptEncoding)) {
+      int separator = value.indexOf(';');
+      String name = (separator >= 0 ? value.substring(0, separator) : value).trim().toLowerCase(Locale.ENGLISH);
+      boolean acceptable = separator < 0 || !isZeroQuality(value.substring(separator + 1));
+      if (name.equals(encoding)) {
+        return acceptable;
+      } else if (name.equals("*")) {
+        wildcard = acceptable;
+      }
+    }
+    return wildcard;
+  }
+
+  private static boolean isZeroQuality(String parameters) {
+    for (String parameter : Splitter.on(';').trimResults().split(parameters)) {
+      if (parameter.startsWith("q=")) {
+        try {
+          return Double.parseDouble(parameter.substring(2)) <= 0;
+        } catch (NumberFormatException ex) {
+          return false;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static final class Bundle {
+
+    private final Variant gzip;
+    private final Variant brotli;
+
+    private Bundle(String hash, ByteBuffer gzip, ByteBuffer brotli) {
+      this.gzip = new Variant(hash, ENCODING_GZIP, gzip);
+      this.brotli = brotli != null ? new Variant(hash, ENCODING_BROTLI, brotli) : null;
+    }
+
+    Optional<Variant> negotiate(String acceptEncoding) {
+      if (brotli != null && accepts(acceptEncoding, ENCODING_BROTLI)) {
+        return Optional.of(brotli);
+      }
+      if (accepts(acceptEncoding, ENCODING_GZIP)) {
+        return Optional.of(gzip);
+      }
+      return Optional.empty();
+    }
+  }
+
+  private static final class Variant {
+
+    private final String etag;
+    private final String encoding;
+    private final ByteBuffer content;
+
+    private Variant(String hash, String encoding, ByteBuffer content) {
+      this.etag = "\"" + hash + "-" + encoding + "\"";
+      this.encoding = encoding;
+      this.content = content;
+    }
+  }
+
+  private static final class BestCompressionGZIPOutputStream extends GZIPOutputStream {
+
+    private BestCompressionGZIPOutputStream(OutputStream out) throws IOException {
+      super(out);
+      def.setLevel(Deflater.BEST_COMPRESSION);
+    }
+  }
+}
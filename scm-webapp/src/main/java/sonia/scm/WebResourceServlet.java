@@ -27,12 +27,17 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import sonia.scm.filter.WebElement;
+import sonia.scm.plugin.InstalledPlugin;
 import sonia.scm.plugin.PluginLoader;
+import sonia.scm.plugin.PluginResources;
 import sonia.scm.plugin.UberWebResourceLoader;
 import sonia.scm.util.HttpUtil;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * WebResourceServlet serves resources from the {@link UberWebResourceLoader}.
@@ -66,11 +71,38 @@ public class WebResourceServlet extends HttpServlet {
 
   private final UberWebResourceLoader webResourceLoader;
   private final PushStateDispatcher pushStateDispatcher;
+  private final PluginBundleCache bundleCache;
 
   @Inject
   public WebResourceServlet(PluginLoader pluginLoader, PushStateDispatcher dispatcher) {
+    this(pluginLoader, dispatcher, SCMContext.getContext().getStage());
+  }
+
+  WebResourceServlet(PluginLoader pluginLoader, PushStateDispatcher dispatcher, Stage stage) {
     this.webResourceLoader = pluginLoader.getUberWebResourceLoader();
     this.pushStateDispatcher = dispatcher;
+    this.bundleCache = createBundleCache(pluginLoader, stage);
+  }
+
+  private PluginBundleCache createBundleCache(PluginLoader pluginLoader, Stage stage) {
+    if (stage == Stage.DEVELOPMENT) {
+      // bundles are rebuilt during development
+      return new PluginBundleCache(webResourceLoader, Collections.emptyList());
+    }
+    return new PluginBundleCache(webResourceLoader, collectBundles(pluginLoader));
+  }
+
+  private List<String> collectBundles(PluginLoader pluginLoader) {
+    List<String> bundles = new ArrayList<>();
+    for (InstalledPlugin plugin : pluginLoader.getInstalledPlugins()) {
+      PluginResources resources = plugin.getDescriptor().getResources();
+      if (resources != null && resources.getScriptResources() != null) {
+        for (String script : resources.getScriptResources()) {
+          bundles.add(HttpUtil.append("/", script));
+        }
+      }
+    }
+    return bundles;
   }
 
   @Override
@@ -78,6 +110,9 @@ public class WebResourceServlet extends HttpServlet {
     String uri = normalizeUri(request);
 
     LOG.trace("try to load {}", uri);
+    if (serveBundle(request, response, uri)) {
+      return;
+    }
     URL url = webResourceLoader.getResource(uri);
     if (url != null) {
       LOG.trace("found {} -- serve as resource {}", uri, url);
@@ -101,6 +136,18 @@ public class WebResourceServlet extends HttpServlet {
     return HttpUtil.getStrippedURI(request);
   }
 
+  private boolean serveBundle(HttpServletRequest request, HttpServletResponse response, String uri) {
+    try {
+      return bundleCache.send(uri, request, response);
+    } catch (IOException ex) {
+      LOG.warn("failed to serve plugin bundle: {}", uri, ex);
+      if (!response.isCommitted()) {
+        response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+      }
+      return true;
+    }
+  }
+
   private void serveResource(HttpServletRequest request, HttpServletResponse response, URL url) {
     try {
       LOG.debug("using sender to serve {}", request.getRequestURI());
@@ -17,12 +17,16 @@
 package sonia.scm.api.v2;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.annotation.Priority;
+import jakarta.inject.Inject;
 import jakarta.ws.rs.container.ContainerRequestContext;
 import jakarta.ws.rs.container.ContainerResponseContext;
 import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.MultivaluedMap;
 import jakarta.ws.rs.ext.Provider;
+import sonia.scm.web.VndMediaType;
 
 import java.util.Collection;
 import java.util.Optional;
@@ -36,8 +40,8 @@ import static java.util.Optional.ofNullable;
  * <p>Post processor for REST requests filtering JSON responses when a {@value PARAMETER_FIELDS} query
  * parameter is provided. In this case, only the given fields will returned. It is possible to specify
  * paths for nested fields. Multiple fields have to be separated using {@value FIELD_SEPARATOR}.</p>
- * <p>This requires the {@link JsonMarshallingResponseFilter} to be processed first to create
- * the {@link JsonNode} tree.</p>
+ * <p>If the {@link JsonMarshallingResponseFilter} has created a {@link JsonNode} tree, the tree is filtered.
+ * Otherwise the fields are dropped while the entity is serialized.</p>
  */
 @Provider
 @Priority(ResponseFilterPriorities.FIELD_FILTER)
@@ -45,6 +49,14 @@ public class FieldContainerResponseFilter implements ContainerResponseFilter {
 
   private static final String PARAMETER_FIELDS = "fields";
   private static final String FIELD_SEPARATOR = ",";
+  private static final MediaType ERROR_MEDIA_TYPE = MediaType.valueOf(VndMediaType.ERROR_TYPE);
+
+  private final ObjectMapper objectMapper;
+
+  @Inject
+  public FieldContainerResponseFilter(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+  }
 
   @Override
   public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
@@ -54,9 +66,22 @@ public class FieldContainerResponseFilter implements ContainerResponseFilter {
       if (!fields.isEmpty()) {
         JsonFilters.filterByFields(entity.get(), fields);
       }
+    } else if (isVndEntity(responseContext)) {
+      Collection<String> fields = extractFieldsFrom(requestContext);
+      if (!fields.isEmpty()) {
+        responseContext.setEntity(JsonFilters.streamFilteredByFields(objectMapper, responseContext.getEntity(), fields));
+      }
     }
   }
 
+  private boolean isVndEntity(ContainerResponseContext responseContext) {
+    MediaType mediaType = responseContext.getMediaType();
+    return responseContext.hasEntity()
+      && mediaType != null
+      && VndMediaType.isVndType(mediaType)
+      && !ERROR_MEDIA_TYPE.equals(mediaType);
+  }
+
   private Optional<JsonNode> getJsonEntity(ContainerResponseContext responseContext) {
     Object entity = responseContext.getEntity();
     if (isJsonEntity(entity)) {
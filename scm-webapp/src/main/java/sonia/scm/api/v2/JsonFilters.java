@@ -16,10 +16,15 @@
 
 package sonia.scm.api.v2;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.filter.FilteringGeneratorDelegate;
+import com.fasterxml.jackson.core.filter.TokenFilter;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.common.collect.Maps;
+import jakarta.ws.rs.core.StreamingOutput;
 
 import java.util.Collection;
 import java.util.Iterator;
@@ -36,6 +41,25 @@ final class JsonFilters {
     createJsonFilterNode(filterExpressions).filterNode(root);
   }
 
+  /**
+   * Returns an output, which serializes the entity directly and drops all fields which are not selected by the filter
+   * expressions while they are written. The result is the same as {@link #filterByFields(JsonNode, Collection)}
+   * applied to the tree of the entity, but the tree is never built.
+   */
+  static StreamingOutput streamFilteredByFields(ObjectMapper objectMapper, Object entity, Collection<String> filterExpressions) {
+    JsonFilterNode filter = createJsonFilterNode(filterExpressions);
+    return output -> {
+      JsonGenerator generator = new FilteringGeneratorDelegate(
+        objectMapper.getFactory().createGenerator(output),
+        filter,
+        TokenFilter.Inclusion.INCLUDE_ALL_AND_PATH,
+        true
+      );
+      objectMapper.writeValue(generator, entity);
+      generator.flush();
+    };
+  }
+
   private static JsonFilterNode createJsonFilterNode(Collection<String> filterExpressions) {
     JsonFilterNode rootFilterNode = new JsonFilterNode();
     filterExpressions.stream()
@@ -44,7 +68,7 @@ final class JsonFilters {
     return rootFilterNode;
   }
 
-  private static class JsonFilterNode {
+  private static class JsonFilterNode extends TokenFilter {
 
     private final Map<String,JsonFilterNode> children = Maps.newHashMap();
 
@@ -99,6 +123,25 @@ final class JsonFilters {
       return children.get(name);
     }
 
+    @Override
+    public TokenFilter includeProperty(String name) {
+      JsonFilterNode child = get(name);
+      if (child == null) {
+        return null;
+      }
+      return child.isLeaf() ? TokenFilter.INCLUDE_ALL : child;
+    }
+
+    @Override
+    public boolean includeEmptyObject(boolean contentsFiltered) {
+      return true;
+    }
+
+    @Override
+    public boolean includeEmptyArray(boolean contentsFiltered) {
+      return true;
+    }
+
     boolean isLeaf() {
       return children.isEmpty();
     }
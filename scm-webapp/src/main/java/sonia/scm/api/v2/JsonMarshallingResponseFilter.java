@@ -29,11 +29,15 @@ import sonia.scm.web.JsonEnricher;
 import sonia.scm.web.JsonEnricherContext;
 import sonia.scm.web.VndMediaType;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 /**
  * Transforms JSON REST responses to {@link JsonNode} trees to support further post processing
- * and processes all registered plugins for the {@link JsonEnricher} extension point.
+ * and processes all registered plugins for the {@link JsonEnricher} extension point. Responses
+ * for which no enricher is responsible (see {@link JsonEnricher#isResponsibleFor(MediaType)})
+ * are not transformed and serialized directly.
  */
 @Provider
 @Priority(ResponseFilterPriorities.JSON_MARSHALLING)
@@ -56,24 +60,37 @@ public class JsonMarshallingResponseFilter implements ContainerResponseFilter {
       return;
     }
     if (hasVndEntity(responseContext)) {
-      JsonNode node = getJsonEntity(responseContext);
-      callEnrichers(requestContext, responseContext, node);
-      responseContext.setEntity(node);
+      List<JsonEnricher> responsibleEnrichers = getResponsibleEnrichers(responseContext.getMediaType());
+      if (!responsibleEnrichers.isEmpty()) {
+        JsonNode node = getJsonEntity(responseContext);
+        callEnrichers(requestContext, responseContext, node, responsibleEnrichers);
+        responseContext.setEntity(node);
+      }
     }
   }
 
+  private List<JsonEnricher> getResponsibleEnrichers(MediaType mediaType) {
+    List<JsonEnricher> responsibleEnrichers = new ArrayList<>();
+    for (JsonEnricher enricher : enrichers) {
+      if (enricher.isResponsibleFor(mediaType)) {
+        responsibleEnrichers.add(enricher);
+      }
+    }
+    return responsibleEnrichers;
+  }
+
   private boolean isError(ContainerResponseContext responseContext) {
     return ERROR_MEDIA_TYPE.equals(responseContext.getMediaType());
   }
 
-  private void callEnrichers(ContainerRequestContext requestContext, ContainerResponseContext responseContext, JsonNode node) {
+  private void callEnrichers(ContainerRequestContext requestContext, ContainerResponseContext responseContext, JsonNode node, List<JsonEnricher> responsibleEnrichers) {
     JsonEnricherContext context = new JsonEnricherContext(
       requestContext.getUriInfo().getRequestUri(),
       responseContext.getMediaType(),
       node
     );
 
-    enrichers.forEach(enricher -> enricher.enrich(context));
+    responsibleEnrichers.forEach(enricher -> enricher.enrich(context));
   }
 
   private JsonNode getJsonEntity(ContainerResponseContext responseContext) {
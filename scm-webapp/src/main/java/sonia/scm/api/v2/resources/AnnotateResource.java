@@ -25,22 +25,28 @@ import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
 import sonia.scm.repository.NamespaceAndName;
 import sonia.scm.repository.api.RepositoryService;
 import sonia.scm.repository.api.RepositoryServiceFactory;
 import sonia.scm.web.VndMediaType;
 
 import java.io.IOException;
+import java.util.Optional;
 
 public class AnnotateResource {
 
   private final RepositoryServiceFactory serviceFactory;
   private final BlameResultToBlameDtoMapper mapper;
+  private final RevisionPreconditions preconditions;
 
   @Inject
-  public AnnotateResource(RepositoryServiceFactory serviceFactory, BlameResultToBlameDtoMapper mapper) {
+  public AnnotateResource(RepositoryServiceFactory serviceFactory, BlameResultToBlameDtoMapper mapper, RevisionPreconditions preconditions) {
     this.serviceFactory = serviceFactory;
     this.mapper = mapper;
+    this.preconditions = preconditions;
   }
 
   /**
@@ -73,7 +79,8 @@ public class AnnotateResource {
       mediaType = VndMediaType.ERROR_TYPE,
       schema = @Schema(implementation = ErrorDto.class)
     ))
-  public BlameDto annotate(
+  public Response annotate(
+    @Context Request request,
     @PathParam("namespace") String namespace,
     @PathParam("name") String name,
     @PathParam("revision") String revision,
@@ -81,7 +88,13 @@ public class AnnotateResource {
   ) throws IOException {
     NamespaceAndName namespaceAndName = new NamespaceAndName(namespace, name);
     try (RepositoryService repositoryService = serviceFactory.create(namespaceAndName)) {
-      return mapper.map(repositoryService.getBlameCommand().setRevision(revision).getBlameResult(path), namespaceAndName, revision, path);
+      RevisionPreconditions.Evaluation evaluation = preconditions.evaluate(request, repositoryService.getRepository(), revision, "annotate", path);
+      Optional<Response> preconditionResponse = evaluation.getPreconditionResponse();
+      if (preconditionResponse.isPresent()) {
+        return preconditionResponse.get();
+      }
+      BlameDto blame = mapper.map(repositoryService.getBlameCommand().setRevision(revision).getBlameResult(path), namespaceAndName, revision, path);
+      return evaluation.cacheable(Response.ok(blame)).build();
     }
   }
 }
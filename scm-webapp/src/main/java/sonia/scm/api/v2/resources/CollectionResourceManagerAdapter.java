@@ -26,7 +26,9 @@ import sonia.scm.util.Comparables;
 import sonia.scm.util.Util;
 
 import java.net.URI;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
@@ -64,8 +66,30 @@ class CollectionResourceManagerAdapter<MODEL_OBJECT extends ModelObject,
     return Response.ok(mapToDto.apply(pageResult)).build();
   }
 
+  /**
+   * Reads the model objects from the given source in a paged way, maps them using the given function and returns a
+   * corresponding http response. The source is called with the filter and the comparator for the requested sorting.
+   */
+  public Response getAll(int page, int pageSize, Predicate<MODEL_OBJECT> filter, String sortBy, boolean desc,
+                         BiFunction<Predicate<MODEL_OBJECT>, Comparator<MODEL_OBJECT>, Collection<MODEL_OBJECT>> source,
+                         Function<PageResult<MODEL_OBJECT>, CollectionDto> mapToDto) {
+    PageResult<MODEL_OBJECT> pageResult = fetchPage(
+      filter, sortBy, desc, page, pageSize,
+      (f, comparator) -> PageResult.createPage(source.apply(f, comparator), page, pageSize)
+    );
+    return Response.ok(mapToDto.apply(pageResult)).build();
+  }
+
   private PageResult<MODEL_OBJECT> fetchPage(Predicate<MODEL_OBJECT> filter, String sortBy, boolean desc, int pageNumber,
                                     int pageSize) {
+    return fetchPage(
+      filter, sortBy, desc, pageNumber, pageSize,
+      (f, comparator) -> manager.getPage(f, comparator, pageNumber, pageSize)
+    );
+  }
+
+  private PageResult<MODEL_OBJECT> fetchPage(Predicate<MODEL_OBJECT> filter, String sortBy, boolean desc, int pageNumber,
+                                    int pageSize, BiFunction<Predicate<MODEL_OBJECT>, Comparator<MODEL_OBJECT>, PageResult<MODEL_OBJECT>> pageSource) {
     AssertUtil.assertPositive(pageNumber);
     AssertUtil.assertPositive(pageSize);
 
@@ -74,7 +98,7 @@ class CollectionResourceManagerAdapter<MODEL_OBJECT extends ModelObject,
       comparator = createComparator(sortBy, desc);
     }
 
-    return manager.getPage(filter, comparator, pageNumber, pageSize);
+    return pageSource.apply(filter, comparator);
   }
 
   private Comparator<MODEL_OBJECT> createComparator(String sortBy, boolean desc) {
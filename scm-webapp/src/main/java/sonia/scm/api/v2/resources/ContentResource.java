@@ -28,6 +28,8 @@ import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.Response.Status;
 import jakarta.ws.rs.core.StreamingOutput;
@@ -47,6 +49,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Arrays;
 import java.util.Locale;
+import java.util.Optional;
 
 public class ContentResource {
 
@@ -55,18 +58,23 @@ public class ContentResource {
 
   private final RepositoryServiceFactory serviceFactory;
   private final ContentTypeResolver contentTypeResolver;
+  private final RevisionPreconditions preconditions;
 
   @Inject
-  public ContentResource(RepositoryServiceFactory serviceFactory, ContentTypeResolver contentTypeResolver) {
+  public ContentResource(RepositoryServiceFactory serviceFactory, ContentTypeResolver contentTypeResolver, RevisionPreconditions preconditions) {
     this.serviceFactory = serviceFactory;
     this.contentTypeResolver = contentTypeResolver;
+    this.preconditions = preconditions;
   }
 
   /**
    * Returns the content of a file for the given revision in the repository. The content type depends on the file
    * content and can be discovered calling <code>HEAD</code> on the same URL. If a programming languge could be
-   * recognized, this will be given in the header <code>Language</code>.
-   *  @param namespace the namespace of the repository
+   * recognized, this will be given in the header <code>Language</code>. If the revision is a full commit id, the
+   * response is cacheable and a matching <code>If-None-Match</code> header results in <code>304 Not Modified</code>.
+   *
+   * @param request   the current request
+   * @param namespace the namespace of the repository
    * @param name      the name of the repository
    * @param revision  the revision
    * @param path      The path of the file
@@ -105,6 +113,7 @@ public class ContentResource {
       "If set to -1, no lines will be excluded (this equivalent to omitting this parameter"
   )
   public Response get(
+    @Context Request request,
     @PathParam("namespace") String namespace,
     @PathParam("name") String name,
     @PathParam("revision") String revision,
@@ -113,7 +122,12 @@ public class ContentResource {
     @QueryParam("end") Integer end) {
     StreamingOutput stream = createStreamingOutput(namespace, name, revision, path, start, end);
     try (RepositoryService repositoryService = serviceFactory.create(new NamespaceAndName(namespace, name))) {
-      Response.ResponseBuilder responseBuilder = Response.ok(stream);
+      RevisionPreconditions.Evaluation evaluation = preconditions.evaluate(request, repositoryService.getRepository(), revision, "content", path, start, end);
+      Optional<Response> preconditionResponse = evaluation.getPreconditionResponse();
+      if (preconditionResponse.isPresent()) {
+        return preconditionResponse.get();
+      }
+      Response.ResponseBuilder responseBuilder = evaluation.cacheable(Response.ok(stream));
       return createContentHeader(namespace, name, revision, path, repositoryService, responseBuilder);
     } catch (NotFoundException e) {
       LOG.debug(e.getMessage());
@@ -149,6 +163,7 @@ public class ContentResource {
    * Returns the content type and the programming language (if it can be detected) of a file for the given revision in
    * the repository. The programming language will be given in the header <code>Language</code>.
    *
+   * @param request   the current request
    * @param namespace the namespace of the repository
    * @param name      the name of the repository
    * @param revision  the revision
@@ -178,9 +193,14 @@ public class ContentResource {
       mediaType = VndMediaType.ERROR_TYPE,
       schema = @Schema(implementation = ErrorDto.class)
     ))
-  public Response metadata(@PathParam("namespace") String namespace, @PathParam("name") String name, @PathParam("revision") String revision, @PathParam("path") String path) {
+  public Response metadata(@Context Request request, @PathParam("namespace") String namespace, @PathParam("name") String name, @PathParam("revision") String revision, @PathParam("path") String path) {
     try (RepositoryService repositoryService = serviceFactory.create(new NamespaceAndName(namespace, name))) {
-      Response.ResponseBuilder responseBuilder = Response.ok();
+      RevisionPreconditions.Evaluation evaluation = preconditions.evaluate(request, repositoryService.getRepository(), revision, "content", path, null, null);
+      Optional<Response> preconditionResponse = evaluation.getPreconditionResponse();
+      if (preconditionResponse.isPresent()) {
+        return preconditionResponse.get();
+      }
+      Response.ResponseBuilder responseBuilder = evaluation.cacheable(Response.ok());
       return createContentHeader(namespace, name, revision, path, repositoryService, responseBuilder);
     } catch (NotFoundException e) {
       LOG.debug(e.getMessage());
@@ -29,6 +29,8 @@ import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.StreamingOutput;
 import sonia.scm.NotFoundException;
@@ -43,6 +45,7 @@ import sonia.scm.util.HttpUtil;
 import sonia.scm.web.VndMediaType;
 
 import java.io.IOException;
+import java.util.Optional;
 
 public class DiffRootResource {
 
@@ -52,17 +55,20 @@ public class DiffRootResource {
 
   private final RepositoryServiceFactory serviceFactory;
   private final DiffResultToDiffResultDtoMapper parsedDiffMapper;
+  private final RevisionPreconditions preconditions;
 
   @Inject
-  public DiffRootResource(RepositoryServiceFactory serviceFactory, DiffResultToDiffResultDtoMapper parsedDiffMapper) {
+  public DiffRootResource(RepositoryServiceFactory serviceFactory, DiffResultToDiffResultDtoMapper parsedDiffMapper, RevisionPreconditions preconditions) {
     this.serviceFactory = serviceFactory;
     this.parsedDiffMapper = parsedDiffMapper;
+    this.preconditions = preconditions;
   }
 
 
   /**
    * Get the repository diff of a revision
    *
+   * @param request   the current request
    * @param namespace repository namespace
    * @param name      repository name
    * @param revision  the revision
@@ -92,7 +98,8 @@ public class DiffRootResource {
       schema = @Schema(implementation = ErrorDto.class)
     )
   )
-  public Response get(@PathParam("namespace") String namespace,
+  public Response get(@Context Request request,
+                      @PathParam("namespace") String namespace,
                       @PathParam("name") String name,
                       @PathParam("revision") String revision,
                       @QueryParam("format") @Pattern(regexp = DIFF_FORMAT_VALUES_REGEX) @DefaultValue("NATIVE") String format,
@@ -100,12 +107,17 @@ public class DiffRootResource {
     HttpUtil.checkForCRLFInjection(revision);
     DiffFormat diffFormat = DiffFormat.valueOf(format);
     try (RepositoryService repositoryService = serviceFactory.create(new NamespaceAndName(namespace, name))) {
+      RevisionPreconditions.Evaluation evaluation = preconditions.evaluate(request, repositoryService.getRepository(), revision, "diff", diffFormat, ignoreWhitespace);
+      Optional<Response> preconditionResponse = evaluation.getPreconditionResponse();
+      if (preconditionResponse.isPresent()) {
+        return preconditionResponse.get();
+      }
       DiffCommandBuilder.OutputStreamConsumer outputStreamConsumer = repositoryService.getDiffCommand()
         .setRevision(revision)
         .setFormat(diffFormat)
         .setIgnoreWhitespace(ignoreWhitespace)
         .retrieveContent();
-      return Response.ok((StreamingOutput) outputStreamConsumer::accept)
+      return evaluation.cacheable(Response.ok((StreamingOutput) outputStreamConsumer::accept))
         .header(HEADER_CONTENT_DISPOSITION, HttpUtil.createContentDispositionAttachmentHeader(String.format("%s-%s.diff", name, revision)))
         .build();
     }
@@ -141,21 +153,28 @@ public class DiffRootResource {
       schema = @Schema(implementation = ErrorDto.class)
     )
   )
-  public DiffResultDto getParsed(@PathParam("namespace") String namespace,
-                                 @PathParam("name") String name,
-                                 @PathParam("revision") String revision,
-                                 @QueryParam("limit") @Min(1) Integer limit,
-                                 @QueryParam("ignoreWhitespace") @DefaultValue("NONE") IgnoreWhitespaceLevel ignoreWhitespace,
-                                 @QueryParam("offset") @Min(0) Integer offset) throws IOException {
+  public Response getParsed(@Context Request request,
+                            @PathParam("namespace") String namespace,
+                            @PathParam("name") String name,
+                            @PathParam("revision") String revision,
+                            @QueryParam("limit") @Min(1) Integer limit,
+                            @QueryParam("ignoreWhitespace") @DefaultValue("NONE") IgnoreWhitespaceLevel ignoreWhitespace,
+                            @QueryParam("offset") @Min(0) Integer offset) throws IOException {
     HttpUtil.checkForCRLFInjection(revision);
     try (RepositoryService repositoryService = serviceFactory.create(new NamespaceAndName(namespace, name))) {
+      RevisionPreconditions.Evaluation evaluation = preconditions.evaluate(request, repositoryService.getRepository(), revision, "parsedDiff", limit, offset, ignoreWhitespace);
+      Optional<Response> preconditionResponse = evaluation.getPreconditionResponse();
+      if (preconditionResponse.isPresent()) {
+        return preconditionResponse.get();
+      }
       DiffResult diffResult = repositoryService.getDiffResultCommand()
         .setRevision(revision)
         .setLimit(limit)
         .setOffset(offset)
         .setIgnoreWhitespace(ignoreWhitespace)
         .getDiffResult();
-      return parsedDiffMapper.mapForRevision(repositoryService.getRepository(), diffResult, revision);
+      DiffResultDto dto = parsedDiffMapper.mapForRevision(repositoryService.getRepository(), diffResult, revision);
+      return evaluation.cacheable(Response.ok(dto)).build();
     }
   }
 }
@@ -54,6 +54,7 @@ public class RepositoryCollectionResource {
 
   private static final int DEFAULT_PAGE_SIZE = 10;
 
+  private final RepositoryManager manager;
   private final CollectionResourceManagerAdapter<Repository, RepositoryDto> adapter;
   private final RepositoryCollectionToDtoMapper repositoryCollectionToDtoMapper;
   private final RepositoryDtoToRepositoryMapper dtoToRepositoryMapper;
@@ -62,6 +63,7 @@ public class RepositoryCollectionResource {
 
   @Inject
   public RepositoryCollectionResource(RepositoryManager manager, RepositoryCollectionToDtoMapper repositoryCollectionToDtoMapper, RepositoryDtoToRepositoryMapper dtoToRepositoryMapper, ResourceLinks resourceLinks, RepositoryInitializer repositoryInitializer) {
+    this.manager = manager;
     this.adapter = new CollectionResourceManagerAdapter<>(manager, Repository.class);
     this.repositoryCollectionToDtoMapper = repositoryCollectionToDtoMapper;
     this.dtoToRepositoryMapper = dtoToRepositoryMapper;
@@ -141,6 +143,7 @@ public class RepositoryCollectionResource {
                                  @DefaultValue("") @QueryParam("q") String search
   ) {
     return adapter.getAll(page, pageSize, createSearchPredicate(namespace, search, showArchived), sortBy, desc,
+      (filter, comparator) -> manager.getAllInNamespace(namespace, filter, comparator),
       pageResult -> repositoryCollectionToDtoMapper.map(namespace, page, pageSize, pageResult));
   }
 
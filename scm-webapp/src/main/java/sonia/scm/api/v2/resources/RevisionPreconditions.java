@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+
+package sonia.scm.api.v2.resources;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import org.apache.shiro.SecurityUtils;
+import org.apache.shiro.subject.Subject;
+import sonia.scm.repository.PermissionProvider;
+import sonia.scm.repository.Repository;
+import sonia.scm.repository.RepositoryPermissions;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Evaluates conditional requests for repository resources, which are addressed by a full commit id. The content of
+ * such a resource can never change, so the entity tag is computed from the request alone and the precondition can be
+ * evaluated before any command is executed. Because links in the response depend on the permissions of the current
+ * user, the permissions are part of the entity tag, too.
+ */
+class RevisionPreconditions {
+
+  private static final Pattern FULL_COMMIT_ID = Pattern.compile("[0-9a-f]{40}|[0-9a-f]{64}");
+
+  static final int MAX_AGE = (int) TimeUnit.DAYS.toSeconds(365);
+
+  private final PermissionProvider permissionProvider;
+
+  @Inject
+  RevisionPreconditions(PermissionProvider permissionProvider) {
+    this.permissionProvider = permissionProvider;
+  }
+
+  /**
+   * Evaluates the preconditions of the request for a resource of the given repository and revision. The resource
+   * parts identify the resource within the revision, e.g. its kind, path and all parameters which change the
+   * representation.
+   *
+   * @param request    current request
+   * @param repository repository of the resource
+   * @param revision   requested revision
+   * @param resource   parts which identify the resource within the revision
+   * @return result of the evaluation
+   */
+  Evaluation evaluate(Request request, Repository repository, String revision, Object... resource) {
+    if (!isImmutable(revision)) {
+      return Evaluation.MUTABLE;
+    }
+    EntityTag tag = createEntityTag(repository, revision, resource);
+    Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+    return new Evaluation(tag, notModified);
+  }
+
+  static boolean isImmutable(String revision) {
+    return revision != null && FULL_COMMIT_ID.matcher(revision).matches();
+  }
+
+  private EntityTag createEntityTag(Repository repository, String revision, Object... resource) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    put(hasher, repository.getId());
+    put(hasher, revision);
+    for (Object part : resource) {
+      put(hasher, part);
+    }
+    appendPermissionFingerprint(hasher, repository);
+    return new EntityTag(hasher.hash().toString());
+  }
+
+  private void appendPermissionFingerprint(Hasher hasher, Repository repository) {
+    Subject subject = SecurityUtils.getSubject();
+    put(hasher, subject.getPrincipal());
+    for (String verb : permissionProvider.availableVerbs()) {
+      if (RepositoryPermissions.custom(verb, repository).isPermitted()) {
+        put(hasher, verb);
+      }
+    }
+  }
+
+  private static void put(Hasher hasher, Object value) {
+    if (value != null) {
+      hasher.putString(value.toString(), StandardCharsets.UTF_8);
+    }
+    hasher.putByte((byte) 0);
+  }
+
+  static final class Evaluation {
+
+    private static final Evaluation MUTABLE = new Evaluation(null, null);
+
+    private final EntityTag tag;
+    private final Response.ResponseBuilder notModified;
+
+    private Evaluation(EntityTag tag, Response.ResponseBuilder notModified) {
+      this.tag = tag;
+      this.notModified = notModified;
+    }
+
+    /**
+     * Returns the response for the client, if the preconditions of the request were not met. This is
+     * <code>304 Not Modified</code> for a matching <code>If-None-Match</code> header.
+     */
+    Optional<Response> getPreconditionResponse() {
+      if (notModified == null) {
+        return Optional.empty();
+      }
+      return Optional.of(cacheable(notModified).build());
+    }
+
+    /**
+     * Appends the entity tag and the cache headers to the response, if the resource is immutable.
+     */
+    Response.ResponseBuilder cacheable(Response.ResponseBuilder builder) {
+      if (tag != null) {
+        builder.tag(tag)
+          .cacheControl(createCacheControl())
+          .header(HttpHeaders.VARY, HttpHeaders.AUTHORIZATION + ", " + HttpHeaders.COOKIE);
+      }
+      return builder;
+    }
+
+    private static CacheControl createCacheControl() {
+      CacheControl cacheControl = new CacheControl();
+      cacheControl.setPrivate(true);
+      cacheControl.setNoTransform(false);
+      cacheControl.setMaxAge(MAX_AGE);
+      cacheControl.getCacheExtension().put("immutable", null);
+      return cacheControl;
+    }
+  }
+}
@@ -17,14 +17,23 @@
 package sonia.scm.cache;
 
 import com.google.common.base.Predicate;
+import com.google.common.cache.CacheLoader;
 import com.google.common.cache.CacheStats;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import sonia.scm.repository.RepositoryCacheKeyPredicate;
 
 import java.util.Collection;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 public class GuavaCache<K, V> implements Cache<K, V> {
 
@@ -33,16 +42,29 @@ public class GuavaCache<K, V> implements Cache<K, V> {
   private final com.google.common.cache.Cache<K, V> cache;
   private final CopyStrategy copyStrategy;
   private final String name;
+  private final RepositoryKeyIndex<K, V> repositoryKeyIndex;
+  private final Timer invalidationTimer;
 
   GuavaCache(com.google.common.cache.Cache<K, V> cache, CopyStrategy copyStrategy, String name) {
+    this(cache, copyStrategy, name, null, null);
+  }
+
+  GuavaCache(com.google.common.cache.Cache<K, V> cache, CopyStrategy copyStrategy, String name,
+             RepositoryKeyIndex<K, V> repositoryKeyIndex, Timer invalidationTimer) {
     this.cache = cache;
     this.name = name;
+    this.repositoryKeyIndex = repositoryKeyIndex;
+    this.invalidationTimer = invalidationTimer;
 
     if (copyStrategy != null) {
       this.copyStrategy = copyStrategy;
     } else {
       this.copyStrategy = CopyStrategy.NONE;
     }
+
+    if (repositoryKeyIndex != null) {
+      repositoryKeyIndex.bind(cache);
+    }
   }
 
   @Override
@@ -51,7 +73,9 @@ public class GuavaCache<K, V> implements Cache<K, V> {
       logger.debug("clear cache {}", name);
     }
 
+    long start = System.nanoTime();
     cache.invalidateAll();
+    recordInvalidation(start);
   }
 
   @Override
@@ -68,7 +92,11 @@ public class GuavaCache<K, V> implements Cache<K, V> {
   public V put(K key, V value) {
     V previous = cache.getIfPresent(key);
 
+    // index before storing, so that a concurrent removal of the repository cannot miss the new entry
+    index(key);
     cache.put(key, copyStrategy.copyOnWrite(value));
+    // index again, in case the concurrent removal has dropped the key between indexing and storing
+    index(key);
 
     return previous;
   }
@@ -85,6 +113,32 @@ public class GuavaCache<K, V> implements Cache<K, V> {
   @Override
   @SuppressWarnings("java:S4738") // we have to use guava predicate for compatibility
   public Iterable<V> removeAll(Predicate<K> filter) {
+    long start = System.nanoTime();
+    try {
+      if (repositoryKeyIndex != null && filter instanceof RepositoryCacheKeyPredicate<?> repositoryPredicate) {
+        return removeAllOfRepository(repositoryPredicate.getRepositoryId());
+      }
+      return removeAllMatching(filter);
+    } finally {
+      recordInvalidation(start);
+    }
+  }
+
+  private Iterable<V> removeAllOfRepository(String repositoryId) {
+    Set<V> removedValues = Sets.newHashSet();
+
+    for (K key : repositoryKeyIndex.remove(repositoryId)) {
+      V value = cache.asMap().remove(key);
+      if (value != null) {
+        removedValues.add(value);
+      }
+    }
+
+    logger.trace("removed {} entries of repository {} from cache {}", removedValues.size(), repositoryId, name);
+    return removedValues;
+  }
+
+  private Iterable<V> removeAllMatching(Predicate<K> filter) {
     Set<V> removedValues = Sets.newHashSet();
     Set<K> keysToRemove = Sets.newHashSet();
 
@@ -102,6 +156,18 @@ public class GuavaCache<K, V> implements Cache<K, V> {
     return removedValues;
   }
 
+  private void index(K key) {
+    if (repositoryKeyIndex != null) {
+      repositoryKeyIndex.add(key);
+    }
+  }
+
+  private void recordInvalidation(long start) {
+    if (invalidationTimer != null) {
+      invalidationTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
   @Override
   public int size() {
     return (int) cache.size();
@@ -123,9 +189,59 @@ public class GuavaCache<K, V> implements Cache<K, V> {
     return value;
   }
 
+  @Override
+  public V get(K key, Function<K, V> loader) {
+    V value;
+    AtomicBoolean loaded = new AtomicBoolean();
+    try {
+      value = cache.get(key, () -> {
+        V loadedValue = loader.apply(key);
+        loaded.set(loadedValue != null);
+        if (loadedValue == null) {
+          return null;
+        }
+        index(key);
+        return copyStrategy.copyOnWrite(loadedValue);
+      });
+    } catch (CacheLoader.InvalidCacheLoadException ex) {
+      // the loader has returned null, which is not stored in the cache
+      logger.trace("loader of cache {} returned null for key {}", name, key);
+      return null;
+    } catch (UncheckedExecutionException ex) {
+      if (ex.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw ex;
+    } catch (ExecutionException ex) {
+      throw new CacheException("failed to load value for cache " + name, ex.getCause());
+    }
+
+    if (loaded.get()) {
+      index(key);
+    }
+
+    return copyStrategy.copyOnRead(value);
+  }
+
+  @Override
+  public V computeIfPresent(K key, BiFunction<K, V, V> remappingFunction) {
+    V value = cache.asMap().computeIfPresent(key, (k, current) -> {
+      V newValue = remappingFunction.apply(k, copyStrategy.copyOnRead(current));
+      return newValue != null ? copyStrategy.copyOnWrite(newValue) : null;
+    });
+    return value != null ? copyStrategy.copyOnRead(value) : null;
+  }
+
   @Override
   public CacheStatistics getStatistics() {
     CacheStats cacheStats = cache.stats();
-    return new CacheStatistics(name, cacheStats.hitCount(), cacheStats.missCount());
+    return new CacheStatistics(
+      name,
+      cacheStats.hitCount(),
+      cacheStats.missCount(),
+      cacheStats.loadSuccessCount(),
+      cacheStats.loadExceptionCount(),
+      cacheStats.totalLoadTime()
+    );
   }
 }
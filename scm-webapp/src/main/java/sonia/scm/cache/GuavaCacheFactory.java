@@ -17,6 +17,7 @@
 package sonia.scm.cache;
 
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
 import jakarta.inject.Inject;
 
@@ -24,6 +25,8 @@ import java.util.Collections;
 
 public class GuavaCacheFactory {
 
+  static final String METRIC_INVALIDATION = "cache.invalidation.duration";
+
   private final MeterRegistry meterRegistry;
 
   @Inject
@@ -32,10 +35,24 @@ public class GuavaCacheFactory {
   }
 
   <K, V> GuavaCache<K, V> create(GuavaCacheConfiguration configuration, String name) {
-    com.google.common.cache.Cache<K, V> cache = GuavaCaches.create(configuration, name);
+    RepositoryKeyIndex<K, V> repositoryKeyIndex = createRepositoryKeyIndex(configuration);
+    com.google.common.cache.Cache<K, V> cache = GuavaCaches.create(configuration, name, repositoryKeyIndex);
 
     new GuavaCacheMetrics(cache, name, Collections.emptySet()).bindTo(meterRegistry);
 
-    return new GuavaCache<>(cache, configuration.getCopyStrategy(), name);
+    Timer invalidationTimer = Timer.builder(METRIC_INVALIDATION)
+      .description("Duration of removing entries from the cache")
+      .tags("cache", name)
+      .register(meterRegistry);
+
+    return new GuavaCache<>(cache, configuration.getCopyStrategy(), name, repositoryKeyIndex, invalidationTimer);
+  }
+
+  private <K, V> RepositoryKeyIndex<K, V> createRepositoryKeyIndex(GuavaCacheConfiguration configuration) {
+    // the index holds strong references to the keys, which would prevent the collection of weak keys
+    if (GuavaCaches.isEnabled(configuration.getWeakKeys()) || GuavaCaches.isEnabled(configuration.getWeakValues())) {
+      return null;
+    }
+    return new RepositoryKeyIndex<>();
   }
 }
@@ -17,6 +17,7 @@
 package sonia.scm.cache;
 
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -31,6 +32,11 @@ public final class GuavaCaches {
 
   public static <K, V> com.google.common.cache.Cache<K, V> create(
     GuavaCacheConfiguration configuration, String name) {
+    return create(configuration, name, null);
+  }
+
+  public static <K, V> com.google.common.cache.Cache<K, V> create(
+    GuavaCacheConfiguration configuration, String name, RemovalListener<K, V> removalListener) {
     CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder();
 
     // Collect guava cache statistics
@@ -82,10 +88,14 @@ public final class GuavaCaches {
       LOG.trace("create new cache {} from builder: {}", name, builder);
     }
 
+    if (removalListener != null) {
+      return builder.removalListener(removalListener).build();
+    }
+
     return builder.build();
   }
 
-  private static boolean isEnabled(Boolean v) {
+  static boolean isEnabled(Boolean v) {
     return (v != null) && v;
   }
 }
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+
+package sonia.scm.cache;
+
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import sonia.scm.repository.RepositoryCacheKey;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Secondary index of the cache keys by the id of their repository. The index
+ * is used to remove all entries of a repository without scanning the whole
+ * cache. Only keys implementing {@link RepositoryCacheKey} are indexed.
+ * <p>
+ * The index is kept consistent with evictions and expirations by listening to
+ * the removals of the underlying guava cache. Keys are added to the index before
+ * and again after they are stored in the cache and are only removed, if they are
+ * no longer stored in the cache. Therefore, the index may contain keys which are
+ * not (or not yet) cached, but never misses a key which is still cached.
+ */
+final class RepositoryKeyIndex<K, V> implements RemovalListener<K, V> {
+
+  private final Map<String, Set<K>> keysByRepository = new ConcurrentHashMap<>();
+
+  private com.google.common.cache.Cache<K, V> cache;
+
+  void bind(com.google.common.cache.Cache<K, V> cache) {
+    this.cache = cache;
+  }
+
+  void add(K key) {
+    if (key instanceof RepositoryCacheKey repositoryCacheKey) {
+      keysByRepository.compute(repositoryCacheKey.getRepositoryId(), (id, keys) -> {
+        Set<K> indexed = keys != null ? keys : new HashSet<>();
+        indexed.add(key);
+        return indexed;
+      });
+    }
+  }
+
+  /**
+   * Removes and returns all keys of the given repository from the index.
+   */
+  Set<K> remove(String repositoryId) {
+    Set<K> keys = keysByRepository.remove(repositoryId);
+    return keys != null ? keys : Collections.emptySet();
+  }
+
+  int size() {
+    return keysByRepository.values().stream().mapToInt(Set::size).sum();
+  }
+
+  @Override
+  public void onRemoval(RemovalNotification<K, V> notification) {
+    K key = notification.getKey();
+    if (notification.getCause() == RemovalCause.REPLACED || !(key instanceof RepositoryCacheKey repositoryCacheKey)) {
+      return;
+    }
+    keysByRepository.computeIfPresent(repositoryCacheKey.getRepositoryId(), (id, keys) -> {
+      if (cache == null || !cache.asMap().containsKey(key)) {
+        keys.remove(key);
+      }
+      return keys.isEmpty() ? null : keys;
+    });
+  }
+}
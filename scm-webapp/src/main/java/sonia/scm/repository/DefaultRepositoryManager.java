@@ -55,7 +55,6 @@ import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Collector;
-import java.util.stream.Stream;
 
 import static java.util.Collections.emptySet;
 import static sonia.scm.AlreadyExistsException.alreadyExists;
@@ -162,14 +161,14 @@ public class DefaultRepositoryManager extends AbstractRepositoryManager {
         if (initRepository) {
           try {
             getHandler(newRepository).create(newRepository);
-            invalidateRepositoryPermissions();
+            invalidateRepositoryPermissions(newRepository);
             afterCreation.accept(newRepository);
           } catch (Exception e) {
             delete(repository);
             throw e;
           }
         } else {
-          invalidateRepositoryPermissions();
+          invalidateRepositoryPermissions(newRepository);
           afterCreation.accept(newRepository);
         }
         fireEvent(HandlerEventType.CREATE, newRepository);
@@ -187,8 +186,8 @@ public class DefaultRepositoryManager extends AbstractRepositoryManager {
       .stream().anyMatch(t -> t.getName().equals(type));
   }
 
-  private void invalidateRepositoryPermissions() {
-    ScmEventBus.getInstance().post(AuthorizationChangedEvent.createForEveryUser());
+  private void invalidateRepositoryPermissions(Repository repository) {
+    ScmEventBus.getInstance().post(AuthorizationChangedEvent.createForRepository(repository.getId()));
   }
 
   @Override
@@ -355,9 +354,18 @@ public class DefaultRepositoryManager extends AbstractRepositoryManager {
 
   @Override
   public Collection<Repository> getAll(Predicate<Repository> filter, Comparator<Repository> comparator) {
+    return getAll(repositoryDAO.getAll(), filter, comparator);
+  }
+
+  @Override
+  public Collection<Repository> getAllInNamespace(String namespace, Predicate<Repository> filter, Comparator<Repository> comparator) {
+    return getAll(repositoryDAO.getAllInNamespace(namespace), filter, comparator);
+  }
+
+  private Collection<Repository> getAll(Collection<Repository> candidates, Predicate<Repository> filter, Comparator<Repository> comparator) {
     List<Repository> repositories = Lists.newArrayList();
 
-    for (Repository repository : repositoryDAO.getAll()) {
+    for (Repository repository : candidates) {
       if (handlerMap.containsKey(repository.getType())
         && filter.test(repository)
         && RepositoryPermissions.read().isPermitted(repository)) {
@@ -374,16 +382,6 @@ public class DefaultRepositoryManager extends AbstractRepositoryManager {
     return repositories;
   }
 
-  private Stream<Repository> streamAll(Predicate<Repository> filter) {
-    return repositoryDAO
-      .getAll()
-      .stream()
-      .filter(repository -> handlerMap.containsKey(repository.getType()))
-      .filter(filter)
-      .filter(repository -> RepositoryPermissions.read().isPermitted(repository))
-      .map(this::postProcess);
-  }
-
   @Override
   public Collection<Repository> getAll() {
     return getAll(repository -> true, null);
@@ -414,8 +412,16 @@ public class DefaultRepositoryManager extends AbstractRepositoryManager {
   @Override
   public Collection<String> getAllNamespaces() {
     Set<String> foundNamespaces = new HashSet<>();
-    streamAll(repository -> !foundNamespaces.contains(repository.getNamespace()))
-      .forEach(repository -> foundNamespaces.add(repository.getNamespace()));
+    for (String namespace : repositoryDAO.getNamespaces()) {
+      // a single readable repository is enough to make the namespace visible
+      boolean visible = repositoryDAO.getAllInNamespace(namespace)
+        .stream()
+        .anyMatch(repository -> handlerMap.containsKey(repository.getType())
+          && RepositoryPermissions.read().isPermitted(repository));
+      if (visible) {
+        foundNamespaces.add(namespace);
+      }
+    }
     return foundNamespaces;
   }
 
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package sonia.scm.search;
+
+import jakarta.inject.Inject;
+import sonia.scm.EagerSingleton;
+import sonia.scm.plugin.Extension;
+import sonia.scm.schedule.Scheduler;
+
+/**
+ * Commits the changes of all open search indices periodically, instead of committing after every index task.
+ * @since 3.12.0
+ */
+@Extension
+@EagerSingleton
+public class IndexCommitScheduler {
+
+  static final String COMMIT_EXPRESSION = "0/10 * * * * ?";
+
+  @Inject
+  @SuppressWarnings("java:S1118") // could not hide constructor
+  public IndexCommitScheduler(Scheduler scheduler, IndexManager indexManager) {
+    scheduler.schedule(COMMIT_EXPRESSION, indexManager::commitAll);
+  }
+}
@@ -28,10 +28,14 @@ import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.store.FSDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import sonia.scm.SCMContextProvider;
 import sonia.scm.plugin.PluginLoader;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -39,10 +43,16 @@ import java.nio.file.Paths;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Singleton
-public class IndexManager {
+public class IndexManager implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(IndexManager.class);
+
+  private final Map<Path, SharedIndex> sharedIndices = new ConcurrentHashMap<>();
 
   private final Path directory;
   private final AnalyzerFactory analyzerFactory;
@@ -73,6 +83,11 @@ public class IndexManager {
     return Collections.unmodifiableSet(indexXml.indices);
   }
 
+  /**
+   * Opens a new reader for the last commit of the given index. Searches should use the shared searchers from
+   * {@link #acquireSearcher(LuceneSearchableType, String)} instead, which do not have to open the index for every
+   * query and which see changes before they are committed.
+   */
   public IndexReader openForRead(LuceneSearchableType type, String indexName) throws IOException {
     Path path = resolveIndexDirectory(type, indexName);
     FSDirectory fsDirectory = FSDirectory.open(path);
@@ -82,22 +97,114 @@ public class IndexManager {
     return new NoOpIndexReader();
   }
 
+  /**
+   * Acquires a near-real-time searcher for the given index. The searcher sees all changes of the shared writer of the
+   * index up to the last refresh. The returned reference has to be closed after the search.
+   */
+  SearcherReference acquireSearcher(LuceneSearchableType type, String indexName) throws IOException {
+    IndexParams indexParams = new IndexParams(indexName, type);
+    Path path = resolveIndexDirectory(indexParams);
+    SharedIndex index = sharedIndices.get(path);
+    if (index == null || !index.isOpen()) {
+      try (FSDirectory fsDirectory = FSDirectory.open(path)) {
+        if (!DirectoryReader.indexExists(fsDirectory)) {
+          return SearcherReference.empty();
+        }
+      }
+      index = sharedIndex(indexParams);
+    }
+    return index.acquire();
+  }
+
+  /**
+   * Returns the shared writer for the given index. The writer is kept open and must not be closed by the caller.
+   * Changes are committed periodically by {@link #commitAll()} and on {@link #close()}.
+   */
   public IndexWriter openForWrite(IndexParams indexParams) {
+    return sharedIndex(indexParams).getWriter();
+  }
+
+  /**
+   * Marks the given index as changed and refreshes its searchers, so that the changes are visible to new searches.
+   */
+  void changed(IndexParams indexParams) {
+    SharedIndex index = sharedIndices.get(resolveIndexDirectory(indexParams));
+    if (index != null && index.isOpen()) {
+      try {
+        index.changed();
+      } catch (IOException ex) {
+        throw new SearchEngineException("failed to refresh index " + indexParams.getIndex(), ex);
+      }
+    }
+  }
+
+  /**
+   * Commits the pending changes of all open indices and refreshes their searchers.
+   */
+  public void commitAll() {
+    for (Map.Entry<Path, SharedIndex> entry : sharedIndices.entrySet()) {
+      SharedIndex index = entry.getValue();
+      if (!index.isOpen()) {
+        continue;
+      }
+      try {
+        if (index.commit()) {
+          LOG.debug("committed changes of index {}", entry.getKey());
+        }
+        index.refresh();
+      } catch (IOException | AlreadyClosedException ex) {
+        LOG.warn("failed to commit index {}", entry.getKey(), ex);
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    for (Path path : sharedIndices.keySet()) {
+      sharedIndices.computeIfPresent(path, (p, index) -> {
+        closeQuietly(p, index);
+        return null;
+      });
+    }
+  }
+
+  private SharedIndex sharedIndex(IndexParams indexParams) {
+    return sharedIndices.compute(resolveIndexDirectory(indexParams), (path, index) -> {
+      if (index != null && index.isOpen()) {
+        return index;
+      }
+      if (index != null) {
+        closeQuietly(path, index);
+      }
+      return createSharedIndex(indexParams, path);
+    });
+  }
+
+  private SharedIndex createSharedIndex(IndexParams indexParams, Path path) {
     IndexWriterConfig config = new IndexWriterConfig(analyzerFactory.create(indexParams.getSearchableType()));
     config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
 
-    Path path = resolveIndexDirectory(indexParams);
     if (!Files.exists(path)) {
       store(new LuceneIndexDetails(indexParams.getType(), indexParams.getIndex()));
     }
 
     try {
-      return new IndexWriter(FSDirectory.open(path), config);
+      LOG.debug("open shared writer for index {}", path);
+      return new SharedIndex(new IndexWriter(FSDirectory.open(path), config));
     } catch (IOException ex) {
       throw new SearchEngineException("failed to open index at " + path, ex);
     }
   }
 
+  private void closeQuietly(Path path, SharedIndex index) {
+    try {
+      LOG.debug("close shared writer for index {}", path);
+      index.close();
+    } catch (IOException | AlreadyClosedException ex) {
+      LOG.warn("failed to close index {}", path, ex);
+    }
+  }
+
   private Path resolveIndexDirectory(IndexParams indexParams) {
     return directory.resolve(indexParams.getSearchableType().getName()).resolve(indexParams.getIndex());
   }
@@ -21,10 +21,12 @@ import com.google.common.base.Strings;
 import jakarta.annotation.Nonnull;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.util.BytesRef;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,10 +48,10 @@ class LuceneIndex<T> implements Index<T>, AutoCloseable {
   private final LuceneSearchableType searchableType;
   private final SharableIndexWriter writer;
 
-  LuceneIndex(IndexParams params, Supplier<IndexWriter> writerFactory) {
+  LuceneIndex(IndexParams params, Supplier<IndexWriter> writerFactory, Runnable changeListener) {
     this.details = params;
     this.searchableType = params.getSearchableType();
-    this.writer = new SharableIndexWriter(writerFactory);
+    this.writer = new SharableIndexWriter(writerFactory, changeListener);
     this.open();
   }
 
@@ -83,6 +85,7 @@ class LuceneIndex<T> implements Index<T>, AutoCloseable {
 
       if (!Strings.isNullOrEmpty(permission)) {
         field(document, PERMISSION, permission);
+        document.add(new SortedDocValuesField(PERMISSION, new BytesRef(permission)));
       }
 
       writer.updateDocument(idTerm(id), document);
@@ -110,11 +113,7 @@ class LuceneIndex<T> implements Index<T>, AutoCloseable {
 
   @Override
   public void close() {
-    try {
-      writer.close();
-    } catch (IOException e) {
-      throw new SearchEngineException("failed to close index writer", e);
-    }
+    writer.close();
   }
 
   private class LuceneDeleter implements Deleter<T> {
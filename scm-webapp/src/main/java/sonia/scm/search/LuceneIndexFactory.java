@@ -45,7 +45,8 @@ public class LuceneIndexFactory {
       }
       return new LuceneIndex<>(
         indexParams,
-        () -> indexManager.openForWrite(indexParams)
+        () -> indexManager.openForWrite(indexParams),
+        () -> indexManager.changed(indexParams)
       );
     });
   }
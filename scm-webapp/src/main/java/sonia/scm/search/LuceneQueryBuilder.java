@@ -17,11 +17,12 @@
 package sonia.scm.search;
 
 import com.google.common.base.Strings;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.Nonnull;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.TokenStream;
 import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
-import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.queryparser.flexible.core.QueryNodeException;
 import org.apache.lucene.queryparser.flexible.standard.StandardQueryParser;
@@ -49,23 +50,27 @@ public class LuceneQueryBuilder<T> extends QueryBuilder<T> {
     "*", "?", "OR", "AND", "NOT", "!", "-", "+", "[", "]", "(", ")", "{", "}", "\\", ":", "\"", "^"
   );
 
+  static final String METRIC_QUERY_DURATION = "search.query.duration";
+
   private final IndexManager opener;
   private final LuceneSearchableType searchableType;
   private final String indexName;
   private final Analyzer analyzer;
+  private final MeterRegistry meterRegistry;
 
-  LuceneQueryBuilder(IndexManager opener, String indexName, LuceneSearchableType searchableType, Analyzer analyzer) {
+  LuceneQueryBuilder(IndexManager opener, String indexName, LuceneSearchableType searchableType, Analyzer analyzer, MeterRegistry meterRegistry) {
     this.opener = opener;
     this.indexName = indexName;
     this.searchableType = searchableType;
     this.analyzer = analyzer;
+    this.meterRegistry = meterRegistry;
   }
 
   @Override
   protected QueryCountResult count(QueryParams queryParams) {
     TotalHitCountCollector totalHitCountCollector = new TotalHitCountCollector();
     return search(
-      queryParams, totalHitCountCollector,
+      "count", queryParams, totalHitCountCollector,
       (searcher, query) -> new QueryCountResult(
         searchableType.getType(), totalHitCountCollector.getTotalHits(), evaluateQueryType(queryParams)
       )
@@ -75,7 +80,7 @@ public class LuceneQueryBuilder<T> extends QueryBuilder<T> {
   @Override
   protected QueryResult execute(QueryParams queryParams) {
     TopScoreDocCollector topScoreCollector = createTopScoreCollector(queryParams);
-    return search(queryParams, topScoreCollector, (searcher, query) -> {
+    return search("execute", queryParams, topScoreCollector, (searcher, query) -> {
       QueryResultFactory resultFactory = new QueryResultFactory(analyzer, searcher, searchableType, query);
       return resultFactory.createWithQueryType(getTopDocs(queryParams, topScoreCollector), evaluateQueryType(queryParams));
     });
@@ -85,7 +90,7 @@ public class LuceneQueryBuilder<T> extends QueryBuilder<T> {
     return containsOperator(queryParams.getQueryString()) ? QueryType.EXPERT : QueryType.SIMPLE;
   }
 
-  private <R> R search(QueryParams queryParams, Collector collector, ResultBuilder<R> resultBuilder) {
+  private <R> R search(String operation, QueryParams queryParams, Collector collector, ResultBuilder<R> resultBuilder) {
     String queryString = Strings.nullToEmpty(queryParams.getQueryString());
 
     Query parsedQuery = createQuery(searchableType, queryParams, queryString);
@@ -93,19 +98,31 @@ public class LuceneQueryBuilder<T> extends QueryBuilder<T> {
     if (LOG.isDebugEnabled()) {
       LOG.debug("execute lucene query: {}", query);
     }
-    try (IndexReader reader = opener.openForRead(searchableType, indexName)) {
-      IndexSearcher searcher = new IndexSearcher(reader);
+    Timer.Sample sample = Timer.start(meterRegistry);
+    try (SearcherReference reference = opener.acquireSearcher(searchableType, indexName)) {
+      IndexSearcher searcher = reference.getSearcher();
 
-      searcher.search(query, new PermissionAwareCollector(reader, collector));
+      searcher.search(query, new PermissionAwareCollector(reference.getReader(), collector));
 
       return resultBuilder.create(searcher, parsedQuery);
     } catch (IOException e) {
       throw new SearchEngineException("failed to search index", e);
     } catch (InvalidTokenOffsetsException e) {
       throw new SearchEngineException("failed to highlight results", e);
+    } finally {
+      sample.stop(queryTimer(operation));
     }
   }
 
+  private Timer queryTimer(String operation) {
+    return Timer.builder(METRIC_QUERY_DURATION)
+      .description("Duration of search queries including highlighting")
+      .tag("type", searchableType.getName())
+      .tag("operation", operation)
+      .publishPercentileHistogram()
+      .register(meterRegistry);
+  }
+
   @Nonnull
   private TopScoreDocCollector createTopScoreCollector(QueryParams queryParams) {
     return TopScoreDocCollector.create(queryParams.getStart() + queryParams.getLimit(), Integer.MAX_VALUE);
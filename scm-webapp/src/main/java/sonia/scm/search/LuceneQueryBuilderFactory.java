@@ -16,17 +16,20 @@
 
 package sonia.scm.search;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.inject.Inject;
 
 public class LuceneQueryBuilderFactory {
 
   private final IndexManager indexManager;
   private final AnalyzerFactory analyzerFactory;
+  private final MeterRegistry meterRegistry;
 
   @Inject
-  public LuceneQueryBuilderFactory(IndexManager indexManager, AnalyzerFactory analyzerFactory) {
+  public LuceneQueryBuilderFactory(IndexManager indexManager, AnalyzerFactory analyzerFactory, MeterRegistry meterRegistry) {
     this.indexManager = indexManager;
     this.analyzerFactory = analyzerFactory;
+    this.meterRegistry = meterRegistry;
   }
 
   public <T> LuceneQueryBuilder<T> create(IndexParams indexParams) {
@@ -34,7 +37,8 @@ public class LuceneQueryBuilderFactory {
       indexManager,
       indexParams.getIndex(),
       indexParams.getSearchableType(),
-      analyzerFactory.create(indexParams.getSearchableType())
+      analyzerFactory.create(indexParams.getSearchableType()),
+      meterRegistry
     );
   }
 
@@ -85,6 +85,8 @@ public class LuceneSearchEngine implements SearchEngine {
       }
     }
 
+    // indexing is background work, which should not delay tasks triggered by users
+    enqueuer.priority(CentralWorkQueue.Priority.LOW);
     enqueuer.runAsAdmin().enqueue(task);
   }
 
@@ -18,25 +18,43 @@ package sonia.scm.search;
 
 import com.google.common.base.Strings;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.DocValuesType;
+import org.apache.lucene.index.FieldInfo;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedDocValues;
 import org.apache.lucene.search.Collector;
 import org.apache.lucene.search.LeafCollector;
 import org.apache.lucene.search.Scorable;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.shiro.SecurityUtils;
+import org.apache.shiro.subject.Subject;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 
+/**
+ * Collector which passes only documents to its delegate, which are readable by the current subject.
+ * The permission of a document is read from the doc values of the {@link FieldNames#PERMISSION} field.
+ * Documents which were indexed before the permission was stored as doc values, are checked with the stored field.
+ * Each distinct permission is evaluated only once per search.
+ */
 public class PermissionAwareCollector implements Collector {
 
-  private static final String FIELD_PERMISSION = "_permission";
-  private static final Set<String> FIELDS = Collections.singleton(FIELD_PERMISSION);
+  private static final Set<String> FIELDS = Collections.singleton(FieldNames.PERMISSION);
+
+  private static final byte UNKNOWN = 0;
+  private static final byte PERMITTED = 1;
+  private static final byte DENIED = 2;
 
   private final IndexReader reader;
   private final Collector delegate;
+  private final Subject subject = SecurityUtils.getSubject();
+  private final Map<String, Boolean> decisions = new HashMap<>();
 
   public PermissionAwareCollector(IndexReader reader, Collector delegate) {
     this.reader = reader;
@@ -45,7 +63,17 @@ public class PermissionAwareCollector implements Collector {
 
   @Override
   public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
-    return new PermissionAwareLeafCollector(delegate.getLeafCollector(context), context.docBase);
+    LeafCollector leafCollector = delegate.getLeafCollector(context);
+    FieldInfo fieldInfo = context.reader().getFieldInfos().fieldInfo(FieldNames.PERMISSION);
+    if (fieldInfo == null) {
+      // no document of the segment has a permission
+      return leafCollector;
+    }
+    SortedDocValues permissions = null;
+    if (fieldInfo.getDocValuesType() == DocValuesType.SORTED) {
+      permissions = DocValues.getSorted(context.reader(), FieldNames.PERMISSION);
+    }
+    return new PermissionAwareLeafCollector(leafCollector, context.docBase, permissions);
   }
 
   @Override
@@ -53,14 +81,22 @@ public class PermissionAwareCollector implements Collector {
     return delegate.scoreMode();
   }
 
+  private boolean isPermitted(String permission) {
+    return decisions.computeIfAbsent(permission, subject::isPermitted);
+  }
+
   private class PermissionAwareLeafCollector implements LeafCollector {
 
     private final LeafCollector delegate;
     private final int docBase;
+    private final SortedDocValues permissions;
+    private final byte[] decisionsByOrd;
 
-    private PermissionAwareLeafCollector(LeafCollector delegate, int docBase) {
+    private PermissionAwareLeafCollector(LeafCollector delegate, int docBase, SortedDocValues permissions) {
       this.delegate = delegate;
       this.docBase = docBase;
+      this.permissions = permissions;
+      this.decisionsByOrd = permissions != null ? new byte[permissions.getValueCount()] : new byte[0];
     }
 
     @Override
@@ -70,11 +106,29 @@ public class PermissionAwareCollector implements Collector {
 
     @Override
     public void collect(int doc) throws IOException {
-      Document document = reader.document(docBase + doc, FIELDS);
-      String permission = document.get(FIELD_PERMISSION);
-      if (Strings.isNullOrEmpty(permission) || SecurityUtils.getSubject().isPermitted(permission)) {
+      if (isPermitted(doc)) {
         this.delegate.collect(doc);
       }
     }
+
+    private boolean isPermitted(int doc) throws IOException {
+      if (permissions != null && permissions.advanceExact(doc)) {
+        return isPermittedByOrd(permissions.ordValue());
+      }
+      // documents which were indexed before the permission was stored as doc values
+      Document document = reader.document(docBase + doc, FIELDS);
+      String permission = document.get(FieldNames.PERMISSION);
+      return Strings.isNullOrEmpty(permission) || PermissionAwareCollector.this.isPermitted(permission);
+    }
+
+    private boolean isPermittedByOrd(int ord) throws IOException {
+      byte decision = decisionsByOrd[ord];
+      if (decision == UNKNOWN) {
+        String permission = permissions.lookupOrd(ord).utf8ToString();
+        decision = PermissionAwareCollector.this.isPermitted(permission) ? PERMITTED : DENIED;
+        decisionsByOrd[ord] = decision;
+      }
+      return decision == PERMITTED;
+    }
   }
 }
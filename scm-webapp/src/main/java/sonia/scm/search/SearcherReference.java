@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+package sonia.scm.search;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.IndexSearcher;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * An acquired {@link IndexSearcher}, which has to be released by closing the reference after the search.
+ */
+class SearcherReference implements Closeable {
+
+  private final IndexSearcher searcher;
+  private final Release release;
+
+  SearcherReference(IndexSearcher searcher, Release release) {
+    this.searcher = searcher;
+    this.release = release;
+  }
+
+  static SearcherReference empty() {
+    IndexReader reader = new NoOpIndexReader();
+    return new SearcherReference(new IndexSearcher(reader), reader::close);
+  }
+
+  IndexSearcher getSearcher() {
+    return searcher;
+  }
+
+  IndexReader getReader() {
+    return searcher.getIndexReader();
+  }
+
+  @Override
+  public void close() throws IOException {
+    release.release();
+  }
+
+  @FunctionalInterface
+  interface Release {
+    void release() throws IOException;
+  }
+}
@@ -27,6 +27,11 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.util.function.Supplier;
 
+/**
+ * Tracks the usage of the shared writer of an index by index tasks. The underlying writer is owned by the
+ * {@link IndexManager} and is kept open between tasks. After each task, the searchers of the index are refreshed, so
+ * that the changes become visible. The changes are committed in batches by the {@link IndexManager}.
+ */
 class SharableIndexWriter {
 
   private static final Logger LOG = LoggerFactory.getLogger(SharableIndexWriter.class);
@@ -34,16 +39,18 @@ class SharableIndexWriter {
   private int usageCounter = 0;
 
   private final Supplier<IndexWriter> writerFactory;
+  private final Runnable changeListener;
   private IndexWriter writer;
 
-  SharableIndexWriter(Supplier<IndexWriter> writerFactory) {
+  SharableIndexWriter(Supplier<IndexWriter> writerFactory, Runnable changeListener) {
     this.writerFactory = writerFactory;
+    this.changeListener = changeListener;
   }
 
   synchronized void open() {
     usageCounter++;
-    if (usageCounter == 1) {
-      LOG.trace("open writer, because usage increased from zero to one");
+    if (writer == null || !writer.isOpen()) {
+      LOG.trace("open writer, because there is no open writer yet");
       writer = writerFactory.get();
     } else {
       LOG.trace("new task is using the writer, counter is now at {}", usageCounter);
@@ -71,17 +78,15 @@ class SharableIndexWriter {
     return writer.deleteAll();
   }
 
-  synchronized void close() throws IOException {
-    usageCounter--;
-    if (usageCounter == 0) {
-      LOG.trace("no one seems to use index any longer, closing underlying writer");
-      writer.close();
-      writer = null;
-    } else if (usageCounter > 0) {
-      LOG.trace("index is still used by {} task(s), commit work but keep writer open", usageCounter);
-      writer.commit();
-    } else {
-      LOG.warn("index is already closed");
+  void close() {
+    synchronized (this) {
+      if (usageCounter == 0) {
+        LOG.warn("index is already closed");
+        return;
+      }
+      usageCounter--;
+      LOG.trace("task finished, index is still used by {} task(s)", usageCounter);
     }
+    changeListener.run();
   }
 }
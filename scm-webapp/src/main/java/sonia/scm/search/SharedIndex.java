@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+package sonia.scm.search;
+
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.SearcherManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A long-lived {@link IndexWriter} together with a {@link SearcherManager} for near-real-time searches on the same
+ * index. Changes of the writer become visible to searches with the next {@link #refresh()}, and they are persisted
+ * with the next {@link #commit()}.
+ */
+class SharedIndex implements Closeable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SharedIndex.class);
+
+  private final IndexWriter writer;
+  private final SearcherManager searcherManager;
+  private final AtomicBoolean uncommittedChanges = new AtomicBoolean();
+
+  SharedIndex(IndexWriter writer) throws IOException {
+    this.writer = writer;
+    this.searcherManager = new SearcherManager(writer, null);
+  }
+
+  IndexWriter getWriter() {
+    return writer;
+  }
+
+  boolean isOpen() {
+    return writer.isOpen();
+  }
+
+  SearcherReference acquire() throws IOException {
+    IndexSearcher searcher = searcherManager.acquire();
+    return new SearcherReference(searcher, () -> searcherManager.release(searcher));
+  }
+
+  void changed() throws IOException {
+    uncommittedChanges.set(true);
+    refresh();
+  }
+
+  void refresh() throws IOException {
+    searcherManager.maybeRefresh();
+  }
+
+  boolean commit() throws IOException {
+    if (uncommittedChanges.getAndSet(false)) {
+      LOG.trace("commit changes of index {}", writer.getDirectory());
+      writer.commit();
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      searcherManager.close();
+    } finally {
+      if (writer.isOpen()) {
+        writer.close();
+      }
+    }
+  }
+}
@@ -117,7 +117,8 @@ public class AuthorizationChangedEventProducer {
   }
 
   /**
-   * Invalidates the whole cache, if a repository has changed. The cache get cleared for one of the following reasons:
+   * Invalidates the cached permissions of a repository, if the repository has changed. The permissions get
+   * invalidated for one of the following reasons:
    * <ul>
    * <li>New repository created</li>
    * <li>Repository was removed</li>
@@ -150,12 +151,12 @@ public class AuthorizationChangedEventProducer {
       logger.debug(
         "fire authorization changed event, because the permissions of repository {} have changed", repository
       );
-      fireEventForEveryUser();
+      fireEventForRepository(repository);
     } else if (!event.getItem().getNamespace().equals(event.getItemBeforeModification().getNamespace())) {
       logger.debug(
         "fire authorization changed event, because the namespace of repository {} has changed", repository
       );
-      fireEventForEveryUser();
+      fireEventForRepository(repository);
     } else {
       logger.debug(
         "authorization changed event is not fired, because non relevant field of repository {} has changed", repository
@@ -169,7 +170,7 @@ public class AuthorizationChangedEventProducer {
       logger.debug(
         "fire authorization changed event, because a relevant field of namespace {} has changed", namespace.getNamespace()
       );
-      fireEventForEveryUser();
+      sendEvent(AuthorizationChangedEvent.createForNamespace(namespace.getNamespace()));
     } else {
       logger.debug(
         "authorization changed event is not fired, because non relevant field of namespace {} has changed",
@@ -183,6 +184,10 @@ public class AuthorizationChangedEventProducer {
     return !(newPermissions.containsAll(permissionsBeforeModification) && permissionsBeforeModification.containsAll(newPermissions));
   }
 
+  private void fireEventForRepository(Repository repository) {
+    sendEvent(AuthorizationChangedEvent.createForRepository(repository.getId()));
+  }
+
   private void fireEventForEveryUser() {
     sendEvent(AuthorizationChangedEvent.createForEveryUser());
   }
@@ -192,7 +197,7 @@ public class AuthorizationChangedEventProducer {
       "fire authorization changed event, because of received {} event for repository {}",
       event.getEventType(), event.getItem().getName()
     );
-    fireEventForEveryUser();
+    fireEventForRepository(event.getItem());
   }
 
   /**
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+
+package sonia.scm.security;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.apache.shiro.authz.AuthorizationInfo;
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.permission.PermissionResolver;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The cached authorization of a user, collected by the {@link DefaultAuthorizationCollector}. The permissions are kept
+ * per repository and namespace, so that a change of a single repository or namespace can be applied by replacing its
+ * permissions instead of collecting the permissions of all repositories again. The permissions for shiro are built
+ * lazily on first access, so that an update of many cached users does not rebuild the permissions of each of them.
+ */
+final class CollectedAuthorizationInfo implements AuthorizationInfo {
+
+  private final Set<String> permissions;
+  private final Map<String, Set<String>> repositoryPermissions;
+  private final Map<String, Set<String>> namespacePermissions;
+  private final PermissionResolver resolver;
+  private final Supplier<IndexedAuthorizationInfo> authorizationInfo = Suppliers.memoize(this::createAuthorizationInfo);
+
+  CollectedAuthorizationInfo(Set<String> permissions,
+                             Map<String, Set<String>> repositoryPermissions,
+                             Map<String, Set<String>> namespacePermissions,
+                             PermissionResolver resolver) {
+    this.permissions = ImmutableSet.copyOf(permissions);
+    this.repositoryPermissions = ImmutableMap.copyOf(repositoryPermissions);
+    this.namespacePermissions = ImmutableMap.copyOf(namespacePermissions);
+    this.resolver = resolver;
+  }
+
+  private IndexedAuthorizationInfo createAuthorizationInfo() {
+    ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+    builder.addAll(permissions);
+    repositoryPermissions.values().forEach(builder::addAll);
+    namespacePermissions.values().forEach(builder::addAll);
+    return new IndexedAuthorizationInfo(ImmutableSet.of(Role.USER), builder.build(), null, resolver);
+  }
+
+  /**
+   * Returns a copy with the given permissions for the repository with the given id. Empty permissions remove the
+   * repository. If the permissions are not changed, the instance itself is returned.
+   */
+  CollectedAuthorizationInfo withRepository(String repositoryId, Set<String> permissions) {
+    if (!isChanged(repositoryPermissions, repositoryId, permissions)) {
+      return this;
+    }
+    return new CollectedAuthorizationInfo(
+      this.permissions,
+      replace(repositoryPermissions, Collections.singletonMap(repositoryId, permissions)),
+      namespacePermissions,
+      resolver
+    );
+  }
+
+  /**
+   * Returns a copy with the given permissions for the given namespace and for its repositories, which are passed by
+   * their id. All changes are applied with a single rebuild of the permissions. Empty permissions remove the namespace
+   * or the repository. If none of the permissions are changed, the instance itself is returned.
+   */
+  CollectedAuthorizationInfo withNamespace(String namespace, Set<String> permissions,
+                                           Map<String, Set<String>> permissionsOfRepositories) {
+    if (!isChanged(namespacePermissions, namespace, permissions)
+      && permissionsOfRepositories.entrySet().stream().noneMatch(e -> isChanged(repositoryPermissions, e.getKey(), e.getValue()))) {
+      return this;
+    }
+    return new CollectedAuthorizationInfo(
+      this.permissions,
+      replace(repositoryPermissions, permissionsOfRepositories),
+      replace(namespacePermissions, Collections.singletonMap(namespace, permissions)),
+      resolver
+    );
+  }
+
+  private static boolean isChanged(Map<String, Set<String>> map, String key, Set<String> permissions) {
+    return !Objects.equals(map.getOrDefault(key, Collections.emptySet()), permissions);
+  }
+
+  private static Map<String, Set<String>> replace(Map<String, Set<String>> map, Map<String, Set<String>> changes) {
+    Map<String, Set<String>> copy = new HashMap<>(map);
+    changes.forEach((key, value) -> {
+      if (value.isEmpty()) {
+        copy.remove(key);
+      } else {
+        copy.put(key, value);
+      }
+    });
+    return copy;
+  }
+
+  IndexedAuthorizationInfo getAuthorizationInfo() {
+    return authorizationInfo.get();
+  }
+
+  @Override
+  public Collection<String> getRoles() {
+    return getAuthorizationInfo().getRoles();
+  }
+
+  @Override
+  public Collection<String> getStringPermissions() {
+    return getAuthorizationInfo().getStringPermissions();
+  }
+
+  @Override
+  public Collection<Permission> getObjectPermissions() {
+    return getAuthorizationInfo().getObjectPermissions();
+  }
+}
@@ -20,6 +20,7 @@ import com.github.legman.Subscribe;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSet.Builder;
 import com.google.inject.Inject;
@@ -46,8 +47,13 @@ import sonia.scm.user.User;
 import sonia.scm.user.UserPermissions;
 
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
 
 import static java.util.Collections.emptySet;
 import static java.util.Collections.unmodifiableCollection;
@@ -70,6 +76,7 @@ public class DefaultAuthorizationCollector implements AuthorizationCollector {
   private final SecuritySystem securitySystem;
   private final RepositoryPermissionProvider repositoryPermissionProvider;
   private final GroupCollector groupCollector;
+  private final ScmPermissionResolver permissionResolver = new ScmPermissionResolver();
 
   @Inject
   public DefaultAuthorizationCollector(CacheManager cacheManager,
@@ -114,19 +121,15 @@ public class DefaultAuthorizationCollector implements AuthorizationCollector {
 
     CacheKey cacheKey = new CacheKey(user.getId(), groups);
 
-    AuthorizationInfo info = cache.get(cacheKey);
-
-    if (info == null)
-    {
+    AuthorizationInfo info = cache.get(cacheKey, key -> {
       logger.trace("collect AuthorizationInfo for user {}", user.getName());
-      info = createAuthorizationInfo(user, groups);
-      cache.put(cacheKey, info);
-    }
-    else if (logger.isTraceEnabled())
-    {
-      logger.trace("retrieve AuthorizationInfo for user {} from cache", user.getName());
-    }
+      return createAuthorizationInfo(user, groups);
+    });
 
+    if (info instanceof CollectedAuthorizationInfo) {
+      // already unmodifiable
+      return ((CollectedAuthorizationInfo) info).getAuthorizationInfo();
+    }
     return new UnmodifiableAuthorizationInfo(info);
   }
 
@@ -134,7 +137,7 @@ public class DefaultAuthorizationCollector implements AuthorizationCollector {
     final User user, final Set<String> groups)
   {
     Collection<AssignedPermission> globalPermissions =
-      securitySystem.getPermissions((AssignedPermission input) -> isUserPermitted(user, groups, input));
+      securitySystem.getPermissions((AssignedPermission input) -> isUserPermitted(user.getName(), groups, input));
 
     for (AssignedPermission gp : globalPermissions)
     {
@@ -145,21 +148,28 @@ public class DefaultAuthorizationCollector implements AuthorizationCollector {
     }
   }
 
-  private void collectNamespacePermissions(Builder<String> builder, User user, Set<String> groups) {
+  private Map<String, Set<String>> collectNamespacePermissions(String username, Set<String> groups) {
+    Map<String, Set<String>> permissions = new HashMap<>();
     for (Namespace namespace : namespaceDao.allWithPermissions()) {
-      collectNamespacePermissions(builder, namespace, user, groups);
+      Set<String> namespacePermissions = collectNamespacePermissions(namespace, username, groups);
+      if (!namespacePermissions.isEmpty()) {
+        permissions.put(namespace.getNamespace(), namespacePermissions);
+      }
     }
+    return permissions;
   }
 
-  private void collectNamespacePermissions(Builder<String> builder, Namespace namespace, User user, Set<String> groups) {
+  private Set<String> collectNamespacePermissions(Namespace namespace, String username, Set<String> groups) {
+    Builder<String> builder = ImmutableSet.builder();
     for (RepositoryPermission permission : namespace.getPermissions()) {
-      if (isUserPermitted(user, groups, permission)) {
-        addNamespacePermission(builder, namespace, user, permission);
+      if (isUserPermitted(username, groups, permission)) {
+        addNamespacePermission(builder, namespace, username, permission);
       }
     }
+    return builder.build();
   }
 
-  private void addNamespacePermission(Builder<String> builder, Namespace namespace, User user, RepositoryPermission permission) {
+  private void addNamespacePermission(Builder<String> builder, Namespace namespace, String username, RepositoryPermission permission) {
     Collection<String> verbs = getVerbs(permission);
     if (!verbs.isEmpty())
     {
@@ -167,50 +177,56 @@ public class DefaultAuthorizationCollector implements AuthorizationCollector {
       if (logger.isTraceEnabled())
       {
         logger.trace("add namespace permission {} for user {} at namespace {}",
-          perm, user.getName(), namespace.getNamespace());
+          perm, username, namespace.getNamespace());
       }
 
       builder.add(perm);
     }
   }
 
-  private void collectRepositoryPermissions(Builder<String> builder, User user,
-    Set<String> groups)
+  private Map<String, Set<String>> collectRepositoryPermissions(String username, Set<String> groups)
   {
+    Map<String, Set<String>> permissions = new HashMap<>();
     for (Repository repository : repositoryDAO.getAll())
     {
-      collectRepositoryPermissions(builder, repository, user, groups);
+      Optional<Namespace> namespace = namespaceDao.get(repository.getNamespace());
+      Set<String> repositoryPermissions = collectRepositoryPermissions(repository, namespace, username, groups);
+      if (!repositoryPermissions.isEmpty()) {
+        permissions.put(repository.getId(), repositoryPermissions);
+      }
     }
+    return permissions;
   }
 
-  private void collectRepositoryPermissions(Builder<String> builder,
-    Repository repository, User user, Set<String> groups)
+  private Set<String> collectRepositoryPermissions(Repository repository, Optional<Namespace> namespace,
+    String username, Set<String> groups)
   {
-    Optional<Namespace> namespace = namespaceDao.get(repository.getNamespace());
+    Builder<String> builder = ImmutableSet.builder();
 
     boolean hasPermission = false;
     for (RepositoryPermission permission : repository.getPermissions())
     {
-      hasPermission = isUserPermitted(user, groups, permission);
+      hasPermission = isUserPermitted(username, groups, permission);
       if (hasPermission) {
-        addRepositoryPermission(builder, repository, user, permission);
+        addRepositoryPermission(builder, repository, username, permission);
       }
     }
     for (RepositoryPermission permission : namespace.map(Namespace::getPermissions).orElse(emptySet()))
     {
-      hasPermission = isUserPermitted(user, groups, permission);
+      hasPermission = isUserPermitted(username, groups, permission);
       if (hasPermission) {
-        addRepositoryPermission(builder, repository, user, permission);
+        addRepositoryPermission(builder, repository, username, permission);
       }
     }
 
     if (!hasPermission && logger.isTraceEnabled())
     {
-      logger.trace("no permission for user {} defined at repository {}", user.getName(), repository);
+      logger.trace("no permission for user {} defined at repository {}", username, repository);
     }
+    return builder.build();
   }
 
-  private void addRepositoryPermission(Builder<String> builder, Repository repository, User user, RepositoryPermission permission) {
+  private void addRepositoryPermission(Builder<String> builder, Repository repository, String username, RepositoryPermission permission) {
     Collection<String> verbs = getVerbs(permission);
     if (!verbs.isEmpty())
     {
@@ -218,7 +234,7 @@ public class DefaultAuthorizationCollector implements AuthorizationCollector {
       if (logger.isTraceEnabled())
       {
         logger.trace("add repository permission {} for user {} at repository {}",
-          perm, user.getName(), repository.getName());
+          perm, username, repository.getName());
       }
 
       builder.add(perm);
@@ -238,12 +254,10 @@ public class DefaultAuthorizationCollector implements AuthorizationCollector {
       .getVerbs();
   }
 
-  private AuthorizationInfo createAuthorizationInfo(User user, Set<String> groups) {
+  private CollectedAuthorizationInfo createAuthorizationInfo(User user, Set<String> groups) {
     Builder<String> builder = ImmutableSet.builder();
 
     collectGlobalPermissions(builder, user, groups);
-    collectRepositoryPermissions(builder, user, groups);
-    collectNamespacePermissions(builder, user, groups);
     builder.add(canReadOwnUser(user));
     if (!Authentications.isSubjectAnonymous(user.getName())) {
       builder.add(getUserAutocompletePermission());
@@ -253,10 +267,12 @@ public class DefaultAuthorizationCollector implements AuthorizationCollector {
       builder.add(getPublicKeyPermission(user));
     }
 
-    SimpleAuthorizationInfo info = new SimpleAuthorizationInfo(Set.of(Role.USER));
-    info.addStringPermissions(builder.build());
-
-    return info;
+    return new CollectedAuthorizationInfo(
+      builder.build(),
+      collectRepositoryPermissions(user.getName(), groups),
+      collectNamespacePermissions(user.getName(), groups),
+      permissionResolver
+    );
   }
 
   private String getGroupAutocompletePermission() {
@@ -284,24 +300,84 @@ public class DefaultAuthorizationCollector implements AuthorizationCollector {
   }
 
 
-  private boolean isUserPermitted(User user, Set<String> groups,
+  private boolean isUserPermitted(String username, Set<String> groups,
     PermissionObject perm)
   {
     //J-
     return (perm.isGroupPermission() && groups.contains(perm.getName()))
-      || ((!perm.isGroupPermission()) && user.getName().equals(perm.getName()));
+      || ((!perm.isGroupPermission()) && username.equals(perm.getName()));
     //J+
   }
 
   @Subscribe(async = false)
   public void invalidateCache(AuthorizationChangedEvent event) {
-    if (event.isEveryUserAffected()) {
+    Optional<String> repositoryId = event.getAffectedRepositoryId();
+    Optional<String> namespace = event.getAffectedNamespace();
+    if (repositoryId.isPresent()) {
+      updateRepositoryPermissions(repositoryId.get());
+    } else if (namespace.isPresent()) {
+      updateNamespacePermissions(namespace.get());
+    } else if (event.isEveryUserAffected()) {
       invalidateCache();
     } else {
       invalidateUserCache(event.getNameOfAffectedUser());
     }
   }
 
+  /**
+   * Recomputes only the permissions of the given repository for every cached user, instead of clearing the whole
+   * cache and collecting the permissions of all repositories again.
+   */
+  private void updateRepositoryPermissions(String repositoryId) {
+    logger.debug("update cached permissions of repository {}, because of a received authorization event", repositoryId);
+    Repository repository = repositoryDAO.get(repositoryId);
+    Optional<Namespace> namespace = repository != null ? namespaceDao.get(repository.getNamespace()) : Optional.empty();
+    updateCache((key, info) -> info.withRepository(
+      repositoryId,
+      repository != null ? collectRepositoryPermissions(repository, namespace, key.username, key.groupnames) : emptySet()
+    ));
+  }
+
+  /**
+   * Recomputes the permissions of the given namespace and of its repositories for every cached user.
+   */
+  private void updateNamespacePermissions(String namespaceName) {
+    logger.debug("update cached permissions of namespace {}, because of a received authorization event", namespaceName);
+    Optional<Namespace> namespace = namespaceDao.get(namespaceName);
+    List<Repository> repositories = repositoryDAO.getAll()
+      .stream()
+      .filter(repository -> namespaceName.equals(repository.getNamespace()))
+      .collect(Collectors.toList());
+    updateCache((key, info) -> {
+      Map<String, Set<String>> permissionsOfRepositories = new HashMap<>();
+      for (Repository repository : repositories) {
+        permissionsOfRepositories.put(
+          repository.getId(), collectRepositoryPermissions(repository, namespace, key.username, key.groupnames)
+        );
+      }
+      return info.withNamespace(
+        namespaceName,
+        namespace.map(ns -> collectNamespacePermissions(ns, key.username, key.groupnames)).orElse(emptySet()),
+        permissionsOfRepositories
+      );
+    });
+  }
+
+  /**
+   * Applies the update to every cached authorization. Each entry is replaced atomically, so that concurrent updates
+   * of the same entry are applied one after the other and none of them gets lost.
+   */
+  private void updateCache(BiFunction<CacheKey, CollectedAuthorizationInfo, CollectedAuthorizationInfo> update) {
+    for (CacheKey key : ImmutableList.copyOf(cache.keys())) {
+      cache.computeIfPresent(key, (k, info) -> {
+        if (info instanceof CollectedAuthorizationInfo collectedAuthorizationInfo) {
+          return update.apply(k, collectedAuthorizationInfo);
+        }
+        return null;
+      });
+    }
+  }
+
   private void invalidateUserCache(final String username) {
     logger.info("invalidate cache for user {}, because of a received authorization event", username);
     cache.removeAll((CacheKey item) -> username.equalsIgnoreCase(item.username));
@@ -18,6 +18,8 @@ package sonia.scm.security;
 
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import org.apache.shiro.authc.AuthenticationException;
@@ -27,15 +29,21 @@ import org.apache.shiro.authc.UsernamePasswordToken;
 import org.apache.shiro.authc.credential.PasswordMatcher;
 import org.apache.shiro.authc.credential.PasswordService;
 import org.apache.shiro.authz.AuthorizationInfo;
-import org.apache.shiro.authz.SimpleAuthorizationInfo;
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.permission.PermissionResolver;
 import org.apache.shiro.realm.AuthorizingRealm;
 import org.apache.shiro.subject.PrincipalCollection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import sonia.scm.plugin.Extension;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
+import java.util.function.Function;
 
 /**
  * Default authorizing realm.
@@ -103,27 +111,27 @@ public class DefaultRealm extends AuthorizingRealm {
     return info;
   }
 
-  private AuthorizationInfo collectors(PrincipalCollection principals) {
-    SimpleAuthorizationInfo merged = new SimpleAuthorizationInfo();
-    for (AuthorizationCollector collector : authorizationCollectors) {
-      AuthorizationInfo authorizationInfo = collector.collect(principals);
-      merge(merged, authorizationInfo);
+  /**
+   * Checks the permission against the indexed permissions of the collectors, instead of testing every granted
+   * permission.
+   */
+  @Override
+  protected boolean isPermitted(Permission permission, AuthorizationInfo info) {
+    if (info instanceof MergedAuthorizationInfo) {
+      return ((MergedAuthorizationInfo) info).implies(permission, getPermissionResolver());
     }
-    return merged;
+    return super.isPermitted(permission, info);
   }
 
-  private void merge(SimpleAuthorizationInfo merged, AuthorizationInfo authorizationInfo) {
-    if (authorizationInfo != null) {
-      if (authorizationInfo.getRoles() != null) {
-        merged.addRoles(authorizationInfo.getRoles());
-      }
-      if (authorizationInfo.getObjectPermissions() != null) {
-        merged.addObjectPermissions(authorizationInfo.getObjectPermissions());
-      }
-      if (authorizationInfo.getStringPermissions() != null) {
-        merged.addStringPermissions(authorizationInfo.getStringPermissions());
+  private AuthorizationInfo collectors(PrincipalCollection principals) {
+    List<AuthorizationInfo> infos = new ArrayList<>();
+    for (AuthorizationCollector collector : authorizationCollectors) {
+      AuthorizationInfo authorizationInfo = collector.collect(principals);
+      if (authorizationInfo != null) {
+        infos.add(authorizationInfo);
       }
     }
+    return new MergedAuthorizationInfo(infos);
   }
 
   private void log(PrincipalCollection collection, AuthorizationInfo original, AuthorizationInfo filtered) {
@@ -162,4 +170,81 @@ public class DefaultRealm extends AuthorizingRealm {
       }
     }
   }
+
+  /**
+   * Merges the {@link AuthorizationInfo}s of all collectors. The collections are merged lazily, because permission
+   * checks use the indexed permissions of the collectors directly.
+   */
+  private static class MergedAuthorizationInfo implements AuthorizationInfo {
+
+    private final List<AuthorizationInfo> infos;
+
+    private final Supplier<Collection<String>> roles = Suppliers.memoize(() -> merge(AuthorizationInfo::getRoles));
+    private final Supplier<Collection<String>> stringPermissions = Suppliers.memoize(() -> merge(AuthorizationInfo::getStringPermissions));
+    private final Supplier<Collection<Permission>> objectPermissions = Suppliers.memoize(() -> merge(AuthorizationInfo::getObjectPermissions));
+
+    private MergedAuthorizationInfo(List<AuthorizationInfo> infos) {
+      this.infos = infos;
+    }
+
+    boolean implies(Permission permission, PermissionResolver resolver) {
+      for (AuthorizationInfo info : infos) {
+        if (info instanceof IndexedAuthorizationInfo) {
+          if (((IndexedAuthorizationInfo) info).implies(permission)) {
+            return true;
+          }
+        } else if (implies(info, permission, resolver)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private boolean implies(AuthorizationInfo info, Permission permission, PermissionResolver resolver) {
+      if (info.getObjectPermissions() != null) {
+        for (Permission granted : info.getObjectPermissions()) {
+          if (granted.implies(permission)) {
+            return true;
+          }
+        }
+      }
+      if (info.getStringPermissions() != null) {
+        for (String granted : info.getStringPermissions()) {
+          if (resolver.resolvePermission(granted).implies(permission)) {
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public Collection<String> getRoles() {
+      return roles.get();
+    }
+
+    @Override
+    public Collection<String> getStringPermissions() {
+      return stringPermissions.get();
+    }
+
+    @Override
+    public Collection<Permission> getObjectPermissions() {
+      return objectPermissions.get();
+    }
+
+    private <T> Collection<T> merge(Function<AuthorizationInfo, Collection<T>> extractor) {
+      Set<T> merged = null;
+      for (AuthorizationInfo info : infos) {
+        Collection<T> values = extractor.apply(info);
+        if (values != null) {
+          if (merged == null) {
+            merged = new HashSet<>();
+          }
+          merged.addAll(values);
+        }
+      }
+      return merged;
+    }
+  }
 }
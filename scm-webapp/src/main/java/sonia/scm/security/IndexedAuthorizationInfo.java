@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+
+package sonia.scm.security;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableSet;
+import org.apache.shiro.authz.AuthorizationInfo;
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.permission.PermissionResolver;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Unmodifiable {@link AuthorizationInfo} which indexes its permissions with a {@link PermissionIndex}, so that
+ * permission checks do not have to test every granted permission. The index is created with the first check.
+ */
+final class IndexedAuthorizationInfo implements AuthorizationInfo {
+
+  private final Collection<String> roles;
+  private final Collection<String> stringPermissions;
+  private final Collection<Permission> objectPermissions;
+  private final Supplier<PermissionIndex> index;
+
+  IndexedAuthorizationInfo(Collection<String> roles, Collection<String> stringPermissions, Collection<Permission> objectPermissions, PermissionResolver resolver) {
+    this.roles = copyOf(roles);
+    this.stringPermissions = copyOf(stringPermissions);
+    this.objectPermissions = copyOf(objectPermissions);
+    this.index = Suppliers.memoize(() -> createIndex(resolver));
+  }
+
+  private PermissionIndex createIndex(PermissionResolver resolver) {
+    List<Permission> permissions = new ArrayList<>();
+    if (stringPermissions != null) {
+      stringPermissions.forEach(permission -> permissions.add(resolver.resolvePermission(permission)));
+    }
+    if (objectPermissions != null) {
+      permissions.addAll(objectPermissions);
+    }
+    return PermissionIndex.of(permissions);
+  }
+
+  boolean implies(Permission permission) {
+    return index.get().implies(permission);
+  }
+
+  @Override
+  public Collection<String> getRoles() {
+    return roles;
+  }
+
+  @Override
+  public Collection<String> getStringPermissions() {
+    return stringPermissions;
+  }
+
+  @Override
+  public Collection<Permission> getObjectPermissions() {
+    return objectPermissions;
+  }
+
+  private static <T> Collection<T> copyOf(Collection<T> collection) {
+    return collection != null ? ImmutableSet.copyOf(collection) : null;
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+
+package sonia.scm.security;
+
+import org.apache.shiro.authz.Permission;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of granted permissions which avoids to check every granted permission for each permission check. Granted
+ * {@link ScmWildcardPermission}s are indexed by their subject (e.g. <code>repository</code>) and by their ids. A check
+ * for <code>repository:read:42</code> has to look only at the permissions granted for repository 42, at the
+ * permissions granted for all repositories (e.g. <code>repository:read:*</code>) and at permissions which could not be
+ * indexed. Granted permissions like <code>*</code> short-circuit every check.
+ */
+final class PermissionIndex {
+
+  private static final String WILDCARD = "*";
+
+  private final boolean all;
+  private final List<Permission> unindexed;
+  private final Map<String, List<Permission>> bySubject;
+  private final Map<String, Map<String, List<Permission>>> bySubjectAndId;
+
+  private PermissionIndex(boolean all,
+                          List<Permission> unindexed,
+                          Map<String, List<Permission>> bySubject,
+                          Map<String, Map<String, List<Permission>>> bySubjectAndId) {
+    this.all = all;
+    this.unindexed = unindexed;
+    this.bySubject = bySubject;
+    this.bySubjectAndId = bySubjectAndId;
+  }
+
+  static PermissionIndex of(Collection<? extends Permission> permissions) {
+    boolean all = false;
+    List<Permission> unindexed = new ArrayList<>();
+    Map<String, List<Permission>> bySubject = new HashMap<>();
+    Map<String, Map<String, List<Permission>>> bySubjectAndId = new HashMap<>();
+
+    for (Permission permission : permissions) {
+      if (!(permission instanceof ScmWildcardPermission)) {
+        unindexed.add(permission);
+        continue;
+      }
+      List<Set<String>> parts = ((ScmWildcardPermission) permission).parts();
+      if (isWildcard(parts)) {
+        all = true;
+      }
+      String subject = single(parts, 0);
+      if (subject == null) {
+        unindexed.add(permission);
+      } else if (parts.size() < 3 || parts.get(2).contains(WILDCARD)) {
+        bySubject.computeIfAbsent(subject, s -> new ArrayList<>()).add(permission);
+      } else {
+        Map<String, List<Permission>> byId = bySubjectAndId.computeIfAbsent(subject, s -> new HashMap<>());
+        for (String id : parts.get(2)) {
+          byId.computeIfAbsent(id, i -> new ArrayList<>()).add(permission);
+        }
+      }
+    }
+    return new PermissionIndex(all, unindexed, bySubject, bySubjectAndId);
+  }
+
+  boolean implies(Permission permission) {
+    if (all) {
+      return true;
+    }
+    if (!(permission instanceof ScmWildcardPermission)) {
+      return impliesAny(permission);
+    }
+
+    List<Set<String>> parts = ((ScmWildcardPermission) permission).parts();
+    String subject = single(parts, 0);
+    if (subject == null) {
+      return impliesAny(permission);
+    }
+
+    if (implies(unindexed, permission) || implies(bySubject.getOrDefault(subject, Collections.emptyList()), permission)) {
+      return true;
+    }
+
+    Map<String, List<Permission>> byId = bySubjectAndId.getOrDefault(subject, Collections.emptyMap());
+    String id = single(parts, 2);
+    if (id != null) {
+      return implies(byId.getOrDefault(id, Collections.emptyList()), permission);
+    }
+    return byId.values().stream().anyMatch(granted -> implies(granted, permission));
+  }
+
+  private boolean impliesAny(Permission permission) {
+    return implies(unindexed, permission)
+      || bySubject.values().stream().anyMatch(granted -> implies(granted, permission))
+      || bySubjectAndId.values().stream()
+      .flatMap(byId -> byId.values().stream())
+      .anyMatch(granted -> implies(granted, permission));
+  }
+
+  private static boolean implies(List<Permission> granted, Permission permission) {
+    for (Permission candidate : granted) {
+      if (candidate.implies(permission)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the only entry of the part at the given position or <code>null</code>, if the part is missing, contains
+   * more than one entry or is a wildcard.
+   */
+  private static String single(List<Set<String>> parts, int position) {
+    if (position >= parts.size()) {
+      return null;
+    }
+    Set<String> part = parts.get(position);
+    if (part.size() != 1 || part.contains(WILDCARD)) {
+      return null;
+    }
+    return part.iterator().next();
+  }
+
+  private static boolean isWildcard(List<Set<String>> parts) {
+    return parts.stream().allMatch(part -> part.contains(WILDCARD));
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package sonia.scm.work;
+
+import jakarta.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Units of work which are waiting for locked resources. Every unit is registered for each of its locks, so that a
+ * released resource wakes only the units which could have been blocked by it. The units of a resource are ordered by
+ * priority and order.
+ * This class is not thread safe, it is guarded by the {@link DefaultCentralWorkQueue}.
+ */
+final class BlockedUnits {
+
+  private final Map<String, TypeWaiters> waiters = new HashMap<>();
+  private volatile int size = 0;
+
+  void add(UnitOfWork unitOfWork) {
+    for (Resource resource : unitOfWork.getLocks()) {
+      waiters.computeIfAbsent(resource.getName(), name -> new TypeWaiters(name))
+        .get(resource.getId())
+        .add(unitOfWork);
+    }
+    size++;
+  }
+
+  void remove(UnitOfWork unitOfWork) {
+    for (Resource resource : unitOfWork.getLocks()) {
+      TypeWaiters typeWaiters = waiters.get(resource.getName());
+      if (typeWaiters != null) {
+        typeWaiters.remove(resource.getId(), unitOfWork);
+        if (typeWaiters.isEmpty()) {
+          waiters.remove(resource.getName());
+        }
+      }
+    }
+    size--;
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * Returns the waiting lists of all units, which could have been blocked by the given resource.
+   */
+  Collection<Waiting> blockedBy(Resource resource) {
+    TypeWaiters typeWaiters = waiters.get(resource.getName());
+    if (typeWaiters == null) {
+      return List.of();
+    }
+    List<Waiting> result = new ArrayList<>();
+    if (typeWaiters.waitingForType != null) {
+      result.add(typeWaiters.waitingForType);
+    }
+    if (resource.getId() == null) {
+      result.addAll(typeWaiters.waitingForId.values());
+    } else {
+      Waiting waitingForId = typeWaiters.waitingForId.get(resource.getId());
+      if (waitingForId != null) {
+        result.add(waitingForId);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Units which are waiting for the same resource.
+   */
+  static final class Waiting {
+
+    private final Resource resource;
+    private final TreeSet<UnitOfWork> units = new TreeSet<>();
+
+    private Waiting(Resource resource) {
+      this.resource = resource;
+    }
+
+    Resource getResource() {
+      return resource;
+    }
+
+    boolean contains(UnitOfWork unitOfWork) {
+      return units.contains(unitOfWork);
+    }
+
+    /**
+     * Returns the next unit after the given one or the first unit, if the given one is {@code null}.
+     */
+    @Nullable
+    UnitOfWork next(@Nullable UnitOfWork unitOfWork) {
+      if (unitOfWork == null) {
+        return units.isEmpty() ? null : units.first();
+      }
+      return units.higher(unitOfWork);
+    }
+  }
+
+  private static final class TypeWaiters {
+
+    private final String name;
+    private Waiting waitingForType;
+    private final Map<String, Waiting> waitingForId = new HashMap<>();
+
+    private TypeWaiters(String name) {
+      this.name = name;
+    }
+
+    TreeSet<UnitOfWork> get(@Nullable String id) {
+      if (id == null) {
+        if (waitingForType == null) {
+          waitingForType = new Waiting(new Resource(name));
+        }
+        return waitingForType.units;
+      }
+      return waitingForId.computeIfAbsent(id, key -> new Waiting(new Resource(name, key))).units;
+    }
+
+    void remove(@Nullable String id, UnitOfWork unitOfWork) {
+      if (id == null) {
+        if (waitingForType != null) {
+          waitingForType.units.remove(unitOfWork);
+          if (waitingForType.units.isEmpty()) {
+            waitingForType = null;
+          }
+        }
+      } else {
+        Waiting waiting = waitingForId.get(id);
+        if (waiting != null) {
+          waiting.units.remove(unitOfWork);
+          if (waiting.units.isEmpty()) {
+            waitingForId.remove(id);
+          }
+        }
+      }
+    }
+
+    boolean isEmpty() {
+      return waitingForType == null && waitingForId.isEmpty();
+    }
+  }
+}
@@ -20,6 +20,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Injector;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.Nullable;
 import jakarta.inject.Singleton;
@@ -32,13 +33,14 @@ import sonia.scm.metrics.Metrics;
 import sonia.scm.web.security.DefaultAdministrationContext;
 
 import java.io.Closeable;
-import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.Iterator;
-import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.IntSupplier;
@@ -48,8 +50,8 @@ public class DefaultCentralWorkQueue implements CentralWorkQueue, Closeable {
 
   private static final Logger LOG = LoggerFactory.getLogger(DefaultCentralWorkQueue.class);
 
-  private final List<UnitOfWork> queue = new ArrayList<>();
-  private final List<Resource> lockedResources = new ArrayList<>();
+  private final BlockedUnits blockedUnits = new BlockedUnits();
+  private final ResourceLocks lockedResources = new ResourceLocks();
   private final AtomicInteger size = new AtomicInteger();
   private final AtomicLong order = new AtomicLong();
 
@@ -75,12 +77,22 @@ public class DefaultCentralWorkQueue implements CentralWorkQueue, Closeable {
     this.executor = createExecutorService(meterRegistry, threadCountProvider.getAsInt());
     this.meterRegistry = meterRegistry;
 
+    Gauge.builder("cwq.tasks.blocked", blockedUnits, BlockedUnits::size)
+      .description("Central work queue tasks which are waiting for locked resources")
+      .register(meterRegistry);
+
     loadFromDisk();
   }
 
   private static ExecutorService createExecutorService(MeterRegistry registry, int threadCount) {
-    ExecutorService executorService = Executors.newFixedThreadPool(
+    // units of work are comparable by priority and order,
+    // so that waiting tasks with a higher priority are passed to the next free worker
+    ExecutorService executorService = new ThreadPoolExecutor(
+      threadCount,
       threadCount,
+      0L,
+      TimeUnit.MILLISECONDS,
+      new PriorityBlockingQueue<>(),
       new ThreadFactoryBuilder()
         .setNameFormat("CentralWorkQueue-%d")
         .build()
@@ -102,6 +114,7 @@ public class DefaultCentralWorkQueue implements CentralWorkQueue, Closeable {
   @Override
   public void close() {
     executor.shutdown();
+    persistence.close();
   }
 
   private void loadFromDisk() {
@@ -109,64 +122,117 @@ public class DefaultCentralWorkQueue implements CentralWorkQueue, Closeable {
       unitOfWork.restore(order.incrementAndGet());
       append(unitOfWork);
     }
-    run();
   }
 
-  private synchronized void append(UnitOfWork unitOfWork) {
+  private void append(UnitOfWork unitOfWork) {
+    // the journal collects the writes of concurrent tasks, so we must not hold the lock of the queue
     persistence.store(unitOfWork);
-    int queueSize = size.incrementAndGet();
-    queue.add(unitOfWork);
-    LOG.debug("add task {} to queue, queue size is now {}", unitOfWork, queueSize);
+    schedule(unitOfWork);
   }
 
-  private synchronized void run() {
-    Iterator<UnitOfWork> iterator = queue.iterator();
-    while (iterator.hasNext()) {
-      UnitOfWork unitOfWork = iterator.next();
-      if (isRunnable(unitOfWork)) {
-        run(unitOfWork);
-        iterator.remove();
-      } else {
-        unitOfWork.blocked();
-      }
+  private synchronized void schedule(UnitOfWork unitOfWork) {
+    int queueSize = size.incrementAndGet();
+    LOG.debug("add task {} to queue, queue size is now {}", unitOfWork, queueSize);
+    if (lockedResources.isFree(unitOfWork.getLocks())) {
+      run(unitOfWork);
+    } else {
+      LOG.trace("task {} is blocked by locked resources", unitOfWork);
+      unitOfWork.blocked();
+      blockedUnits.add(unitOfWork);
     }
   }
 
   private void run(UnitOfWork unitOfWork) {
-    lockedResources.addAll(unitOfWork.getLocks());
+    lockedResources.lock(unitOfWork.getLocks());
     unitOfWork.init(injector, this::finalizeWork, meterRegistry);
+    unitOfWork.scheduled();
     LOG.trace("pass task {} to executor", unitOfWork);
     executor.execute(unitOfWork);
   }
 
-  private synchronized void finalizeWork(UnitOfWork unitOfWork) {
-    for (Resource lock : unitOfWork.getLocks()) {
-      lockedResources.remove(lock);
-    }
+  private void finalizeWork(UnitOfWork unitOfWork) {
     persistence.remove(unitOfWork);
+    release(unitOfWork);
+  }
+
+  private synchronized void release(UnitOfWork unitOfWork) {
+    lockedResources.unlock(unitOfWork.getLocks());
 
     int queueSize = size.decrementAndGet();
     LOG.debug("finish task, queue size is now {}", queueSize);
 
-    run();
+    runReleased(unitOfWork.getLocks());
   }
 
-  private boolean isRunnable(UnitOfWork unitOfWork) {
-    for (Resource resource : unitOfWork.getLocks()) {
-      for (Resource lock : lockedResources) {
-        if (resource.isBlockedBy(lock)) {
-          LOG.trace("skip {}, because resource {} is locked by {}", unitOfWork, resource, lock);
-          return false;
+  /**
+   * Runs the blocked units of work, which are waiting for one of the released resources and whose locks are free now.
+   * The waiting lists of the released resources are merged, so that the units are started by priority and order.
+   */
+  private void runReleased(Set<Resource> released) {
+    PriorityQueue<WaitingCursor> cursors = new PriorityQueue<>();
+    for (Resource resource : released) {
+      for (BlockedUnits.Waiting waiting : blockedUnits.blockedBy(resource)) {
+        WaitingCursor.first(waiting).ifPresent(cursors::add);
+      }
+    }
+
+    Set<UnitOfWork> visited = new HashSet<>();
+    while (!cursors.isEmpty()) {
+      WaitingCursor cursor = cursors.poll();
+      if (lockedResources.isLocked(cursor.waiting.getResource())) {
+        // every remaining unit of the list waits for a resource which is locked again
+        continue;
+      }
+      UnitOfWork unitOfWork = cursor.current;
+      if (visited.add(unitOfWork) && cursor.waiting.contains(unitOfWork)) {
+        if (lockedResources.isFree(unitOfWork.getLocks())) {
+          blockedUnits.remove(unitOfWork);
+          run(unitOfWork);
+        } else {
+          LOG.trace("task {} is still blocked by locked resources", unitOfWork);
+          unitOfWork.blocked();
         }
       }
+      if (cursor.advance()) {
+        cursors.add(cursor);
+      }
+    }
+  }
+
+  private static final class WaitingCursor implements Comparable<WaitingCursor> {
+
+    private final BlockedUnits.Waiting waiting;
+    private UnitOfWork current;
+
+    private WaitingCursor(BlockedUnits.Waiting waiting, UnitOfWork current) {
+      this.waiting = waiting;
+      this.current = current;
+    }
+
+    static Optional<WaitingCursor> first(BlockedUnits.Waiting waiting) {
+      UnitOfWork first = waiting.next(null);
+      if (first == null) {
+        return Optional.empty();
+      }
+      return Optional.of(new WaitingCursor(waiting, first));
+    }
+
+    boolean advance() {
+      current = waiting.next(current);
+      return current != null;
+    }
+
+    @Override
+    public int compareTo(WaitingCursor o) {
+      return current.compareTo(o.current);
     }
-    return true;
   }
 
   private class DefaultEnqueue implements Enqueue {
 
     private final Set<Resource> locks = new HashSet<>();
     private boolean runAsAdmin = false;
+    private Priority priority = Priority.NORMAL;
 
     @Override
     public Enqueue locks(String resourceType) {
@@ -186,14 +252,25 @@ public class DefaultCentralWorkQueue implements CentralWorkQueue, Closeable {
       return this;
     }
 
+    @Override
+    public Enqueue priority(Priority priority) {
+      this.priority = priority;
+      return this;
+    }
+
     @Override
     public void enqueue(Task task) {
-      appendAndRun(new SimpleUnitOfWork(order.incrementAndGet(), principal(), locks, task));
+      append(withPriority(new SimpleUnitOfWork(order.incrementAndGet(), principal(), locks, task)));
     }
 
     @Override
     public void enqueue(Class<? extends Runnable> task) {
-      appendAndRun(new InjectingUnitOfWork(order.incrementAndGet(), principal(), locks, task));
+      append(withPriority(new InjectingUnitOfWork(order.incrementAndGet(), principal(), locks, task)));
+    }
+
+    private UnitOfWork withPriority(UnitOfWork unitOfWork) {
+      unitOfWork.setPriority(priority);
+      return unitOfWork;
     }
 
     private PrincipalCollection principal() {
@@ -202,10 +279,5 @@ public class DefaultCentralWorkQueue implements CentralWorkQueue, Closeable {
       }
       return SecurityUtils.getSubject().getPrincipals();
     }
-
-    private synchronized void appendAndRun(UnitOfWork unitOfWork) {
-      append(unitOfWork);
-      run();
-    }
   }
 }
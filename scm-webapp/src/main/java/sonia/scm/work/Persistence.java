@@ -17,6 +17,7 @@
 package sonia.scm.work;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import org.apache.commons.io.input.ClassLoaderObjectInputStream;
 import org.slf4j.Logger;
@@ -26,22 +27,68 @@ import sonia.scm.store.Blob;
 import sonia.scm.store.BlobStore;
 import sonia.scm.store.BlobStoreFactory;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 
-class Persistence {
+/**
+ * Stores the units of work in a journal, so that they can be restored after a restart.
+ * Every stored unit is appended as record and every removed unit as tombstone. The records are collected and written
+ * by a background thread as segments, so that many records share a single write (group commit).
+ * Storing a unit waits until its segment is written, removing does not wait, because a missing tombstone only leads
+ * to a repeated execution after a restart. Segments without live records are removed and segments with mostly dead
+ * records are compacted after each write.
+ */
+class Persistence implements Closeable {
 
   private static final Logger LOG = LoggerFactory.getLogger(Persistence.class);
   private static final String STORE_NAME = "central-work-queue";
 
+  private static final String SEGMENT_PREFIX = "journal-";
+  private static final int COMPACTION_THRESHOLD = 32;
+
+  private static final byte STORE = 1;
+  private static final byte REMOVE = 2;
+
   private final ClassLoader classLoader;
   private final BlobStore store;
+  private final ExecutorService writer;
+
+  private final AtomicLong recordIds = new AtomicLong();
+
+  private final Object pendingLock = new Object();
+  private List<Record> pending = new ArrayList<>();
+  private boolean flushScheduled = false;
+
+  private final Object writeLock = new Object();
+  private final Deque<Segment> segments = new ArrayDeque<>();
+  private final Map<Long, Segment> liveRecords = new HashMap<>();
+  private long segmentSequence = 0;
 
   @Inject
   public Persistence(PluginLoader pluginLoader, BlobStoreFactory storeFactory) {
@@ -52,23 +99,97 @@ class Persistence {
   Persistence(ClassLoader classLoader, BlobStore store) {
     this.classLoader = classLoader;
     this.store = store;
+    this.writer = Executors.newSingleThreadExecutor(
+      new ThreadFactoryBuilder()
+        .setNameFormat("CentralWorkQueuePersistence-%d")
+        .setDaemon(true)
+        .build()
+    );
   }
 
   Collection<UnitOfWork> loadAll() {
-    List<UnitOfWork> chunks = new ArrayList<>();
-    for (Blob blob : store.getAll()) {
-      load(blob).ifPresent(chunkOfWork -> {
-        chunkOfWork.assignStorageId(null);
-        chunks.add(chunkOfWork);
-      });
-      store.remove(blob);
+    synchronized (writeLock) {
+      flush();
+
+      List<UnitOfWork> chunks = new ArrayList<>();
+      List<Blob> journal = new ArrayList<>();
+      for (Blob blob : store.getAll()) {
+        if (blob.getId().startsWith(SEGMENT_PREFIX)) {
+          journal.add(blob);
+        } else {
+          // stored by versions without journal
+          load(blob).ifPresent(chunks::add);
+          store.remove(blob);
+        }
+      }
+
+      journal.sort(Comparator.comparing(Blob::getId));
+      for (byte[] data : replay(journal).values()) {
+        load(new ByteArrayInputStream(data)).ifPresent(chunks::add);
+      }
+      for (Blob blob : journal) {
+        segmentSequence = Math.max(segmentSequence, sequenceOf(blob));
+        store.remove(blob);
+      }
+      segments.clear();
+      liveRecords.clear();
+
+      chunks.forEach(chunkOfWork -> chunkOfWork.assignStorageId(null));
+      Collections.sort(chunks);
+      return chunks;
+    }
+  }
+
+  private Map<Long, byte[]> replay(List<Blob> journal) {
+    Map<Long, byte[]> records = new TreeMap<>();
+    for (Blob blob : journal) {
+      try (DataInputStream stream = new DataInputStream(new BufferedInputStream(blob.getInputStream()))) {
+        readSegment(stream, records);
+      } catch (IOException ex) {
+        LOG.error("failed to read journal segment {} of central work queue", blob.getId(), ex);
+      }
+    }
+    return records;
+  }
+
+  private void readSegment(DataInputStream stream, Map<Long, byte[]> records) throws IOException {
+    while (true) {
+      int type = stream.read();
+      if (type < 0) {
+        return;
+      }
+      long id = stream.readLong();
+      if (type == STORE) {
+        byte[] data = new byte[stream.readInt()];
+        stream.readFully(data);
+        records.put(id, data);
+      } else if (type == REMOVE) {
+        records.remove(id);
+      } else {
+        throw new IOException("unknown record type " + type);
+      }
+    }
+  }
+
+  private long sequenceOf(Blob blob) {
+    try {
+      return Long.parseLong(blob.getId().substring(SEGMENT_PREFIX.length()));
+    } catch (NumberFormatException ex) {
+      return 0;
     }
-    Collections.sort(chunks);
-    return chunks;
   }
 
   private Optional<UnitOfWork> load(Blob blob) {
-    try (ObjectInputStream stream = new ClassLoaderObjectInputStream(classLoader, blob.getInputStream())) {
+    try {
+      return load(blob.getInputStream());
+    } catch (IOException ex) {
+      LOG.error("failed to load task from store", ex);
+    }
+    return Optional.empty();
+  }
+
+  private Optional<UnitOfWork> load(InputStream inputStream) {
+    try (ObjectInputStream stream = new ClassLoaderObjectInputStream(classLoader, inputStream)) {
       Object o = stream.readObject();
       if (o instanceof UnitOfWork) {
         return Optional.of((UnitOfWork) o);
@@ -82,19 +203,191 @@ class Persistence {
   }
 
   void store(UnitOfWork unitOfWork) {
-    Blob blob = store.create();
-    try (ObjectOutputStream outputStream = new ObjectOutputStream(blob.getOutputStream())) {
-      outputStream.writeObject(unitOfWork);
-      blob.commit();
+    Record record = new Record(STORE, recordIds.incrementAndGet(), serialize(unitOfWork));
+    try {
+      append(record).get();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new NonPersistableTaskException("Interrupted while persisting task", ex);
+    } catch (ExecutionException ex) {
+      throw new NonPersistableTaskException("Failed to persist task", ex.getCause());
+    }
+    unitOfWork.assignStorageId(String.valueOf(record.id));
+  }
 
-      unitOfWork.assignStorageId(blob.getId());
+  private byte[] serialize(UnitOfWork unitOfWork) {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    try (ObjectOutputStream outputStream = new ObjectOutputStream(buffer)) {
+      outputStream.writeObject(unitOfWork);
     } catch (IOException ex) {
       throw new NonPersistableTaskException("Failed to persist task", ex);
     }
+    return buffer.toByteArray();
   }
 
   void remove(UnitOfWork unitOfWork) {
-    unitOfWork.getStorageId().ifPresent(store::remove);
+    unitOfWork.getStorageId()
+      .map(Long::parseLong)
+      .ifPresent(id -> append(new Record(REMOVE, id, null)));
+  }
+
+  private CompletableFuture<Void> append(Record record) {
+    boolean schedule;
+    synchronized (pendingLock) {
+      pending.add(record);
+      schedule = !flushScheduled;
+      flushScheduled = true;
+    }
+    if (schedule) {
+      try {
+        writer.execute(this::scheduledFlush);
+      } catch (RejectedExecutionException ex) {
+        LOG.debug("journal writer of central work queue is closed, write record directly");
+        scheduledFlush();
+      }
+    }
+    return record.committed;
+  }
+
+  private void scheduledFlush() {
+    synchronized (pendingLock) {
+      flushScheduled = false;
+    }
+    flush();
   }
 
+  private void flush() {
+    synchronized (writeLock) {
+      List<Record> batch;
+      synchronized (pendingLock) {
+        batch = pending;
+        pending = new ArrayList<>();
+      }
+      if (batch.isEmpty()) {
+        return;
+      }
+      try {
+        write(batch);
+        batch.forEach(record -> record.committed.complete(null));
+      } catch (IOException | RuntimeException ex) {
+        LOG.error("failed to write journal of central work queue", ex);
+        batch.forEach(record -> record.committed.completeExceptionally(ex));
+        return;
+      }
+      reclaim();
+    }
+  }
+
+  private void write(List<Record> records) throws IOException {
+    Segment segment = new Segment(String.format("%s%019d", SEGMENT_PREFIX, ++segmentSequence));
+    Blob blob = store.create(segment.id);
+    try {
+      try (DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(blob.getOutputStream()))) {
+        for (Record record : records) {
+          record.writeTo(stream);
+        }
+      }
+      blob.commit();
+    } catch (IOException ex) {
+      // the records of a failed segment must not be restored
+      store.remove(segment.id);
+      throw ex;
+    }
+
+    segments.addLast(segment);
+    for (Record record : records) {
+      segment.records++;
+      if (record.type == STORE) {
+        liveRecords.put(record.id, segment);
+        segment.live++;
+      } else {
+        Segment stored = liveRecords.remove(record.id);
+        if (stored != null) {
+          stored.live--;
+        }
+      }
+    }
+  }
+
+  private void reclaim() {
+    // tombstones of the oldest segments can only refer to records of the same or even older segments,
+    // so the oldest segments can be removed as soon as all of their records are dead
+    while (!segments.isEmpty() && segments.peekFirst().live == 0) {
+      store.remove(segments.pollFirst().id);
+    }
+
+    if (segments.size() > COMPACTION_THRESHOLD) {
+      long records = segments.stream().mapToLong(segment -> segment.records).sum();
+      if (records - liveRecords.size() >= liveRecords.size()) {
+        compact();
+      }
+    }
+  }
+
+  private void compact() {
+    List<Blob> journal = new ArrayList<>();
+    for (Segment segment : segments) {
+      journal.add(store.get(segment.id));
+    }
+    Map<Long, byte[]> records = replay(journal);
+    records.keySet().retainAll(liveRecords.keySet());
+
+    List<Record> live = new ArrayList<>();
+    records.forEach((id, data) -> live.add(new Record(STORE, id, data)));
+
+    List<Segment> compacted = new ArrayList<>(segments);
+    Map<Long, Segment> previous = new HashMap<>(liveRecords);
+    segments.clear();
+    liveRecords.clear();
+    try {
+      write(live);
+    } catch (IOException ex) {
+      LOG.error("failed to compact journal of central work queue", ex);
+      segments.addAll(compacted);
+      liveRecords.putAll(previous);
+      return;
+    }
+    LOG.debug("compacted {} journal segments of central work queue with {} live records", compacted.size(), live.size());
+    compacted.forEach(segment -> store.remove(segment.id));
+  }
+
+  @Override
+  public void close() {
+    writer.shutdown();
+    flush();
+  }
+
+  private static final class Record {
+
+    private final byte type;
+    private final long id;
+    private final byte[] data;
+    private final CompletableFuture<Void> committed = new CompletableFuture<>();
+
+    private Record(byte type, long id, byte[] data) {
+      this.type = type;
+      this.id = id;
+      this.data = data;
+    }
+
+    void writeTo(DataOutputStream stream) throws IOException {
+      stream.writeByte(type);
+      stream.writeLong(id);
+      if (type == STORE) {
+        stream.writeInt(data.length);
+        stream.write(data);
+      }
+    }
+  }
+
+  private static final class Segment {
+
+    private final String id;
+    private int records;
+    private int live;
+
+    private Segment(String id) {
+      this.id = id;
+    }
+  }
 }
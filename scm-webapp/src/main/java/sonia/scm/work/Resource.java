@@ -38,6 +38,15 @@ final class Resource implements Serializable {
     this.id = id;
   }
 
+  String getName() {
+    return name;
+  }
+
+  @Nullable
+  String getId() {
+    return id;
+  }
+
   boolean isBlockedBy(Resource resource) {
     if (name.equals(resource.name)) {
       if (id != null && resource.id != null) {
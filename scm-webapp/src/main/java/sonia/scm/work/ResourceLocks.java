@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package sonia.scm.work;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Index of the resources which are locked by running units of work. The locks are indexed by the name and the id of
+ * the resource, so that checking a lock does not depend on the amount of locked resources.
+ * This class is not thread safe, it is guarded by the {@link DefaultCentralWorkQueue}.
+ */
+final class ResourceLocks {
+
+  private final Map<String, TypeLocks> locks = new HashMap<>();
+
+  boolean isFree(Collection<Resource> resources) {
+    for (Resource resource : resources) {
+      if (isLocked(resource)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns {@code true} if a locked resource blocks the given resource.
+   *
+   * @see Resource#isBlockedBy(Resource)
+   */
+  boolean isLocked(Resource resource) {
+    TypeLocks typeLocks = locks.get(resource.getName());
+    if (typeLocks == null) {
+      return false;
+    }
+    String id = resource.getId();
+    return id == null || typeLocks.typeLocks > 0 || typeLocks.idLocks.containsKey(id);
+  }
+
+  void lock(Collection<Resource> resources) {
+    for (Resource resource : resources) {
+      TypeLocks typeLocks = locks.computeIfAbsent(resource.getName(), name -> new TypeLocks());
+      String id = resource.getId();
+      if (id == null) {
+        typeLocks.typeLocks++;
+      } else {
+        typeLocks.idLocks.merge(id, 1, Integer::sum);
+      }
+    }
+  }
+
+  void unlock(Collection<Resource> resources) {
+    for (Resource resource : resources) {
+      TypeLocks typeLocks = locks.get(resource.getName());
+      if (typeLocks != null) {
+        String id = resource.getId();
+        if (id == null) {
+          typeLocks.typeLocks = Math.max(0, typeLocks.typeLocks - 1);
+        } else {
+          typeLocks.idLocks.computeIfPresent(id, (key, count) -> count > 1 ? count - 1 : null);
+        }
+        if (typeLocks.isEmpty()) {
+          locks.remove(resource.getName());
+        }
+      }
+    }
+  }
+
+  private static final class TypeLocks {
+
+    private int typeLocks = 0;
+    private final Map<String, Integer> idLocks = new HashMap<>();
+
+    boolean isEmpty() {
+      return typeLocks == 0 && idLocks.isEmpty();
+    }
+  }
+}
@@ -27,6 +27,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import sonia.scm.security.Impersonator;
 import sonia.scm.security.Impersonator.Session;
+import sonia.scm.work.CentralWorkQueue.Priority;
 
 import java.io.Serializable;
 import java.util.Optional;
@@ -42,6 +43,12 @@ abstract class UnitOfWork implements Runnable, Serializable, Comparable<UnitOfWo
   @VisibleForTesting
   static final String METRIC_WAIT = "cwq.task.wait.duration";
 
+  @VisibleForTesting
+  static final String METRIC_BLOCKED = "cwq.task.blocked.duration";
+
+  @VisibleForTesting
+  static final String METRIC_QUEUED = "cwq.task.queue.duration";
+
   private static final Logger LOG = LoggerFactory.getLogger(UnitOfWork.class);
 
   private long order;
@@ -55,7 +62,14 @@ abstract class UnitOfWork implements Runnable, Serializable, Comparable<UnitOfWo
   private transient MeterRegistry meterRegistry;
   private transient Impersonator impersonator;
 
+  // the priority is not serialized to keep stored tasks of older versions readable,
+  // restored tasks are executed with normal priority
+  private transient Priority priority;
+
   private transient long createdAt;
+  private transient long blockedSince = -1;
+  private transient long blockedNanos = 0;
+  private transient long scheduledAt;
   private transient String storageId;
 
   protected UnitOfWork(long order, PrincipalCollection principal, Set<Resource> locks) {
@@ -69,9 +83,20 @@ abstract class UnitOfWork implements Runnable, Serializable, Comparable<UnitOfWo
     return order;
   }
 
+  public Priority getPriority() {
+    return priority != null ? priority : Priority.NORMAL;
+  }
+
+  public void setPriority(Priority priority) {
+    this.priority = priority;
+  }
+
   public void restore(long newOrderId) {
     this.order = newOrderId;
+    this.priority = null;
     this.createdAt = System.nanoTime();
+    this.blockedSince = -1;
+    this.blockedNanos = 0;
     this.restoreCount++;
   }
 
@@ -81,6 +106,17 @@ abstract class UnitOfWork implements Runnable, Serializable, Comparable<UnitOfWo
 
   public void blocked() {
     blockCount++;
+    if (blockedSince < 0) {
+      blockedSince = System.nanoTime();
+    }
+  }
+
+  public void scheduled() {
+    scheduledAt = System.nanoTime();
+    if (blockedSince >= 0) {
+      blockedNanos += scheduledAt - blockedSince;
+      blockedSince = -1;
+    }
   }
 
   public void assignStorageId(String storageId) {
@@ -106,6 +142,10 @@ abstract class UnitOfWork implements Runnable, Serializable, Comparable<UnitOfWo
 
   @Override
   public void run() {
+    createQueueTimer().record(System.nanoTime() - scheduledAt, TimeUnit.NANOSECONDS);
+    if (blockCount > 0) {
+      createBlockedTimer().record(blockedNanos, TimeUnit.NANOSECONDS);
+    }
     Stopwatch sw = Stopwatch.createStarted();
     Timer.Sample sample = Timer.start(meterRegistry);
     try (Session session = impersonator.impersonate(principal)) {
@@ -134,8 +174,26 @@ abstract class UnitOfWork implements Runnable, Serializable, Comparable<UnitOfWo
       .register(meterRegistry);
   }
 
+  private Timer createBlockedTimer() {
+    return Timer.builder(METRIC_BLOCKED)
+      .description("Central work queue duration in which a task was waiting for locked resources")
+      .tags("task", task.getClass().getName())
+      .register(meterRegistry);
+  }
+
+  private Timer createQueueTimer() {
+    return Timer.builder(METRIC_QUEUED)
+      .description("Central work queue duration in which a task was waiting for a free worker")
+      .tags("task", task.getClass().getName(), "priority", getPriority().name())
+      .register(meterRegistry);
+  }
+
   @Override
   public int compareTo(UnitOfWork o) {
+    int result = getPriority().compareTo(o.getPriority());
+    if (result != 0) {
+      return result;
+    }
     return Long.compare(order, o.order);
   }
 }
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+
+package sonia.scm;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import sonia.scm.plugin.UberWebResourceLoader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class PluginBundleCacheTest {
+
+  private static final String BUNDLE = "/assets/scm-heart-of-gold-plugin.bundle.js";
+  private static final String CONTENT = "console.log('Don\\'t panic');";
+
+  @Mock
+  private UberWebResourceLoader webResourceLoader;
+  @Mock
+  private HttpServletRequest request;
+  @Mock
+  private HttpServletResponse response;
+
+  private final CapturingOutputStream output = new CapturingOutputStream();
+
+  @BeforeEach
+  void setUpResponse() throws IOException {
+    when(request.getMethod()).thenReturn("GET");
+    when(response.getOutputStream()).thenReturn(output);
+  }
+
+  @Test
+  void shouldNotHandleUnknownPaths() throws IOException {
+    PluginBundleCache cache = new PluginBundleCache(webResourceLoader, List.of());
+
+    assertThat(cache.send(BUNDLE, request, response)).isFalse();
+  }
+
+  @Test
+  void shouldNotHandleClientsWithoutCompression(@TempDir Path directory) throws IOException {
+    PluginBundleCache cache = createCache(directory);
+
+    assertThat(cache.send(BUNDLE, request, response)).isFalse();
+    verify(response, never()).getOutputStream();
+  }
+
+  @Test
+  void shouldSendPrecompressedGzip(@TempDir Path directory) throws IOException {
+    PluginBundleCache cache = createCache(directory);
+    when(request.getHeader("Accept-Encoding")).thenReturn("gzip, deflate");
+
+    assertThat(cache.send(BUNDLE, request, response)).isTrue();
+
+    verify(response).setHeader("Content-Encoding", "gzip");
+    verify(response).setHeader("Vary", "Accept-Encoding");
+    verify(response).setContentLength(output.buffer.size());
+    assertThat(gunzip(output.buffer.toByteArray())).isEqualTo(CONTENT);
+  }
+
+  @Test
+  void shouldPreferShippedBrotliVariant(@TempDir Path directory) throws IOException {
+    mockResource(directory, BUNDLE + ".br", "brotli");
+    PluginBundleCache cache = createCache(directory);
+    when(request.getHeader("Accept-Encoding")).thenReturn("gzip, deflate, br");
+
+    assertThat(cache.send(BUNDLE, request, response)).isTrue();
+
+    verify(response).setHeader("Content-Encoding", "br");
+    assertThat(output.buffer.toString(StandardCharsets.UTF_8)).isEqualTo("brotli");
+  }
+
+  @Test
+  void shouldSendNotModifiedForMatchingEntityTag(@TempDir Path directory) throws IOException {
+    PluginBundleCache cache = createCache(directory);
+    when(request.getHeader("Accept-Encoding")).thenReturn("gzip");
+    cache.send(BUNDLE, request, response);
+    ArgumentCaptor<String> etag = ArgumentCaptor.forClass(String.class);
+    verify(response).setHeader(eq("ETag"), etag.capture());
+
+    HttpServletResponse secondResponse = mock(HttpServletResponse.class);
+    when(request.getHeader("If-None-Match")).thenReturn(etag.getValue());
+
+    assertThat(cache.send(BUNDLE, request, secondResponse)).isTrue();
+
+    verify(secondResponse).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+    verify(secondResponse).setHeader("ETag", etag.getValue());
+    verify(secondResponse, never()).setContentLength(anyInt());
+    verify(secondResponse, never()).getOutputStream();
+  }
+
+  @Test
+  void shouldNotWriteBodyForHeadRequests(@TempDir Path directory) throws IOException {
+    PluginBundleCache cache = createCache(directory);
+    when(request.getMethod()).thenReturn("HEAD");
+    when(request.getHeader("Accept-Encoding")).thenReturn("gzip");
+
+    assertThat(cache.send(BUNDLE, request, response)).isTrue();
+
+    verify(response).setHeader("Content-Encoding", "gzip");
+    verify(response, never()).getOutputStream();
+  }
+
+  @Test
+  void shouldNegotiateEncodings() {
+    assertThat(PluginBundleCache.accepts("gzip, deflate, br", "br")).isTrue();
+    assertThat(PluginBundleCache.accepts("gzip;q=1.0, br;q=0", "br")).isFalse();
+    assertThat(PluginBundleCache.accepts("GZIP", "gzip")).isTrue();
+    assertThat(PluginBundleCache.accepts("*", "gzip")).isTrue();
+    assertThat(PluginBundleCache.accepts("*;q=0", "gzip")).isFalse();
+    assertThat(PluginBundleCache.accepts("identity", "gzip")).isFalse();
+    assertThat(PluginBundleCache.accepts(null, "gzip")).isFalse();
+  }
+
+  private PluginBundleCache createCache(Path directory) throws IOException {
+    mockResource(directory, BUNDLE, CONTENT);
+    return new PluginBundleCache(webResourceLoader, List.of(BUNDLE));
+  }
+
+  private void mockResource(Path directory, String path, String content) throws IOException {
+    Path file = directory.resolve(path.substring(path.lastIndexOf('/') + 1));
+    Files.writeString(file, content);
+    URL url = file.toUri().toURL();
+    when(webResourceLoader.getResource(path)).thenReturn(url);
+  }
+
+  private String gunzip(byte[] compressed) throws IOException {
+    try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+      return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+
+  private static class CapturingOutputStream extends ServletOutputStream {
+
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    @Override
+    public void write(int b) {
+      buffer.write(b);
+    }
+
+    @Override
+    public boolean isReady() {
+      return true;
+    }
+
+    @Override
+    public void setWriteListener(WriteListener writeListener) {
+    }
+  }
+}
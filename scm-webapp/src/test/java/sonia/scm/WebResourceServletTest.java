@@ -17,6 +17,9 @@
 package sonia.scm;
 
 import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.ByteStreams;
 import com.google.common.io.Files;
 import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.WriteListener;
@@ -27,14 +30,18 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
+import org.mockito.Answers;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import sonia.scm.plugin.InstalledPlugin;
 import sonia.scm.plugin.PluginLoader;
 import sonia.scm.plugin.UberWebResourceLoader;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -113,6 +120,65 @@ public class WebResourceServletTest {
     assertEquals("hello", output.buffer.toString());
   }
 
+  @Test
+  public void testDoGetWithPrecompressedPluginBundle() throws IOException {
+    File file = temporaryFolder.newFile();
+    Files.write("hello".getBytes(Charsets.UTF_8), file);
+    when(webResourceLoader.getResource("/assets/hog.bundle.js")).thenReturn(file.toURI().toURL());
+
+    InstalledPlugin plugin = mock(InstalledPlugin.class, Answers.RETURNS_DEEP_STUBS);
+    when(plugin.getDescriptor().getResources().getScriptResources()).thenReturn(ImmutableSet.of("assets/hog.bundle.js"));
+    when(pluginLoader.getInstalledPlugins()).thenReturn(ImmutableList.of(plugin));
+    servlet = new WebResourceServlet(pluginLoader, pushStateDispatcher, Stage.PRODUCTION);
+
+    when(request.getRequestURI()).thenReturn("/scm/assets/hog.bundle.js");
+    when(request.getHeader("Accept-Encoding")).thenReturn("gzip");
+    when(request.getMethod()).thenReturn("GET");
+    TestingOutputServletOutputStream output = new TestingOutputServletOutputStream();
+    when(response.getOutputStream()).thenReturn(output);
+
+    servlet.doGet(request, response);
+
+    verify(response).setHeader("Content-Encoding", "gzip");
+    GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(output.buffer.toByteArray()));
+    assertEquals("hello", new String(ByteStreams.toByteArray(input), Charsets.UTF_8));
+  }
+
+  @Test
+  public void testDoGetWithPluginBundleError() throws IOException {
+    servlet = createServletWithPluginBundle();
+    when(response.getOutputStream()).thenThrow(IOException.class);
+
+    servlet.doGet(request, response);
+
+    verify(response).setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+  }
+
+  @Test
+  public void testDoGetWithPluginBundleErrorAfterCommit() throws IOException {
+    servlet = createServletWithPluginBundle();
+    when(response.getOutputStream()).thenThrow(IOException.class);
+    when(response.isCommitted()).thenReturn(true);
+
+    servlet.doGet(request, response);
+
+    verify(response, never()).setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+  }
+
+  private WebResourceServlet createServletWithPluginBundle() throws IOException {
+    File file = temporaryFolder.newFile();
+    Files.write("hello".getBytes(Charsets.UTF_8), file);
+    when(webResourceLoader.getResource("/assets/hog.bundle.js")).thenReturn(file.toURI().toURL());
+
+    InstalledPlugin plugin = mock(InstalledPlugin.class, Answers.RETURNS_DEEP_STUBS);
+    when(plugin.getDescriptor().getResources().getScriptResources()).thenReturn(ImmutableSet.of("assets/hog.bundle.js"));
+    when(pluginLoader.getInstalledPlugins()).thenReturn(ImmutableList.of(plugin));
+    when(request.getRequestURI()).thenReturn("/scm/assets/hog.bundle.js");
+    when(request.getHeader("Accept-Encoding")).thenReturn("gzip");
+    when(request.getMethod()).thenReturn("GET");
+    return new WebResourceServlet(pluginLoader, pushStateDispatcher, Stage.PRODUCTION);
+  }
+
   @Test
   public void testDoGetWithError() throws IOException {
     when(request.getRequestURI()).thenReturn("/scm/README.txt");
@@ -22,20 +22,32 @@ import com.google.common.collect.Lists;
 import com.google.common.io.Resources;
 import jakarta.ws.rs.container.ContainerRequestContext;
 import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.StreamingOutput;
 import jakarta.ws.rs.core.UriInfo;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import sonia.scm.web.VndMediaType;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -49,7 +61,7 @@ public class FieldContainerResponseFilterTest {
   @Mock
   private ContainerResponseContext responseContext;
 
-  private FieldContainerResponseFilter filter = new FieldContainerResponseFilter();
+  private FieldContainerResponseFilter filter = new FieldContainerResponseFilter(objectMapper);
 
   @Test
   public void testFilter() throws IOException {
@@ -101,6 +113,48 @@ public class FieldContainerResponseFilterTest {
     assertEquals("{\"one\":1,\"two\":{\"three\":3,\"four\":4},\"five\":5}", objectMapper.writeValueAsString(node));
   }
 
+  @Test
+  public void testFilterWhileStreaming() throws IOException {
+    applyFields("one");
+    Map<String, Integer> entity = new LinkedHashMap<>();
+    entity.put("one", 1);
+    entity.put("two", 2);
+    when(responseContext.getEntity()).thenReturn(entity);
+    when(responseContext.hasEntity()).thenReturn(true);
+    when(responseContext.getMediaType()).thenReturn(MediaType.valueOf(VndMediaType.REPOSITORY));
+
+    filter.filter(requestContext, responseContext);
+
+    ArgumentCaptor<StreamingOutput> captor = ArgumentCaptor.forClass(StreamingOutput.class);
+    verify(responseContext).setEntity(captor.capture());
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    captor.getValue().write(output);
+    assertEquals("{\"one\":1}", output.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testNoStreamingWithoutFields() {
+    applyFields();
+    when(responseContext.getEntity()).thenReturn(Collections.singletonMap("one", 1));
+    when(responseContext.hasEntity()).thenReturn(true);
+    when(responseContext.getMediaType()).thenReturn(MediaType.valueOf(VndMediaType.REPOSITORY));
+
+    filter.filter(requestContext, responseContext);
+
+    verify(responseContext, never()).setEntity(any());
+  }
+
+  @Test
+  public void testNoStreamingForErrors() {
+    when(responseContext.getEntity()).thenReturn(Collections.singletonMap("one", 1));
+    when(responseContext.hasEntity()).thenReturn(true);
+    when(responseContext.getMediaType()).thenReturn(MediaType.valueOf(VndMediaType.ERROR_TYPE));
+
+    filter.filter(requestContext, responseContext);
+
+    verify(responseContext, never()).setEntity(any());
+  }
+
   private void applyFields(String... fields) {
     ArrayList<String> fieldList = Lists.newArrayList(fields);
     applyFields(fieldList);
@@ -20,10 +20,16 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.google.common.io.Resources;
+import jakarta.ws.rs.core.StreamingOutput;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
@@ -91,6 +97,53 @@ public class JsonFiltersTest {
     }
   }
 
+  @Test
+  public void testStreamFilteredByFields() throws IOException {
+    JsonNode node = readJson("filter-test-nested");
+
+    String json = stream(JsonFilters.streamFilteredByFields(objectMapper, node, asList("two.three")));
+
+    assertEquals("{\"two\":{\"three\":3}}", json);
+  }
+
+  @Test
+  public void testStreamFilteredByFieldsWithPojo() throws IOException {
+    Map<String, Object> entity = new LinkedHashMap<>();
+    entity.put("name", "heart-of-gold");
+    entity.put("_links", Collections.singletonMap("self", Collections.singletonMap("href", "/heart-of-gold")));
+
+    String json = stream(JsonFilters.streamFilteredByFields(objectMapper, entity, asList("_links.self.href")));
+
+    assertEquals("{\"_links\":{\"self\":{\"href\":\"/heart-of-gold\"}}}", json);
+  }
+
+  @Test
+  public void testStreamFilteredByFieldsIsEqualToTreeFilter() throws IOException {
+    assertStreamEqualsTree("filter-test-simple", "one", "three");
+    assertStreamEqualsTree("filter-test-nested", "two");
+    assertStreamEqualsTree("filter-test-nested", "one", "two.four");
+    assertStreamEqualsTree("filter-test-nested", "two.unknown");
+    assertStreamEqualsTree("filter-test-nested", "unknown");
+    assertStreamEqualsTree("filter-test-deep-path", "two.three.four.five");
+    assertStreamEqualsTree("filter-test-arrays", "one.two");
+    assertStreamEqualsTree("filter-test-arrays", "one.three");
+  }
+
+  private void assertStreamEqualsTree(String name, String... fields) throws IOException {
+    JsonNode node = readJson(name);
+    String streamed = stream(JsonFilters.streamFilteredByFields(objectMapper, node, asList(fields)));
+
+    JsonFilters.filterByFields(node, asList(fields));
+
+    assertEquals(objectMapper.writeValueAsString(node), streamed);
+  }
+
+  private String stream(StreamingOutput output) throws IOException {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    output.write(baos);
+    return baos.toString(StandardCharsets.UTF_8);
+  }
+
   private JsonNode readJson(String name) throws IOException {
     URL resource = Resources.getResource("sonia/scm/api/v2/" + name + ".json");
     return objectMapper.readTree(resource);
@@ -40,6 +40,7 @@ import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -79,17 +80,28 @@ public class JsonMarshallingResponseFilterTest {
   }
 
   @Test
-  public void testFilter() {
+  public void testFilterWithoutEnrichers() {
     when(responseContext.hasEntity()).thenReturn(Boolean.TRUE);
-    when(responseContext.getEntity()).thenReturn(new JsonMarshallingResponseFilterTest.Sample("one-two-three"));
     when(responseContext.getMediaType()).thenReturn(MediaType.valueOf(VndMediaType.USER));
 
     filter.filter(requestContext, responseContext);
 
-    verify(responseContext).setEntity(jsonNodeCaptor.capture());
+    verify(responseContext, never()).setEntity(any());
+  }
 
-    JsonNode node = jsonNodeCaptor.getValue();
-    assertEquals("one-two-three", node.get("value").asText());
+  @Test
+  public void testFilterWithoutResponsibleEnricher() {
+    when(responseContext.hasEntity()).thenReturn(Boolean.TRUE);
+    when(responseContext.getMediaType()).thenReturn(MediaType.valueOf(VndMediaType.USER));
+
+    JsonEnricher enricher = mock(JsonEnricher.class);
+    when(enricher.isResponsibleFor(MediaType.valueOf(VndMediaType.USER))).thenReturn(false);
+    enrichers.add(enricher);
+
+    filter.filter(requestContext, responseContext);
+
+    verify(responseContext, never()).setEntity(any());
+    verify(enricher, never()).enrich(any());
   }
 
   @Test
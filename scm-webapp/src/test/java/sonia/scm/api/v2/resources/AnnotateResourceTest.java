@@ -31,6 +31,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import sonia.scm.repository.BlameLine;
 import sonia.scm.repository.BlameResult;
 import sonia.scm.repository.NamespaceAndName;
+import sonia.scm.repository.PermissionProvider;
 import sonia.scm.repository.Person;
 import sonia.scm.repository.api.BlameCommandBuilder;
 import sonia.scm.repository.api.RepositoryService;
@@ -45,6 +46,7 @@ import java.util.Iterator;
 
 import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -67,7 +69,7 @@ class AnnotateResourceTest extends RepositoryTestBase {
   void initResource() {
     BlameResultToBlameDtoMapperImpl mapper = new BlameResultToBlameDtoMapperImpl();
     mapper.setResourceLinks(ResourceLinksMock.createMock(URI.create("/")));
-    annotateResource = new AnnotateResource(serviceFactory, mapper);
+    annotateResource = new AnnotateResource(serviceFactory, mapper, new RevisionPreconditions(mock(PermissionProvider.class)));
     dispatcher.addSingletonResource(getRepositoryRootResource());
   }
 
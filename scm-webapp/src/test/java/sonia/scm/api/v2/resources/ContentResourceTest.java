@@ -17,8 +17,13 @@
 package sonia.scm.api.v2.resources;
 
 import com.google.common.io.Resources;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.Request;
 import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.StreamingOutput;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -28,6 +33,7 @@ import org.mockito.junit.MockitoJUnitRunner;
 import sonia.scm.NotFoundException;
 import sonia.scm.io.DefaultContentTypeResolver;
 import sonia.scm.repository.NamespaceAndName;
+import sonia.scm.repository.PermissionProvider;
 import sonia.scm.repository.api.CatCommandBuilder;
 import sonia.scm.repository.api.RepositoryService;
 import sonia.scm.repository.api.RepositoryServiceFactory;
@@ -42,6 +48,8 @@ import java.util.Collections;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.AdditionalMatchers.not;
@@ -49,6 +57,8 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -57,17 +67,27 @@ public class ContentResourceTest {
   private static final String NAMESPACE = "space";
   private static final String REPO_NAME = "name";
   private static final String REV = "rev";
+  private static final String COMMIT_ID = "ad7e0f5a5c7d6a9b3e2f4c1d8e9f0a1b2c3d4e5f";
 
   @Mock(answer = Answers.RETURNS_DEEP_STUBS)
   private RepositoryServiceFactory repositoryServiceFactory;
 
+  @Mock
+  private PermissionProvider permissionProvider;
+
+  @Mock
+  private Request request;
+
+  @Mock
+  private Subject subject;
+
   private ContentResource contentResource;
 
   private CatCommandBuilder catCommand;
 
   @Before
   public void initService() throws Exception {
-    contentResource = new ContentResource(repositoryServiceFactory, new DefaultContentTypeResolver(Collections.emptySet()));
+    contentResource = new ContentResource(repositoryServiceFactory, new DefaultContentTypeResolver(Collections.emptySet()), new RevisionPreconditions(permissionProvider));
 
     NamespaceAndName existingNamespaceAndName = new NamespaceAndName(NAMESPACE, REPO_NAME);
     RepositoryService repositoryService = repositoryServiceFactory.create(existingNamespaceAndName);
@@ -79,11 +99,16 @@ public class ContentResourceTest {
     doThrow(new NotFoundException("Test", "X")).when(catCommand).getStream(any());
   }
 
+  @After
+  public void unbindSubject() {
+    ThreadContext.unbindSubject();
+  }
+
   @Test
   public void shouldReadSimpleFile() throws Exception {
     mockContent("file", "Hello".getBytes());
 
-    Response response = contentResource.get(NAMESPACE, REPO_NAME, REV, "file", null, null);
+    Response response = contentResource.get(request, NAMESPACE, REPO_NAME, REV, "file", null, null);
     assertEquals(200, response.getStatus());
 
     ByteArrayOutputStream baos = readOutputStream(response);
@@ -95,7 +120,7 @@ public class ContentResourceTest {
   public void shouldLimitOutputByLines() throws Exception {
     mockContent("file", "line 1\nline 2\nline 3\nline 4".getBytes());
 
-    Response response = contentResource.get(NAMESPACE, REPO_NAME, REV, "file", 1, 3);
+    Response response = contentResource.get(request, NAMESPACE, REPO_NAME, REV, "file", 1, 3);
     assertEquals(200, response.getStatus());
 
     ByteArrayOutputStream baos = readOutputStream(response);
@@ -107,7 +132,7 @@ public class ContentResourceTest {
   public void shouldNotLimitOutputWhenEndLessThanZero() throws Exception {
     mockContent("file", "line 1\nline 2\nline 3\nline 4".getBytes());
 
-    Response response = contentResource.get(NAMESPACE, REPO_NAME, REV, "file", 1, -1);
+    Response response = contentResource.get(request, NAMESPACE, REPO_NAME, REV, "file", 1, -1);
     assertEquals(200, response.getStatus());
 
     ByteArrayOutputStream baos = readOutputStream(response);
@@ -117,13 +142,13 @@ public class ContentResourceTest {
 
   @Test
   public void shouldHandleMissingFile() {
-    Response response = contentResource.get(NAMESPACE, REPO_NAME, REV, "doesNotExist", null, null);
+    Response response = contentResource.get(request, NAMESPACE, REPO_NAME, REV, "doesNotExist", null, null);
     assertEquals(404, response.getStatus());
   }
 
   @Test
   public void shouldHandleMissingRepository() {
-    Response response = contentResource.get("no", "repo", REV, "anything", null, null);
+    Response response = contentResource.get(request, "no", "repo", REV, "anything", null, null);
     assertEquals(404, response.getStatus());
   }
 
@@ -131,7 +156,7 @@ public class ContentResourceTest {
   public void shouldRecognizeTikaSourceCode() throws Exception {
     mockContentFromResource("SomeGoCode.go");
 
-    Response response = contentResource.get(NAMESPACE, REPO_NAME, REV, "SomeGoCode.go", null, null);
+    Response response = contentResource.get(request, NAMESPACE, REPO_NAME, REV, "SomeGoCode.go", null, null);
     assertEquals(200, response.getStatus());
 
     assertEquals("Go", response.getHeaderString("X-Programming-Language"));
@@ -142,7 +167,7 @@ public class ContentResourceTest {
   public void shouldRecognizeSpecialSourceCode() throws Exception {
     mockContentFromResource("Dockerfile");
 
-    Response response = contentResource.get(NAMESPACE, REPO_NAME, REV, "Dockerfile", null, null);
+    Response response = contentResource.get(request, NAMESPACE, REPO_NAME, REV, "Dockerfile", null, null);
     assertEquals(200, response.getStatus());
 
     assertEquals("Dockerfile", response.getHeaderString("X-Programming-Language"));
@@ -153,7 +178,7 @@ public class ContentResourceTest {
   public void shouldRecognizeSyntaxModes() throws Exception {
     mockContentFromResource("SomeGoCode.go");
 
-    Response response = contentResource.get(NAMESPACE, REPO_NAME, REV, "SomeGoCode.go", null, null);
+    Response response = contentResource.get(request, NAMESPACE, REPO_NAME, REV, "SomeGoCode.go", null, null);
     assertEquals(200, response.getStatus());
 
     assertEquals("golang", response.getHeaderString("X-Syntax-Mode-Ace"));
@@ -165,7 +190,7 @@ public class ContentResourceTest {
   public void shouldHandleRandomByteFile() throws Exception {
     mockContentFromResource("JustBytes");
 
-    Response response = contentResource.get(NAMESPACE, REPO_NAME, REV, "JustBytes", null, null);
+    Response response = contentResource.get(request, NAMESPACE, REPO_NAME, REV, "JustBytes", null, null);
     assertEquals(200, response.getStatus());
 
     assertFalse(response.getHeaders().containsKey("Language"));
@@ -177,7 +202,7 @@ public class ContentResourceTest {
     FailingAfterSomeBytesStream stream = new FailingAfterSomeBytesStream();
     doAnswer(invocation -> stream).when(catCommand).getStream("readHeadOnly");
 
-    Response response = contentResource.metadata(NAMESPACE, REPO_NAME, REV, "readHeadOnly");
+    Response response = contentResource.metadata(request, NAMESPACE, REPO_NAME, REV, "readHeadOnly");
     assertEquals(200, response.getStatus());
 
     assertEquals("application/octet-stream", response.getHeaderString("Content-Type"));
@@ -188,13 +213,57 @@ public class ContentResourceTest {
   public void shouldHandleEmptyFile() throws Exception {
     mockContent("empty", new byte[]{});
 
-    Response response = contentResource.get(NAMESPACE, REPO_NAME, REV, "empty", null, null);
+    Response response = contentResource.get(request, NAMESPACE, REPO_NAME, REV, "empty", null, null);
     assertEquals(200, response.getStatus());
 
     assertFalse(response.getHeaders().containsKey("Language"));
     assertEquals("application/octet-stream", response.getHeaderString("Content-Type"));
   }
 
+  @Test
+  public void shouldAddCacheHeadersForFullCommitId() throws Exception {
+    mockFullCommitId();
+    when(catCommand.setRevision(COMMIT_ID)).thenReturn(catCommand);
+    mockContent("file", "Hello".getBytes());
+
+    Response response = contentResource.get(request, NAMESPACE, REPO_NAME, COMMIT_ID, "file", null, null);
+    assertEquals(200, response.getStatus());
+
+    assertNotNull(response.getEntityTag());
+    String cacheControl = response.getHeaderString("Cache-Control");
+    assertTrue(cacheControl.contains("private"));
+    assertTrue(cacheControl.contains("max-age=" + RevisionPreconditions.MAX_AGE));
+    assertTrue(cacheControl.contains("immutable"));
+  }
+
+  @Test
+  public void shouldReturnNotModifiedWithoutReadingContent() throws Exception {
+    mockFullCommitId();
+    when(request.evaluatePreconditions(any(EntityTag.class))).thenReturn(Response.notModified());
+
+    Response response = contentResource.get(request, NAMESPACE, REPO_NAME, COMMIT_ID, "file", null, null);
+    assertEquals(304, response.getStatus());
+    assertNotNull(response.getEntityTag());
+
+    verify(catCommand, never()).getStream(any());
+  }
+
+  @Test
+  public void shouldNotEvaluatePreconditionsForBranches() throws Exception {
+    mockContent("file", "Hello".getBytes());
+
+    Response response = contentResource.get(request, NAMESPACE, REPO_NAME, REV, "file", null, null);
+    assertEquals(200, response.getStatus());
+
+    assertNull(response.getEntityTag());
+    verify(request, never()).evaluatePreconditions(any(EntityTag.class));
+  }
+
+  private void mockFullCommitId() {
+    when(subject.getPrincipal()).thenReturn("trillian");
+    ThreadContext.bind(subject);
+  }
+
   @SuppressWarnings("UnstableApiUsage")
   private void mockContentFromResource(String fileName) throws Exception {
     URL url = Resources.getResource(fileName);
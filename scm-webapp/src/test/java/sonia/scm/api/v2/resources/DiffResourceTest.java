@@ -36,6 +36,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import sonia.scm.NotFoundException;
 import sonia.scm.repository.NamespaceAndName;
+import sonia.scm.repository.PermissionProvider;
 import sonia.scm.repository.Repository;
 import sonia.scm.repository.api.DiffCommandBuilder;
 import sonia.scm.repository.api.DiffFormat;
@@ -85,12 +86,15 @@ class DiffResourceTest extends RepositoryTestBase {
   @Mock
   private DiffResultToDiffResultDtoMapper diffResultToDiffResultDtoMapper;
 
+  @Mock
+  private PermissionProvider permissionProvider;
+
   private final Subject subject = mock(Subject.class);
   private final ThreadState subjectThreadState = new SubjectThreadState(subject);
 
   @BeforeEach
   void prepareEnvironment() {
-    diffRootResource = new DiffRootResource(serviceFactory, diffResultToDiffResultDtoMapper);
+    diffRootResource = new DiffRootResource(serviceFactory, diffResultToDiffResultDtoMapper, new RevisionPreconditions(permissionProvider));
     dispatcher.addSingletonResource(getRepositoryRootResource());
     when(serviceFactory.create(new NamespaceAndName("space", "repo"))).thenReturn(service);
     when(serviceFactory.create(any(Repository.class))).thenReturn(service);
@@ -143,6 +147,63 @@ class DiffResourceTest extends RepositoryTestBase {
     verify(diffCommandBuilder).setIgnoreWhitespace(IgnoreWhitespaceLevel.ALL);
   }
 
+  @Nested
+  class WithFullCommitId {
+
+    private static final String COMMIT_ID = "ad7e0f5a5c7d6a9b3e2f4c1d8e9f0a1b2c3d4e5f";
+
+    @BeforeEach
+    void mockDiff() {
+      when(diffCommandBuilder.retrieveContent()).thenReturn(output -> {});
+    }
+
+    @Test
+    void shouldReturnCacheableDiff() throws Exception {
+      MockHttpResponse response = get(null);
+
+      assertThat(response.getStatus()).isEqualTo(200);
+      assertThat(response.getOutputHeaders().getFirst("ETag")).isNotNull();
+      assertThat(response.getOutputHeaders().getFirst("Cache-Control").toString())
+        .contains("private", "max-age=" + RevisionPreconditions.MAX_AGE, "immutable");
+    }
+
+    @Test
+    void shouldReturnNotModifiedWithoutComputingDiff() throws Exception {
+      String etag = get(null).getOutputHeaders().getFirst("ETag").toString();
+
+      MockHttpResponse response = get(etag);
+
+      assertThat(response.getStatus()).isEqualTo(304);
+      verify(diffCommandBuilder).retrieveContent();
+    }
+
+    @Test
+    void shouldReturnDiffForOtherFormat() throws Exception {
+      String etag = get(null).getOutputHeaders().getFirst("ETag").toString();
+
+      MockHttpRequest request = MockHttpRequest
+        .get(DIFF_URL + COMMIT_ID + "?format=GIT")
+        .accept(VndMediaType.DIFF)
+        .header("If-None-Match", etag);
+      MockHttpResponse response = new MockHttpResponse();
+      dispatcher.invoke(request, response);
+
+      assertThat(response.getStatus()).isEqualTo(200);
+    }
+
+    private MockHttpResponse get(String ifNoneMatch) throws URISyntaxException {
+      MockHttpRequest request = MockHttpRequest
+        .get(DIFF_URL + COMMIT_ID)
+        .accept(VndMediaType.DIFF);
+      if (ifNoneMatch != null) {
+        request.header("If-None-Match", ifNoneMatch);
+      }
+      MockHttpResponse response = new MockHttpResponse();
+      dispatcher.invoke(request, response);
+      return response;
+    }
+  }
+
   @Nested
   class WithParsedDiff {
     @BeforeEach
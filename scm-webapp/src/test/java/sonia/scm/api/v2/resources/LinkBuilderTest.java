@@ -107,6 +107,41 @@ public class LinkBuilderTest {
       .create();
   }
 
+  @Test
+  public void shouldAppendToBaseUriWithContextPath() throws URISyntaxException {
+    when(uriInfo.getApiRestUri()).thenReturn(new URI("http://example.com/scm/api/"));
+    LinkBuilder builder = new LinkBuilder(uriInfo, Main.class, Sub.class);
+
+    String actual = builder
+      .method("sub")
+      .parameters("param_x")
+      .method("x")
+      .parameters("param y", "param/z")
+      .href();
+    assertEquals("http://example.com/scm/api/base/main/param_x/sub/param%20y/param%2Fz", actual);
+  }
+
+  @Test
+  public void shouldCreateSameLinkForHrefAndUri() throws URISyntaxException {
+    when(uriInfo.getApiRestUri()).thenReturn(new URI("http://example.com/scm/api/"));
+    LinkBuilder builder = new LinkBuilder(uriInfo, Main.class, Sub.class);
+
+    LinkBuilder link = builder
+      .method("sub")
+      .parameters("..")
+      .method("x")
+      .parameters("a:b", ".");
+    assertEquals(link.create().toString(), link.href());
+  }
+
+  @Test
+  public void shouldReuseTemplateForDifferentParameters() {
+    LinkBuilder builder = new LinkBuilder(uriInfo, Main.class);
+
+    assertEquals("http://example.com/base/main/one", builder.method("sub").parameters("one").href());
+    assertEquals("http://example.com/base/main/two", builder.method("sub").parameters("two").href());
+  }
+
   @Before
   public void setBaseUri() throws URISyntaxException {
     when(uriInfo.getApiRestUri()).thenReturn(new URI("http://example.com/"));
@@ -289,8 +289,8 @@ public class RepositoryRootResourceTest extends RepositoryTestBase {
 
   @Test
   public void shouldCreateFilterForNamespace() throws URISyntaxException {
-    PageResult<Repository> singletonPageResult = createSingletonPageResult(createRepository("space", "repo"));
-    when(repositoryManager.getPage(filterCaptor.capture(), any(), eq(0), eq(10))).thenReturn(singletonPageResult);
+    Repository repository = createRepository("space", "repo");
+    when(repositoryManager.getAllInNamespace(eq("space"), filterCaptor.capture(), any())).thenReturn(singletonList(repository));
 
     MockHttpRequest request = MockHttpRequest.get("/" + RepositoryRootResource.REPOSITORIES_PATH_V2 + "space");
 
@@ -304,8 +304,8 @@ public class RepositoryRootResourceTest extends RepositoryTestBase {
 
   @Test
   public void shouldCreateFilterForNamespaceWithQuery() throws URISyntaxException {
-    PageResult<Repository> singletonPageResult = createSingletonPageResult(createRepository("space", "repo"));
-    when(repositoryManager.getPage(filterCaptor.capture(), any(), eq(0), eq(10))).thenReturn(singletonPageResult);
+    Repository repository = createRepository("space", "repo");
+    when(repositoryManager.getAllInNamespace(eq("space"), filterCaptor.capture(), any())).thenReturn(singletonList(repository));
 
     MockHttpRequest request = MockHttpRequest.get("/" + RepositoryRootResource.REPOSITORIES_PATH_V2 + "space?q=Rep");
 
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+
+package sonia.scm.api.v2.resources;
+
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import sonia.scm.repository.PermissionProvider;
+import sonia.scm.repository.Repository;
+import sonia.scm.repository.RepositoryTestData;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RevisionPreconditionsTest {
+
+  private static final String COMMIT_ID = "ad7e0f5a5c7d6a9b3e2f4c1d8e9f0a1b2c3d4e5f";
+
+  private final Repository repository = RepositoryTestData.createHeartOfGold();
+
+  @Mock
+  private PermissionProvider permissionProvider;
+  @Mock
+  private Subject subject;
+  @Mock
+  private Request request;
+
+  private RevisionPreconditions preconditions;
+
+  @BeforeEach
+  void setUp() {
+    repository.setId("hog");
+    preconditions = new RevisionPreconditions(permissionProvider);
+    ThreadContext.bind(subject);
+  }
+
+  @AfterEach
+  void unbindSubject() {
+    ThreadContext.unbindSubject();
+  }
+
+  @Test
+  void shouldDetectFullCommitIds() {
+    assertThat(RevisionPreconditions.isImmutable(COMMIT_ID)).isTrue();
+    assertThat(RevisionPreconditions.isImmutable(COMMIT_ID + COMMIT_ID.substring(0, 24))).isTrue();
+    assertThat(RevisionPreconditions.isImmutable("ad7e0f5")).isFalse();
+    assertThat(RevisionPreconditions.isImmutable("main")).isFalse();
+    assertThat(RevisionPreconditions.isImmutable("42")).isFalse();
+    assertThat(RevisionPreconditions.isImmutable(null)).isFalse();
+  }
+
+  @Test
+  void shouldNotEvaluateMutableRevisions() {
+    RevisionPreconditions.Evaluation evaluation = preconditions.evaluate(request, repository, "main", "content", "README.md");
+
+    assertThat(evaluation.getPreconditionResponse()).isEmpty();
+    Response response = evaluation.cacheable(Response.ok()).build();
+    assertThat(response.getEntityTag()).isNull();
+    assertThat(response.getHeaders()).doesNotContainKey("Cache-Control");
+    verify(request, never()).evaluatePreconditions(any(EntityTag.class));
+  }
+
+  @Test
+  void shouldReturnPreconditionResponse() {
+    when(subject.getPrincipal()).thenReturn("trillian");
+    when(request.evaluatePreconditions(any(EntityTag.class))).thenReturn(Response.notModified());
+
+    RevisionPreconditions.Evaluation evaluation = preconditions.evaluate(request, repository, COMMIT_ID, "content", "README.md");
+
+    assertThat(evaluation.getPreconditionResponse())
+      .hasValueSatisfying(response -> {
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getEntityTag()).isNotNull();
+        assertThat(response.getHeaders()).containsKey("Cache-Control");
+      });
+  }
+
+  @Test
+  void shouldCreateSameTagForSameRequest() {
+    when(subject.getPrincipal()).thenReturn("trillian");
+
+    assertThat(evaluateTag("README.md")).isEqualTo(evaluateTag("README.md"));
+  }
+
+  @Test
+  void shouldCreateDifferentTagsForDifferentPaths() {
+    when(subject.getPrincipal()).thenReturn("trillian");
+
+    assertThat(evaluateTag("README.md")).isNotEqualTo(evaluateTag("LICENSE"));
+  }
+
+  @Test
+  void shouldCreateDifferentTagsForDifferentUsers() {
+    when(subject.getPrincipal()).thenReturn("trillian", "dent");
+
+    assertThat(evaluateTag("README.md")).isNotEqualTo(evaluateTag("README.md"));
+  }
+
+  @Test
+  void shouldCreateDifferentTagsForDifferentPermissions() {
+    when(subject.getPrincipal()).thenReturn("trillian");
+    when(permissionProvider.availableVerbs()).thenReturn(List.of("read", "push"));
+    lenient().when(subject.isPermitted("repository:read:hog")).thenReturn(true);
+    when(subject.isPermitted("repository:push:hog")).thenReturn(false, true);
+
+    assertThat(evaluateTag("README.md")).isNotEqualTo(evaluateTag("README.md"));
+  }
+
+  private EntityTag evaluateTag(String path) {
+    ArgumentCaptor<EntityTag> captor = ArgumentCaptor.forClass(EntityTag.class);
+    preconditions.evaluate(request, repository, COMMIT_ID, "content", path);
+    verify(request, atLeastOnce()).evaluatePreconditions(captor.capture());
+    return captor.getValue();
+  }
+}
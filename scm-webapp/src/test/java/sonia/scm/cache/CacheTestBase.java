@@ -135,6 +135,50 @@ public abstract class CacheTestBase {
     assertEquals(0.625d, stats.getMissRate(), 0.0d);
   }
 
+  @Test
+  public void testGetWithLoader() {
+    assertEquals("test123", cache.get("test", key -> key + "123"));
+    assertEquals("test123", cache.get("test"));
+  }
+
+  @Test
+  public void testGetWithLoaderReturnsCachedValue() {
+    cache.put("test", "test123");
+
+    String value = cache.get("test", key -> {
+      throw new IllegalStateException("loader should not be called");
+    });
+
+    assertEquals("test123", value);
+  }
+
+  @Test
+  public void testGetWithLoaderReturningNull() {
+    assertNull(cache.get("test", key -> null));
+    assertFalse(cache.contains("test"));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testGetWithFailingLoader() {
+    cache.get("test", key -> {
+      throw new IllegalStateException("failed");
+    });
+  }
+
+  @Test
+  public void testLoadStatistics() {
+    Assume.assumeTrue(cache.getStatistics() != null);
+    cache.get("test-1", key -> "test123");
+    cache.get("test-1", key -> "test456");
+    cache.get("test-2", key -> "test789");
+
+    CacheStatistics stats = cache.getStatistics();
+    assertEquals(2L, stats.getLoadSuccessCount());
+    assertEquals(0L, stats.getLoadExceptionCount());
+    assertEquals(2L, stats.getLoadCount());
+    assertTrue(stats.getTotalLoadTime() > 0);
+  }
+
   @Test
   public void testSize() {
     assertEquals(0, cache.size());
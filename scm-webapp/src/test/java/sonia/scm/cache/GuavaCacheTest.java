@@ -16,8 +16,226 @@
 
 package sonia.scm.cache;
 
+import com.google.common.cache.ForwardingCache;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import sonia.scm.repository.RepositoryCacheKey;
+import sonia.scm.repository.RepositoryCacheKeyPredicate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+
 public class GuavaCacheTest extends CacheTestBase {
 
+  @Test
+  public void shouldLoadOnlyOnceForConcurrentMisses() throws Exception {
+    Cache<String, String> cache = createCacheManager().getCache("single-flight");
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch loaderStarted = new CountDownLatch(1);
+    CountDownLatch releaseLoader = new CountDownLatch(1);
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<String>> results = new ArrayList<>();
+      results.add(executor.submit(() -> cache.get("key", key -> {
+        loads.incrementAndGet();
+        loaderStarted.countDown();
+        await(releaseLoader);
+        return "value";
+      })));
+      loaderStarted.await(5, TimeUnit.SECONDS);
+      for (int i = 0; i < 3; i++) {
+        results.add(executor.submit(() -> cache.get("key", key -> {
+          loads.incrementAndGet();
+          return "other";
+        })));
+      }
+      releaseLoader.countDown();
+
+      for (Future<String> result : results) {
+        assertEquals("value", result.get(5, TimeUnit.SECONDS));
+      }
+      assertEquals(1, loads.get());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void shouldNotLoseConcurrentUpdates() throws Exception {
+    Cache<String, Integer> cache = createCacheManager().getCache("compute");
+    cache.put("key", 0);
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> results = new ArrayList<>();
+      for (int i = 0; i < 100; i++) {
+        results.add(executor.submit(() -> cache.computeIfPresent("key", (key, value) -> value + 1)));
+      }
+      for (Future<?> result : results) {
+        result.get(5, TimeUnit.SECONDS);
+      }
+      assertEquals(Integer.valueOf(100), cache.get("key"));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void shouldComputeOnlyPresentEntries() {
+    Cache<String, String> cache = createCacheManager().getCache("compute-present");
+    cache.put("a", "a");
+    cache.put("b", "b");
+
+    assertEquals("a!", cache.computeIfPresent("a", (key, value) -> value + "!"));
+    assertNull(cache.computeIfPresent("b", (key, value) -> null));
+    assertNull(cache.computeIfPresent("c", (key, value) -> "c"));
+
+    assertEquals("a!", cache.get("a"));
+    assertNull(cache.get("b"));
+    assertNull(cache.get("c"));
+  }
+
+  @Test
+  public void shouldRemoveAllEntriesOfRepository() {
+    GuavaCache<RepoKey, String> cache = createRepositoryCache(new GuavaCacheConfiguration());
+    cache.put(new RepoKey("42", "a"), "a");
+    cache.put(new RepoKey("42", "b"), "b");
+    cache.get(new RepoKey("42", "c"), key -> "c");
+    cache.put(new RepoKey("21", "a"), "other");
+
+    Iterable<String> removed = cache.removeAll(new RepositoryCacheKeyPredicate<>("42"));
+
+    assertThat(removed, containsInAnyOrder("a", "b", "c"));
+    assertEquals(1, cache.size());
+    assertNotNull(cache.get(new RepoKey("21", "a")));
+  }
+
+  @Test
+  public void shouldRemoveEvictedKeysFromRepositoryIndex() {
+    GuavaCacheConfiguration configuration = new GuavaCacheConfiguration();
+    configuration.setMaximumSize(1L);
+    RepositoryKeyIndex<RepoKey, String> index = new RepositoryKeyIndex<>();
+    GuavaCache<RepoKey, String> cache = new GuavaCache<>(
+      GuavaCaches.create(configuration, "evicting", index), null, "evicting", index, null
+    );
+
+    cache.put(new RepoKey("42", "a"), "a");
+    cache.put(new RepoKey("42", "b"), "b");
+
+    assertEquals(1, index.size());
+    assertThat(cache.removeAll(new RepositoryCacheKeyPredicate<>("42")), containsInAnyOrder("b"));
+    assertEquals(0, index.size());
+  }
+
+  @Test
+  public void shouldKeepReplacedKeysInRepositoryIndex() {
+    RepositoryKeyIndex<RepoKey, String> index = new RepositoryKeyIndex<>();
+    GuavaCache<RepoKey, String> cache = new GuavaCache<>(
+      GuavaCaches.create(new GuavaCacheConfiguration(), "replacing", index), null, "replacing", index, null
+    );
+
+    cache.put(new RepoKey("42", "a"), "a");
+    cache.put(new RepoKey("42", "a"), "b");
+    cache.remove(new RepoKey("42", "a"));
+    cache.put(new RepoKey("42", "a"), "c");
+
+    assertThat(cache.removeAll(new RepositoryCacheKeyPredicate<>("42")), containsInAnyOrder("c"));
+    assertNull(cache.get(new RepoKey("42", "a")));
+  }
+
+  @Test
+  public void shouldIndexKeysBeforeValuesAreStored() {
+    RepositoryKeyIndex<RepoKey, String> index = new RepositoryKeyIndex<>();
+    List<Integer> indexSizesOnStore = new ArrayList<>();
+    com.google.common.cache.Cache<RepoKey, String> guavaCache = new ForwardingCache.SimpleForwardingCache<>(
+      GuavaCaches.create(new GuavaCacheConfiguration(), "indexing", index)
+    ) {
+      @Override
+      public void put(RepoKey key, String value) {
+        indexSizesOnStore.add(index.size());
+        super.put(key, value);
+      }
+
+      @Override
+      public String get(RepoKey key, Callable<? extends String> valueLoader) throws ExecutionException {
+        return super.get(key, () -> {
+          String value = valueLoader.call();
+          indexSizesOnStore.add(index.size());
+          return value;
+        });
+      }
+    };
+    GuavaCache<RepoKey, String> cache = new GuavaCache<>(guavaCache, null, "indexing", index, null);
+
+    cache.put(new RepoKey("42", "a"), "a");
+    cache.get(new RepoKey("42", "b"), key -> "b");
+
+    assertThat(indexSizesOnStore, contains(1, 2));
+  }
+
+  @Test
+  public void shouldTolerateIndexedKeysWhichAreNotCached() {
+    RepositoryKeyIndex<RepoKey, String> index = new RepositoryKeyIndex<>();
+    GuavaCache<RepoKey, String> cache = new GuavaCache<>(
+      GuavaCaches.create(new GuavaCacheConfiguration(), "absent", index), null, "absent", index, null
+    );
+    index.add(new RepoKey("42", "a"));
+    cache.put(new RepoKey("42", "b"), "b");
+    cache.remove(new RepoKey("42", "a"));
+
+    assertThat(cache.removeAll(new RepositoryCacheKeyPredicate<>("42")), containsInAnyOrder("b"));
+    assertEquals(0, index.size());
+  }
+
+  @Test
+  public void shouldRecordInvalidationTime() {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    Cache<RepoKey, String> cache = new GuavaCacheFactory(meterRegistry).create(new GuavaCacheConfiguration(), "timed");
+    cache.put(new RepoKey("42", "a"), "a");
+
+    cache.removeAll(new RepositoryCacheKeyPredicate<>("42"));
+    cache.clear();
+
+    Timer timer = meterRegistry.get(GuavaCacheFactory.METRIC_INVALIDATION).tag("cache", "timed").timer();
+    assertEquals(2, timer.count());
+  }
+
+  private GuavaCache<RepoKey, String> createRepositoryCache(GuavaCacheConfiguration configuration) {
+    return new GuavaCacheFactory(new SimpleMeterRegistry()).create(configuration, "repository");
+  }
+
+  private record RepoKey(String repositoryId, String path) implements RepositoryCacheKey {
+    @Override
+    public String getRepositoryId() {
+      return repositoryId;
+    }
+  }
+
+  private void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
   @Override
   protected CacheManager createCacheManager() {
     return CacheTestUtil.createDefaultGuavaCacheManager();
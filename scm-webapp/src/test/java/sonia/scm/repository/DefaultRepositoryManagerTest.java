@@ -583,6 +583,8 @@ public class DefaultRepositoryManagerTest extends ManagerTestBase<Repository> {
     when(mock.get(anyString())).thenAnswer(invocation -> repositoriesById.get(invocation.getArgument(0, String.class)));
     when(mock.get(any(NamespaceAndName.class))).thenAnswer(invocation -> repositoriesByNamespaceAndName.get(invocation.getArgument(0, NamespaceAndName.class)));
     when(mock.getAll()).thenAnswer(invocation -> repositoriesById.values());
+    when(mock.getAllInNamespace(anyString())).thenCallRealMethod();
+    when(mock.getNamespaces()).thenCallRealMethod();
     when(mock.contains(anyString())).thenAnswer(invocation -> repositoriesById.containsKey(invocation.getArgument(0, String.class)));
     when(mock.contains(any(Repository.class))).thenAnswer(invocation -> repositoriesById.containsKey(invocation.getArgument(0, Repository.class).getId()));
     doAnswer(invocation -> {
@@ -23,6 +23,7 @@ import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.assertj.core.api.AssertionsForClassTypes;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -70,6 +71,11 @@ class IndexManagerTest {
     indexManager = new IndexManager(context, pluginLoader, analyzerFactory);
   }
 
+  @AfterEach
+  void closeIndexManager() {
+    indexManager.close();
+  }
+
   @Test
   void shouldCreateNewIndex() throws IOException {
     try (IndexWriter writer = open(Songs.class, "new-index")) {
@@ -173,6 +179,57 @@ class IndexManagerTest {
     }
   }
 
+  @Test
+  void shouldAcquireEmptySearcherForMissingIndex() throws IOException {
+    when(searchableType.getName()).thenReturn("songs");
+    try (SearcherReference reference = indexManager.acquireSearcher(searchableType, "missing")) {
+      assertThat(reference.getReader()).isInstanceOf(NoOpIndexReader.class);
+    }
+  }
+
+  @Test
+  void shouldSeeUncommittedChangesAfterRefresh() throws IOException {
+    IndexWriter writer = open(Songs.class, "nrt");
+    addDoc(writer, "Dent");
+    writer.commit();
+
+    addDoc(writer, "Trillian");
+    indexManager.changed(new IndexParams("nrt", searchableType));
+
+    try (SearcherReference reference = indexManager.acquireSearcher(searchableType, "nrt")) {
+      assertThat(reference.getReader().numDocs()).isEqualTo(2);
+    }
+    try (IndexReader reader = indexManager.openForRead(searchableType, "nrt")) {
+      assertThat(reader.numDocs()).isOne();
+    }
+  }
+
+  @Test
+  void shouldCommitChangedIndices() throws IOException {
+    IndexWriter writer = open(Songs.class, "committed");
+    addDoc(writer, "Dent");
+    indexManager.changed(new IndexParams("committed", searchableType));
+
+    indexManager.commitAll();
+
+    try (IndexReader reader = indexManager.openForRead(searchableType, "committed")) {
+      assertThat(reader.numDocs()).isOne();
+    }
+  }
+
+  @Test
+  void shouldCommitChangesOnClose() throws IOException {
+    IndexWriter writer = open(Songs.class, "closed");
+    addDoc(writer, "Dent");
+
+    indexManager.close();
+
+    assertThat(writer.isOpen()).isFalse();
+    try (IndexReader reader = indexManager.openForRead(searchableType, "closed")) {
+      assertThat(reader.numDocs()).isOne();
+    }
+  }
+
   private void addDoc(IndexWriter writer, String name) throws IOException {
     Document doc = new Document();
     doc.add(new TextField("hitchhiker", name, Field.Store.YES));
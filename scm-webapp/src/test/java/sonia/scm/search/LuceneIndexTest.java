@@ -28,6 +28,7 @@ import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.store.ByteBuffersDirectory;
 import org.apache.lucene.store.Directory;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -45,7 +46,8 @@ import java.util.function.Supplier;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static sonia.scm.search.FieldNames.ID;
 import static sonia.scm.search.FieldNames.PERMISSION;
@@ -57,12 +59,20 @@ class LuceneIndexTest {
   private static final Id<Storable> TWO = Id.of(Storable.class, "two");
 
   private Directory directory;
+  private IndexWriter sharedWriter;
 
   @BeforeEach
   void createDirectory() {
     directory = new ByteBuffersDirectory();
   }
 
+  @AfterEach
+  void closeWriter() throws IOException {
+    if (sharedWriter != null) {
+      sharedWriter.close();
+    }
+  }
+
   @Test
   void shouldStoreObject() throws IOException {
     try (LuceneIndex<Storable> index = createIndex(Storable.class)) {
@@ -215,7 +225,7 @@ class LuceneIndexTest {
 
     @BeforeEach
     void setUpIndex() {
-      index = createIndex(Storable.class, () -> writer);
+      index = createIndex(Storable.class, () -> writer, () -> {});
     }
 
     @Test
@@ -251,9 +261,9 @@ class LuceneIndexTest {
     }
 
     @Test
-    void shouldThrowSearchEngineExceptionOnClose() throws IOException {
-      doThrow(new IOException("failed to delete")).when(writer).close();
-      assertThrows(SearchEngineException.class, () -> index.close());
+    void shouldNotCloseSharedWriter() throws IOException {
+      index.close();
+      verify(writer, never()).close();
     }
 
   }
@@ -267,16 +277,32 @@ class LuceneIndexTest {
   }
 
   private <T> LuceneIndex<T> createIndex(Class<T> type) {
-    return createIndex(type, this::createWriter);
+    // the shared writer is committed after every task, like the IndexManager would do periodically
+    return createIndex(type, this::sharedWriter, this::commit);
   }
 
-  private <T> LuceneIndex<T> createIndex(Class<T> type, Supplier<IndexWriter> writerFactor) {
+  private <T> LuceneIndex<T> createIndex(Class<T> type, Supplier<IndexWriter> writerFactor, Runnable changeListener) {
     SearchableTypeResolver resolver = new SearchableTypeResolver(type);
     return new LuceneIndex<>(
-      new IndexParams("default", resolver.resolve(type)), writerFactor
+      new IndexParams("default", resolver.resolve(type)), writerFactor, changeListener
     );
   }
 
+  private IndexWriter sharedWriter() {
+    if (sharedWriter == null) {
+      sharedWriter = createWriter();
+    }
+    return sharedWriter;
+  }
+
+  private void commit() {
+    try {
+      sharedWriter.commit();
+    } catch (IOException ex) {
+      throw new SearchEngineException("failed to commit index writer", ex);
+    }
+  }
+
   private IndexWriter createWriter() {
     IndexWriterConfig config = new IndexWriterConfig(new StandardAnalyzer());
     config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
@@ -21,6 +21,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.Getter;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.Document;
@@ -33,6 +35,7 @@ import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.store.ByteBuffersDirectory;
 import org.apache.lucene.store.Directory;
 import org.github.sdorra.jse.ShiroExtension;
@@ -66,6 +69,8 @@ class LuceneQueryBuilderTest {
   @Mock
   private IndexManager opener;
 
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
   @BeforeEach
   void setUpDirectory() {
     directory = new ByteBuffersDirectory();
@@ -665,9 +670,9 @@ class LuceneQueryBuilderTest {
     try (DirectoryReader reader = DirectoryReader.open(directory)) {
       SearchableTypeResolver resolver = new SearchableTypeResolver(type);
       LuceneSearchableType searchableType = resolver.resolve(type);
-      lenient().when(opener.openForRead(searchableType, "default")).thenReturn(reader);
+      lenient().when(opener.acquireSearcher(searchableType, "default")).thenReturn(reference(reader));
       LuceneQueryBuilder<T> builder = new LuceneQueryBuilder<T>(
-        opener, "default", searchableType, new AnalyzerFactory().create(searchableType)
+        opener, "default", searchableType, new AnalyzerFactory().create(searchableType), meterRegistry
       );
       return builder.count(queryString);
     }
@@ -689,15 +694,19 @@ class LuceneQueryBuilderTest {
       SearchableTypeResolver resolver = new SearchableTypeResolver(type);
       LuceneSearchableType searchableType = resolver.resolve(type);
 
-      lenient().when(opener.openForRead(searchableType, "default")).thenReturn(reader);
+      lenient().when(opener.acquireSearcher(searchableType, "default")).thenReturn(reference(reader));
       LuceneQueryBuilder<T> builder = new LuceneQueryBuilder<>(
-        opener, "default", searchableType, new AnalyzerFactory().create(searchableType)
+        opener, "default", searchableType, new AnalyzerFactory().create(searchableType), meterRegistry
       );
       consumer.accept(builder);
       return builder.execute(queryString);
     }
   }
 
+  private SearcherReference reference(DirectoryReader reader) {
+    return new SearcherReference(new IndexSearcher(reader), () -> {});
+  }
+
   private IndexWriter writer() throws IOException {
     IndexWriterConfig config = new IndexWriterConfig(new StandardAnalyzer());
     config.setOpenMode(IndexWriterConfig.OpenMode.CREATE);
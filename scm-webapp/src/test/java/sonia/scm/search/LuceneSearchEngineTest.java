@@ -231,6 +231,15 @@ class LuceneSearchEngineTest {
       verify(enqueue).locks("repository-default-index");
     }
 
+    @Test
+    void shouldEnqueueWithLowPriority() {
+      mockType();
+
+      searchEngine.forType(Repository.class).update(DummyIndexTask.class);
+
+      verify(enqueue).priority(CentralWorkQueue.Priority.LOW);
+    }
+
     @Test
     void shouldLockTypeAndIndex() {
       mockType();
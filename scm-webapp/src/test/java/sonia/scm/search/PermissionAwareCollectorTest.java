@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package sonia.scm.search;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.TotalHitCountCollector;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class PermissionAwareCollectorTest {
+
+  @Mock
+  private Subject subject;
+
+  private Directory directory;
+
+  @BeforeEach
+  void setUp() {
+    directory = new ByteBuffersDirectory();
+    lenient().when(subject.isPermitted("repository:read:1")).thenReturn(true);
+    lenient().when(subject.isPermitted("repository:read:2")).thenReturn(false);
+    ThreadContext.bind(subject);
+  }
+
+  @AfterEach
+  void tearDown() {
+    ThreadContext.unbindSubject();
+  }
+
+  @Test
+  void shouldCollectPermittedDocumentsFromDocValues() throws IOException {
+    try (IndexWriter writer = writer()) {
+      writer.addDocument(doc("repository:read:1", true));
+      writer.addDocument(doc("repository:read:2", true));
+      writer.addDocument(doc("repository:read:1", true));
+    }
+
+    assertThat(count()).isEqualTo(2);
+  }
+
+  @Test
+  void shouldCollectPermittedDocumentsFromStoredFields() throws IOException {
+    try (IndexWriter writer = writer()) {
+      writer.addDocument(doc("repository:read:1", false));
+      writer.addDocument(doc("repository:read:2", false));
+    }
+
+    assertThat(count()).isOne();
+  }
+
+  @Test
+  void shouldCollectPermittedDocumentsOfMixedSegments() throws IOException {
+    try (IndexWriter writer = writer()) {
+      writer.addDocument(doc("repository:read:2", false));
+      writer.commit();
+      writer.addDocument(doc("repository:read:2", true));
+      writer.addDocument(doc("repository:read:1", true));
+      writer.forceMerge(1);
+    }
+
+    assertThat(count()).isOne();
+  }
+
+  @Test
+  void shouldCollectDocumentsWithoutPermission() throws IOException {
+    try (IndexWriter writer = writer()) {
+      writer.addDocument(doc(null, true));
+      writer.addDocument(doc("repository:read:2", true));
+    }
+
+    assertThat(count()).isOne();
+  }
+
+  @Test
+  void shouldEvaluateEachPermissionOnlyOnce() throws IOException {
+    try (IndexWriter writer = writer()) {
+      for (int i = 0; i < 10; i++) {
+        writer.addDocument(doc("repository:read:" + (i % 2 + 1), true));
+        if (i % 3 == 0) {
+          writer.commit();
+        }
+      }
+    }
+
+    assertThat(count()).isEqualTo(5);
+
+    verify(subject, times(1)).isPermitted("repository:read:1");
+    verify(subject, times(1)).isPermitted("repository:read:2");
+  }
+
+  private int count() throws IOException {
+    try (DirectoryReader reader = DirectoryReader.open(directory)) {
+      TotalHitCountCollector collector = new TotalHitCountCollector();
+      new IndexSearcher(reader).search(new MatchAllDocsQuery(), new PermissionAwareCollector(reader, collector));
+      return collector.getTotalHits();
+    }
+  }
+
+  private IndexWriter writer() throws IOException {
+    return new IndexWriter(directory, new IndexWriterConfig(new StandardAnalyzer()));
+  }
+
+  private Document doc(String permission, boolean docValues) {
+    Document document = new Document();
+    document.add(new TextField("content", "Heart of Gold", Field.Store.YES));
+    if (permission != null) {
+      document.add(new StringField(FieldNames.PERMISSION, permission, Field.Store.YES));
+      if (docValues) {
+        document.add(new SortedDocValuesField(FieldNames.PERMISSION, new BytesRef(permission)));
+      }
+    }
+    return document;
+  }
+}
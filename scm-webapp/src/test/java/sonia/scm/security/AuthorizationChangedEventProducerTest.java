@@ -35,6 +35,8 @@ import sonia.scm.user.UserEvent;
 import sonia.scm.user.UserModificationEvent;
 import sonia.scm.user.UserTestData;
 
+import java.util.Optional;
+
 import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
 import static org.junit.Assert.assertEquals;
@@ -85,6 +87,11 @@ public class AuthorizationChangedEventProducerTest {
     assertTrue(producer.event.isEveryUserAffected());
   }
 
+  private void assertRepositoryEventIsFired(Repository repository){
+    assertGlobalEventIsFired();
+    assertEquals(Optional.of(repository.getId()), producer.event.getAffectedRepositoryId());
+  }
+
   /**
    * Tests {@link AuthorizationChangedEventProducer#onEvent(sonia.scm.user.UserEvent)} with modified user.
    */
@@ -154,7 +161,7 @@ public class AuthorizationChangedEventProducerTest {
     assertEventIsNotFired();
 
     producer.onEvent(new RepositoryEvent(HandlerEventType.CREATE, repository));
-    assertGlobalEventIsFired();
+    assertRepositoryEventIsFired(repository);
   }
 
  /**
@@ -183,7 +190,7 @@ public class AuthorizationChangedEventProducerTest {
 
     repositoryModified.setPermissions(Lists.newArrayList(new RepositoryPermission("test123", singletonList("read"), false)));
     producer.onEvent(new RepositoryModificationEvent(HandlerEventType.CREATE, repositoryModified, repository));
-    assertGlobalEventIsFired();
+    assertRepositoryEventIsFired(repositoryModified);
 
     resetStoredEvent();
 
@@ -220,7 +227,7 @@ public class AuthorizationChangedEventProducerTest {
 
     repositoryModified.setNamespace("new_namespace");
     producer.onEvent(new RepositoryModificationEvent(HandlerEventType.CREATE, repositoryModified, repository));
-    assertGlobalEventIsFired();
+    assertRepositoryEventIsFired(repositoryModified);
   }
 
   private void resetStoredEvent(){
@@ -278,6 +285,7 @@ public class AuthorizationChangedEventProducerTest {
     namespaceModified.setPermissions(Lists.newArrayList(new RepositoryPermission("test123", singletonList("read"), false)));
     producer.onEvent(new NamespaceModificationEvent(HandlerEventType.CREATE, namespaceModified, namespace));
     assertGlobalEventIsFired();
+    assertEquals(Optional.of("hitchhiker"), producer.event.getAffectedNamespace());
 
     resetStoredEvent();
 
@@ -29,12 +29,14 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.Answers;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
 import sonia.scm.SCMContext;
 import sonia.scm.cache.Cache;
 import sonia.scm.cache.CacheManager;
+import sonia.scm.cache.MapCacheManager;
 import sonia.scm.group.GroupCollector;
 import sonia.scm.repository.Namespace;
 import sonia.scm.repository.NamespaceDao;
@@ -52,10 +54,14 @@ import static java.util.Collections.singletonList;
 import static java.util.Optional.of;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasItems;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertSame;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -67,7 +73,7 @@ import static org.mockito.Mockito.when;
 @RunWith(MockitoJUnitRunner.class)
 public class DefaultAuthorizationCollectorTest {
 
-  @Mock
+  @Mock(answer = Answers.CALLS_REAL_METHODS)
   private Cache cache;
 
   @Mock
@@ -369,4 +375,82 @@ public class DefaultAuthorizationCollectorTest {
     verify(cache).removeAll(any());
   }
 
+  @Test
+  @SubjectAware(
+    configuration = "classpath:sonia/scm/shiro-001.ini"
+  )
+  public void testUpdateRepositoryPermissions() {
+    collector = new DefaultAuthorizationCollector(new MapCacheManager(), repositoryDAO, securitySystem, repositoryPermissionProvider, groupCollector, namespaceDao);
+    authenticate(UserTestData.createTrillian(), "main");
+    Repository heartOfGold = RepositoryTestData.createHeartOfGold();
+    heartOfGold.setId("one");
+    heartOfGold.setPermissions(newArrayList(new RepositoryPermission("trillian", asList("read", "pull"), false)));
+    Repository puzzle42 = RepositoryTestData.create42Puzzle();
+    puzzle42.setId("two");
+    puzzle42.setPermissions(newArrayList(new RepositoryPermission("trillian", singletonList("read"), false)));
+    when(repositoryDAO.getAll()).thenReturn(newArrayList(heartOfGold, puzzle42));
+
+    assertThat(collector.collect().getStringPermissions(), hasItems("repository:read,pull:one", "repository:read:two"));
+
+    heartOfGold.setPermissions(newArrayList(new RepositoryPermission("trillian", asList("read", "pull", "push"), false)));
+    when(repositoryDAO.get("one")).thenReturn(heartOfGold);
+    collector.invalidateCache(AuthorizationChangedEvent.createForRepository("one"));
+
+    AuthorizationInfo authInfo = collector.collect();
+    assertThat(authInfo.getStringPermissions(), hasItems("repository:read,pull,push:one", "repository:read:two"));
+    assertThat(authInfo.getStringPermissions(), not(hasItem("repository:read,pull:one")));
+
+    collector.invalidateCache(AuthorizationChangedEvent.createForRepository("two"));
+    assertThat(collector.collect().getStringPermissions(), not(hasItem("repository:read:two")));
+
+    // the permissions of the repositories were not collected again
+    verify(repositoryDAO, times(1)).getAll();
+  }
+
+  @Test
+  @SubjectAware(
+    configuration = "classpath:sonia/scm/shiro-001.ini"
+  )
+  public void testKeepCachedPermissionsOfUnaffectedUsers() {
+    collector = new DefaultAuthorizationCollector(new MapCacheManager(), repositoryDAO, securitySystem, repositoryPermissionProvider, groupCollector, namespaceDao);
+    authenticate(UserTestData.createTrillian(), "main");
+    Repository heartOfGold = RepositoryTestData.createHeartOfGold();
+    heartOfGold.setId("one");
+    heartOfGold.setPermissions(newArrayList(new RepositoryPermission("trillian", singletonList("read"), false)));
+    Repository puzzle42 = RepositoryTestData.create42Puzzle();
+    puzzle42.setId("two");
+    puzzle42.setPermissions(newArrayList(new RepositoryPermission("dent", singletonList("read"), false)));
+    when(repositoryDAO.getAll()).thenReturn(newArrayList(heartOfGold, puzzle42));
+    when(repositoryDAO.get("two")).thenReturn(puzzle42);
+
+    AuthorizationInfo authInfo = collector.collect();
+    collector.invalidateCache(AuthorizationChangedEvent.createForRepository("two"));
+
+    assertSame(authInfo, collector.collect());
+  }
+
+  @Test
+  @SubjectAware(
+    configuration = "classpath:sonia/scm/shiro-001.ini"
+  )
+  public void testUpdateNamespacePermissions() {
+    collector = new DefaultAuthorizationCollector(new MapCacheManager(), repositoryDAO, securitySystem, repositoryPermissionProvider, groupCollector, namespaceDao);
+    authenticate(UserTestData.createTrillian(), "main");
+    Repository heartOfGold = RepositoryTestData.createHeartOfGold();
+    heartOfGold.setId("one");
+    when(repositoryDAO.getAll()).thenReturn(newArrayList(heartOfGold));
+
+    assertThat(collector.collect().getStringPermissions(), not(hasItem("repository:read:one")));
+
+    Namespace namespace = new Namespace(heartOfGold.getNamespace());
+    namespace.setPermissions(newArrayList(new RepositoryPermission("trillian", singletonList("read"), false)));
+    when(namespaceDao.get(heartOfGold.getNamespace())).thenReturn(of(namespace));
+    collector.invalidateCache(AuthorizationChangedEvent.createForNamespace(heartOfGold.getNamespace()));
+
+    assertThat(
+      collector.collect().getStringPermissions(),
+      hasItems("repository:read:one", "namespace:read:" + heartOfGold.getNamespace())
+    );
+  }
+
 }
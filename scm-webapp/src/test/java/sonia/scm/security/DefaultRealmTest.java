@@ -166,6 +166,26 @@ public class DefaultRealmTest {
     assertThat(Collections2.transform(realmsAutz.getObjectPermissions(), Permission::toString)).contains("user:*:me").doesNotContain("repository:*");
   }
 
+  @Test
+  public void testIsPermittedWithIndexedPermissions() {
+    SimplePrincipalCollection col = new SimplePrincipalCollection();
+
+    AuthorizationInfo collectorsAuthz = new IndexedAuthorizationInfo(
+      Set.of(Role.USER), Set.of("repository:read,pull:42", "user:read:trillian"), null, new ScmPermissionResolver()
+    );
+    when(collector.collect(col)).thenReturn(collectorsAuthz);
+
+    SimpleAuthorizationInfo collectedFromSecond = new SimpleAuthorizationInfo();
+    collectedFromSecond.addStringPermission("group:read:*");
+    authorizationCollectors.add(principalCollection -> collectedFromSecond);
+
+    assertThat(realm.isPermitted(col, "repository:pull:42")).isTrue();
+    assertThat(realm.isPermitted(col, "repository:push:42")).isFalse();
+    assertThat(realm.isPermitted(col, "repository:read:21")).isFalse();
+    assertThat(realm.isPermitted(col, "group:read:heart-of-gold")).isTrue();
+    assertThat(realm.hasRole(col, Role.USER)).isTrue();
+  }
+
   @Test
   public void testSimpleAuthentication() {
     User user = UserTestData.createTrillian();
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+
+package sonia.scm.security;
+
+import org.apache.shiro.authz.Permission;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PermissionIndexTest {
+
+  @Test
+  void shouldImplyExactRepositoryPermission() {
+    PermissionIndex index = index("repository:read,pull:42", "repository:read:43");
+
+    assertThat(index.implies(permission("repository:read:42"))).isTrue();
+    assertThat(index.implies(permission("repository:pull:42"))).isTrue();
+    assertThat(index.implies(permission("repository:read:43"))).isTrue();
+    assertThat(index.implies(permission("repository:pull:43"))).isFalse();
+    assertThat(index.implies(permission("repository:read:44"))).isFalse();
+  }
+
+  @Test
+  void shouldImplyPermissionsWithMultipleIds() {
+    PermissionIndex index = index("repository:read:42,43");
+
+    assertThat(index.implies(permission("repository:read:43"))).isTrue();
+    assertThat(index.implies(permission("repository:read:42,43"))).isTrue();
+    assertThat(index.implies(permission("repository:read:42,44"))).isFalse();
+  }
+
+  @Test
+  void shouldNotMixSubjects() {
+    PermissionIndex index = index("namespace:read:42");
+
+    assertThat(index.implies(permission("repository:read:42"))).isFalse();
+    assertThat(index.implies(permission("namespace:read:42"))).isTrue();
+  }
+
+  @Test
+  void shouldImplyWildcardIds() {
+    PermissionIndex index = index("repository:read:*", "user:autocomplete");
+
+    assertThat(index.implies(permission("repository:read:42"))).isTrue();
+    assertThat(index.implies(permission("repository:pull:42"))).isFalse();
+    assertThat(index.implies(permission("user:autocomplete:trillian"))).isTrue();
+  }
+
+  @Test
+  void shouldImplyEverythingWithGlobalWildcard() {
+    PermissionIndex index = index("repository:read:42", "*");
+
+    assertThat(index.implies(permission("repository:delete:21"))).isTrue();
+    assertThat(index.implies(permission("configuration:write"))).isTrue();
+  }
+
+  @Test
+  void shouldImplyPermissionsWithWildcardSubject() {
+    PermissionIndex index = index("*:read:42");
+
+    assertThat(index.implies(permission("repository:read:42"))).isTrue();
+    assertThat(index.implies(permission("repository:read:43"))).isFalse();
+  }
+
+  @Test
+  void shouldCheckQueriesWithWildcardIdsAgainstAllPermissionsOfSubject() {
+    PermissionIndex index = index("repository:read:42", "repository:*:43");
+
+    assertThat(index.implies(permission("repository:read:*"))).isFalse();
+    assertThat(index.implies(permission("repository:read"))).isFalse();
+    assertThat(index.implies(permission("repository:*:43"))).isTrue();
+  }
+
+  @Test
+  void shouldCheckOtherPermissionTypes() {
+    Permission custom = p -> p instanceof ScmWildcardPermission && p.toString().startsWith("custom");
+    PermissionIndex index = PermissionIndex.of(List.of(custom));
+
+    assertThat(index.implies(permission("custom:read:42"))).isTrue();
+    assertThat(index.implies(permission("repository:read:42"))).isFalse();
+  }
+
+  @Test
+  void shouldBehaveLikeLinearCheck() {
+    List<Permission> granted = permissions(
+      "repository:read,pull:1", "repository:push:2", "repository:*:3", "repository:read:*",
+      "namespace:read:hitchhiker", "user:read:trillian", "group:autocomplete", "*:delete:4", "repository:read,write:5,6"
+    );
+    List<Permission> checked = permissions(
+      "repository:read:1", "repository:push:1", "repository:push:2", "repository:delete:3", "repository:read:99",
+      "repository:pull:99", "repository:delete:4", "namespace:read:hitchhiker", "namespace:write:hitchhiker",
+      "user:read:trillian", "user:read:dent", "group:autocomplete", "group:read:heart-of-gold", "repository:write:5,6",
+      "repository:write:6,7", "repository:*:3", "repository:*:1", "*:read:1"
+    );
+
+    PermissionIndex index = PermissionIndex.of(granted);
+    for (Permission permission : checked) {
+      boolean expected = granted.stream().anyMatch(p -> p.implies(permission));
+      assertThat(index.implies(permission)).as(permission.toString()).isEqualTo(expected);
+    }
+  }
+
+  private PermissionIndex index(String... permissions) {
+    return PermissionIndex.of(permissions(permissions));
+  }
+
+  private List<Permission> permissions(String... permissions) {
+    return Arrays.stream(permissions).map(this::permission).collect(Collectors.toCollection(ArrayList::new));
+  }
+
+  private Permission permission(String permission) {
+    return new ScmWildcardPermission(permission);
+  }
+}
@@ -42,6 +42,9 @@ import sonia.scm.security.Authentications;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -238,6 +241,41 @@ class DefaultCentralWorkQueueTest {
       assertThat(blockCount).isPositive();
     }
 
+    @Test
+    void shouldCaptureBlockedDuration() {
+      for (int i = 0; i < ITERATIONS; i++) {
+        queue.append().locks("counter").enqueue(new Increase());
+      }
+      waitForTasks();
+
+      Timer timer = meterRegistry.get(UnitOfWork.METRIC_BLOCKED).timer();
+      assertThat(timer.count()).isPositive();
+    }
+
+    @Test
+    void shouldCaptureQueueDuration() {
+      queue.append().priority(CentralWorkQueue.Priority.LOW).enqueue(new Increase());
+      await().atMost(TIMEOUT, TimeUnit.SECONDS).until(() -> queue.getSize() == 0);
+
+      Timer timer = meterRegistry.get(UnitOfWork.METRIC_QUEUED).tag("priority", "LOW").timer();
+      assertThat(timer.count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRunBlockedTasksByPriority() {
+      List<String> executed = new CopyOnWriteArrayList<>();
+      CountDownLatch latch = new CountDownLatch(1);
+      queue.append().locks("counter").enqueue(() -> awaitLatch(latch));
+      queue.append().locks("counter").priority(CentralWorkQueue.Priority.LOW).enqueue(() -> executed.add("low"));
+      queue.append().locks("counter", "one").enqueue(() -> executed.add("normal"));
+      queue.append().locks("counter").priority(CentralWorkQueue.Priority.HIGH).enqueue(() -> executed.add("high"));
+
+      latch.countDown();
+      await().atMost(TIMEOUT, TimeUnit.SECONDS).until(() -> queue.getSize() == 0);
+
+      assertThat(executed).containsExactly("high", "normal", "low");
+    }
+
     @Nonnull
     private Repository repository(String id) {
       Repository one = new Repository();
@@ -267,6 +305,34 @@ class DefaultCentralWorkQueueTest {
     }
   }
 
+  @Test
+  void shouldPassTasksToFreeWorkerByPriority() {
+    DefaultCentralWorkQueue workQueue = new DefaultCentralWorkQueue(
+      Guice.createInjector(new SecurityModule()), persistence, new SimpleMeterRegistry(), () -> 1
+    );
+
+    List<String> executed = new CopyOnWriteArrayList<>();
+    CountDownLatch latch = new CountDownLatch(1);
+    workQueue.append().enqueue(() -> awaitLatch(latch));
+    workQueue.append().priority(CentralWorkQueue.Priority.LOW).enqueue(() -> executed.add("low"));
+    workQueue.append().enqueue(() -> executed.add("normal"));
+    workQueue.append().priority(CentralWorkQueue.Priority.HIGH).enqueue(() -> executed.add("high"));
+
+    latch.countDown();
+    await().atMost(TIMEOUT, TimeUnit.SECONDS).until(() -> workQueue.getSize() == 0);
+
+    assertThat(executed).containsExactly("high", "normal", "low");
+    workQueue.close();
+  }
+
+  private static void awaitLatch(CountDownLatch latch) {
+    try {
+      latch.await(TIMEOUT, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
   @Test
   void shouldInjectDependencies() {
     Context ctx = new Context();
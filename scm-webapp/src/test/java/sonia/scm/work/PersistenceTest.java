@@ -32,7 +32,9 @@ import sonia.scm.store.InMemoryBlobStoreFactory;
 
 import java.io.IOException;
 import java.io.ObjectOutputStream;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -150,6 +152,78 @@ class PersistenceTest {
     assertThat(persistence.loadAll()).hasSize(1);
   }
 
+  @Nested
+  class Journal {
+
+    private final InMemoryBlobStore blobStore = new InMemoryBlobStore();
+    private final Persistence persistence = new Persistence(PersistenceTest.class.getClassLoader(), blobStore);
+
+    @Test
+    void shouldRestoreAfterRestart() {
+      UnitOfWork one = unitOfWork(1L);
+      UnitOfWork two = unitOfWork(2L);
+      persistence.store(one);
+      persistence.store(two);
+      persistence.store(unitOfWork(3L));
+      persistence.remove(two);
+      persistence.close();
+
+      Persistence restarted = new Persistence(PersistenceTest.class.getClassLoader(), blobStore);
+      assertThat(restarted.loadAll())
+        .extracting(UnitOfWork::getOrder)
+        .containsExactly(1L, 3L);
+      assertThat(blobStore.getAll()).isEmpty();
+    }
+
+    @Test
+    void shouldRemoveSegmentsWithoutLiveUnits() {
+      UnitOfWork one = unitOfWork(1L);
+      UnitOfWork two = unitOfWork(2L);
+      persistence.store(one);
+      persistence.store(two);
+      persistence.remove(one);
+      persistence.remove(two);
+      persistence.close();
+
+      assertThat(blobStore.getAll()).isEmpty();
+    }
+
+    @Test
+    void shouldCompactSegments() {
+      List<UnitOfWork> units = new ArrayList<>();
+      for (long i = 1; i <= 40; i++) {
+        UnitOfWork unitOfWork = unitOfWork(i);
+        persistence.store(unitOfWork);
+        units.add(unitOfWork);
+      }
+      units.stream().skip(1).forEach(persistence::remove);
+      persistence.close();
+
+      assertThat(blobStore.getAll()).hasSizeLessThan(units.size());
+      assertThat(persistence.loadAll())
+        .extracting(UnitOfWork::getOrder)
+        .containsExactly(1L);
+    }
+
+    @Test
+    void shouldLoadUnitsStoredWithoutJournal() throws IOException {
+      Blob blob = blobStore.create();
+      try (ObjectOutputStream stream = new ObjectOutputStream(blob.getOutputStream())) {
+        stream.writeObject(unitOfWork(2L));
+        blob.commit();
+      }
+      persistence.store(unitOfWork(1L));
+
+      assertThat(persistence.loadAll())
+        .extracting(UnitOfWork::getOrder)
+        .containsExactly(1L, 2L);
+    }
+
+    private UnitOfWork unitOfWork(long order) {
+      return new SimpleUnitOfWork(order, principal, Collections.emptySet(), new MyTask());
+    }
+  }
+
   @EqualsAndHashCode
   public static class MyTask implements Task {
 
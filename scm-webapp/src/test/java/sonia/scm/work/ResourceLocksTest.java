@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2020 - present Cloudogu GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Affero General Public License as published by the Free
+ * Software Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see https://www.gnu.org/licenses/.
+ */
+
+package sonia.scm.work;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResourceLocksTest {
+
+  private final ResourceLocks locks = new ResourceLocks();
+
+  @Test
+  void shouldBeFreeWithoutLocks() {
+    assertThat(locks.isFree(Set.of(res("a"), res("b", "c")))).isTrue();
+  }
+
+  @Test
+  void shouldBlockLikeResource() {
+    locks.lock(Set.of(res("a", "b")));
+
+    assertThat(locks.isLocked(res("a", "b"))).isTrue();
+    assertThat(locks.isLocked(res("a"))).isTrue();
+    assertThat(locks.isLocked(res("a", "c"))).isFalse();
+    assertThat(locks.isLocked(res("c", "b"))).isFalse();
+  }
+
+  @Test
+  void shouldBlockAllIdsByTypeLock() {
+    locks.lock(Set.of(res("a")));
+
+    assertThat(locks.isLocked(res("a"))).isTrue();
+    assertThat(locks.isLocked(res("a", "b"))).isTrue();
+    assertThat(locks.isFree(Set.of(res("b"), res("a", "c")))).isFalse();
+  }
+
+  @Test
+  void shouldCountLocks() {
+    locks.lock(Set.of(res("a", "b")));
+    locks.lock(Set.of(res("a", "b")));
+
+    locks.unlock(Set.of(res("a", "b")));
+    assertThat(locks.isLocked(res("a", "b"))).isTrue();
+
+    locks.unlock(Set.of(res("a", "b")));
+    assertThat(locks.isLocked(res("a", "b"))).isFalse();
+    assertThat(locks.isLocked(res("a"))).isFalse();
+  }
+
+  private Resource res(String name) {
+    return new Resource(name);
+  }
+
+  private Resource res(String name, String id) {
+    return new Resource(name, id);
+  }
+}